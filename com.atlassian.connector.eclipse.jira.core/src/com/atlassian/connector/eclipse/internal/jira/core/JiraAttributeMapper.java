@@ -11,7 +11,6 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core;
 
-import java.text.ParseException;
 import java.util.Collections;
 import java.util.Date;
 import java.util.LinkedHashMap;
@@ -29,7 +28,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
-import com.atlassian.connector.eclipse.internal.jira.core.service.web.rss.JiraRssHandler;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.atlassian.connector.eclipse.internal.jira.core.util.JiraUtil;
 
 /**
@@ -47,19 +46,14 @@ public class JiraAttributeMapper extends TaskAttributeMapper implements ITaskAtt
 	@Override
 	public Date getDateValue(TaskAttribute attribute) {
 		if (JiraUtil.isCustomDateTimeAttribute(attribute)) {
-			try {
-//				return JiraRssHandler.getDateTimeFormat().parse(attribute.getValue());
-				return client.getDateTimeFormat().parse(attribute.getValue());
-			} catch (ParseException e) {
-				return null;
+			Date date = JiraDateFormats.parse(client.getDateTimeFormat(), attribute.getValue());
+			if (date == null) {
+				// the value was set locally
+				date = JiraDateFormats.parse(JiraDateFormats.ATTRIBUTE_DATE_TIME, attribute.getValue());
 			}
+			return date;
 		} else if (JiraUtil.isCustomDateAttribute(attribute)) {
-			try {
-//				return JiraRssHandler.getDateTimeFormat().parse(attribute.getValue());
-				return client.getDateFormat().parse(attribute.getValue());
-			} catch (ParseException e) {
-				return null;
-			}
+			return JiraDateFormats.parse(client.getDateFormat(), attribute.getValue());
 		} else {
 			return super.getDateValue(attribute);
 		}
@@ -68,7 +62,7 @@ public class JiraAttributeMapper extends TaskAttributeMapper implements ITaskAtt
 	@Override
 	public void setDateValue(TaskAttribute attribute, Date date) {
 		if (JiraUtil.isCustomDateTimeAttribute(attribute)) {
-			attribute.setValue(date != null ? JiraRssHandler.getDateTimeFormat().format(date) : "");
+			attribute.setValue(date != null ? JiraDateFormats.ATTRIBUTE_DATE_TIME.print(date.getTime()) : ""); //$NON-NLS-1$
 		} else {
 			super.setDateValue(attribute, date);
 		}
@@ -13,13 +13,10 @@
 package com.atlassian.connector.eclipse.internal.jira.core;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,10 +27,13 @@ import org.eclipse.mylyn.commons.core.StatusHandler;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 
 import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraAttachmentCache;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraAuthenticationException;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientData;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientDataStore;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraIssueCache;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraLocalConfiguration;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraServiceUnavailableException;
 
@@ -45,19 +45,28 @@ import com.atlassian.connector.eclipse.internal.jira.core.service.JiraServiceUna
  */
 public class JiraClientManager {
 
+	/** The file that contained the configuration data of all repositories in previous versions. */
 	public static final String CONFIGURATION_DATA_FILENAME = "repositoryConfigurations"; //$NON-NLS-1$
 
-	public static final int CONFIGURATION_DATA_VERSION = 1;
+	/** The name of the directory that contains the configuration data of each repository. */
+	public static final String CONFIGURATION_DIRECTORY = "configurations"; //$NON-NLS-1$
+
+	/** The name of the directory that contains the issue caches of all repositories. */
+	public static final String ISSUE_CACHE_DIRECTORY = "issues"; //$NON-NLS-1$
+
+	/** The name of the directory that contains the attachment caches of all repositories. */
+	public static final String ATTACHMENT_CACHE_DIRECTORY = "attachments"; //$NON-NLS-1$
 
 	/** The directory that contains the repository configuration data. */
 	private final File cacheLocation;
 
 	private final Map<String, JiraClient> clientByUrl = new HashMap<String, JiraClient>();
 
-	private final Map<String, JiraClientData> clientDataByUrl = new HashMap<String, JiraClientData>();
+	private final JiraClientDataStore dataStore;
 
 	public JiraClientManager(File cacheLocation) {
 		this.cacheLocation = cacheLocation;
+		this.dataStore = new JiraClientDataStore(new File(cacheLocation, CONFIGURATION_DIRECTORY));
 	}
 
 	protected void start() {
@@ -78,57 +87,74 @@ public class JiraClientManager {
 				}
 			}
 		} else {
-			ObjectInputStream in = null;
-			try {
-				in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
-				in.readInt(); // version
-				int count = in.readInt();
-				for (int i = 0; i < count; i++) {
-					String url = (String) in.readObject();
-					JiraClientData data = (JiraClientData) in.readObject();
-					clientDataByUrl.put(url, data);
-				}
-			} catch (Throwable e) {
-				StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN,
-						"Reset JIRA repository configuration cache due to format change")); //$NON-NLS-1$
-			} finally {
-				if (in != null) {
-					try {
-						in.close();
-					} catch (IOException e) {
-					}
+			migrateConfigurationData(file);
+		}
+	}
+
+	/**
+	 * Converts the configuration data written by previous versions so it does not need to be retrieved from the
+	 * repositories again.
+	 */
+	private void migrateConfigurationData(File file) {
+		Map<String, JiraClientData> clientDataByUrl = new HashMap<String, JiraClientData>();
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			in.readInt(); // version
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				String url = (String) in.readObject();
+				JiraClientData data = (JiraClientData) in.readObject();
+				clientDataByUrl.put(url, data);
+			}
+		} catch (Throwable e) {
+			StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN,
+					"Reset JIRA repository configuration cache due to format change")); //$NON-NLS-1$
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException e) {
 				}
 			}
 		}
+
+		for (String url : clientDataByUrl.keySet()) {
+			if (!dataStore.exists(url)) {
+				writeConfigurationData(url, clientDataByUrl.get(url));
+			}
+		}
+		file.delete();
 	}
 
 	protected void stop() {
-		File file = new File(cacheLocation, CONFIGURATION_DATA_FILENAME);
+		for (JiraClient client : clientByUrl.values()) {
+			saveClient(client);
+			client.dispose();
+		}
+	}
 
-		// update data map from clients
-		for (String url : clientByUrl.keySet()) {
-			clientDataByUrl.put(url, clientByUrl.get(url).getCache().getData());
+	/**
+	 * Writes the data of <code>client</code> that has changed since it was last written.
+	 */
+	private void saveClient(JiraClient client) {
+		if (client.getCache().isModified()) {
+			writeConfigurationData(client.getBaseUrl(), client.getCache().getData());
+		}
+		if (client.getIssueCache() != null) {
+			client.getIssueCache().save();
 		}
+		if (client.getAttachmentCache() != null) {
+			client.getAttachmentCache().save();
+		}
+	}
 
-		ObjectOutputStream out = null;
+	private void writeConfigurationData(String url, JiraClientData data) {
 		try {
-			out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
-			out.writeInt(CONFIGURATION_DATA_VERSION);
-			out.writeInt(clientDataByUrl.size());
-			for (String url : clientDataByUrl.keySet()) {
-				out.writeObject(url);
-				out.writeObject(clientDataByUrl.get(url));
-			}
-		} catch (Throwable e) {
+			dataStore.write(url, data);
+		} catch (IOException e) {
 			StatusHandler.log(new Status(IStatus.WARNING, JiraCorePlugin.ID_PLUGIN,
 					"Error writing JIRA repository configuration cache", e)); //$NON-NLS-1$
-		} finally {
-			if (out != null) {
-				try {
-					out.close();
-				} catch (IOException e) {
-				}
-			}
 		}
 	}
 
@@ -152,10 +178,13 @@ public class JiraClientManager {
 	public ServerInfo validateConnection(AbstractWebLocation location, JiraLocalConfiguration configuration,
 			IProgressMonitor monitor) throws JiraException {
 		JiraClient client = createClient(location, configuration);
+		try {
+			client.getSessionInfo(monitor);
 
-		client.getSessionInfo(monitor);
-
-		return client.getServerInfo(monitor);
+			return client.getServerInfo(monitor);
+		} finally {
+			client.dispose();
+		}
 	}
 
 	public JiraClient getClient(String url) {
@@ -179,10 +208,13 @@ public class JiraClientManager {
 		}
 
 		JiraClient client = createClient(location, configuration);
-		JiraClientData data = clientDataByUrl.get(location.getUrl());
+		JiraClientData data = dataStore.read(location.getUrl());
 		if (data != null) {
 			client.getCache().setData(data);
 		}
+		client.setIssueCache(new JiraIssueCache(getIssueCacheLocation(location.getUrl()), location.getUrl()));
+		client.setAttachmentCache(new JiraAttachmentCache(getAttachmentCacheLocation(location.getUrl()),
+				location.getUrl()));
 		clientByUrl.put(location.getUrl(), client);
 
 		return client;
@@ -195,18 +227,46 @@ public class JiraClientManager {
 	public void removeClient(JiraClient client, boolean clearData) {
 		// TODO trigger logout?
 		if (clearData) {
-			clientDataByUrl.remove(client.getBaseUrl());
+			dataStore.delete(client.getBaseUrl());
+			if (client.getIssueCache() != null) {
+				client.getIssueCache().clear();
+			}
+			if (client.getAttachmentCache() != null) {
+				client.getAttachmentCache().clear();
+			}
 		} else {
-			clientDataByUrl.put(client.getBaseUrl(), client.getCache().getData());
+			saveClient(client);
 		}
 		clientByUrl.remove(client.getBaseUrl());
+		client.dispose();
 	}
 
 	public void removeAllClients(boolean clearData) {
 		if (clearData) {
-			clientDataByUrl.clear();
+			dataStore.clear();
+		}
+		for (JiraClient client : clientByUrl.values()) {
+			if (clearData) {
+				if (client.getIssueCache() != null) {
+					client.getIssueCache().clear();
+				}
+				if (client.getAttachmentCache() != null) {
+					client.getAttachmentCache().clear();
+				}
+			} else {
+				saveClient(client);
+			}
+			client.dispose();
 		}
 		clientByUrl.clear();
 	}
 
+	private File getIssueCacheLocation(String url) {
+		return new File(new File(cacheLocation, ISSUE_CACHE_DIRECTORY), Integer.toHexString(url.hashCode()));
+	}
+
+	private File getAttachmentCacheLocation(String url) {
+		return new File(new File(cacheLocation, ATTACHMENT_CACHE_DIRECTORY), Integer.toHexString(url.hashCode()));
+	}
+
 }
@@ -16,11 +16,10 @@ package com.atlassian.connector.eclipse.internal.jira.core;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -45,16 +44,16 @@ import org.eclipse.mylyn.tasks.core.sync.ISynchronizationSession;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraFilter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Priority;
-import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.DateRangeFilter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.FilterDefinition;
-import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IncrementalIssueCollector;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.JiraFields;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.Order;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.RelativeDateRangeFilter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.RelativeDateRangeFilter.RangeType;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraIssueKeyMatcher;
 import com.atlassian.connector.eclipse.internal.jira.core.util.JiraUtil;
 
 /**
@@ -151,98 +150,101 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 
 	@Override
 	public void preSynchronization(ISynchronizationSession session, IProgressMonitor monitor) throws CoreException {
-//		monitor = Policy.monitorFor(monitor);
-//		try {
-//			monitor.beginTask(Messages.JiraRepositoryConnector_Getting_changed_tasks, IProgressMonitor.UNKNOWN);
-//
-//			session.setNeedsPerformQueries(true);
-//
-//			if (!session.isFullSynchronization()) {
-//				return;
-//			}
-//
-//			Date now = new Date();
-//			TaskRepository repository = session.getTaskRepository();
-//			FilterDefinition changedFilter = getSynchronizationFilter(session, now);
-//			if (changedFilter == null) {
-//				// could not determine last time, rerun queries
-//				repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
-//				return;
-//			}
-//
-//			List<JiraIssue> issues = new ArrayList<JiraIssue>();
-//			JiraClient client = JiraClientFactory.getDefault().getJiraClient(repository);
-//			int maxResults = JiraUtil.getMaxSearchResults(repository);
-//			if (maxResults <= 0) {
-//				maxResults = MAX_MARK_STALE_QUERY_HITS;
-//			} else {
-//				maxResults = Math.min(MAX_MARK_STALE_QUERY_HITS, maxResults);
-//			}
-//			// unlimited maxHits can create crazy amounts of traffic
-//			JiraIssueCollector issueCollector = new JiraIssueCollector(new NullProgressMonitor(), issues, maxResults);
-//			try {
-//				client.search(changedFilter, issueCollector, monitor);
-//
-//				if (issues.isEmpty()) {
-//					// repository is unchanged
-//					repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
-//					session.setNeedsPerformQueries(false);
-//					return;
-//				}
-//
-//				HashMap<String, ITask> taskById = new HashMap<String, ITask>();
-//				for (ITask task : session.getTasks()) {
-//					taskById.put(task.getTaskId(), task);
-//				}
-//				for (JiraIssue issue : issues) {
-//					ITask task = taskById.get(issue.getId());
-//					if (task != null) {
-//						if (issue.getProject() == null) {
-//							throw new CoreException(new Status(IStatus.ERROR, JiraCorePlugin.ID_PLUGIN, 0,
-//									ERROR_REPOSITORY_CONFIGURATION, null));
-//						}
-//
-//						// for JIRA sufficient information to create task data is returned by the query so no need to mark tasks as stale
-//						monitor.subTask(issue.getKey() + " " + issue.getSummary()); //$NON-NLS-1$
-//						// only load old task data from if necessary
-//						if (hasChanged(task, issue)) {
-//							TaskData oldTaskData = null;
-//							if (session.getTaskDataManager() != null) {
-//								try {
-//									oldTaskData = session.getTaskDataManager().getTaskData(repository, issue.getId());
-//								} catch (CoreException e) {
-//									// ignore
-//								}
-//							}
-//							TaskData taskData = taskDataHandler.createTaskData(repository, client, issue, oldTaskData,
-//									monitor);
-//							session.putTaskData(task, taskData);
-//						}
-//					}
-//				}
-//
-//				repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
-//
-//				Date lastUpdate = issues.get(0).getUpdated();
-//				Date repositoryUpdateTimeStamp = JiraUtil.getLastUpdate(repository);
-//				if (repositoryUpdateTimeStamp != null && repositoryUpdateTimeStamp.equals(lastUpdate)) {
-//					// didn't see any new changes
-//					session.setNeedsPerformQueries(false);
-//				} else {
-//					// updates may have caused tasks to match/not match a query therefore we need to rerun all queries
-//					if (lastUpdate != null) {
-//						JiraUtil.setLastUpdate(repository, lastUpdate);
-//					}
-//				}
-//			} catch (JiraException e) {
-//				e.printStackTrace();
-//				IStatus status = JiraCorePlugin.toStatus(repository, e);
-//				trace(status);
-//				throw new CoreException(status);
-//			}
-//		} finally {
-//			monitor.done();
-//		}
+		monitor = Policy.monitorFor(monitor);
+		try {
+			monitor.beginTask(Messages.JiraRepositoryConnector_Getting_changed_tasks, IProgressMonitor.UNKNOWN);
+
+			session.setNeedsPerformQueries(true);
+
+			if (!session.isFullSynchronization()) {
+				return;
+			}
+
+			Date now = new Date();
+			TaskRepository repository = session.getTaskRepository();
+			FilterDefinition changedFilter = getSynchronizationFilter(session, now);
+			if (changedFilter == null) {
+				// could not determine last time, rerun queries
+				repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
+				return;
+			}
+
+			List<JiraIssue> issues = new ArrayList<JiraIssue>();
+			JiraClient client = JiraClientFactory.getDefault().getJiraClient(repository);
+			int maxResults = JiraUtil.getMaxSearchResults(repository);
+			if (maxResults <= 0) {
+				maxResults = MAX_MARK_STALE_QUERY_HITS;
+			} else {
+				maxResults = Math.min(MAX_MARK_STALE_QUERY_HITS, maxResults);
+			}
+			// unlimited maxHits can create crazy amounts of traffic
+			JiraIssueCollector issueCollector = new JiraIssueCollector(monitor, issues, maxResults);
+			try {
+				if (!client.getCache().hasDetails()) {
+					client.getCache().refreshDetails(monitor);
+				}
+
+				client.search(changedFilter, issueCollector, monitor);
+
+				if (issues.isEmpty()) {
+					// repository is unchanged
+					repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
+					session.setNeedsPerformQueries(false);
+					return;
+				}
+
+				Map<String, ITask> taskById = new HashMap<String, ITask>();
+				for (ITask task : session.getTasks()) {
+					taskById.put(task.getTaskId(), task);
+				}
+				for (JiraIssue issue : issues) {
+					ITask task = taskById.get(issue.getId());
+					if (task != null) {
+						if (issue.getProject() == null) {
+							throw new CoreException(new Status(IStatus.ERROR, JiraCorePlugin.ID_PLUGIN, 0,
+									ERROR_REPOSITORY_CONFIGURATION, null));
+						}
+
+						// for JIRA sufficient information to create task data is returned by the query so no need to mark tasks as stale
+						monitor.subTask(issue.getKey() + " " + issue.getSummary()); //$NON-NLS-1$
+						// only load old task data from if necessary
+						if (hasChanged(task, issue)) {
+							TaskData oldTaskData = null;
+							if (session.getTaskDataManager() != null) {
+								try {
+									oldTaskData = session.getTaskDataManager().getTaskData(repository, issue.getId());
+								} catch (CoreException e) {
+									// ignore
+								}
+							}
+							TaskData taskData = taskDataHandler.createTaskData(repository, client, issue, oldTaskData,
+									monitor);
+							session.putTaskData(task, taskData);
+						}
+					}
+				}
+
+				repository.setSynchronizationTimeStamp(JiraUtil.dateToString(now));
+
+				Date lastUpdate = issues.get(0).getUpdated();
+				Date repositoryUpdateTimeStamp = JiraUtil.getLastUpdate(repository);
+				if (repositoryUpdateTimeStamp != null && repositoryUpdateTimeStamp.equals(lastUpdate)) {
+					// didn't see any new changes
+					session.setNeedsPerformQueries(false);
+				} else {
+					// updates may have caused tasks to match/not match a query therefore we need to rerun all queries
+					if (lastUpdate != null) {
+						JiraUtil.setLastUpdate(repository, lastUpdate);
+					}
+				}
+			} catch (JiraException e) {
+				IStatus status = JiraCorePlugin.toStatus(repository, e);
+				trace(status);
+				throw new CoreException(status);
+			}
+		} finally {
+			monitor.done();
+		}
 	}
 
 	@Override
@@ -355,25 +357,11 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 	@Override
 	public String[] getTaskIdsFromComment(TaskRepository repository, String comment) {
 		JiraClient client = JiraClientFactory.getDefault().getJiraClient(repository);
-		Project[] projects = client.getCache().getProjects();
-		if (projects != null && projects.length > 0) {
-			// (?:(MNGECLIPSE-\d+?)|(SPR-\d+?))\D
-			StringBuilder sb = new StringBuilder("("); //$NON-NLS-1$
-			String sep = ""; //$NON-NLS-1$
-			for (Project project : projects) {
-				sb.append(sep).append("(?:" + project.getKey() + "\\-\\d+?)"); //$NON-NLS-1$ //$NON-NLS-2$
-				sep = "|"; //$NON-NLS-1$
-			}
-			sb.append(")(?:\\D|\\z)"); //$NON-NLS-1$
-
-			Pattern p = Pattern.compile(sb.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE);
-			Matcher m = p.matcher(comment);
-			if (m.find()) {
-				HashSet<String> ids = new HashSet<String>();
-				do {
-					ids.add(m.group(1));
-				} while (m.find());
-				return ids.toArray(new String[ids.size()]);
+		JiraIssueKeyMatcher matcher = client.getCache().getIssueKeyMatcher();
+		if (!matcher.isEmpty()) {
+			String[] issueKeys = matcher.findIssueKeys(comment);
+			if (issueKeys.length > 0) {
+				return issueKeys;
 			}
 		}
 
@@ -510,7 +498,10 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 
 		TaskMapper scheme = getTaskMapping(taskData);
 		scheme.applyTo(task);
-		task.setCompletionDate(scheme.getCompletionDate());
+		// partial task data lacks the status and resolution: keep the completion date of the last full synchronization
+		if (!taskData.isPartial()) {
+			task.setCompletionDate(scheme.getCompletionDate());
+		}
 
 		// flag subtasks to disable creation of sub-subtasks
 		TaskAttribute attribute = taskData.getRoot().getAttribute(JiraAttribute.TYPE.id());
@@ -518,7 +509,7 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 			boolean isSubTask = Boolean.parseBoolean(attribute.getMetaData()
 					.getValue(IJiraConstants.META_SUB_TASK_TYPE));
 			task.setAttribute(IJiraConstants.META_SUB_TASK_TYPE, Boolean.toString(isSubTask));
-		} else {
+		} else if (!taskData.isPartial()) {
 			task.setAttribute(IJiraConstants.META_SUB_TASK_TYPE, Boolean.toString(false));
 		}
 
@@ -577,7 +568,11 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 		return taskData.getRoot().getMappedAttribute(JiraAttribute.DUE_DATE.id()) != null;
 	}
 
-	private class QueryHitCollector implements IssueCollector {
+	/**
+	 * Only creates task data for issues that are new or have changed since the task was last synchronized. Unchanged
+	 * issues are reported as partial task data that only contains the key and the modification date.
+	 */
+	private class QueryHitCollector implements IncrementalIssueCollector {
 
 		private final IProgressMonitor monitor;
 
@@ -589,6 +584,8 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 
 		private final int maxHits;
 
+		private final Map<String, ITask> taskById;
+
 		private List<IStatus> statuses;
 
 		public QueryHitCollector(TaskRepository repository, JiraClient client, TaskDataCollector collector,
@@ -598,6 +595,21 @@ public class JiraRepositoryConnector extends AbstractRepositoryConnector {
 			this.collector = collector;
 			this.monitor = monitor;
 			this.maxHits = JiraUtil.getMaxSearchResults(repository);
+			this.taskById = new HashMap<String, ITask>();
+			if (session != null) {
+				for (ITask task : session.getTasks()) {
+					taskById.put(task.getTaskId(), task);
+				}
+			}
+		}
+
+		public boolean isChanged(JiraIssue issue) {
+			ITask task = taskById.get(issue.getId());
+			return task == null || hasChanged(task, issue);
+		}
+
+		public void collectUnchangedIssue(JiraIssue issue) {
+			collector.accept(taskDataHandler.createPartialTaskData(repository, issue));
 		}
 
 		public void collectIssue(JiraIssue issue) {
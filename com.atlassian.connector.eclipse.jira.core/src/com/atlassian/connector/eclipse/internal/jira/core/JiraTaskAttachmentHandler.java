@@ -11,14 +11,16 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core;
 
-import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
 
 import org.apache.commons.io.IOUtils;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.mylyn.commons.net.Policy;
 import org.eclipse.mylyn.tasks.core.ITask;
 import org.eclipse.mylyn.tasks.core.TaskRepository;
@@ -51,10 +53,21 @@ public class JiraTaskAttachmentHandler extends AbstractTaskAttachmentHandler {
 		return true;
 	}
 
-	private InputStream downloadAttachment(TaskRepository repository, ITask task, String attachmentId,
+	private InputStream downloadAttachment(TaskRepository repository, ITask task, TaskAttachmentMapper attachment,
 			IProgressMonitor monitor) throws CoreException {
 		JiraClient client = JiraClientFactory.getDefault().getJiraClient(repository);
+		String attachmentId = attachment.getAttachmentId();
 		try {
+			// the task data has the location and size of the content, the issue is only retrieved if it does not
+			if (attachment.getUrl() != null && attachment.getLength() != null) {
+				try {
+					return client.getAttachment(attachmentId, attachment.getLength().longValue(),
+							new URI(attachment.getUrl()), monitor);
+				} catch (URISyntaxException e) {
+					// retrieve the location from the issue
+				}
+			}
+
 			JiraIssue issue = client.getIssueByKey(task.getTaskKey(), monitor);
 			Attachment jiraAttachment = issue.getAttachmentById(attachmentId);
 			if (jiraAttachment == null) {
@@ -72,10 +85,14 @@ public class JiraTaskAttachmentHandler extends AbstractTaskAttachmentHandler {
 			IProgressMonitor monitor) throws CoreException {
 		monitor = Policy.monitorFor(monitor);
 		try {
-			monitor.beginTask(Messages.JiraTaskAttachmentHandler_Getting_attachment, IProgressMonitor.UNKNOWN);
 			TaskAttachmentMapper attachment = TaskAttachmentMapper.createFrom(attachmentAttribute);
+			// the download reports the bytes received as work
+			Long length = attachment.getLength();
+			monitor.beginTask(Messages.JiraTaskAttachmentHandler_Getting_attachment,
+					(length != null && length.longValue() > 0 && length.longValue() <= Integer.MAX_VALUE) ? length
+							.intValue() : IProgressMonitor.UNKNOWN);
 //			ByteArrayOutputStream out = new ByteArrayOutputStream();
-			return downloadAttachment(repository, task, attachment.getAttachmentId(), monitor);
+			return downloadAttachment(repository, task, attachment, monitor);
 //			downloadAttachment(repository, task, attachment.getAttachmentId(), out, monitor);
 //			return new ByteArrayInputStream(out.toByteArray());
 		} finally {
@@ -90,7 +107,8 @@ public class JiraTaskAttachmentHandler extends AbstractTaskAttachmentHandler {
 		try {
 			UnsubmittedTaskAttachment taskAttachment = new UnsubmittedTaskAttachment(source, attachmentAttribute);
 
-			monitor.beginTask(Messages.JiraTaskAttachmentHandler_Sending_attachment, IProgressMonitor.UNKNOWN);
+			SubMonitor progress = SubMonitor.convert(monitor,
+					Messages.JiraTaskAttachmentHandler_Sending_attachment, 10);
 			String filename = source.getName();
 			if (attachmentAttribute != null) {
 				TaskAttachmentMapper mapper = TaskAttachmentMapper.createFrom(attachmentAttribute);
@@ -99,15 +117,14 @@ public class JiraTaskAttachmentHandler extends AbstractTaskAttachmentHandler {
 				}
 			}
 
-			InputStream is = source.createInputStream(monitor);
+			InputStream is = source.createInputStream(progress.newChild(1));
 			JiraClient server = JiraClientFactory.getDefault().getJiraClient(repository);
 			try {
-				JiraIssue issue = server.getIssueByKey(task.getTaskKey(), monitor);
-				server.addAttachment(issue, comment, filename, IOUtils.toByteArray(is), monitor);
+				JiraIssue issue = server.getIssueByKey(task.getTaskKey(), progress.newChild(1));
+				// the client sizes its task by the length and reports the bytes sent as work
+				server.addAttachment(issue, comment, filename, is, source.getLength(), progress.newChild(8));
 			} catch (JiraException e) {
 				throw new CoreException(JiraCorePlugin.toStatus(repository, e));
-			} catch (IOException e) {
-				throw new CoreException(JiraCorePlugin.toStatus(repository, e));
 			} finally {
 				IOUtils.closeQuietly(is);
 			}
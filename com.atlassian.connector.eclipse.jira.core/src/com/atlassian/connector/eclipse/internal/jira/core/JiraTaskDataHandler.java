@@ -78,6 +78,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraTimeFormat;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter.IssueOperationContext;
 import com.atlassian.connector.eclipse.internal.jira.core.util.JiraUtil;
 
 /**
@@ -201,6 +202,22 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 		return data;
 	}
 
+	/**
+	 * Creates partial task data that only contains the key and the modification date of <code>jiraIssue</code>. This
+	 * is sufficient for query hits that have not changed since the task was last synchronized.
+	 */
+	public TaskData createPartialTaskData(TaskRepository repository, JiraIssue jiraIssue) {
+		TaskData data = new TaskData(getAttributeMapper(repository), JiraCorePlugin.CONNECTOR_KIND,
+				repository.getRepositoryUrl(), jiraIssue.getId());
+		data.setVersion(TASK_DATA_VERSION_CURRENT.toString());
+		data.setPartial(true);
+		createAttribute(data, JiraAttribute.ISSUE_KEY);
+		createAttribute(data, JiraAttribute.MODIFICATION_DATE);
+		setAttributeValue(data, JiraAttribute.ISSUE_KEY, jiraIssue.getKey());
+		setAttributeValue(data, JiraAttribute.MODIFICATION_DATE, JiraUtil.dateToString(jiraIssue.getUpdated()));
+		return data;
+	}
+
 	private Project ensureProjectHasDetails(JiraClient client, TaskRepository repository, Project project,
 			IProgressMonitor monitor) throws JiraException {
 		if (!project.hasDetails()) {
@@ -999,7 +1016,8 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 					}
 
 					if (taskData.getRoot().getAttribute(IJiraConstants.ATTRIBUTE_WORKLOG_NOT_SUPPORTED) == null) {
-						postWorkLog(repository, client, taskData, issue, monitor);
+						postWorkLog(client, client.createIssueOperationContext(issue.getKey(), monitor), taskData,
+								monitor);
 					}
 
 					// this is severely broken: should return id instead
@@ -1009,6 +1027,9 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 					String operationId = getOperationId(taskData);
 					String newComment = getNewComment(taskData);
 
+					// retrieves the issue and its transitions at most once for all requests below
+					IssueOperationContext context = client.createIssueOperationContext(issue.getKey(), monitor);
+
 					Set<String> changeIds = new HashSet<String>();
 					if (changedAttributes != null) {
 						for (TaskAttribute ta : changedAttributes) {
@@ -1040,7 +1061,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 					boolean advWorkflowHandled = false;
 
 					if (!handled && changeIds.contains(IJiraConstants.WORKLOG_NEW)) {
-						postWorkLog(repository, client, taskData, issue, monitor);
+						postWorkLog(client, context, taskData, monitor);
 
 						changeIds.remove(IJiraConstants.WORKLOG_NEW);
 
@@ -1055,7 +1076,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 						anythingElse.removeAll(Arrays.asList(TaskAttribute.USER_ASSIGNED, TaskAttribute.COMMENT_NEW));
 						if (anythingElse.size() == 0) {
 							// no more changes, so that's a re-assign operation (we can't count on operationId == REASSIGN_OPERATION)
-							client.assignIssueTo(issue, getAssignee(taskData), newComment, monitor);
+							client.assignIssueTo(context, issue, getAssignee(taskData), newComment, monitor);
 
 							handled = true;
 						}
@@ -1068,10 +1089,8 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 								TaskAttribute.RESOLUTION));
 						if (anythingElse.size() == 0) {
 							// no more changes, so that's a adv workflow operation
-							client.advanceIssueWorkflow(issue, operationId, null, monitor);
-							if (newComment != null && newComment.length() > 0) {
-								client.addCommentToIssue(issue.getKey(), newComment, monitor);
-							}
+							// the comment is added with the transition or separately if the transition has no screen
+							client.advanceIssueWorkflow(context, issue, operationId, newComment, monitor);
 							handled = true;
 							advWorkflowHandled = true;
 						}
@@ -1079,7 +1098,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 
 					// stop progress must be run before issue is updated because assignee can be changed on update and this will cause stop progress to fail
 					if (!handled && STOP_PROGRESS_OPERATION.equals(operationId)) {
-						client.advanceIssueWorkflow(issue, operationId, null, monitor); //comment will be updated in the normal workflow, so don't post it here
+						client.advanceIssueWorkflow(context, issue, operationId, null, monitor); //comment will be updated in the normal workflow, so don't post it here
 						advWorkflowHandled = true;
 					}
 
@@ -1089,18 +1108,19 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 							&& taskData.getRoot().getMappedAttribute(IJiraConstants.ATTRIBUTE_READ_ONLY) == null
 							&& !changeIds.equals(Collections.singleton(TaskAttribute.COMMENT_NEW))
 							&& !(STOP_PROGRESS_OPERATION.equals(operationId) && changeIds.equals(Collections.singleton(TaskAttribute.OPERATION)))) {
-						client.updateIssue(issue, newComment, changeIds.contains(JiraAttribute.ESTIMATE.id()), monitor);
+						client.updateIssue(context, issue, newComment, changeIds.contains(JiraAttribute.ESTIMATE.id()),
+								monitor);
 						handled = true;
 					}
 
 					// try to at least post the comment (if everything else failed)
 					if (!handled && newComment != null && newComment.length() > 0) {
-						client.addCommentToIssue(issue.getKey(), newComment, monitor);
+						client.addCommentToIssue(context, newComment, monitor);
 						handled = true;
 					} else if (soapComment != null) {
 						// no handling of comments visibility now
 //						client.addCommentToIssue(issue.getKey(), soapComment, monitor);
-						client.addCommentToIssue(issue.getKey(), soapComment.getComment(), monitor);
+						client.addCommentToIssue(context, soapComment.getComment(), monitor);
 						handled = true;
 					}
 
@@ -1109,7 +1129,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 					// and do advanced workflow if necessary
 					if (!advWorkflowHandled && !LEAVE_OPERATION.equals(operationId)
 							&& !REASSIGN_OPERATION.equals(operationId) && !STOP_PROGRESS_OPERATION.equals(operationId)) {
-						client.advanceIssueWorkflow(issue, operationId, null, monitor); //comment gets updated in the normal workflow already, so don"t post it a second time
+						client.advanceIssueWorkflow(context, issue, operationId, null, monitor); //comment gets updated in the normal workflow already, so don"t post it a second time
 					}
 					return new RepositoryResponse(ResponseKind.TASK_UPDATED, issue.getId());
 				}
@@ -1123,7 +1143,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 		}
 	}
 
-	private void postWorkLog(TaskRepository repository, JiraClient client, TaskData taskData, JiraIssue issue,
+	private void postWorkLog(JiraClient client, IssueOperationContext context, TaskData taskData,
 			IProgressMonitor monitor) throws JiraException {
 		TaskAttribute attribute = taskData.getRoot().getMappedAttribute(WorkLogConverter.ATTRIBUTE_WORKLOG_NEW);
 		if (attribute != null) {
@@ -1131,7 +1151,7 @@ public class JiraTaskDataHandler extends AbstractTaskDataHandler {
 			//if flag is set and true, submit
 			if (submitFlagAttribute != null && submitFlagAttribute.getValue().equals(String.valueOf(true))) {
 				JiraWorkLog log = new WorkLogConverter().createFrom(attribute);
-				client.addWorkLog(issue.getKey(), log, monitor);
+				client.addWorkLog(context, log, monitor);
 			}
 		}
 	}
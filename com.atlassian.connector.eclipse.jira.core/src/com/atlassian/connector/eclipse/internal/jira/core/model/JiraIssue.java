@@ -19,8 +19,6 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 
-import com.atlassian.jira.rest.client.domain.Issue;
-
 /**
  * @author Brock Janiczak
  * @author Steffen Pingel
@@ -115,8 +113,6 @@ public class JiraIssue implements Serializable {
 
 	private String[] labels = new String[0];
 
-	private Issue rawIssue;
-
 	public String getId() {
 		return id;
 	}
@@ -603,12 +599,4 @@ public class JiraIssue implements Serializable {
 		return labels;
 	}
 
-	public void setRawIssue(Issue rawIssue) {
-		this.rawIssue = rawIssue;
-	}
-
-	public Issue getRawIssue() {
-		return rawIssue;
-	}
-
 }
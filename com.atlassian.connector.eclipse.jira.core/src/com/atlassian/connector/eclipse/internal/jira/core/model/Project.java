@@ -61,6 +61,25 @@ public class Project implements Serializable {
 	public Project() {
 	}
 
+	/**
+	 * Creates a copy of <code>project</code>. The details are shared until they are set on either project.
+	 */
+	public Project(Project project) {
+		this.id = project.id;
+		this.name = project.name;
+		this.key = project.key;
+		this.description = project.description;
+		this.lead = project.lead;
+		this.projectUrl = project.projectUrl;
+		this.url = project.url;
+		this.components = project.components;
+		this.versions = project.versions;
+		this.issueTypes = project.issueTypes;
+		this.issueTypesById = project.issueTypesById;
+		this.securityLevels = project.securityLevels;
+		this.details = project.details;
+	}
+
 	public String getDescription() {
 		return this.description;
 	}
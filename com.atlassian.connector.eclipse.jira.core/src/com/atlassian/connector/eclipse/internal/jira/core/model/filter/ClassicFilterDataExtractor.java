@@ -11,13 +11,14 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.model.filter;
 
-import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.joda.time.format.DateTimeFormatter;
+
 /**
  * Class which allows to extract certain data from Filters which can be used to build a classic query.
  */
@@ -54,7 +55,7 @@ public class ClassicFilterDataExtractor extends FilterDataExtractor {
 	}
 
 	@Override
-	public Collection<String> extractDates(DateFilter dateFilter, DateFormat dateFormat) {
+	public Collection<String> extractDates(DateFilter dateFilter, DateTimeFormatter dateFormat) {
 		// ignore
 		return null;
 	}
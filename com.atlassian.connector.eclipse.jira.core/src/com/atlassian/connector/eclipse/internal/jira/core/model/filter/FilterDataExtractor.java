@@ -11,12 +11,13 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.model.filter;
 
-import java.text.DateFormat;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.joda.time.format.DateTimeFormatter;
+
 import com.atlassian.connector.eclipse.internal.jira.core.model.Component;
 import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraStatus;
@@ -63,7 +64,7 @@ public abstract class FilterDataExtractor {
 	 */
 	public abstract Collection<String> extractComponents(ComponentFilter componentFilter);
 
-	public abstract Collection<String> extractDates(DateFilter dateFilter, DateFormat dateFormat);
+	public abstract Collection<String> extractDates(DateFilter dateFilter, DateTimeFormatter dateFormat);
 
 	/**
 	 * Extracts and returns a list of issue types identifiers, including special cases for "all standard issue types"
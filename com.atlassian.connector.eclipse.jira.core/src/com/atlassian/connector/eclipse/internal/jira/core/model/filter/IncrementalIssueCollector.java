@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.model.filter;
+
+import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
+
+/**
+ * A collector that already knows some of the issues it collects. The search first retrieves the id, key and updated
+ * time stamp of each issue and only retrieves the complete issue if {@link #isChanged(JiraIssue)} returns true.
+ * Unchanged issues are passed to {@link #collectUnchangedIssue(JiraIssue)} instead of
+ * {@link #collectIssue(JiraIssue)}.
+ */
+public interface IncrementalIssueCollector extends IssueCollector {
+
+	/**
+	 * Returns true, if the complete issue needs to be retrieved.
+	 *
+	 * @param issue
+	 *            an issue that only has the id, key and updated time stamp set
+	 */
+	public boolean isChanged(JiraIssue issue);
+
+	/**
+	 * Invoked for issues that matched the search but have not changed.
+	 *
+	 * @param issue
+	 *            an issue that only has the id, key and updated time stamp set
+	 */
+	public void collectUnchangedIssue(JiraIssue issue);
+
+}
@@ -11,13 +11,14 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.model.filter;
 
-import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import org.joda.time.format.DateTimeFormatter;
+
 /**
  * Class which allows to extract certain data from Filters which can be used to build a JQL query.
  */
@@ -58,16 +59,16 @@ public class JQLFilterDataExtractor extends FilterDataExtractor {
 	}
 
 	@Override
-	public Collection<String> extractDates(DateFilter dateFilter, DateFormat dateFormat) {
+	public Collection<String> extractDates(DateFilter dateFilter, DateTimeFormatter dateFormat) {
 		final List<String> dates = new ArrayList<String>();
 
 		if (dateFilter instanceof DateRangeFilter) {
 			DateRangeFilter rangeFilter = (DateRangeFilter) dateFilter;
 			if (rangeFilter.getFromDate() != null) {
-				dates.add(">= " + putInDoubleQuotes(dateFormat.format(rangeFilter.getFromDate()))); //$NON-NLS-1$
+				dates.add(">= " + putInDoubleQuotes(dateFormat.print(rangeFilter.getFromDate().getTime()))); //$NON-NLS-1$
 			}
 			if (rangeFilter.getToDate() != null) {
-				dates.add("<= " + putInDoubleQuotes(dateFormat.format(rangeFilter.getToDate()))); //$NON-NLS-1$
+				dates.add("<= " + putInDoubleQuotes(dateFormat.print(rangeFilter.getToDate().getTime()))); //$NON-NLS-1$
 			}
 			if (rangeFilter.getFrom() != null && rangeFilter.getFrom().length() > 0) {
 				dates.add(">= " + putInDoubleQuotes(rangeFilter.getFrom())); //$NON-NLS-1$
@@ -18,7 +18,6 @@ import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -34,6 +33,7 @@ import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.joda.time.format.DateTimeFormatter;
 
 import com.atlassian.connector.eclipse.internal.jira.core.InvalidJiraQueryException;
 import com.atlassian.connector.eclipse.internal.jira.core.JiraRepositoryConnector;
@@ -69,6 +69,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.filter.StatusFil
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.UserFilter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.UserInGroupFilter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.VersionFilter;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 
@@ -90,10 +91,10 @@ public class FilterDefinitionConverter {
 	private static final String QUERY_KEY = "query"; //$NON-NLS-1$
 
 	/** Date format used for JQL queries */
-	public static final DateFormat JQL_DATE_TIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd HH:mm"); //$NON-NLS-1$
+	public static final DateTimeFormatter JQL_DATE_TIME_FORMAT = JiraDateFormats.JQL_DATE_TIME;
 
 	/** Date format used for JQL queries */
-	public static final DateFormat JQL_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd"); //$NON-NLS-1$
+	public static final DateTimeFormatter JQL_DATE_FORMAT = JiraDateFormats.JQL_DATE;
 
 	private final String encoding;
 
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+
+import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
+
+/**
+ * Disk backed cache of attachment contents. Attachments can not be changed in JIRA, therefore entries are keyed by
+ * attachment id and size and never need to be validated against the repository. The least recently used entries are
+ * evicted once the cache grows beyond its maximum size.
+ * <p>
+ * Contents are downloaded to a partial file first which is kept when the download is interrupted so the next
+ * download can resume where it stopped. Partial files are removed after {@link #PARTIAL_DOWNLOAD_EXPIRY} or when the
+ * download completes.
+ * <p>
+ * The index of the cache is kept in memory and written to disk by {@link #save()}, entries are written immediately.
+ */
+public class JiraAttachmentCache {
+
+	public static final long DEFAULT_MAX_SIZE = 128 * 1024 * 1024;
+
+	public static final long PARTIAL_DOWNLOAD_EXPIRY = 24 * 60 * 60 * 1000;
+
+	private static final String ENTRY_SUFFIX = ".attachment"; //$NON-NLS-1$
+
+	private static final String PARTIAL_SUFFIX = ".part"; //$NON-NLS-1$
+
+	private final File directory;
+
+	// maps attachment ids to sizes
+	private final JiraDiskCacheIndex<Long> index;
+
+	private final Set<String> downloadingIds = new HashSet<String>();
+
+	public JiraAttachmentCache(File directory, String repositoryUrl) {
+		this(directory, repositoryUrl, DEFAULT_MAX_SIZE);
+	}
+
+	public JiraAttachmentCache(File directory, String repositoryUrl, long maxSize) {
+		this.directory = directory;
+		this.index = new JiraDiskCacheIndex<Long>(directory, repositoryUrl, ENTRY_SUFFIX, maxSize) {
+			@Override
+			protected long getLength(Long length) {
+				return length.longValue();
+			}
+
+			@Override
+			protected Long readEntry(DataInput in) throws IOException {
+				return new Long(in.readLong());
+			}
+
+			@Override
+			protected void writeEntry(DataOutput out, Long length) throws IOException {
+				out.writeLong(length.longValue());
+			}
+
+			@Override
+			protected void loaded() {
+				removeExpiredDownloads();
+			}
+		};
+	}
+
+	/**
+	 * Returns true if the content of an attachment of <code>length</code> bytes is cached or can be cached.
+	 */
+	public boolean isCacheable(String attachmentId, long length) {
+		return JiraDiskCacheIndex.isValidId(attachmentId) && length > 0 && length <= index.getMaxSize();
+	}
+
+	/**
+	 * Returns the cached content of the attachment or <code>null</code> if the attachment is not cached or cannot be
+	 * read.
+	 */
+	public synchronized InputStream get(String attachmentId, long length) {
+		Long cachedLength = index.get(attachmentId);
+		if (cachedLength == null || cachedLength.longValue() != length) {
+			return null;
+		}
+
+		File file = index.getEntryFile(attachmentId);
+		try {
+			if (file.length() != length) {
+				throw new FileNotFoundException("Unexpected length of " + file); //$NON-NLS-1$
+			}
+			return new FileInputStream(file);
+		} catch (FileNotFoundException e) {
+			// the entry was removed from disk or is incomplete
+			index.remove(attachmentId);
+			return null;
+		}
+	}
+
+	/**
+	 * Starts a download of the attachment. The content is appended to the returned file which may already contain
+	 * the start of the content from an interrupted download, or all of it if the download was interrupted before it
+	 * was completed. Callers must invoke {@link #finishDownload(String)} after the download.
+	 *
+	 * @return the partial file or <code>null</code> if the attachment is not cacheable or already being downloaded
+	 */
+	public synchronized File startDownload(String attachmentId, long length) {
+		if (!isCacheable(attachmentId, length) || downloadingIds.contains(attachmentId)) {
+			return null;
+		}
+
+		index.load();
+		directory.mkdirs();
+		File file = getPartialFile(attachmentId, length);
+		if (file.length() > length) {
+			file.delete();
+		}
+		downloadingIds.add(attachmentId);
+		return file;
+	}
+
+	/**
+	 * Adds the content of a partial file that has been downloaded completely to the cache.
+	 *
+	 * @return the cached content or <code>null</code> if the partial file does not match the attachment
+	 */
+	public synchronized InputStream completeDownload(String attachmentId, long length) {
+		File partialFile = getPartialFile(attachmentId, length);
+		if (partialFile.length() != length) {
+			partialFile.delete();
+			return null;
+		}
+
+		index.remove(attachmentId);
+		File file = index.getEntryFile(attachmentId);
+		file.delete();
+		if (!partialFile.renameTo(file)) {
+			StatusHandler.log(new Status(IStatus.WARNING, JiraCorePlugin.ID_PLUGIN, "Error writing attachment " //$NON-NLS-1$
+					+ attachmentId + " to cache")); //$NON-NLS-1$
+			partialFile.delete();
+			return null;
+		}
+		index.put(attachmentId, new Long(length));
+		return get(attachmentId, length);
+	}
+
+	/**
+	 * Ends a download started by {@link #startDownload(String, long)}. A partial file of a download that was not
+	 * completed is kept to resume from.
+	 */
+	public synchronized void finishDownload(String attachmentId) {
+		downloadingIds.remove(attachmentId);
+	}
+
+	public synchronized void remove(String attachmentId) {
+		index.remove(attachmentId);
+	}
+
+	/**
+	 * Removes all entries and partial downloads from memory and disk.
+	 */
+	public synchronized void clear() {
+		index.clear();
+
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(PARTIAL_SUFFIX) && !downloadingIds.contains(getPartialId(name))) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Writes the index to disk if entries were added or removed since the last time it was written.
+	 */
+	public synchronized void save() {
+		index.save();
+	}
+
+	private void removeExpiredDownloads() {
+		long expiry = System.currentTimeMillis() - PARTIAL_DOWNLOAD_EXPIRY;
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (file.getName().endsWith(PARTIAL_SUFFIX) && file.lastModified() < expiry) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private File getPartialFile(String attachmentId, long length) {
+		// the length is part of the name so that a partial file is never resumed for different content
+		return new File(directory, attachmentId + "-" + length + PARTIAL_SUFFIX); //$NON-NLS-1$
+	}
+
+	private static String getPartialId(String name) {
+		int separator = name.indexOf('-');
+		return (separator != -1) ? name.substring(0, separator) : name;
+	}
+
+}
@@ -13,18 +13,23 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.service;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.Proxy;
-import java.text.SimpleDateFormat;
+import java.net.URI;
 import java.util.Collections;
-import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
 import org.eclipse.mylyn.commons.net.AbstractWebLocation;
 import org.eclipse.mylyn.commons.net.AuthenticationCredentials;
 import org.eclipse.mylyn.commons.net.AuthenticationType;
+import org.joda.time.format.DateTimeFormatter;
 
 import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Attachment;
@@ -45,6 +50,9 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.FilterDefinition;
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
 import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter.IssueOperationContext;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestConnectionPool;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.atlassian.jira.rest.client.RestClientException;
 import com.atlassian.jira.rest.client.domain.SessionInfo;
 
@@ -114,6 +122,10 @@ public class JiraClient {
 
 	private JiraRestClientAdapter restClient = null;
 
+	private volatile JiraIssueCache issueCache;
+
+	private volatile JiraAttachmentCache attachmentCache;
+
 	public JiraClient(AbstractWebLocation location, JiraLocalConfiguration configuration,
 			JiraRestClientAdapter restClient) {
 		Assert.isNotNull(location);
@@ -145,7 +157,7 @@ public class JiraClient {
 		this(location, new JiraLocalConfiguration());
 	}
 
-	private JiraRestClientAdapter getRestClient() {
+	private synchronized JiraRestClientAdapter getRestClient() {
 		if (restClient == null) {
 			restClient = createRestClient(location, cache);
 		}
@@ -153,6 +165,17 @@ public class JiraClient {
 		return restClient;
 	}
 
+	/**
+	 * Returns the adapter for requests to the repository. Callers release it once the request has completed, an
+	 * adapter that is replaced by {@link #purgeSession()} or {@link #dispose()} in the meantime is only shut down
+	 * after all of its callers have released it.
+	 */
+	private synchronized JiraRestClientAdapter acquireRestClient() {
+		JiraRestClientAdapter adapter = getRestClient();
+		adapter.acquire();
+		return adapter;
+	}
+
 	private JiraRestClientAdapter createRestClient(final AbstractWebLocation location, final JiraClientCache cache) {
 		Proxy proxy = null;
 		final String baseUrl = location.getUrl();
@@ -172,8 +195,35 @@ public class JiraClient {
 			password = credentials.getPassword();
 		}
 
-		return new JiraRestClientAdapter(baseUrl, username, password, proxy, cache,
-				localConfiguration.getFollowRedirects());
+		JiraRestClientAdapter adapter = new JiraRestClientAdapter(baseUrl, username, password, proxy, cache,
+				localConfiguration);
+		adapter.setIssueCache(issueCache);
+		return adapter;
+	}
+
+	/**
+	 * Returns the cache of issues retrieved from the repository or <code>null</code> if issues are not cached.
+	 */
+	public JiraIssueCache getIssueCache() {
+		return issueCache;
+	}
+
+	public synchronized void setIssueCache(JiraIssueCache issueCache) {
+		this.issueCache = issueCache;
+		if (restClient != null) {
+			restClient.setIssueCache(issueCache);
+		}
+	}
+
+	/**
+	 * Returns the cache of attachment contents or <code>null</code> if attachments are not cached.
+	 */
+	public JiraAttachmentCache getAttachmentCache() {
+		return attachmentCache;
+	}
+
+	public void setAttachmentCache(JiraAttachmentCache attachmentCache) {
+		this.attachmentCache = attachmentCache;
 	}
 
 //	public void addCommentToIssue(String issueKey, Comment comment, IProgressMonitor monitor) throws JiraException {
@@ -181,12 +231,29 @@ public class JiraClient {
 //		soapClient.addComment(issueKey, comment, monitor);
 //	}
 
+	/**
+	 * Returns a context for a sequence of operations on the issue with <code>issueKey</code>, e.g. the changes of a
+	 * single submit. Operations that are passed the same context retrieve the issue and its transitions at most once
+	 * and are canceled through <code>monitor</code>.
+	 */
+	public IssueOperationContext createIssueOperationContext(String issueKey, IProgressMonitor monitor) {
+		return getRestClient().createIssueOperationContext(issueKey, monitor);
+	}
+
 	public void addCommentToIssue(String issueKey, String comment, IProgressMonitor monitor) throws JiraException {
+		addCommentToIssue(createIssueOperationContext(issueKey, monitor), comment, monitor);
+	}
+
+	public void addCommentToIssue(IssueOperationContext context, String comment, IProgressMonitor monitor)
+			throws JiraException {
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().addComment(issueKey, comment);
+			adapter.addComment(context, comment);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		Comment cmnt = new Comment();
@@ -196,15 +263,21 @@ public class JiraClient {
 
 	public void advanceIssueWorkflow(JiraIssue issue, String actionKey, String comment, IProgressMonitor monitor)
 			throws JiraException {
+		advanceIssueWorkflow(createIssueOperationContext(issue.getKey(), monitor), issue, actionKey, comment, monitor);
+	}
+
+	public void advanceIssueWorkflow(IssueOperationContext context, JiraIssue issue, String actionKey,
+			String comment, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("advanceIssueWorkflow", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			Iterable<IssueField> fields = getActionFields(issue.getKey(), actionKey, monitor);
-
-			getRestClient().transitionIssue(issue, actionKey, comment, fields);
+			adapter.transitionIssue(context, issue, actionKey, comment);
 
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		soapClient.progressWorkflowAction(issue, actionKey, fields, monitor);
@@ -216,6 +289,11 @@ public class JiraClient {
 
 	public void assignIssueTo(JiraIssue issue, String user, String comment, IProgressMonitor monitor)
 			throws JiraException {
+		assignIssueTo(createIssueOperationContext(issue.getKey(), monitor), issue, user, comment, monitor);
+	}
+
+	public void assignIssueTo(IssueOperationContext context, JiraIssue issue, String user, String comment,
+			IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("assignIssueTo", null); //$NON-NLS-1$
 		/*PLE-1188
 		soapClient.assignIssueTo(issue.getKey(), getAssigneeParam(issue, assigneeType, user), monitor);
@@ -223,31 +301,45 @@ public class JiraClient {
 
 //		webClient.assignIssueTo(issue, assigneeType, user, comment, monitor);
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().assignIssue(issue.getKey(), user, comment);
+			adapter.assignIssue(context, user, comment);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
-
-		if (!StringUtils.isEmpty(comment)) {
-			addCommentToIssue(issue.getKey(), comment, monitor);
-		}
-
-		// TODO rest: https://studio.atlassian.com/browse/JRJC-85 (single operation)
 	}
 
 	public void addAttachment(JiraIssue jiraIssue, String comment, String filename, byte[] content,
 			IProgressMonitor monitor) throws JiraException {
+		addAttachment(jiraIssue, comment, filename, new ByteArrayInputStream(content), content.length, monitor);
+	}
+
+	/**
+	 * Streams <code>content</code> to the repository without holding it in memory. Each byte sent is reported as one
+	 * unit of work to <code>monitor</code>. The caller closes <code>content</code>.
+	 * 
+	 * @param length
+	 *            the number of bytes in <code>content</code> or -1, if unknown; sizes the task of <code>monitor</code>
+	 */
+	public void addAttachment(JiraIssue jiraIssue, String comment, String filename, InputStream content,
+			long length, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("addAttachment", null); //$NON-NLS-1$
 
-		if (content.length == 0) {
+		if (length == 0) {
 			throw new JiraException("Cannot attach empty file");
 		}
 
+		int work = (length > 0 && length <= Integer.MAX_VALUE) ? (int) length : 0;
+		SubMonitor progress = SubMonitor.convert(monitor, work + 1);
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().addAttachment(jiraIssue.getKey(), content, filename);
+			adapter.addAttachment(jiraIssue.getKey(), content, filename, progress);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		String[] encodedContents = new String[] { new String(new Base64().encode(content)) };
@@ -264,7 +356,7 @@ public class JiraClient {
 //		}
 
 		if (!StringUtils.isEmpty(comment)) {
-			addCommentToIssue(jiraIssue.getKey(), comment, monitor);
+			addCommentToIssue(jiraIssue.getKey(), comment, progress.newChild(1));
 		}
 	}
 
@@ -302,9 +394,10 @@ public class JiraClient {
 			}
 		}
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
 
-			String issueKey = getRestClient().createIssue(issue);
+			String issueKey = adapter.createIssue(issue, monitor);
 
 //		String issueKey = soapClient.createIssue(issue, monitor);
 			//String issueKey = webClient.createIssue(issue, monitor);
@@ -312,6 +405,8 @@ public class JiraClient {
 
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
@@ -329,7 +424,12 @@ public class JiraClient {
 	public void deleteIssue(JiraIssue issue, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("deleteIssue", null); //$NON-NLS-1$
 //		soapClient.deleteIssue(issue.getKey(), monitor);
-		restClient.deleteIssue(issue.getKey(), monitor);
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			adapter.deleteIssue(issue.getKey(), monitor);
+		} finally {
+			adapter.release();
+		}
 
 		// TODO rest: https://studio.atlassian.com/browse/JRJC-86
 	}
@@ -363,21 +463,13 @@ public class JiraClient {
 	}
 
 	private void findIssues(String jql, IssueCollector collector, IProgressMonitor monitor) throws JiraException {
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-
-			List<JiraIssue> issues = getRestClient().getIssues(jql, localConfiguration.getMaxSearchResults(), monitor);
-
-			if (!collector.isCancelled()) {
-				collector.start();
-
-				for (JiraIssue issue : issues) {
-					collector.collectIssue(issue);
-				}
-
-				collector.done();
-			}
+			adapter.findIssues(jql, localConfiguration.getMaxSearchResults(), collector, monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
@@ -418,10 +510,13 @@ public class JiraClient {
 			throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getAvailableActions", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getTransitions(issueKey);
+			return adapter.getTransitions(issueKey, monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getAvailableActions(issueKey, monitor);
@@ -487,10 +582,13 @@ public class JiraClient {
 	public JiraIssue getIssueByKey(String issueKey, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getIssueByKey", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getIssueByKeyOrId(issueKey, monitor);
+			return adapter.getIssueByKeyOrId(issueKey, monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		SingleIssueCollector collector = new SingleIssueCollector();
@@ -505,25 +603,48 @@ public class JiraClient {
 	public JiraIssue getIssueById(String issueId, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getIssueByUrl", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getIssueByKeyOrId(issueId, monitor);
+			return adapter.getIssueByKeyOrId(issueId, monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
 	public IssueType[] getIssueTypes(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getIssueTypes", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getIssueTypes();
+			return adapter.getIssueTypes(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getIssueTypes(monitor);
 	}
 
+	/**
+	 * Retrieves the issue types unless they have not changed since <code>validator</code> was obtained.
+	 */
+	public JiraConditionalResult<IssueType[]> getIssueTypes(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getIssueTypes", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getIssueTypes(validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 //	public IssueType[] getIssueTypes(String projectKey, IProgressMonitor monitor) throws JiraException {
 //		JiraCorePlugin.getMonitoring().logJob("getIssueTypesForProject", null); //$NON-NLS-1$
 //
@@ -558,10 +679,13 @@ public class JiraClient {
 	public NamedFilter[] getNamedFilters(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getNamedFilters", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getFavouriteFilters();
+			return adapter.getFavouriteFilters(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getNamedFilters(monitor);
@@ -570,48 +694,111 @@ public class JiraClient {
 	public Priority[] getPriorities(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getPriorities", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getPriorities();
+			return adapter.getPriorities(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getPriorities(monitor);
 	}
 
+	/**
+	 * Retrieves the priorities unless they have not changed since <code>validator</code> was obtained.
+	 */
+	public JiraConditionalResult<Priority[]> getPriorities(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getPriorities", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getPriorities(validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 	public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getProjects", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getProjects();
+			return adapter.getProjects(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getProjects(monitor);
 	}
 
+	/**
+	 * Retrieves the projects unless they have not changed since <code>validator</code> was obtained.
+	 */
+	public JiraConditionalResult<Project[]> getProjects(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getProjects", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getProjects(validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 	public Resolution[] getResolutions(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getResolutions", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getResolutions();
+			return adapter.getResolutions(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getResolutions(monitor);
 	}
 
+	/**
+	 * Retrieves the resolutions unless they have not changed since <code>validator</code> was obtained.
+	 */
+	public JiraConditionalResult<Resolution[]> getResolutions(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getResolutions", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getResolutions(validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 	public SessionInfo getSessionInfo(IProgressMonitor monitor) throws JiraException {
 
 		// TODO add some aspect logging here
 		JiraCorePlugin.getMonitoring().logJob("getAuthInfo", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getSessionInfo();
+			return adapter.getSessionInfo(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
@@ -620,8 +807,9 @@ public class JiraClient {
 
 		// get server information through SOAP
 //		ServerInfo serverInfo = soapClient.getServerInfo(monitor);
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			ServerInfo serverInfo = getRestClient().getServerInfo();
+			ServerInfo serverInfo = adapter.getServerInfo(monitor);
 
 			// get character encoding through web
 //			WebServerInfo webServerInfo = webClient.getWebServerInfo(monitor);
@@ -634,21 +822,43 @@ public class JiraClient {
 			return serverInfo;
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
 	public JiraStatus[] getStatuses(IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getStatuses", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			return getRestClient().getStatuses();
+			return adapter.getStatuses(monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.getStatuses(monitor);
 	}
 
+	/**
+	 * Retrieves the statuses unless they have not changed since <code>validator</code> was obtained.
+	 */
+	public JiraConditionalResult<JiraStatus[]> getStatuses(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getStatuses", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getStatuses(validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 //	public IssueType[] getSubTaskIssueTypes(IProgressMonitor monitor) throws JiraException {
 //		JiraCorePlugin.getMonitoring().logJob("getSubTaskIssueTypes", null); //$NON-NLS-1$
 //		return soapClient.getSubTaskIssueTypes(monitor);
@@ -663,10 +873,31 @@ public class JiraClient {
 
 		JiraCorePlugin.getMonitoring().logJob("getProjectDetails", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			adapter.getProjectDetails(project, null);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
+	/**
+	 * Retrieves the details of <code>project</code> unless they have not changed since <code>validator</code> was
+	 * obtained. The project is left unchanged in that case.
+	 */
+	public JiraConditionalResult<Project> getProjectDetails(Project project, JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getProjectDetails", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().getProjectDetails(project);
+			return adapter.getProjectDetails(project, validator, monitor);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 	}
 
@@ -728,16 +959,84 @@ public class JiraClient {
 
 	public InputStream getAttachment(JiraIssue jiraIssue, Attachment attachment, IProgressMonitor monitor)
 			throws JiraException {
+		return getAttachment(attachment.getId(), attachment.getSize(), attachment.getContent(), monitor);
+
+//		webClient.retrieveFile(jiraIssue, attachment, out, monitor);
+	}
 
+	/**
+	 * Returns the content of an attachment. The content is served from the attachment cache if possible and added to
+	 * it otherwise. Downloads to the cache that were interrupted are resumed. Each byte received is reported as one
+	 * unit of work to <code>monitor</code>.
+	 * 
+	 * @param size
+	 *            the size of the attachment in bytes
+	 * @param contentUri
+	 *            the URI of the content
+	 */
+	public InputStream getAttachment(String attachmentId, long size, URI contentUri, IProgressMonitor monitor)
+			throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getAttachment", null); //$NON-NLS-1$
 
+		JiraAttachmentCache attachmentCache = this.attachmentCache;
+		if (attachmentCache != null) {
+			InputStream in = attachmentCache.get(attachmentId, size);
+			if (in != null) {
+				return in;
+			}
+
+			File file = attachmentCache.startDownload(attachmentId, size);
+			if (file != null) {
+				try {
+					// the previous download may have been interrupted after receiving all of the content
+					if (file.length() < size) {
+						JiraRestClientAdapter adapter = acquireRestClient();
+						try {
+							adapter.downloadAttachment(contentUri, file, monitor);
+						} finally {
+							adapter.release();
+						}
+					}
+					in = attachmentCache.completeDownload(attachmentId, size);
+					if (in != null) {
+						return in;
+					}
+				} catch (RestClientException e) {
+					throw new JiraException(e);
+				} finally {
+					attachmentCache.finishDownload(attachmentId);
+				}
+			}
+		}
+
+		final JiraRestClientAdapter adapter = acquireRestClient();
+		boolean streaming = false;
 		try {
-			return getRestClient().getAttachment(attachment.getContent());
+			InputStream in = adapter.getAttachment(contentUri, monitor);
+			streaming = true;
+			// the content is read from the connection, the adapter is released once the stream is closed
+			return new FilterInputStream(in) {
+				private boolean closed;
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						if (!closed) {
+							closed = true;
+							adapter.release();
+						}
+					}
+				}
+			};
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			if (!streaming) {
+				adapter.release();
+			}
 		}
-
-//		webClient.retrieveFile(jiraIssue, attachment, out, monitor);
 	}
 
 	/**
@@ -768,17 +1067,21 @@ public class JiraClient {
 
 	public void updateIssue(JiraIssue issue, String comment, boolean updateEstimate, IProgressMonitor monitor)
 			throws JiraException {
+		updateIssue(createIssueOperationContext(issue.getKey(), monitor), issue, comment, updateEstimate, monitor);
+	}
+
+	public void updateIssue(IssueOperationContext context, JiraIssue issue, String comment, boolean updateEstimate,
+			IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("updateIssue", null); //$NON-NLS-1$
 //		soapClient.updateIssue(issue, monitor);
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().updateIssue(issue, updateEstimate);
+			adapter.updateIssue(context, issue, updateEstimate, comment);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
-		}
-
-		if (!StringUtils.isEmpty(comment)) {
-			addCommentToIssue(issue.getKey(), comment, monitor);
+		} finally {
+			adapter.release();
 		}
 	}
 
@@ -790,18 +1093,49 @@ public class JiraClient {
 	public SecurityLevel[] getAvailableSecurityLevels(String projectKey, IProgressMonitor monitor) throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("getAvailableSecurityLevels", null); //$NON-NLS-1$
 
-		return getRestClient().getSecurityLevels(projectKey);
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getSecurityLevels(projectKey, monitor);
+		} finally {
+			adapter.release();
+		}
 
 //		return soapClient.getAvailableSecurityLevels(projectKey, monitor);
 	}
 
+	/**
+	 * Retrieves the security levels of a project unless they have not changed since <code>validator</code> was
+	 * obtained.
+	 */
+	public JiraConditionalResult<SecurityLevel[]> getAvailableSecurityLevels(String projectKey,
+			JiraResourceValidator validator, IProgressMonitor monitor) throws JiraException {
+		JiraCorePlugin.getMonitoring().logJob("getAvailableSecurityLevels", null); //$NON-NLS-1$
+
+		JiraRestClientAdapter adapter = acquireRestClient();
+		try {
+			return adapter.getSecurityLevels(projectKey, validator, monitor);
+		} catch (RestClientException e) {
+			throw new JiraException(e);
+		} finally {
+			adapter.release();
+		}
+	}
+
 	public void addWorkLog(String issueKey, JiraWorkLog log, IProgressMonitor monitor) throws JiraException {
+		addWorkLog(createIssueOperationContext(issueKey, monitor), log, monitor);
+	}
+
+	public void addWorkLog(IssueOperationContext context, JiraWorkLog log, IProgressMonitor monitor)
+			throws JiraException {
 		JiraCorePlugin.getMonitoring().logJob("addWorkLog", null); //$NON-NLS-1$
 
+		JiraRestClientAdapter adapter = acquireRestClient();
 		try {
-			getRestClient().addWorklog(issueKey, log);
+			adapter.addWorklog(context, log);
 		} catch (RestClientException e) {
 			throw new JiraException(e);
+		} finally {
+			adapter.release();
 		}
 
 //		return soapClient.addWorkLog(issueKey, log, monitor);
@@ -832,12 +1166,32 @@ public class JiraClient {
 		return getLocalConfiguration().isCompressionEnabled();
 	}
 
+	/**
+	 * Returns the usage of the connections to the repository or <code>null</code>, if no connection was opened yet.
+	 */
+	public synchronized JiraRestConnectionPool.Statistics getConnectionPoolStatistics() {
+		return (restClient != null) ? restClient.getConnectionPoolStatistics() : null;
+	}
+
 	public synchronized void purgeSession() {
 //		webSession.purgeSession();
 //		soapClient.purgeSession();
+		if (restClient != null) {
+			restClient.dispose();
+		}
 		restClient = createRestClient(location, cache);
 	}
 
+	/**
+	 * Releases resources held by the connection to the repository. The client may still be used afterwards.
+	 */
+	public synchronized void dispose() {
+		if (restClient != null) {
+			restClient.dispose();
+			restClient = null;
+		}
+	}
+
 	public String getAssigneeParam(JiraIssue issue, int assigneeType, String user) {
 		switch (assigneeType) {
 		case JiraClient.ASSIGNEE_CURRENT:
@@ -855,12 +1209,12 @@ public class JiraClient {
 		}
 	}
 
-	public SimpleDateFormat getDateTimeFormat() {
-		return JiraRestClientAdapter.getDateTimeFormat();
+	public DateTimeFormatter getDateTimeFormat() {
+		return JiraDateFormats.REST_DATE_TIME;
 	}
 
-	public SimpleDateFormat getDateFormat() {
-		return JiraRestClientAdapter.getDateFormat();
+	public DateTimeFormatter getDateFormat() {
+		return JiraDateFormats.REST_DATE;
 	}
 
 }
@@ -12,7 +12,14 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.SubMonitor;
@@ -28,6 +35,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
 import com.atlassian.connector.eclipse.internal.jira.core.model.SecurityLevel;
 import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
 import com.atlassian.connector.eclipse.internal.jira.core.model.User;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraIssueKeyMatcher;
 
 /**
  * @author Steffen Pingel
@@ -37,10 +45,36 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.User;
  */
 public class JiraClientCache {
 
+	private static final String VALIDATOR_PRIORITIES = "priorities"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_ISSUE_TYPES = "issueTypes"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_RESOLUTIONS = "resolutions"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_STATUSES = "statuses"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_PROJECTS = "projects"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_PROJECT_DETAILS = "projectDetails:"; //$NON-NLS-1$
+
+	private static final String VALIDATOR_SECURITY_LEVELS = "securityLevels:"; //$NON-NLS-1$
+
+	/**
+	 * Maximum number of users that are kept. The directory is only used to resolve display names so arbitrary users
+	 * are evicted once it is full, they are added again when they are encountered in issues.
+	 */
+	public static final int MAX_USERS = 10000;
+
 	private volatile JiraClientData data;
 
 	private final JiraClient jiraClient;
 
+	/**
+	 * Serializes refreshes of the complete configuration. Readers never acquire this lock, they see the previous data
+	 * until the refreshed data is swapped in.
+	 */
+	private final Object refreshLock = new Object();
+
 	public JiraClientCache(JiraClient jiraClient) {
 		this.jiraClient = jiraClient;
 		this.data = new JiraClientData();
@@ -66,9 +100,25 @@ public class JiraClientCache {
 		return data.lastUpdate != 0;
 	}
 
-	private void initializeProjects(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	private void initializeProjects(JiraClientData oldData, JiraClientData data, IProgressMonitor monitor)
+			throws JiraException {
 		SubMonitor submonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_getting_projects, 10);
-		data.projects = jiraClient.getProjects(submonitor.newChild(1));
+		JiraConditionalResult<Project[]> result = jiraClient.getProjects(getValidator(oldData, VALIDATOR_PROJECTS),
+				submonitor.newChild(1));
+		setValidator(data, VALIDATOR_PROJECTS, result.getValidator());
+		if (result.isModified()) {
+			data.projects = result.getValue();
+		} else {
+			// project details are refreshed separately on copies, the projects of the current data are not modified
+			data.projects = new Project[oldData.projects.length];
+			for (int i = 0; i < data.projects.length; i++) {
+				Project oldProject = oldData.projects[i];
+				synchronized (oldProject) {
+					data.projects[i] = new Project(oldProject);
+				}
+			}
+			data.issueKeyMatcher = oldData.issueKeyMatcher;
+		}
 
 		data.projectsById = new HashMap<String, Project>(data.projects.length);
 		data.projectsByKey = new HashMap<String, Project>(data.projects.length);
@@ -81,40 +131,83 @@ public class JiraClientCache {
 	}
 
 	private void initializeProject(Project project, IProgressMonitor monitor) throws JiraException {
+		JiraClientData data = this.data;
+		initializeProject(data, data, project, monitor);
+	}
+
+	/**
+	 * Retrieves the details of <code>project</code> into <code>data</code>. Details that have not changed since they
+	 * were retrieved for the corresponding project in <code>oldData</code> are taken from that project.
+	 */
+	private void initializeProject(JiraClientData oldData, JiraClientData data, Project project,
+			IProgressMonitor monitor) throws JiraException {
 		SubMonitor subMonitor = SubMonitor.convert(monitor,
 				NLS.bind(Messages.JiraClientCache_project_details_for, project.getKey()), 5);
 
 		synchronized (project) {
 			final JiraVersion version = new JiraVersion(data.serverInfo.getVersion());
 
-			jiraClient.getProjectDetails(project);
+			// validators only apply to details that have been retrieved
+			Project oldProject = oldData.projectsById.get(project.getId());
+			if (oldProject != null && !oldProject.hasDetails()) {
+				oldProject = null;
+			}
+
+			String detailsKey = VALIDATOR_PROJECT_DETAILS + project.getId();
+			JiraConditionalResult<Project> details = jiraClient.getProjectDetails(project,
+					(oldProject != null) ? getValidator(oldData, detailsKey) : null, subMonitor.newChild(1));
+			if (!details.isModified() && oldProject != null && oldProject != project) {
+				project.setComponents(oldProject.getComponents());
+				project.setVersions(oldProject.getVersions());
+				project.setIssueTypes(oldProject.getIssueTypes());
+			}
+			setValidator(data, detailsKey, details.getValidator());
 
 			if (version.compareTo(JiraVersion.JIRA_3_13) >= 0) {
+				String securityLevelsKey = VALIDATOR_SECURITY_LEVELS + project.getId();
 				try {
-					SecurityLevel[] securityLevels = jiraClient.getAvailableSecurityLevels(project.getKey(),
+					JiraConditionalResult<SecurityLevel[]> result = jiraClient.getAvailableSecurityLevels(
+							project.getKey(), (oldProject != null) ? getValidator(oldData, securityLevelsKey) : null,
 							subMonitor.newChild(1));
-					if (securityLevels.length > 0) {
-						SecurityLevel[] projectSecurityLevels = new SecurityLevel[securityLevels.length + 1];
-						projectSecurityLevels[0] = SecurityLevel.NONE;
-						System.arraycopy(securityLevels, 0, projectSecurityLevels, 1, securityLevels.length);
-						project.setSecurityLevels(projectSecurityLevels);
+					if (result.isModified()) {
+						SecurityLevel[] securityLevels = result.getValue();
+						if (securityLevels.length > 0) {
+							SecurityLevel[] projectSecurityLevels = new SecurityLevel[securityLevels.length + 1];
+							projectSecurityLevels[0] = SecurityLevel.NONE;
+							System.arraycopy(securityLevels, 0, projectSecurityLevels, 1, securityLevels.length);
+							project.setSecurityLevels(projectSecurityLevels);
+						}
+					} else if (oldProject != null) {
+						project.setSecurityLevels(oldProject.getSecurityLevels());
 					}
+					setValidator(data, securityLevelsKey, result.getValidator());
 				} catch (JiraInsufficientPermissionException e) {
 					// security levels are only support on JIRA enterprise
 					project.setSecurityLevels(null);
+					setValidator(data, securityLevelsKey, null);
 				}
 			}
 
 			project.setDetails(true);
 		}
+		data.modified = true;
+	}
+
+	/**
+	 * Returns the data with project details read from disk if they have not been read yet.
+	 */
+	private JiraClientData getDataWithProjectDetails() {
+		JiraClientData data = this.data;
+		JiraClientDataStore.loadProjectDetails(data);
+		return data;
 	}
 
 	public Project getProjectById(String id) {
-		return data.projectsById.get(id);
+		return getDataWithProjectDetails().projectsById.get(id);
 	}
 
 	public Project getProjectById(String id, IProgressMonitor monitor) throws JiraException {
-		Project project = data.projectsById.get(id);
+		Project project = getDataWithProjectDetails().projectsById.get(id);
 		if (project == null) {
 			refreshProjectDetails(id, monitor);
 			project = data.projectsById.get(id);
@@ -123,21 +216,50 @@ public class JiraClientCache {
 	}
 
 	public Project getProjectByKey(String key) {
-		return data.projectsByKey.get(key);
+		return getDataWithProjectDetails().projectsByKey.get(key);
 	}
 
 	public Project[] getProjects() {
-		return data.projects;
+		return getDataWithProjectDetails().projects;
+	}
+
+	/**
+	 * Returns a matcher for the keys of issues in the projects of the repository. The matcher is only created again
+	 * when the list of projects has changed.
+	 */
+	public JiraIssueKeyMatcher getIssueKeyMatcher() {
+		JiraClientData data = this.data;
+		JiraIssueKeyMatcher matcher = data.issueKeyMatcher;
+		if (matcher == null) {
+			List<String> projectKeys = new ArrayList<String>(data.projects.length);
+			for (Project project : data.projects) {
+				projectKeys.add(project.getKey());
+			}
+			// concurrent callers may create redundant matchers but they are all equivalent
+			matcher = new JiraIssueKeyMatcher(projectKeys);
+			data.issueKeyMatcher = matcher;
+		}
+		return matcher;
 	}
 
 	public ProjectRole[] getProjectRoles() {
 		return data.projectRoles;
 	}
 
-	private void initializePriorities(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	private void initializePriorities(JiraClientData oldData, JiraClientData data, IProgressMonitor monitor)
+			throws JiraException {
 		monitor = SubMonitor.convert(monitor, Messages.JiraClientCache_getting_priorities, 1);
 
-		data.priorities = jiraClient.getPriorities(monitor);
+		JiraConditionalResult<Priority[]> result = jiraClient.getPriorities(
+				getValidator(oldData, VALIDATOR_PRIORITIES), monitor);
+		setValidator(data, VALIDATOR_PRIORITIES, result.getValidator());
+		if (!result.isModified()) {
+			data.priorities = oldData.priorities;
+			data.prioritiesById = oldData.prioritiesById;
+			return;
+		}
+
+		data.priorities = result.getValue();
 		data.prioritiesById = new HashMap<String, Priority>(data.priorities.length);
 		for (Priority priority : data.priorities) {
 			data.prioritiesById.put(priority.getId(), priority);
@@ -152,10 +274,20 @@ public class JiraClientCache {
 		return data.priorities;
 	}
 
-	private void initializeIssueTypes(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	private void initializeIssueTypes(JiraClientData oldData, JiraClientData data, IProgressMonitor monitor)
+			throws JiraException {
 		SubMonitor submonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_getting_issue_types, 2);
 
-		IssueType[] issueTypes = jiraClient.getIssueTypes(submonitor.newChild(1));
+		JiraConditionalResult<IssueType[]> result = jiraClient.getIssueTypes(
+				getValidator(oldData, VALIDATOR_ISSUE_TYPES), submonitor.newChild(1));
+		setValidator(data, VALIDATOR_ISSUE_TYPES, result.getValidator());
+		if (!result.isModified()) {
+			data.issueTypes = oldData.issueTypes;
+			data.issueTypesById = oldData.issueTypesById;
+			return;
+		}
+
+		IssueType[] issueTypes = result.getValue();
 //		IssueType[] subTaskIssueTypes = jiraClient.getSubTaskIssueTypes(submonitor.newChild(1));
 
 //		data.issueTypesById = new HashMap<String, IssueType>(issueTypes.length + subTaskIssueTypes.length);
@@ -176,10 +308,21 @@ public class JiraClientCache {
 //		System.arraycopy(subTaskIssueTypes, 0, data.issueTypes, issueTypes.length, subTaskIssueTypes.length);
 	}
 
-	private void initializeStatuses(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	private void initializeStatuses(JiraClientData oldData, JiraClientData data, IProgressMonitor monitor)
+			throws JiraException {
 		SubMonitor submonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_getting_statuses, 1);
 
-		data.statuses = jiraClient.getStatuses(submonitor.newChild(1));
+		JiraConditionalResult<JiraStatus[]> result = jiraClient.getStatuses(getValidator(oldData, VALIDATOR_STATUSES),
+				submonitor.newChild(1));
+		setValidator(data, VALIDATOR_STATUSES, result.getValidator());
+		if (!result.isModified()) {
+			data.statuses = oldData.statuses;
+			data.statusesById = oldData.statusesById;
+			data.statusesByName = oldData.statusesByName;
+			return;
+		}
+
+		data.statuses = result.getValue();
 		data.statusesById = new HashMap<String, JiraStatus>(data.statuses.length);
 		data.statusesByName = new HashMap<String, JiraStatus>(data.statuses.length);
 		for (JiraStatus status : data.statuses) {
@@ -198,10 +341,21 @@ public class JiraClientCache {
 		data.projectRoles = projectRoles;
 	}
 
-	private void initializeResolutions(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	private void initializeResolutions(JiraClientData oldData, JiraClientData data, IProgressMonitor monitor)
+			throws JiraException {
 		SubMonitor submonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_getting_resolutions, 1);
 
-		data.resolutions = jiraClient.getResolutions(submonitor.newChild(0));
+		JiraConditionalResult<Resolution[]> result = jiraClient.getResolutions(
+				getValidator(oldData, VALIDATOR_RESOLUTIONS), submonitor.newChild(0));
+		setValidator(data, VALIDATOR_RESOLUTIONS, result.getValidator());
+		if (!result.isModified()) {
+			data.resolutions = oldData.resolutions;
+			data.resolutionsById = oldData.resolutionsById;
+			data.resolutionsByName = oldData.resolutionsByName;
+			return;
+		}
+
+		data.resolutions = result.getValue();
 		data.resolutionsById = new HashMap<String, Resolution>(data.resolutions.length);
 		data.resolutionsByName = new HashMap<String, Resolution>(data.resolutions.length);
 		for (Resolution resolution : data.resolutions) {
@@ -254,7 +408,14 @@ public class JiraClientCache {
 		return data;
 	}
 
-	public synchronized Project refreshProjectDetails(String projectId, IProgressMonitor monitor) throws JiraException {
+	/**
+	 * Returns true, if the data has changed since it was last written to disk.
+	 */
+	public boolean isModified() {
+		return data.modified;
+	}
+
+	public Project refreshProjectDetails(String projectId, IProgressMonitor monitor) throws JiraException {
 		Project project = getProjectById(projectId);
 		if (project != null) {
 			initializeProject(project, monitor);
@@ -270,7 +431,7 @@ public class JiraClientCache {
 		return project;
 	}
 
-	public synchronized Project refreshProjectDetails(Project project, IProgressMonitor monitor) throws JiraException {
+	public Project refreshProjectDetails(Project project, IProgressMonitor monitor) throws JiraException {
 		if (project == null) {
 			throw new JiraException("Project does not exist"); //$NON-NLS-1$
 		}
@@ -279,26 +440,147 @@ public class JiraClientCache {
 		return project;
 	}
 
-	public synchronized void refreshDetails(IProgressMonitor monitor) throws JiraException {
-		SubMonitor subMonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_Updating_repository_configuration,
-				8);
+	/**
+	 * Retrieves the complete repository configuration. The independent parts of the configuration are retrieved in
+	 * parallel and the details of projects that had been retrieved before are refreshed as well. The new configuration
+	 * replaces the current one once it has been retrieved completely, readers are never blocked while the refresh runs.
+	 * Parts that have not changed since they were last retrieved are validated with conditional requests and taken
+	 * from the current configuration.
+	 */
+	public void refreshDetails(IProgressMonitor monitor) throws JiraException {
+		synchronized (refreshLock) {
+			SubMonitor subMonitor = SubMonitor.convert(monitor,
+					Messages.JiraClientCache_Updating_repository_configuration, 8);
+
+			final JiraClientData oldData = getDataWithProjectDetails();
+			final JiraClientData newData = new JiraClientData();
+			// users are collected from issues and not part of the repository configuration
+			newData.usersByName = oldData.usersByName;
+
+			// the requests run with a monitor of their own and are aborted when the refresh is canceled or fails
+			final IProgressMonitor requestMonitor = JiraExecutors.newRequestMonitor(subMonitor);
+			ExecutorService executor = createExecutor();
+			try {
+				List<Future<?>> futures = new ArrayList<Future<?>>();
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						refreshServerInfo(newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializePriorities(oldData, newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeIssueTypes(oldData, newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeResolutions(oldData, newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeStatuses(oldData, newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeProjectRoles(newData, requestMonitor);
+						return null;
+					}
+				}));
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeProjects(oldData, newData, requestMonitor);
+						return null;
+					}
+				}));
+//				initializeConfiguration(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
+
+				for (Future<?> future : futures) {
+					JiraExecutors.waitFor(future, subMonitor);
+					subMonitor.worked(1);
+				}
+
+				refreshProjectDetails(executor, oldData, newData, requestMonitor, subMonitor.newChild(1));
+			} finally {
+				requestMonitor.setCanceled(true);
+				executor.shutdownNow();
+			}
 
-		final JiraClientData newData = new JiraClientData();
+			newData.lastUpdate = System.currentTimeMillis();
+			newData.modified = true;
 
-		refreshServerInfo(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		data.serverInfo = newData.serverInfo;
+			this.data = newData;
+		}
+	}
 
-		initializePriorities(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		initializeIssueTypes(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		initializeResolutions(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		initializeStatuses(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		initializeProjectRoles(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-		initializeProjects(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
-//		initializeConfiguration(newData, subMonitor.newChild(1, SubMonitor.SUPPRESS_NONE));
+	/**
+	 * Retrieves the details of the projects in <code>newData</code> that had details in <code>oldData</code> so
+	 * projects in use do not need to be retrieved again one by one. At most one batch of requests per thread of
+	 * <code>executor</code> is pending at any time. The requests run with <code>requestMonitor</code>, progress is
+	 * reported to <code>monitor</code>.
+	 */
+	private void refreshProjectDetails(ExecutorService executor, final JiraClientData oldData,
+			final JiraClientData newData, final IProgressMonitor requestMonitor, IProgressMonitor monitor)
+			throws JiraException {
+		List<Project> projects = new ArrayList<Project>();
+		for (Project project : newData.projects) {
+			Project oldProject = oldData.projectsById.get(project.getId());
+			if (oldProject != null && oldProject.hasDetails()) {
+				projects.add(project);
+			}
+		}
 
-		newData.lastUpdate = System.currentTimeMillis();
+		SubMonitor subMonitor = SubMonitor.convert(monitor, projects.size());
+		int batchSize = getMaxConcurrentRequests();
+		for (int start = 0; start < projects.size(); start += batchSize) {
+			List<Future<?>> futures = new ArrayList<Future<?>>(batchSize);
+			for (final Project project : projects.subList(start, Math.min(start + batchSize, projects.size()))) {
+				futures.add(executor.submit(new Callable<Object>() {
+					public Object call() throws Exception {
+						initializeProject(oldData, newData, project, requestMonitor);
+						return null;
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				JiraExecutors.waitFor(future, subMonitor);
+				subMonitor.worked(1);
+			}
+		}
+	}
 
-		this.data = newData;
+	private static JiraResourceValidator getValidator(JiraClientData data, String key) {
+		return (data.validators != null) ? data.validators.get(key) : null;
+	}
+
+	private static void setValidator(JiraClientData data, String key, JiraResourceValidator validator) {
+		if (validator != null) {
+			data.validators.put(key, validator);
+		} else {
+			data.validators.remove(key);
+		}
+	}
+
+	private int getMaxConcurrentRequests() {
+		return (jiraClient != null) ? jiraClient.getLocalConfiguration().getMaxConcurrentRequests()
+				: JiraLocalConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS;
+	}
+
+	private ExecutorService createExecutor() {
+		String url = (jiraClient != null) ? jiraClient.getBaseUrl() : ""; //$NON-NLS-1$
+		return JiraExecutors.newFixedThreadPool(getMaxConcurrentRequests(), "JIRA Configuration Refresh", //$NON-NLS-1$
+				url);
 	}
 
 	/**
@@ -316,12 +598,13 @@ public class JiraClientCache {
 	 * Refresh any cached information with the latest values from the remote server. This operation may take a long time
 	 * to complete and should not be called from a UI thread.
 	 */
-	public synchronized void refreshServerInfo(JiraClientData data, IProgressMonitor monitor) throws JiraException {
+	public void refreshServerInfo(JiraClientData data, IProgressMonitor monitor) throws JiraException {
 		SubMonitor submonitor = SubMonitor.convert(monitor, Messages.JiraClientCache_Getting_server_information, 1);
 		data.serverInfo = jiraClient.getServerInfo(submonitor.newChild(1));
+		data.modified = true;
 	}
 
-	public synchronized void refreshServerInfo(IProgressMonitor monitor) throws JiraException {
+	public void refreshServerInfo(IProgressMonitor monitor) throws JiraException {
 		refreshServerInfo(data, monitor);
 	}
 
@@ -344,25 +627,63 @@ public class JiraClientCache {
 		ServerInfo info = data.serverInfo;
 		if (info == null) {
 			info = jiraClient.getServerInfo(monitor);
+			data.modified = true;
 		}
 		data.serverInfo = info;
 		return info;
 	}
 
 	public User getUser(String name) {
-		synchronized (this.data.usersByName) {
-			return this.data.usersByName.get(name);
-		}
+		return (name != null) ? data.usersByName.get(name) : null;
 	}
 
 	public User putUser(String name, String fullName) {
-		User user = new User();
+		JiraClientData data = this.data;
+		User user = putUser(data, name, fullName);
+		evictUsers(data);
+		return user;
+	}
+
+	/**
+	 * Adds the users in <code>fullNameByName</code> to the directory, e.g. the authors of the issues returned by a
+	 * search.
+	 */
+	public void putUsers(Map<String, String> fullNameByName) {
+		JiraClientData data = this.data;
+		for (Map.Entry<String, String> entry : fullNameByName.entrySet()) {
+			putUser(data, entry.getKey(), entry.getValue());
+		}
+		evictUsers(data);
+	}
+
+	private static User putUser(JiraClientData data, String name, String fullName) {
+		User user = (name != null) ? data.usersByName.get(name) : null;
+		if (user != null && (fullName != null ? fullName.equals(user.getFullName()) : user.getFullName() == null)) {
+			// unchanged
+			return user;
+		}
+
+		user = new User();
 		user.setName(name);
 		user.setFullName(fullName);
-		synchronized (this.data.usersByName) {
-			this.data.usersByName.put(name, user);
+		if (name != null) {
+			data.usersByName.put(name, user);
+			data.modified = true;
 		}
 		return user;
 	}
 
+	private static void evictUsers(JiraClientData data) {
+		Map<String, User> usersByName = data.usersByName;
+		if (usersByName.size() > MAX_USERS) {
+			// evict a quarter of the users at once to avoid evicting on every put
+			int count = usersByName.size() - (MAX_USERS * 3 / 4);
+			for (Iterator<String> it = usersByName.keySet().iterator(); it.hasNext() && count > 0; count--) {
+				it.next();
+				it.remove();
+			}
+			data.modified = true;
+		}
+	}
+
 }
@@ -11,9 +11,11 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.service;
 
+import java.io.File;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.atlassian.connector.eclipse.internal.jira.core.model.Group;
 import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
@@ -24,6 +26,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.ProjectRole;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
 import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
 import com.atlassian.connector.eclipse.internal.jira.core.model.User;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraIssueKeyMatcher;
 
 /**
  * Caches repository configuration data.
@@ -71,10 +74,23 @@ public class JiraClientData implements Serializable {
 	// not used
 	User[] users = new User[0];
 
-	Map<String, User> usersByName = new HashMap<String, User>();
+	/** Users encountered in issues, accessed concurrently while issues are retrieved in parallel. */
+	Map<String, User> usersByName = new ConcurrentHashMap<String, User>();
 
 	long lastUpdate;
 
+	/** Validators of the retrieved repository resources keyed by resource, updated concurrently during refreshes. */
+	Map<String, JiraResourceValidator> validators = new ConcurrentHashMap<String, JiraResourceValidator>();
+
+	/** Set when the data has changed since it was last written to disk. */
+	transient volatile boolean modified;
+
+	/** The file that contains the project details that have not been read yet. */
+	transient volatile File projectDetailsFile;
+
+	/** Matches the keys of issues in {@link #projects}, created on first use. */
+	transient volatile JiraIssueKeyMatcher issueKeyMatcher;
+
 //	JiraConfiguration configuration;
 
 }
@@ -0,0 +1,728 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.osgi.util.NLS;
+
+import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Component;
+import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
+import com.atlassian.connector.eclipse.internal.jira.core.model.JiraStatus;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Priority;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
+import com.atlassian.connector.eclipse.internal.jira.core.model.ProjectRole;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
+import com.atlassian.connector.eclipse.internal.jira.core.model.SecurityLevel;
+import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
+import com.atlassian.connector.eclipse.internal.jira.core.model.User;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
+
+/**
+ * Stores the repository configuration of each repository in a separate file. The configuration is written as a
+ * sequence of independently versioned sections so a change to the format of one section only discards that section
+ * rather than the whole configuration. Project details, which make up most of the configuration of large
+ * repositories, are stored in a second file that is only read when a project is first accessed.
+ */
+public class JiraClientDataStore {
+
+	private static final int MAGIC = 0x4A434453;
+
+	private static final int VERSION = 1;
+
+	private static final String CONFIGURATION_SUFFIX = ".configuration"; //$NON-NLS-1$
+
+	private static final String PROJECT_DETAILS_SUFFIX = ".projects"; //$NON-NLS-1$
+
+	private static final String SECTION_SERVER_INFO = "serverInfo"; //$NON-NLS-1$
+
+	private static final String SECTION_PRIORITIES = "priorities"; //$NON-NLS-1$
+
+	private static final String SECTION_ISSUE_TYPES = "issueTypes"; //$NON-NLS-1$
+
+	private static final String SECTION_RESOLUTIONS = "resolutions"; //$NON-NLS-1$
+
+	private static final String SECTION_STATUSES = "statuses"; //$NON-NLS-1$
+
+	private static final String SECTION_PROJECT_ROLES = "projectRoles"; //$NON-NLS-1$
+
+	private static final String SECTION_PROJECTS = "projects"; //$NON-NLS-1$
+
+	private static final String SECTION_USERS = "users"; //$NON-NLS-1$
+
+	private static final String SECTION_LAST_UPDATE = "lastUpdate"; //$NON-NLS-1$
+
+	private static final String SECTION_VALIDATORS = "validators"; //$NON-NLS-1$
+
+	/** Version of the sections written. Readers need to handle all versions up to this one. */
+	private static final int SECTION_VERSION = 1;
+
+	private final File directory;
+
+	public JiraClientDataStore(File directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * Returns true if a configuration has been stored for <code>url</code>.
+	 */
+	public boolean exists(String url) {
+		return getConfigurationFile(url).exists();
+	}
+
+	/**
+	 * Reads the configuration of the repository at <code>url</code>. Project details are read on first access through
+	 * {@link #loadProjectDetails(JiraClientData)}.
+	 *
+	 * @return the configuration or <code>null</code>, if no configuration has been stored or it could not be read
+	 */
+	public JiraClientData read(String url) {
+		File file = getConfigurationFile(url);
+		if (!file.exists()) {
+			return null;
+		}
+
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			readHeader(in, url);
+
+			JiraClientData data = new JiraClientData();
+			boolean complete = true;
+			while (true) {
+				String name = in.readUTF();
+				if (name.length() == 0) {
+					break;
+				}
+				int version = in.readInt();
+				byte[] content = new byte[in.readInt()];
+				in.readFully(content);
+				if (version > SECTION_VERSION) {
+					// written by a newer version, the section will be refreshed from the repository
+					complete = false;
+					continue;
+				}
+				try {
+					readSection(data, name, new DataInputStream(new ByteArrayInputStream(content)));
+				} catch (IOException e) {
+					complete = false;
+				}
+			}
+
+			if (!complete) {
+				// the sections that were read remain usable until the configuration is updated
+				data.lastUpdate = 0;
+				// validators of sections that were not read must not prevent them from being retrieved again
+				data.validators.clear();
+			}
+			data.projectDetailsFile = getProjectDetailsFile(url);
+			return data;
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN, NLS.bind(
+					"Reset JIRA repository configuration cache for {0} due to format change", url))); //$NON-NLS-1$
+			return null;
+		} finally {
+			close(in);
+		}
+	}
+
+	/**
+	 * Writes the configuration of the repository at <code>url</code> and clears its modified flag.
+	 */
+	public void write(String url, JiraClientData data) throws IOException {
+		// changes made while writing are picked up by the next write
+		data.modified = false;
+		try {
+			writeConfiguration(url, data);
+		} catch (IOException e) {
+			data.modified = true;
+			throw e;
+		}
+	}
+
+	private void writeConfiguration(String url, JiraClientData data) throws IOException {
+		directory.mkdirs();
+
+		// project details that have not been read yet are still current on disk
+		File projectDetailsFile = data.projectDetailsFile;
+
+		File file = getConfigurationFile(url);
+		File tempFile = new File(directory, file.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			writeHeader(out, url);
+			writeSection(out, SECTION_SERVER_INFO, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					writeServerInfo(out, data.serverInfo);
+				}
+			}, data);
+			writeSection(out, SECTION_PRIORITIES, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeInt(data.priorities.length);
+					for (Priority priority : data.priorities) {
+						writeString(out, priority.getId());
+						writeString(out, priority.getName());
+						writeString(out, priority.getDescription());
+						writeString(out, priority.getIcon());
+						writeString(out, priority.getColour());
+						writeString(out, (priority.getSelf() != null) ? priority.getSelf().toString() : null);
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_ISSUE_TYPES, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					writeIssueTypes(out, data.issueTypes);
+				}
+			}, data);
+			writeSection(out, SECTION_RESOLUTIONS, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeInt(data.resolutions.length);
+					for (Resolution resolution : data.resolutions) {
+						writeString(out, resolution.getId());
+						writeString(out, resolution.getName());
+						writeString(out, resolution.getDescription());
+						writeString(out, resolution.getIcon());
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_STATUSES, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeInt(data.statuses.length);
+					for (JiraStatus status : data.statuses) {
+						writeString(out, status.getId());
+						writeString(out, status.getName());
+						writeString(out, status.getDescription());
+						writeString(out, status.getIcon());
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_PROJECT_ROLES, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeInt(data.projectRoles.length);
+					for (ProjectRole role : data.projectRoles) {
+						out.writeBoolean(role.getId() != null);
+						if (role.getId() != null) {
+							out.writeLong(role.getId());
+						}
+						writeString(out, role.getName());
+						writeString(out, role.getDescription());
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_PROJECTS, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeInt(data.projects.length);
+					for (Project project : data.projects) {
+						writeString(out, project.getId());
+						writeString(out, project.getKey());
+						writeString(out, project.getName());
+						writeString(out, project.getDescription());
+						writeString(out, project.getLead());
+						writeString(out, project.getProjectUrl());
+						writeString(out, project.getUrl());
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_USERS, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					// users may be added while the configuration is written
+					List<User> users = new ArrayList<User>(data.usersByName.values());
+					out.writeInt(users.size());
+					for (User user : users) {
+						writeString(out, user.getName());
+						writeString(out, user.getFullName());
+						writeString(out, user.getEmail());
+					}
+				}
+			}, data);
+			writeSection(out, SECTION_LAST_UPDATE, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					out.writeLong(data.lastUpdate);
+				}
+			}, data);
+			writeSection(out, SECTION_VALIDATORS, new SectionWriter() {
+				public void write(JiraClientData data, DataOutputStream out) throws IOException {
+					Map<String, JiraResourceValidator> validators = new HashMap<String, JiraResourceValidator>();
+					if (data.validators != null) {
+						// configurations migrated from the serialized format have no validators
+						validators.putAll(data.validators);
+					}
+					out.writeInt(validators.size());
+					for (Map.Entry<String, JiraResourceValidator> entry : validators.entrySet()) {
+						out.writeUTF(entry.getKey());
+						writeString(out, entry.getValue().getEntityTag());
+						writeString(out, entry.getValue().getLastModified());
+						writeString(out, entry.getValue().getContentHash());
+					}
+				}
+			}, data);
+			// end of sections
+			out.writeUTF(""); //$NON-NLS-1$
+		} finally {
+			out.close();
+		}
+
+		if (projectDetailsFile == null) {
+			writeProjectDetails(url, data);
+		}
+		replace(tempFile, file);
+	}
+
+	/**
+	 * Removes the configuration of the repository at <code>url</code>.
+	 */
+	public void delete(String url) {
+		getConfigurationFile(url).delete();
+		getProjectDetailsFile(url).delete();
+	}
+
+	/**
+	 * Removes the configurations of all repositories.
+	 */
+	public void clear() {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+	}
+
+	/**
+	 * Reads the project details of <code>data</code> if they have not been read yet. Projects without stored details
+	 * are left without details and are refreshed from the repository on demand.
+	 */
+	public static void loadProjectDetails(JiraClientData data) {
+		if (data.projectDetailsFile == null) {
+			return;
+		}
+
+		synchronized (data) {
+			File file = data.projectDetailsFile;
+			if (file == null || !file.exists()) {
+				data.projectDetailsFile = null;
+				return;
+			}
+
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+				if (in.readInt() != MAGIC || in.readInt() > VERSION) {
+					throw new IOException("Unsupported format"); //$NON-NLS-1$
+				}
+				in.readUTF(); // url
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					String projectId = in.readUTF();
+					int version = in.readInt();
+					byte[] content = new byte[in.readInt()];
+					in.readFully(content);
+
+					Project project = data.projectsById.get(projectId);
+					if (project != null && !project.hasDetails() && version <= SECTION_VERSION) {
+						try {
+							readProjectDetails(project, new DataInputStream(new ByteArrayInputStream(content)));
+						} catch (IOException e) {
+							// the details of this project will be retrieved from the repository
+						}
+					}
+				}
+			} catch (IOException e) {
+				StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN,
+						"Reset JIRA project details cache due to format change")); //$NON-NLS-1$
+			} finally {
+				close(in);
+				data.projectDetailsFile = null;
+			}
+		}
+	}
+
+	private void writeProjectDetails(String url, JiraClientData data) throws IOException {
+		File file = getProjectDetailsFile(url);
+		File tempFile = new File(directory, file.getName() + ".tmp"); //$NON-NLS-1$
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			writeHeader(out, url);
+			Project[] projects = data.projects;
+			int count = 0;
+			for (Project project : projects) {
+				if (project.hasDetails()) {
+					count++;
+				}
+			}
+			out.writeInt(count);
+			ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+			for (Project project : projects) {
+				if (project.hasDetails()) {
+					buffer.reset();
+					synchronized (project) {
+						writeProjectDetails(new DataOutputStream(buffer), project);
+					}
+					out.writeUTF(project.getId());
+					out.writeInt(SECTION_VERSION);
+					out.writeInt(buffer.size());
+					buffer.writeTo(out);
+				}
+			}
+		} finally {
+			out.close();
+		}
+		replace(tempFile, file);
+	}
+
+	private static void writeProjectDetails(DataOutputStream out, Project project) throws IOException {
+		Component[] components = project.getComponents();
+		out.writeInt((components != null) ? components.length : -1);
+		if (components != null) {
+			for (Component component : components) {
+				writeString(out, component.getId());
+				writeString(out, component.getName());
+			}
+		}
+
+		Version[] versions = project.getVersions();
+		out.writeInt((versions != null) ? versions.length : -1);
+		if (versions != null) {
+			for (Version version : versions) {
+				writeString(out, version.getId());
+				writeString(out, version.getName());
+				out.writeBoolean(version.isArchived());
+				out.writeBoolean(version.isReleased());
+				writeDate(out, version.getReleaseDate());
+				out.writeLong(version.getSequence());
+			}
+		}
+
+		IssueType[] issueTypes = project.getIssueTypes();
+		out.writeBoolean(issueTypes != null);
+		if (issueTypes != null) {
+			writeIssueTypes(out, issueTypes);
+		}
+
+		SecurityLevel[] securityLevels = project.getSecurityLevels();
+		out.writeInt((securityLevels != null) ? securityLevels.length : -1);
+		if (securityLevels != null) {
+			for (SecurityLevel securityLevel : securityLevels) {
+				writeString(out, securityLevel.getId());
+				writeString(out, securityLevel.getName());
+			}
+		}
+	}
+
+	private static void readProjectDetails(Project project, DataInputStream in) throws IOException {
+		Component[] components = null;
+		int count = in.readInt();
+		if (count >= 0) {
+			components = new Component[count];
+			for (int i = 0; i < count; i++) {
+				components[i] = new Component(readString(in));
+				components[i].setName(readString(in));
+			}
+		}
+
+		Version[] versions = null;
+		count = in.readInt();
+		if (count >= 0) {
+			versions = new Version[count];
+			for (int i = 0; i < count; i++) {
+				versions[i] = new Version(readString(in), readString(in));
+				versions[i].setArchived(in.readBoolean());
+				versions[i].setReleased(in.readBoolean());
+				versions[i].setReleaseDate(readDate(in));
+				versions[i].setSequence(in.readLong());
+			}
+		}
+
+		IssueType[] issueTypes = null;
+		if (in.readBoolean()) {
+			issueTypes = readIssueTypes(in);
+		}
+
+		SecurityLevel[] securityLevels = null;
+		count = in.readInt();
+		if (count >= 0) {
+			securityLevels = new SecurityLevel[count];
+			for (int i = 0; i < count; i++) {
+				securityLevels[i] = new SecurityLevel(readString(in), readString(in));
+				if (SecurityLevel.NONE.getId().equals(securityLevels[i].getId())) {
+					// keep the localized name
+					securityLevels[i] = SecurityLevel.NONE;
+				}
+			}
+		}
+
+		synchronized (project) {
+			project.setComponents(components);
+			project.setVersions(versions);
+			project.setIssueTypes(issueTypes);
+			project.setSecurityLevels(securityLevels);
+			project.setDetails(true);
+		}
+	}
+
+	private void readSection(JiraClientData data, String name, DataInputStream in) throws IOException {
+		if (SECTION_SERVER_INFO.equals(name)) {
+			data.serverInfo = readServerInfo(in);
+		} else if (SECTION_PRIORITIES.equals(name)) {
+			Priority[] priorities = new Priority[in.readInt()];
+			Map<String, Priority> prioritiesById = new HashMap<String, Priority>(priorities.length);
+			for (int i = 0; i < priorities.length; i++) {
+				priorities[i] = new Priority(readString(in), readString(in), readString(in), readString(in),
+						readString(in));
+				String self = readString(in);
+				if (self != null) {
+					try {
+						priorities[i].setSelf(new URI(self));
+					} catch (URISyntaxException e) {
+						// ignore
+					}
+				}
+				prioritiesById.put(priorities[i].getId(), priorities[i]);
+			}
+			data.priorities = priorities;
+			data.prioritiesById = prioritiesById;
+		} else if (SECTION_ISSUE_TYPES.equals(name)) {
+			IssueType[] issueTypes = readIssueTypes(in);
+			Map<String, IssueType> issueTypesById = new HashMap<String, IssueType>(issueTypes.length);
+			for (IssueType issueType : issueTypes) {
+				issueTypesById.put(issueType.getId(), issueType);
+			}
+			data.issueTypes = issueTypes;
+			data.issueTypesById = issueTypesById;
+		} else if (SECTION_RESOLUTIONS.equals(name)) {
+			Resolution[] resolutions = new Resolution[in.readInt()];
+			Map<String, Resolution> resolutionsById = new HashMap<String, Resolution>(resolutions.length);
+			Map<String, Resolution> resolutionsByName = new HashMap<String, Resolution>(resolutions.length);
+			for (int i = 0; i < resolutions.length; i++) {
+				resolutions[i] = new Resolution(readString(in), readString(in), readString(in), readString(in));
+				resolutionsById.put(resolutions[i].getId(), resolutions[i]);
+				resolutionsByName.put(resolutions[i].getName(), resolutions[i]);
+			}
+			data.resolutions = resolutions;
+			data.resolutionsById = resolutionsById;
+			data.resolutionsByName = resolutionsByName;
+		} else if (SECTION_STATUSES.equals(name)) {
+			JiraStatus[] statuses = new JiraStatus[in.readInt()];
+			Map<String, JiraStatus> statusesById = new HashMap<String, JiraStatus>(statuses.length);
+			Map<String, JiraStatus> statusesByName = new HashMap<String, JiraStatus>(statuses.length);
+			for (int i = 0; i < statuses.length; i++) {
+				statuses[i] = new JiraStatus(readString(in), readString(in), readString(in), readString(in));
+				statusesById.put(statuses[i].getId(), statuses[i]);
+				statusesByName.put(statuses[i].getName(), statuses[i]);
+			}
+			data.statuses = statuses;
+			data.statusesById = statusesById;
+			data.statusesByName = statusesByName;
+		} else if (SECTION_PROJECT_ROLES.equals(name)) {
+			ProjectRole[] projectRoles = new ProjectRole[in.readInt()];
+			for (int i = 0; i < projectRoles.length; i++) {
+				projectRoles[i] = new ProjectRole();
+				if (in.readBoolean()) {
+					projectRoles[i].setId(in.readLong());
+				}
+				projectRoles[i].setName(readString(in));
+				projectRoles[i].setDescription(readString(in));
+			}
+			data.projectRoles = projectRoles;
+		} else if (SECTION_PROJECTS.equals(name)) {
+			Project[] projects = new Project[in.readInt()];
+			Map<String, Project> projectsById = new HashMap<String, Project>(projects.length);
+			Map<String, Project> projectsByKey = new HashMap<String, Project>(projects.length);
+			for (int i = 0; i < projects.length; i++) {
+				projects[i] = new Project(readString(in));
+				projects[i].setKey(readString(in));
+				projects[i].setName(readString(in));
+				projects[i].setDescription(readString(in));
+				projects[i].setLead(readString(in));
+				projects[i].setProjectUrl(readString(in));
+				projects[i].setUrl(readString(in));
+				projectsById.put(projects[i].getId(), projects[i]);
+				projectsByKey.put(projects[i].getKey(), projects[i]);
+			}
+			data.projects = projects;
+			data.projectsById = projectsById;
+			data.projectsByKey = projectsByKey;
+		} else if (SECTION_USERS.equals(name)) {
+			int count = in.readInt();
+			Map<String, User> usersByName = new ConcurrentHashMap<String, User>(count);
+			for (int i = 0; i < count; i++) {
+				User user = new User();
+				user.setName(readString(in));
+				user.setFullName(readString(in));
+				user.setEmail(readString(in));
+				if (user.getName() != null) {
+					usersByName.put(user.getName(), user);
+				}
+			}
+			data.usersByName = usersByName;
+		} else if (SECTION_LAST_UPDATE.equals(name)) {
+			data.lastUpdate = in.readLong();
+		} else if (SECTION_VALIDATORS.equals(name)) {
+			int count = in.readInt();
+			for (int i = 0; i < count; i++) {
+				data.validators.put(in.readUTF(), new JiraResourceValidator(readString(in), readString(in),
+						readString(in)));
+			}
+		}
+		// sections written by newer versions are ignored
+	}
+
+	private interface SectionWriter {
+
+		void write(JiraClientData data, DataOutputStream out) throws IOException;
+
+	}
+
+	private static void writeSection(DataOutputStream out, String name, SectionWriter writer, JiraClientData data)
+			throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writer.write(data, new DataOutputStream(buffer));
+		out.writeUTF(name);
+		out.writeInt(SECTION_VERSION);
+		out.writeInt(buffer.size());
+		buffer.writeTo(out);
+	}
+
+	private static void writeHeader(DataOutputStream out, String url) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(url);
+	}
+
+	private static void readHeader(DataInputStream in, String url) throws IOException {
+		if (in.readInt() != MAGIC) {
+			throw new IOException("Not a repository configuration"); //$NON-NLS-1$
+		}
+		if (in.readInt() > VERSION) {
+			throw new IOException("Unsupported version"); //$NON-NLS-1$
+		}
+		if (!url.equals(in.readUTF())) {
+			throw new IOException("Configuration of a different repository"); //$NON-NLS-1$
+		}
+	}
+
+	private static void writeServerInfo(DataOutputStream out, ServerInfo serverInfo) throws IOException {
+		out.writeBoolean(serverInfo != null);
+		if (serverInfo != null) {
+			writeString(out, serverInfo.getBaseUrl());
+			writeDate(out, serverInfo.getBuildDate());
+			writeString(out, serverInfo.getBuildNumber());
+			writeString(out, serverInfo.getEdition());
+			writeString(out, serverInfo.getVersion());
+			writeString(out, serverInfo.getCharacterEncoding());
+			writeString(out, serverInfo.getWebBaseUrl());
+		}
+	}
+
+	private static ServerInfo readServerInfo(DataInputStream in) throws IOException {
+		if (!in.readBoolean()) {
+			return null;
+		}
+		ServerInfo serverInfo = new ServerInfo();
+		serverInfo.setBaseUrl(readString(in));
+		serverInfo.setBuildDate(readDate(in));
+		serverInfo.setBuildNumber(readString(in));
+		serverInfo.setEdition(readString(in));
+		serverInfo.setVersion(readString(in));
+		serverInfo.setCharacterEncoding(readString(in));
+		serverInfo.setWebBaseUrl(readString(in));
+		return serverInfo;
+	}
+
+	private static void writeIssueTypes(DataOutputStream out, IssueType[] issueTypes) throws IOException {
+		out.writeInt(issueTypes.length);
+		for (IssueType issueType : issueTypes) {
+			writeString(out, issueType.getId());
+			writeString(out, issueType.getName());
+			writeString(out, issueType.getDescription());
+			writeString(out, issueType.getIcon());
+			out.writeBoolean(issueType.isSubTaskType());
+		}
+	}
+
+	private static IssueType[] readIssueTypes(DataInputStream in) throws IOException {
+		IssueType[] issueTypes = new IssueType[in.readInt()];
+		for (int i = 0; i < issueTypes.length; i++) {
+			issueTypes[i] = new IssueType(readString(in), readString(in), readString(in), readString(in));
+			issueTypes[i].setSubTaskType(in.readBoolean());
+		}
+		return issueTypes;
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return (in.readBoolean()) ? in.readUTF() : null;
+	}
+
+	private static void writeDate(DataOutputStream out, Date value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeLong(value.getTime());
+		}
+	}
+
+	private static Date readDate(DataInputStream in) throws IOException {
+		return (in.readBoolean()) ? new Date(in.readLong()) : null;
+	}
+
+	private static void replace(File source, File target) throws IOException {
+		target.delete();
+		if (!source.renameTo(target)) {
+			throw new IOException(NLS.bind("Could not rename {0}", source)); //$NON-NLS-1$
+		}
+	}
+
+	private static void close(DataInputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private File getConfigurationFile(String url) {
+		return new File(directory, Integer.toHexString(url.hashCode()) + CONFIGURATION_SUFFIX);
+	}
+
+	private File getProjectDetailsFile(String url) {
+		return new File(directory, Integer.toHexString(url.hashCode()) + PROJECT_DETAILS_SUFFIX);
+	}
+
+}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+/**
+ * The result of a conditional request. The value is only retrieved and converted if the resource has changed since
+ * the validator passed with the request was obtained.
+ */
+public class JiraConditionalResult<T> {
+
+	public static <T> JiraConditionalResult<T> modified(T value, JiraResourceValidator validator) {
+		return new JiraConditionalResult<T>(true, value, validator);
+	}
+
+	public static <T> JiraConditionalResult<T> notModified(JiraResourceValidator validator) {
+		return new JiraConditionalResult<T>(false, null, validator);
+	}
+
+	private final boolean modified;
+
+	private final T value;
+
+	private final JiraResourceValidator validator;
+
+	private JiraConditionalResult(boolean modified, T value, JiraResourceValidator validator) {
+		this.modified = modified;
+		this.value = value;
+		this.validator = validator;
+	}
+
+	/**
+	 * Returns false, if the resource has not changed and the previously retrieved value is still current.
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * Returns the retrieved value or <code>null</code>, if the resource has not been modified.
+	 */
+	public T getValue() {
+		return value;
+	}
+
+	/**
+	 * Returns the validator to pass with the next request for the resource or <code>null</code>, if the resource can
+	 * not be validated.
+	 */
+	public JiraResourceValidator getValidator() {
+		return validator;
+	}
+
+}
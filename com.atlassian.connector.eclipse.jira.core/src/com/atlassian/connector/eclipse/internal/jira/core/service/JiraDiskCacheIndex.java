@@ -0,0 +1,325 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+
+import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
+
+/**
+ * Index of a disk backed cache that stores each entry in a file of its own. The least recently used entries and their
+ * files are removed once the total length of the entries grows beyond the maximum size of the cache.
+ * <p>
+ * The index is kept in memory, loaded on first access and written to disk by {@link #save()}. Entry files that are
+ * not referenced by the loaded index, e.g. because they were written after the index was last saved, are removed
+ * when the index is loaded.
+ * <p>
+ * This class is not thread safe, callers need to synchronize access.
+ *
+ * @param <E>
+ *            the type of the values stored in the index for each entry
+ */
+public abstract class JiraDiskCacheIndex<E> {
+
+	private static final int VERSION = 1;
+
+	private static final String INDEX_FILENAME = "index"; //$NON-NLS-1$
+
+	private static final String TEMP_INDEX_FILENAME = "index.tmp"; //$NON-NLS-1$
+
+	private final File directory;
+
+	private final String repositoryUrl;
+
+	private final String entrySuffix;
+
+	private final long maxSize;
+
+	// access ordered so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, E> entryById = new LinkedHashMap<String, E>(16, 0.75f, true);
+
+	private long size;
+
+	private boolean loaded;
+
+	private boolean dirty;
+
+	public JiraDiskCacheIndex(File directory, String repositoryUrl, String entrySuffix, long maxSize) {
+		this.directory = directory;
+		this.repositoryUrl = repositoryUrl;
+		this.entrySuffix = entrySuffix;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Returns the length of the file of <code>entry</code>.
+	 */
+	protected abstract long getLength(E entry);
+
+	protected abstract E readEntry(DataInput in) throws IOException;
+
+	protected abstract void writeEntry(DataOutput out, E entry) throws IOException;
+
+	/**
+	 * Returns the version of the index format. An index written with a different version is discarded on load.
+	 * Subclasses that change the format of their entries return a new version.
+	 */
+	protected int getVersion() {
+		return VERSION;
+	}
+
+	/**
+	 * Invoked when an entry is added to the index.
+	 */
+	protected void entryAdded(String id, E entry) {
+	}
+
+	/**
+	 * Invoked when an entry is removed from the index.
+	 */
+	protected void entryRemoved(String id, E entry) {
+	}
+
+	/**
+	 * Invoked once the index has been loaded from disk.
+	 */
+	protected void loaded() {
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	public File getEntryFile(String id) {
+		return new File(directory, id + entrySuffix);
+	}
+
+	/**
+	 * Returns the entry for <code>id</code> and marks it as the most recently used one.
+	 */
+	public E get(String id) {
+		load();
+		return entryById.get(id);
+	}
+
+	/**
+	 * Adds <code>entry</code> whose file has already been written and evicts the least recently used entries if the
+	 * cache exceeds its maximum size. A previous entry for <code>id</code> is replaced but its file is kept.
+	 */
+	public void put(String id, E entry) {
+		load();
+		removeEntry(id);
+		entryById.put(id, entry);
+		entryAdded(id, entry);
+		size += getLength(entry);
+		dirty = true;
+		evict();
+	}
+
+	/**
+	 * Removes the entry for <code>id</code> and its file.
+	 */
+	public void remove(String id) {
+		load();
+		if (removeEntry(id)) {
+			getEntryFile(id).delete();
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Removes all entries and the index from memory and disk. Other files in the cache directory are kept.
+	 */
+	public void clear() {
+		for (Map.Entry<String, E> mapEntry : entryById.entrySet()) {
+			entryRemoved(mapEntry.getKey(), mapEntry.getValue());
+		}
+		entryById.clear();
+		size = 0;
+		loaded = true;
+		dirty = false;
+
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				if (isIndexFile(file) || file.getName().endsWith(entrySuffix)) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	public int size() {
+		load();
+		return entryById.size();
+	}
+
+	/**
+	 * Writes the index to disk if entries were added or removed since the last time it was written.
+	 */
+	public void save() {
+		if (!dirty) {
+			return;
+		}
+
+		directory.mkdirs();
+		File tempFile = new File(directory, TEMP_INDEX_FILENAME);
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(getVersion());
+			out.writeUTF(repositoryUrl);
+			out.writeInt(entryById.size());
+			// iteration order is least recently used first which is restored on load
+			for (Map.Entry<String, E> mapEntry : entryById.entrySet()) {
+				out.writeUTF(mapEntry.getKey());
+				writeEntry(out, mapEntry.getValue());
+			}
+			out.close();
+			out = null;
+
+			File indexFile = new File(directory, INDEX_FILENAME);
+			indexFile.delete();
+			if (tempFile.renameTo(indexFile)) {
+				dirty = false;
+			}
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.WARNING, JiraCorePlugin.ID_PLUGIN,
+					"Error writing cache index " + tempFile, e)); //$NON-NLS-1$
+		} finally {
+			if (out != null) {
+				try {
+					out.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the index from disk unless it has been loaded or cleared before.
+	 */
+	public void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+
+		File indexFile = new File(directory, INDEX_FILENAME);
+		if (indexFile.exists()) {
+			DataInputStream in = null;
+			try {
+				in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+				if (in.readInt() != getVersion() || !repositoryUrl.equals(in.readUTF())) {
+					throw new IOException("Incompatible cache"); //$NON-NLS-1$
+				}
+				int count = in.readInt();
+				for (int i = 0; i < count; i++) {
+					String id = in.readUTF();
+					E entry = readEntry(in);
+					entryById.put(id, entry);
+					entryAdded(id, entry);
+					size += getLength(entry);
+				}
+			} catch (IOException e) {
+				StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN,
+						"Reset cache " + directory + " due to format change")); //$NON-NLS-1$ //$NON-NLS-2$
+				for (Map.Entry<String, E> mapEntry : entryById.entrySet()) {
+					entryRemoved(mapEntry.getKey(), mapEntry.getValue());
+				}
+				entryById.clear();
+				size = 0;
+			} finally {
+				if (in != null) {
+					try {
+						in.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+		}
+
+		// entry files without an index entry can not be validated
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(entrySuffix)
+						&& !entryById.containsKey(name.substring(0, name.length() - entrySuffix.length()))) {
+					file.delete();
+				}
+			}
+		}
+		loaded();
+	}
+
+	private void evict() {
+		Iterator<Map.Entry<String, E>> it = entryById.entrySet().iterator();
+		while (size > maxSize && it.hasNext()) {
+			Map.Entry<String, E> mapEntry = it.next();
+			it.remove();
+			entryRemoved(mapEntry.getKey(), mapEntry.getValue());
+			size -= getLength(mapEntry.getValue());
+			getEntryFile(mapEntry.getKey()).delete();
+		}
+	}
+
+	private boolean removeEntry(String id) {
+		E entry = entryById.remove(id);
+		if (entry != null) {
+			entryRemoved(id, entry);
+			size -= getLength(entry);
+			return true;
+		}
+		return false;
+	}
+
+	private static boolean isIndexFile(File file) {
+		return INDEX_FILENAME.equals(file.getName()) || TEMP_INDEX_FILENAME.equals(file.getName());
+	}
+
+	/**
+	 * Returns true if <code>id</code> can be used as the name of an entry file.
+	 */
+	public static boolean isValidId(String id) {
+		if (id == null || id.length() == 0) {
+			return false;
+		}
+		for (int i = 0; i < id.length(); i++) {
+			if (!Character.isLetterOrDigit(id.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
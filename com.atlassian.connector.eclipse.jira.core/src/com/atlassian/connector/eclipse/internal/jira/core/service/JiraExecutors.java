@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+/**
+ * Runs requests to a repository in parallel and waits for them while honoring cancellation of the calling operation.
+ */
+public class JiraExecutors {
+
+	private static final long POLL_INTERVAL_IN_MS = 200;
+
+	private JiraExecutors() {
+	}
+
+	/**
+	 * Returns a pool of <code>threads</code> daemon threads named after <code>name</code> and the repository
+	 * <code>url</code>.
+	 */
+	public static ExecutorService newFixedThreadPool(int threads, final String name, final String url) {
+		final AtomicInteger threadNumber = new AtomicInteger(1);
+		return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + " " + threadNumber.getAndIncrement() //$NON-NLS-1$
+						+ " [" + url + "]"); //$NON-NLS-1$ //$NON-NLS-2$
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Returns a monitor for requests that run on the threads of a pool. It is canceled when <code>monitor</code> is
+	 * canceled, which aborts the running requests, or when it is canceled itself. Progress is not reported through it
+	 * since monitors are not thread safe, the thread waiting for the requests reports it instead.
+	 */
+	public static IProgressMonitor newRequestMonitor(final IProgressMonitor monitor) {
+		return new NullProgressMonitor() {
+			private volatile boolean canceled;
+
+			@Override
+			public boolean isCanceled() {
+				return canceled || monitor.isCanceled();
+			}
+
+			@Override
+			public void setCanceled(boolean canceled) {
+				this.canceled = canceled;
+			}
+		};
+	}
+
+	public static <V> V waitFor(Future<V> future, IProgressMonitor monitor) throws JiraException {
+		return waitFor(future, null, monitor);
+	}
+
+	/**
+	 * Waits for <code>future</code> and rethrows the exception it failed with.
+	 *
+	 * @param failure
+	 *            stops waiting with the failure of another request once it is set, may be <code>null</code>
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> is canceled or the calling thread is interrupted
+	 */
+	public static <V> V waitFor(Future<V> future, AtomicReference<? extends JiraException> failure,
+			IProgressMonitor monitor) throws JiraException {
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			JiraException otherFailure = (failure != null) ? failure.get() : null;
+			if (otherFailure != null) {
+				throw otherFailure;
+			}
+			try {
+				return future.get(POLL_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check for cancellation and try again
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof JiraException) {
+					throw (JiraException) cause;
+				} else if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				} else if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new JiraException(cause);
+			}
+		}
+	}
+
+}
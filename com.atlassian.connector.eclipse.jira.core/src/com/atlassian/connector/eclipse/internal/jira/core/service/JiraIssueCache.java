@@ -0,0 +1,395 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.mylyn.commons.core.StatusHandler;
+
+import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
+
+/**
+ * Disk backed cache of issues as returned by the repository. Entries are keyed by issue id and carry the issue's
+ * updated time stamp so callers can validate them against the repository before use. The least recently used entries
+ * are evicted once the cache grows beyond its maximum size.
+ * <p>
+ * Content that is the same for many issues, such as the field schema, can be passed as shared content. It is stored
+ * once for all entries that share it. Callers that read the content and the shared content of an entry synchronize
+ * on the cache to get both from the same entry.
+ * <p>
+ * The index of the cache is kept in memory and written to disk by {@link #save()}. Entries are written immediately but
+ * outside of the lock of the cache, so readers do not wait for the disk.
+ */
+public class JiraIssueCache {
+
+	public static final long DEFAULT_MAX_SIZE = 32 * 1024 * 1024;
+
+	private static final int VERSION = 2;
+
+	private static final String ENTRY_SUFFIX = ".issue"; //$NON-NLS-1$
+
+	private static final String SHARED_SUFFIX = ".shared"; //$NON-NLS-1$
+
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
+	private static final String CHARSET = "UTF-8"; //$NON-NLS-1$
+
+	private static final String NO_SHARED_CONTENT = ""; //$NON-NLS-1$
+
+	private static class Entry {
+
+		private final String key;
+
+		private final String updated;
+
+		private final long length;
+
+		private final String sharedId;
+
+		public Entry(String key, String updated, long length, String sharedId) {
+			this.key = key;
+			this.updated = updated;
+			this.length = length;
+			this.sharedId = sharedId;
+		}
+
+	}
+
+	private final Map<String, String> idByKey = new HashMap<String, String>();
+
+	private final Map<String, Integer> referencesBySharedId = new HashMap<String, Integer>();
+
+	private final Map<String, String> sharedContentById = new HashMap<String, String>();
+
+	private final JiraDiskCacheIndex<Entry> index;
+
+	// incremented by clear() so that entries written concurrently are not added afterwards
+	private int generation;
+
+	public JiraIssueCache(File directory, String repositoryUrl) {
+		this(directory, repositoryUrl, DEFAULT_MAX_SIZE);
+	}
+
+	public JiraIssueCache(File directory, String repositoryUrl, long maxSize) {
+		this.index = new JiraDiskCacheIndex<Entry>(directory, repositoryUrl, ENTRY_SUFFIX, maxSize) {
+			@Override
+			protected int getVersion() {
+				return VERSION;
+			}
+
+			@Override
+			protected long getLength(Entry entry) {
+				return entry.length;
+			}
+
+			@Override
+			protected Entry readEntry(DataInput in) throws IOException {
+				return new Entry(in.readUTF(), in.readUTF(), in.readLong(), in.readUTF());
+			}
+
+			@Override
+			protected void writeEntry(DataOutput out, Entry entry) throws IOException {
+				out.writeUTF(entry.key);
+				out.writeUTF(entry.updated);
+				out.writeLong(entry.length);
+				out.writeUTF(entry.sharedId);
+			}
+
+			@Override
+			protected void entryAdded(String issueId, Entry entry) {
+				idByKey.put(entry.key, issueId);
+				if (entry.sharedId.length() > 0) {
+					Integer references = referencesBySharedId.get(entry.sharedId);
+					referencesBySharedId.put(entry.sharedId, (references != null) ? references + 1 : 1);
+				}
+			}
+
+			@Override
+			protected void entryRemoved(String issueId, Entry entry) {
+				idByKey.remove(entry.key);
+				if (entry.sharedId.length() > 0) {
+					Integer references = referencesBySharedId.get(entry.sharedId);
+					if (references != null && references > 1) {
+						referencesBySharedId.put(entry.sharedId, references - 1);
+					} else {
+						// the last entry that shares the content is gone
+						referencesBySharedId.remove(entry.sharedId);
+						sharedContentById.remove(entry.sharedId);
+						getSharedFile(entry.sharedId).delete();
+					}
+				}
+			}
+
+			@Override
+			protected void loaded() {
+				removeUnusedFiles();
+			}
+		};
+	}
+
+	/**
+	 * Returns the id of the cached issue identified by <code>issueKeyOrId</code> or <code>null</code> if the issue is
+	 * not cached.
+	 */
+	public synchronized String getIssueId(String issueKeyOrId) {
+		if (index.get(issueKeyOrId) != null) {
+			return issueKeyOrId;
+		}
+		return idByKey.get(issueKeyOrId);
+	}
+
+	/**
+	 * Returns the updated time stamp of the cached issue or <code>null</code> if the issue is not cached.
+	 */
+	public synchronized String getUpdated(String issueId) {
+		Entry entry = index.get(issueId);
+		return (entry != null) ? entry.updated : null;
+	}
+
+	/**
+	 * Returns true if the issue is cached with the given updated time stamp.
+	 */
+	public synchronized boolean contains(String issueId, String updated) {
+		Entry entry = index.get(issueId);
+		return entry != null && entry.updated.equals(updated);
+	}
+
+	/**
+	 * Returns the cached content of the issue or <code>null</code> if the issue is not cached or cannot be read.
+	 */
+	public synchronized String get(String issueId) {
+		Entry entry = index.get(issueId);
+		if (entry == null) {
+			return null;
+		}
+
+		try {
+			// the shared content is read as well so an entry is only returned if it is complete
+			if (entry.sharedId.length() > 0 && !sharedContentById.containsKey(entry.sharedId)) {
+				File sharedFile = getSharedFile(entry.sharedId);
+				String sharedContent = new String(read(sharedFile, sharedFile.length()), CHARSET);
+				sharedContentById.put(entry.sharedId, sharedContent);
+			}
+			return new String(read(index.getEntryFile(issueId), entry.length), CHARSET);
+		} catch (IOException e) {
+			// the entry was removed from disk or is incomplete
+			index.remove(issueId);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the content the issue shares with other issues or <code>null</code> if the issue has no shared content
+	 * or is not cached. The shared content is only available once the content has been read by {@link #get(String)}.
+	 */
+	public synchronized String getSharedContent(String issueId) {
+		Entry entry = index.get(issueId);
+		return (entry != null) ? sharedContentById.get(entry.sharedId) : null;
+	}
+
+	public void put(String issueId, String issueKey, String updated, String content) {
+		put(issueId, issueKey, updated, content, null);
+	}
+
+	/**
+	 * Adds the content of an issue. The content is written to disk before the cache is locked to add the entry.
+	 * 
+	 * @param sharedContent
+	 *            content of the issue that is the same for many issues and only stored once for all of them, may be
+	 *            <code>null</code>
+	 */
+	public void put(String issueId, String issueKey, String updated, String content, String sharedContent) {
+		if (!JiraDiskCacheIndex.isValidId(issueId) || issueKey == null || updated == null || content == null) {
+			return;
+		}
+
+		int putGeneration;
+		synchronized (this) {
+			Entry entry = index.get(issueId);
+			if (entry != null && entry.updated.equals(updated)) {
+				// already up to date
+				return;
+			}
+			putGeneration = generation;
+		}
+
+		File tempFile = null;
+		try {
+			byte[] bytes = content.getBytes(CHARSET);
+			if (bytes.length > index.getMaxSize()) {
+				remove(issueId);
+				return;
+			}
+
+			index.getDirectory().mkdirs();
+			String sharedId = (sharedContent != null) ? putSharedContent(sharedContent) : NO_SHARED_CONTENT;
+			tempFile = File.createTempFile(issueId + ENTRY_SUFFIX, TEMP_SUFFIX, index.getDirectory());
+			write(tempFile, bytes);
+
+			synchronized (this) {
+				if (putGeneration != generation) {
+					return;
+				}
+				index.remove(issueId);
+				File file = index.getEntryFile(issueId);
+				file.delete();
+				if (!tempFile.renameTo(file)) {
+					throw new IOException("Unable to rename " + tempFile + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				tempFile = null;
+				index.put(issueId, new Entry(issueKey, updated, bytes.length, sharedId));
+			}
+		} catch (IOException e) {
+			StatusHandler.log(new Status(IStatus.WARNING, JiraCorePlugin.ID_PLUGIN, "Error writing issue " //$NON-NLS-1$
+					+ issueKey + " to cache", e)); //$NON-NLS-1$
+			remove(issueId);
+		} finally {
+			if (tempFile != null) {
+				tempFile.delete();
+			}
+		}
+	}
+
+	/**
+	 * Stores <code>sharedContent</code> unless it has been stored before and returns its id.
+	 */
+	private String putSharedContent(String sharedContent) throws IOException {
+		String sharedId = getContentHash(sharedContent);
+		synchronized (this) {
+			if (sharedContentById.containsKey(sharedId)) {
+				return sharedId;
+			}
+		}
+
+		// the file is named after the hash of its content so an existing file has the same content
+		File file = getSharedFile(sharedId);
+		if (!file.exists()) {
+			File tempFile = File.createTempFile(sharedId + SHARED_SUFFIX, TEMP_SUFFIX, index.getDirectory());
+			try {
+				write(tempFile, sharedContent.getBytes(CHARSET));
+				if (!tempFile.renameTo(file) && !file.exists()) {
+					throw new IOException("Unable to rename " + tempFile + " to " + file); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+			} finally {
+				tempFile.delete();
+			}
+		}
+		synchronized (this) {
+			sharedContentById.put(sharedId, sharedContent);
+		}
+		return sharedId;
+	}
+
+	public synchronized void remove(String issueId) {
+		index.remove(issueId);
+	}
+
+	/**
+	 * Removes all entries from memory and disk.
+	 */
+	public synchronized void clear() {
+		index.clear();
+		generation++;
+		sharedContentById.clear();
+		removeUnusedFiles();
+	}
+
+	public synchronized int size() {
+		return index.size();
+	}
+
+	/**
+	 * Writes the index to disk if entries were added or removed since the last time it was written.
+	 */
+	public synchronized void save() {
+		index.save();
+	}
+
+	/**
+	 * Removes shared content that is not referenced by an entry and temporary files of interrupted writes.
+	 */
+	private void removeUnusedFiles() {
+		File[] files = index.getDirectory().listFiles();
+		if (files != null) {
+			for (File file : files) {
+				String name = file.getName();
+				if (name.endsWith(TEMP_SUFFIX)
+						|| (name.endsWith(SHARED_SUFFIX) && !referencesBySharedId.containsKey(name.substring(0,
+								name.length() - SHARED_SUFFIX.length())))) {
+					file.delete();
+				}
+			}
+		}
+	}
+
+	private File getSharedFile(String sharedId) {
+		return new File(index.getDirectory(), sharedId + SHARED_SUFFIX);
+	}
+
+	private static String getContentHash(String content) throws IOException {
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(CHARSET)); //$NON-NLS-1$
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException("Unable to hash shared content: " + e.getMessage()); //$NON-NLS-1$
+		}
+	}
+
+	private static byte[] read(File file, long length) throws IOException {
+		if (file.length() != length) {
+			throw new IOException("Unexpected length of " + file); //$NON-NLS-1$
+		}
+		byte[] bytes = new byte[(int) length];
+		InputStream in = new FileInputStream(file);
+		try {
+			int offset = 0;
+			while (offset < bytes.length) {
+				int count = in.read(bytes, offset, bytes.length - offset);
+				if (count == -1) {
+					throw new IOException("Unexpected end of " + file); //$NON-NLS-1$
+				}
+				offset += count;
+			}
+		} finally {
+			in.close();
+		}
+		return bytes;
+	}
+
+	private static void write(File file, byte[] bytes) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(bytes);
+		} finally {
+			out.close();
+		}
+	}
+
+}
@@ -32,6 +32,10 @@ public class JiraLocalConfiguration {
 
 	public static final int DEFAULT_WORK_HOURS_PER_DAY = 24;
 
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+
 	private String characterEncoding;
 
 	private boolean compressionEnabled;
@@ -54,6 +58,10 @@ public class JiraLocalConfiguration {
 
 	private int maxSearchResults;
 
+	private int maxConcurrentRequests;
+
+	private int maxConnectionsPerHost;
+
 	public JiraLocalConfiguration() {
 		setDatePattern(DEFAULT_DATE_PATTERN);
 		setDateTimePattern(DEFAULT_DATE_TIME_PATTERN);
@@ -62,6 +70,8 @@ public class JiraLocalConfiguration {
 		setWorkDaysPerWeek(DEFAULT_WORK_DAYS_PER_WEEK);
 		setWorkHoursPerDay(DEFAULT_WORK_HOURS_PER_DAY);
 		setDefaultCharacterEncoding(JiraClient.DEFAULT_CHARSET);
+		setMaxConcurrentRequests(DEFAULT_MAX_CONCURRENT_REQUESTS);
+		setMaxConnectionsPerHost(DEFAULT_MAX_CONNECTIONS_PER_HOST);
 	}
 
 	@Override
@@ -122,6 +132,12 @@ public class JiraLocalConfiguration {
 		if (maxSearchResults != other.maxSearchResults) {
 			return false;
 		}
+		if (maxConcurrentRequests != other.maxConcurrentRequests) {
+			return false;
+		}
+		if (maxConnectionsPerHost != other.maxConnectionsPerHost) {
+			return false;
+		}
 		return true;
 	}
 
@@ -129,16 +145,32 @@ public class JiraLocalConfiguration {
 		return characterEncoding;
 	}
 
-	public synchronized DateFormat getDateFormat() {
-		return new SimpleDateFormat(getDatePattern(), getLocale());
+	/**
+	 * Returns a new format for the configured date pattern. The pattern is read while holding the lock but the format
+	 * is created outside of it since formats are expensive to create.
+	 */
+	public DateFormat getDateFormat() {
+		String pattern;
+		Locale locale;
+		synchronized (this) {
+			pattern = this.datePattern;
+			locale = this.locale;
+		}
+		return new SimpleDateFormat(pattern, locale);
 	}
 
 	public synchronized String getDatePattern() {
 		return datePattern;
 	}
 
-	public synchronized DateFormat getDateTimeFormat() {
-		return new SimpleDateFormat(getDateTimePattern(), getLocale());
+	public DateFormat getDateTimeFormat() {
+		String pattern;
+		Locale locale;
+		synchronized (this) {
+			pattern = this.dateTimePattern;
+			locale = this.locale;
+		}
+		return new SimpleDateFormat(pattern, locale);
 	}
 
 	public synchronized String getDateTimePattern() {
@@ -186,6 +218,8 @@ public class JiraLocalConfiguration {
 		result = prime * result + workDaysPerWeek;
 		result = prime * result + workHoursPerDay;
 		result = prime * result + maxSearchResults;
+		result = prime * result + maxConcurrentRequests;
+		result = prime * result + maxConnectionsPerHost;
 		return result;
 	}
 
@@ -240,4 +274,36 @@ public class JiraLocalConfiguration {
 	public int getMaxSearchResults() {
 		return maxSearchResults;
 	}
+
+	/**
+	 * Limits the number of requests that are sent to the repository in parallel, e.g. when retrieving the details of
+	 * issues returned by a search.
+	 */
+	public synchronized void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		if (maxConcurrentRequests <= 0) {
+			this.maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+		} else {
+			this.maxConcurrentRequests = maxConcurrentRequests;
+		}
+	}
+
+	public synchronized int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Limits the number of connections that are kept open to the repository. Requests wait for a connection once the
+	 * limit is reached.
+	 */
+	public synchronized void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+		if (maxConnectionsPerHost <= 0) {
+			this.maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+		} else {
+			this.maxConnectionsPerHost = maxConnectionsPerHost;
+		}
+	}
+
+	public synchronized int getMaxConnectionsPerHost() {
+		return maxConnectionsPerHost;
+	}
 }
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service;
+
+import java.io.Serializable;
+
+/**
+ * Identifies the version of a repository resource that was last retrieved. The entity tag and last modified time
+ * stamp are sent with conditional requests, the hash of the content detects unchanged resources on servers that do not
+ * support conditional requests.
+ */
+public class JiraResourceValidator implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final String entityTag;
+
+	private final String lastModified;
+
+	private final String contentHash;
+
+	public JiraResourceValidator(String entityTag, String lastModified, String contentHash) {
+		this.entityTag = entityTag;
+		this.lastModified = lastModified;
+		this.contentHash = contentHash;
+	}
+
+	public String getEntityTag() {
+		return entityTag;
+	}
+
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof JiraResourceValidator)) {
+			return false;
+		}
+		JiraResourceValidator other = (JiraResourceValidator) obj;
+		return equals(entityTag, other.entityTag) && equals(lastModified, other.lastModified)
+				&& equals(contentHash, other.contentHash);
+	}
+
+	@Override
+	public int hashCode() {
+		return (contentHash != null) ? contentHash.hashCode() : 0;
+	}
+
+	@Override
+	public String toString() {
+		return "JiraResourceValidator [entityTag=" + entityTag + ", lastModified=" + lastModified //$NON-NLS-1$ //$NON-NLS-2$
+				+ ", contentHash=" + contentHash + "]"; //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	private static boolean equals(String value, String otherValue) {
+		return (value != null) ? value.equals(otherValue) : otherValue == null;
+	}
+
+}
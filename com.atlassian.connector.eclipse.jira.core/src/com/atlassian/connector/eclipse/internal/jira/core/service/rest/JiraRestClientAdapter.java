@@ -12,28 +12,44 @@
 
 package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
 
-import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.ws.rs.core.UriBuilder;
 
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.auth.AuthScope;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.mylyn.commons.core.StatusHandler;
+import org.eclipse.mylyn.commons.net.Policy;
 import org.eclipse.mylyn.internal.commons.net.AuthenticatedProxy;
 import org.eclipse.osgi.util.NLS;
 import org.joda.time.DateTime;
@@ -54,16 +70,26 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
 import com.atlassian.connector.eclipse.internal.jira.core.model.SecurityLevel;
 import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IncrementalIssueCollector;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraAuthenticationException;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraExecutors;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraIssueCache;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraLocalConfiguration;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraResourceValidator;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraServiceUnavailableException;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestSearchClient.IssueHeader;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.atlassian.jira.rest.client.GetCreateIssueMetadataOptionsBuilder;
 import com.atlassian.jira.rest.client.IssueRestClient;
 import com.atlassian.jira.rest.client.JiraRestClient;
 import com.atlassian.jira.rest.client.NullProgressMonitor;
 import com.atlassian.jira.rest.client.RestClientException;
 import com.atlassian.jira.rest.client.auth.BasicHttpAuthenticationHandler;
+import com.atlassian.jira.rest.client.domain.BasicIssue;
 import com.atlassian.jira.rest.client.domain.BasicPriority;
 import com.atlassian.jira.rest.client.domain.BasicProject;
 import com.atlassian.jira.rest.client.domain.BasicUser;
@@ -72,15 +98,21 @@ import com.atlassian.jira.rest.client.domain.CimIssueType;
 import com.atlassian.jira.rest.client.domain.CimProject;
 import com.atlassian.jira.rest.client.domain.Comment;
 import com.atlassian.jira.rest.client.domain.Issue;
+import com.atlassian.jira.rest.client.domain.SearchResult;
 import com.atlassian.jira.rest.client.domain.SessionInfo;
+import com.atlassian.jira.rest.client.domain.TimeTracking;
 import com.atlassian.jira.rest.client.domain.input.ComplexIssueInputFieldValue;
 import com.atlassian.jira.rest.client.domain.input.FieldInput;
 import com.atlassian.jira.rest.client.domain.input.IssueInputBuilder;
 import com.atlassian.jira.rest.client.domain.input.TransitionInput;
 import com.atlassian.jira.rest.client.internal.jersey.JerseyJiraRestClientBuilder;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.UniformInterfaceException;
 import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.api.client.filter.GZIPContentEncodingFilter;
 import com.sun.jersey.client.apache.config.ApacheHttpClientConfig;
 
 /**
@@ -90,16 +122,13 @@ public class JiraRestClientAdapter {
 
 	private static final Integer TIMEOUT_CONNECTION_IN_MS = new Integer(60 * 1000); // one minute
 
-	private static final Integer TIMEOUT_READ_IN_MS = new Integer(10 * 60 * 1000); // ten minutes
+	// requests of operations use the read timeout of the operation type
+	private static final Integer TIMEOUT_READ_IN_MS = JiraRestRequestType.ATTACHMENT.getReadTimeout();
 
 	private static final String CONNECT_TIMEOUT_EXCEPTION = "org.apache.commons.httpclient.ConnectTimeoutException"; //$NON-NLS-1$
 
 	private static final String SOCKET_TIMEOUT_EXCEPTION = "java.net.SocketTimeoutException"; //$NON-NLS-1$
 
-	private static final SimpleDateFormat REST_DATE_FORMAT = new SimpleDateFormat("yyyy-MM-dd"); //$NON-NLS-1$
-
-	private static final SimpleDateFormat REST_DATETIME_FORMAT = new SimpleDateFormat("yyyy-MM-dd'T'hh:mm:ss.SSSZ"); //$NON-NLS-1$
-
 	private static final String HTTP_401 = "Client response status: 401"; //$NON-NLS-1$
 
 	private static final String HTTP_403 = "Client response status: 403"; //$NON-NLS-1$
@@ -116,23 +145,66 @@ public class JiraRestClientAdapter {
 
 	private static final String NULL_POINTER_EXCEPTION = "java.lang.NullPointerException"; //$NON-NLS-1$
 
+	private static final String HTTP_400 = "Client response status: 400"; //$NON-NLS-1$
+
+	private static final int SEARCH_PAGE_SIZE = 50;
+
+	private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+	private static final List<String> SHARED_SECTIONS = Arrays.asList(IssueJsonParser.SCHEMA_SECTION,
+			IssueJsonParser.NAMES_SECTION);
+
+	private static final String USER_AGENT = "Atlassian Connector for Eclipse"; //$NON-NLS-1$
+
+	private static final String REQUEST_SOURCE = "eclipse-ide-connector"; //$NON-NLS-1$
+
 	private JiraRestClient restClient;
 
+	private JiraRestSearchClient searchClient;
+
+	private JiraRestMetadataClient metadataClient;
+
+	private JiraRestIssueClient issueClient;
+
+	/**
+	 * Cleared when the server does not return complete issues from a search so that issues are retrieved one by one
+	 * from then on.
+	 */
+	private volatile boolean fullSearchSupported = true;
+
 	private final JiraClientCache cache;
 
 	private final String url;
 
 	private final boolean followRedirects;
 
+	private final int maxConcurrentRequests;
+
+	private ExecutorService executor;
+
+	private JiraRestConnectionPool connectionPool;
+
+	private int users;
+
+	private boolean disposed;
+
+	private volatile JiraIssueCache issueCache;
+
 	public JiraRestClientAdapter(String url, JiraClientCache cache, boolean followRedirects) {
+		this(url, cache, followRedirects, JiraLocalConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS);
+	}
+
+	private JiraRestClientAdapter(String url, JiraClientCache cache, boolean followRedirects,
+			int maxConcurrentRequests) {
 		this.url = url;
 		this.cache = cache;
 		this.followRedirects = followRedirects;
+		this.maxConcurrentRequests = maxConcurrentRequests;
 	}
 
 	public JiraRestClientAdapter(String url, String userName, String password, final Proxy proxy,
-			JiraClientCache cache, final boolean followRedirects) {
-		this(url, cache, followRedirects);
+			JiraClientCache cache, JiraLocalConfiguration configuration) {
+		this(url, cache, configuration.getFollowRedirects(), configuration.getMaxConcurrentRequests());
 
 //		final TrustManager[] trustAll = new TrustManager[] { new X509TrustManager() {
 //			public X509Certificate[] getAcceptedIssuers() {
@@ -156,8 +228,8 @@ public class JiraRestClientAdapter {
 //				}
 //			});
 
-			restClient = new JerseyJiraRestClientBuilder().header("User-Agent", "Atlassian Connector for Eclipse") //$NON-NLS-1$ //$NON-NLS-2$
-					.queryParam("requestSource", "eclipse-ide-connector") //$NON-NLS-1$//$NON-NLS-2$
+			restClient = new JerseyJiraRestClientBuilder().header("User-Agent", USER_AGENT) //$NON-NLS-1$
+					.queryParam("requestSource", REQUEST_SOURCE) //$NON-NLS-1$
 					.create(new URI(url), new BasicHttpAuthenticationHandler(userName, password) {
 						@Override
 						public void configure(ApacheHttpClientConfig config) {
@@ -209,6 +281,40 @@ public class JiraRestClientAdapter {
 								"http://" + address.getHostName() + ":" + address.getPort()); //$NON-NLS-1$ //$NON-NLS-2$
 			}
 
+			if (configuration.isCompressionEnabled()) {
+				// responses are compressed, request entities only if they declare a gzip content encoding since
+				// JIRA does not decode compressed requests
+				restClient.getTransportClient().addFilter(new GZIPContentEncodingFilter(false));
+			}
+
+			// applies the timeouts of operations to their requests and aborts them on cancellation
+			restClient.getTransportClient().addFilter(JiraRestRequestMonitor.createFilter());
+
+			// replaces the default pool of two connections by a pool that is sized for parallel requests
+			HttpClient httpClient = restClient.getTransportClient().getClientHandler().getHttpClient();
+			HttpConnectionManager defaultConnectionManager = httpClient.getHttpConnectionManager();
+			if (defaultConnectionManager instanceof MultiThreadedHttpConnectionManager) {
+				((MultiThreadedHttpConnectionManager) defaultConnectionManager).shutdown();
+			}
+			connectionPool = new JiraRestConnectionPool(configuration.getMaxConnectionsPerHost());
+			httpClient.getParams().setConnectionManagerTimeout(TIMEOUT_CONNECTION_IN_MS.longValue());
+			httpClient.setHttpConnectionManager(JiraRestRequestMonitor.monitor(connectionPool));
+
+			searchClient = new JiraRestSearchClient(UriBuilder.fromUri(url).path("/rest/api/latest").build(), //$NON-NLS-1$
+					restClient.getTransportClient(), followRedirects);
+			searchClient.setHeaders(ImmutableMap.of("User-Agent", USER_AGENT)); //$NON-NLS-1$
+			searchClient.setQueryParams(ImmutableMap.of("requestSource", REQUEST_SOURCE)); //$NON-NLS-1$
+
+			metadataClient = new JiraRestMetadataClient(UriBuilder.fromUri(url).path("/rest/api/latest").build(), //$NON-NLS-1$
+					restClient.getTransportClient(), followRedirects);
+			metadataClient.setHeaders(ImmutableMap.of("User-Agent", USER_AGENT)); //$NON-NLS-1$
+			metadataClient.setQueryParams(ImmutableMap.of("requestSource", REQUEST_SOURCE)); //$NON-NLS-1$
+
+			issueClient = new JiraRestIssueClient(UriBuilder.fromUri(url).path("/rest/api/latest").build(), //$NON-NLS-1$
+					restClient.getTransportClient(), followRedirects);
+			issueClient.setHeaders(ImmutableMap.of("User-Agent", USER_AGENT)); //$NON-NLS-1$
+			issueClient.setQueryParams(ImmutableMap.of("requestSource", REQUEST_SOURCE)); //$NON-NLS-1$
+
 //			HttpClient httpClient = restClient.getTransportClient().getClientHandler().getHttpClient();
 //			X509HostnameVerifier hostnameVerifier = new AllowAllHostnameVerifier();
 //			SSLSocketFactory sslSf = new SSLSocketFactory(trustStrategy, hostnameVerifier);
@@ -232,46 +338,226 @@ public class JiraRestClientAdapter {
 		}
 	}
 
-	public void addComment(final String issueKey, final String comment) throws JiraException {
+	/**
+	 * Returns a context for a sequence of operations on the issue with <code>issueKey</code>.
+	 *
+	 * @param monitor
+	 *            the monitor that cancels the operations or <code>null</code>
+	 */
+	public IssueOperationContext createIssueOperationContext(String issueKey, IProgressMonitor monitor) {
+		return new IssueOperationContext(issueKey, monitor);
+	}
+
+	public void addComment(final IssueOperationContext context, final String comment) throws JiraException {
 
-		call(new Callable<Void>() {
+		call(context.getMonitor(), JiraRestRequestType.ISSUE, new Callable<Void>() {
 			public Void call() throws Exception {
-				restClient.getIssueClient().addComment(new NullProgressMonitor(), getIssue(issueKey).getCommentsUri(),
-						Comment.valueOf(comment));
+				restClient.getIssueClient().addComment(new NullProgressMonitor(),
+						issueClient.getCommentsUri(context.getIssueKey()), Comment.valueOf(comment));
 
 				return null;
 			}
 		});
 	}
 
-	private Issue getIssue(final String issueKeyOrId) throws JiraException {
-		return call(new Callable<Issue>() {
+	private Issue getIssue(final String issueKeyOrId, IProgressMonitor monitor) throws JiraException {
+		Issue issue = call(monitor, JiraRestRequestType.ISSUE, new Callable<Issue>() {
 			public Issue call() {
 				return restClient.getIssueClient().getIssue(issueKeyOrId,
 						ImmutableList.of(IssueRestClient.Expandos.EDITMETA, IssueRestClient.Expandos.SCHEMA),
 						new NullProgressMonitor());
 			}
 		});
+		cacheIssue(issue);
+		return issue;
 	}
 
-	public void addAttachment(String issueKey, byte[] content, String filename) throws JiraException {
-		restClient.getIssueClient().addAttachment(new NullProgressMonitor(), getIssue(issueKey).getAttachmentsUri(),
-				new ByteArrayInputStream(content), filename);
+	/**
+	 * Returns the issue from the issue cache if the cached copy is still current or retrieves it from the server
+	 * otherwise. Checking whether the cached copy is current only requests the updated time stamp of the issue.
+	 */
+	private Issue getCurrentIssue(String issueKeyOrId, IProgressMonitor monitor) throws JiraException {
+		final JiraIssueCache issueCache = this.issueCache;
+		if (issueCache != null && searchClient != null) {
+			final String issueId = issueCache.getIssueId(issueKeyOrId);
+			if (issueId != null) {
+				Map<String, String> updatedById = call(monitor, JiraRestRequestType.ISSUE,
+						new Callable<Map<String, String>>() {
+							public Map<String, String> call() throws Exception {
+								return searchClient.searchJqlForUpdated("id = " + issueId, 1, //$NON-NLS-1$
+										new NullProgressMonitor());
+							}
+						});
+				String updated = updatedById.get(issueId);
+				if (updated != null) {
+					String content;
+					String sharedContent;
+					synchronized (issueCache) {
+						content = issueCache.contains(issueId, updated) ? issueCache.get(issueId) : null;
+						sharedContent = issueCache.getSharedContent(issueId);
+					}
+					Issue issue = parseCachedIssue(content, sharedContent);
+					if (issue != null) {
+						return issue;
+					}
+				}
+				issueCache.remove(issueId);
+			}
+		}
+		return getIssue(issueKeyOrId, monitor);
 	}
 
-	public InputStream getAttachment(URI attachmentUri) {
-		return restClient.getIssueClient().getAttachment(new NullProgressMonitor(), attachmentUri);
+	private Issue parseCachedIssue(String content, String sharedContent) {
+		if (content != null) {
+			try {
+				JSONObject rawObject = new JSONObject(content);
+				if (sharedContent != null) {
+					JSONObject sharedObject = new JSONObject(sharedContent);
+					for (String section : SHARED_SECTIONS) {
+						if (sharedObject.has(section)) {
+							rawObject.put(section, sharedObject.get(section));
+						}
+					}
+				}
+				return new IssueJsonParser().parse(rawObject);
+			} catch (JSONException e) {
+				// fall through and retrieve the issue from the server
+			}
+		}
+		return null;
 	}
 
-	public Project[] getProjects() {
-		Iterable<BasicProject> allProjects = restClient.getProjectClient().getAllProjects(new NullProgressMonitor());
+	private void cacheIssue(Issue issue) {
+		JiraIssueCache issueCache = this.issueCache;
+		if (issueCache != null && issue != null && issue.getRawObject() != null && issue.getId() != null) {
+			JSONObject rawObject = issue.getRawObject();
+			try {
+				// search results carry the schema and names of all fields in every issue, they are stored once
+				JSONObject content = new JSONObject();
+				JSONObject sharedObject = new JSONObject();
+				for (Iterator<?> it = rawObject.keys(); it.hasNext();) {
+					String key = (String) it.next();
+					JSONObject target = SHARED_SECTIONS.contains(key) ? sharedObject : content;
+					target.put(key, rawObject.get(key));
+				}
+				String sharedContent = (sharedObject.length() > 0) ? sharedObject.toString() : null;
+				issueCache.put(issue.getId().toString(), issue.getKey(), JiraRestSearchClient.getUpdated(rawObject),
+						content.toString(), sharedContent);
+			} catch (JSONException e) {
+				// not cached, the issue is retrieved from the server next time
+			}
+		}
+	}
+
+	public void setIssueCache(JiraIssueCache issueCache) {
+		this.issueCache = issueCache;
+	}
+
+	public JiraIssueCache getIssueCache() {
+		return issueCache;
+	}
+
+	/**
+	 * Uploads <code>content</code> as an attachment of the issue. The content is streamed to the server and each byte
+	 * sent is reported as one unit of work to <code>monitor</code>. The caller closes <code>content</code>.
+	 */
+	public void addAttachment(final String issueKey, InputStream content, final String filename,
+			IProgressMonitor monitor) throws JiraException {
+		monitor = Policy.monitorFor(monitor);
+		// the URI is built from the key, fetching the issue for it would cost a full issue request
+		final URI attachmentsUri = issueClient.getAttachmentsUri(issueKey);
+		final InputStream upload = new JiraRestUploadInputStream(content, monitor);
+		call(monitor, JiraRestRequestType.ATTACHMENT, new Callable<Void>() {
+			public Void call() throws Exception {
+				restClient.getIssueClient().addAttachment(new NullProgressMonitor(), attachmentsUri, upload, filename);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Downloads the content of an attachment to <code>file</code>. If <code>file</code> already contains the start of
+	 * the content only the remainder is requested. Each byte received is reported as one unit of work to
+	 * <code>monitor</code>.
+	 *
+	 * @return the length of <code>file</code> after the download
+	 */
+	public long downloadAttachment(final URI attachmentUri, final File file, IProgressMonitor monitor)
+			throws JiraException {
+		final IProgressMonitor progressMonitor = Policy.monitorFor(monitor);
+		return call(progressMonitor, JiraRestRequestType.ATTACHMENT, new Callable<Long>() {
+			public Long call() throws Exception {
+				long offset = file.length();
+				ClientResponse response = issueClient.getAttachment(attachmentUri, offset, new NullProgressMonitor());
+				try {
+					// the server ignores ranges it does not support and returns the complete content
+					boolean append = offset > 0 && response.getStatus() == HttpURLConnection.HTTP_PARTIAL;
+					if (append) {
+						progressMonitor.worked((int) Math.min(offset, Integer.MAX_VALUE));
+					}
+					InputStream in = response.getEntityInputStream();
+					OutputStream out = new FileOutputStream(file, append);
+					try {
+						byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+						int count;
+						while ((count = in.read(buffer)) != -1) {
+							out.write(buffer, 0, count);
+							progressMonitor.worked(count);
+							if (progressMonitor.isCanceled()) {
+								throw new OperationCanceledException();
+							}
+						}
+					} finally {
+						out.close();
+					}
+				} finally {
+					response.close();
+				}
+				return new Long(file.length());
+			}
+		}).longValue();
+	}
+
+	/**
+	 * Returns the content of an attachment. The monitor only applies until the response has been received, reading
+	 * the returned stream is subject to the read timeout for attachments.
+	 */
+	public InputStream getAttachment(final URI attachmentUri, IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.ATTACHMENT, new Callable<InputStream>() {
+			public InputStream call() throws Exception {
+				return restClient.getIssueClient().getAttachment(new NullProgressMonitor(), attachmentUri);
+			}
+		});
+	}
+
+	public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
+		Iterable<BasicProject> allProjects = call(monitor, JiraRestRequestType.METADATA,
+				new Callable<Iterable<BasicProject>>() {
+					public Iterable<BasicProject> call() throws Exception {
+						return restClient.getProjectClient().getAllProjects(new NullProgressMonitor());
+					}
+				});
 
 		return JiraRestConverter.convertProjects(allProjects);
 	}
 
-	public NamedFilter[] getFavouriteFilters() throws JiraException {
+	public JiraConditionalResult<Project[]> getProjects(final JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor, new ConditionalRequest<Iterable<BasicProject>, Project[]>() {
+			public JiraConditionalResult<Iterable<BasicProject>> call() throws Exception {
+				return metadataClient.getAllProjects(validator);
+			}
+
+			@Override
+			protected Project[] convert(Iterable<BasicProject> value) {
+				return JiraRestConverter.convertProjects(value);
+			}
+		});
+	}
+
+	public NamedFilter[] getFavouriteFilters(IProgressMonitor monitor) throws JiraException {
 
-		return call(new Callable<NamedFilter[]>() {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<NamedFilter[]>() {
 
 			public NamedFilter[] call() throws Exception {
 				return JiraRestConverter.convertNamedFilters(restClient.getSearchClient().getFavouriteFilters(
@@ -280,56 +566,416 @@ public class JiraRestClientAdapter {
 		});
 	}
 
-	public Resolution[] getResolutions() {
-		return JiraRestConverter.convertResolutions(restClient.getMetadataClient().getResolutions(
-				new NullProgressMonitor()));
+	public Resolution[] getResolutions(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<Resolution[]>() {
+			public Resolution[] call() throws Exception {
+				return JiraRestConverter.convertResolutions(restClient.getMetadataClient().getResolutions(
+						new NullProgressMonitor()));
+			}
+		});
 	}
 
-	public Priority[] getPriorities() {
-		return JiraRestConverter.convertPriorities(restClient.getMetadataClient().getPriorities(
-				new NullProgressMonitor()));
+	public JiraConditionalResult<Resolution[]> getResolutions(final JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor,
+				new ConditionalRequest<Iterable<com.atlassian.jira.rest.client.domain.Resolution>, Resolution[]>() {
+					public JiraConditionalResult<Iterable<com.atlassian.jira.rest.client.domain.Resolution>> call()
+							throws Exception {
+						return metadataClient.getResolutions(validator);
+					}
+
+					@Override
+					protected Resolution[] convert(Iterable<com.atlassian.jira.rest.client.domain.Resolution> value) {
+						return JiraRestConverter.convertResolutions(value);
+					}
+				});
+	}
+
+	public Priority[] getPriorities(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<Priority[]>() {
+			public Priority[] call() throws Exception {
+				return JiraRestConverter.convertPriorities(restClient.getMetadataClient().getPriorities(
+						new NullProgressMonitor()));
+			}
+		});
+	}
+
+	public JiraConditionalResult<Priority[]> getPriorities(final JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor,
+				new ConditionalRequest<Iterable<com.atlassian.jira.rest.client.domain.Priority>, Priority[]>() {
+					public JiraConditionalResult<Iterable<com.atlassian.jira.rest.client.domain.Priority>> call()
+							throws Exception {
+						return metadataClient.getPriorities(validator);
+					}
+
+					@Override
+					protected Priority[] convert(Iterable<com.atlassian.jira.rest.client.domain.Priority> value) {
+						return JiraRestConverter.convertPriorities(value);
+					}
+				});
 	}
 
 	public JiraIssue getIssueByKeyOrId(String issueKeyOrId, IProgressMonitor monitor) throws JiraException {
-		return JiraRestConverter.convertIssue(getIssue(issueKeyOrId), cache, url, monitor);
+		return JiraRestConverter.convertIssue(getCurrentIssue(issueKeyOrId, monitor), cache, url, monitor);
 	}
 
-	public JiraStatus[] getStatuses() {
-		return JiraRestConverter.convertStatuses(restClient.getMetadataClient().getStatuses(new NullProgressMonitor()));
+	public JiraStatus[] getStatuses(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<JiraStatus[]>() {
+			public JiraStatus[] call() throws Exception {
+				return JiraRestConverter.convertStatuses(restClient.getMetadataClient().getStatuses(
+						new NullProgressMonitor()));
+			}
+		});
 	}
 
-	public IssueType[] getIssueTypes() {
-		return JiraRestConverter.convertIssueTypes(restClient.getMetadataClient().getIssueTypes(
-				new NullProgressMonitor()));
+	public JiraConditionalResult<JiraStatus[]> getStatuses(final JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor,
+				new ConditionalRequest<Iterable<com.atlassian.jira.rest.client.domain.Status>, JiraStatus[]>() {
+					public JiraConditionalResult<Iterable<com.atlassian.jira.rest.client.domain.Status>> call()
+							throws Exception {
+						return metadataClient.getStatuses(validator);
+					}
+
+					@Override
+					protected JiraStatus[] convert(Iterable<com.atlassian.jira.rest.client.domain.Status> value) {
+						return JiraRestConverter.convertStatuses(value);
+					}
+				});
 	}
 
-	public IssueType[] getIssueTypes(String projectKey) {
-		return JiraRestConverter.convertIssueTypes(restClient.getProjectClient()
-				.getProject(projectKey, new NullProgressMonitor())
-				.getIssueTypes());
+	public IssueType[] getIssueTypes(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<IssueType[]>() {
+			public IssueType[] call() throws Exception {
+				return JiraRestConverter.convertIssueTypes(restClient.getMetadataClient().getIssueTypes(
+						new NullProgressMonitor()));
+			}
+		});
 	}
 
-	public List<JiraIssue> getIssues(final String jql, final int maxSearchResult, final IProgressMonitor monitor)
+	public JiraConditionalResult<IssueType[]> getIssueTypes(final JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor,
+				new ConditionalRequest<Iterable<com.atlassian.jira.rest.client.domain.IssueType>, IssueType[]>() {
+					public JiraConditionalResult<Iterable<com.atlassian.jira.rest.client.domain.IssueType>> call()
+							throws Exception {
+						return metadataClient.getIssueTypes(validator);
+					}
+
+					@Override
+					protected IssueType[] convert(Iterable<com.atlassian.jira.rest.client.domain.IssueType> value) {
+						return JiraRestConverter.convertIssueTypes(value);
+					}
+				});
+	}
+
+	public IssueType[] getIssueTypes(final String projectKey, IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<IssueType[]>() {
+			public IssueType[] call() throws Exception {
+				return JiraRestConverter.convertIssueTypes(restClient.getProjectClient()
+						.getProject(projectKey, new NullProgressMonitor())
+						.getIssueTypes());
+			}
+		});
+	}
+
+	/**
+	 * Pushes the issues matching <code>jql</code> into <code>collector</code> page by page so only a single page of
+	 * issues is held in memory at a time. The collector is checked for cancellation between pages.
+	 * 
+	 * @param maxSearchResult
+	 *            maximum number of issues to collect or a value less than one for no limit
+	 */
+	public void findIssues(String jql, int maxSearchResult, IssueCollector collector, IProgressMonitor monitor)
 			throws JiraException {
+		if (collector.isCancelled()) {
+			return;
+		}
 
-		return call(new Callable<List<JiraIssue>>() {
+		if (collector.getMaxHits() != IssueCollector.NO_LIMIT
+				&& (maxSearchResult <= 0 || collector.getMaxHits() < maxSearchResult)) {
+			maxSearchResult = collector.getMaxHits();
+		}
 
-			public List<JiraIssue> call() throws Exception {
-				List<JiraIssue> issues = JiraRestConverter.convertIssues(restClient.getSearchClient()
-						.searchJql(jql, maxSearchResult, 0, new NullProgressMonitor())
-						.getIssues());
+		collector.start();
+		int startAt = 0;
+		while (!collector.isCancelled()) {
+			int pageSize = SEARCH_PAGE_SIZE;
+			if (maxSearchResult > 0) {
+				pageSize = Math.min(pageSize, maxSearchResult - startAt);
+				if (pageSize <= 0) {
+					break;
+				}
+			}
 
-				List<JiraIssue> fullIssues = new ArrayList<JiraIssue>();
+			SearchPage page;
+			if (collector instanceof IncrementalIssueCollector && searchClient != null) {
+				page = getChangedIssues(jql, startAt, pageSize, (IncrementalIssueCollector) collector, monitor);
+				for (JiraIssue issue : page.unchangedIssues) {
+					((IncrementalIssueCollector) collector).collectUnchangedIssue(issue);
+				}
+			} else {
+				page = getIssues(jql, startAt, pageSize, monitor);
+			}
+			putUsers(page.issues);
+			for (JiraIssue issue : page.issues) {
+				collector.collectIssue(issue);
+			}
+
+			// the server may return less issues than requested so advance by the actual page size
+			startAt += page.size;
+			if (page.size == 0 || startAt >= page.total) {
+				break;
+			}
+		}
+		collector.done();
+	}
 
-				for (JiraIssue issue : issues) {
-					fullIssues.add(JiraRestConverter.convertIssue(getIssue(issue.getKey()), cache, url, monitor));
+	/**
+	 * Adds the people referenced by <code>issues</code> to the user directory of the cache in a single batch so their
+	 * display names are resolved from the cache when task data is created.
+	 */
+	private void putUsers(List<JiraIssue> issues) {
+		if (cache == null) {
+			return;
+		}
+
+		Map<String, String> fullNameByName = new HashMap<String, String>();
+		for (JiraIssue issue : issues) {
+			putUser(fullNameByName, issue.getAssignee(), issue.getAssigneeDisplayName());
+			putUser(fullNameByName, issue.getReporter(), issue.getReporterName());
+			com.atlassian.connector.eclipse.internal.jira.core.model.Comment[] comments = issue.getComments();
+			if (comments != null) {
+				for (com.atlassian.connector.eclipse.internal.jira.core.model.Comment comment : comments) {
+					putUser(fullNameByName, comment.getAuthor(), comment.getAuthorDisplayName());
 				}
+			}
+		}
+		cache.putUsers(fullNameByName);
+	}
+
+	private static void putUser(Map<String, String> fullNameByName, String name, String fullName) {
+		if (name != null && name.length() > 0 && fullName != null) {
+			fullNameByName.put(name, fullName);
+		}
+	}
 
-				return fullIssues;
+	/**
+	 * Retrieves the id, key and updated time stamp of a page of issues and only retrieves the complete issues that
+	 * <code>collector</code> reports as changed.
+	 */
+	private SearchPage getChangedIssues(final String jql, final int startAt, final int maxResults,
+			IncrementalIssueCollector collector, IProgressMonitor monitor) throws JiraException {
+		SearchResult searchResult = call(monitor, JiraRestRequestType.SEARCH, new Callable<SearchResult>() {
+			public SearchResult call() throws Exception {
+				return searchClient.searchJqlForHeaders(jql, maxResults, startAt, new NullProgressMonitor());
+			}
+		});
+
+		int size = 0;
+		List<String> changedIds = new ArrayList<String>();
+		List<JiraIssue> unchangedIssues = new ArrayList<JiraIssue>();
+		for (BasicIssue basicIssue : searchResult.getIssues()) {
+			size++;
+			JiraIssue issue = new JiraIssue();
+			issue.setId(basicIssue.getId().toString());
+			issue.setKey(basicIssue.getKey());
+			if (basicIssue instanceof IssueHeader) {
+				issue.setUpdated(JiraDateFormats.parse(JiraDateFormats.REST_DATE_TIME,
+						((IssueHeader) basicIssue).getUpdated()));
+			}
+			if (issue.getUpdated() == null || collector.isChanged(issue)) {
+				changedIds.add(issue.getId());
+			} else {
+				unchangedIssues.add(issue);
+			}
+		}
+
+		List<JiraIssue> issues = Collections.emptyList();
+		if (!changedIds.isEmpty()) {
+			String changedJql = "id in (" + StringUtils.join(changedIds, ",") + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			issues = new ArrayList<JiraIssue>(getIssues(changedJql, 0, changedIds.size(), monitor).issues);
+			// the id search uses the default order of the server, restore the order of the original query
+			final Map<String, Integer> positionById = new HashMap<String, Integer>();
+			for (int i = 0; i < changedIds.size(); i++) {
+				positionById.put(changedIds.get(i), i);
+			}
+			Collections.sort(issues, new Comparator<JiraIssue>() {
+				public int compare(JiraIssue issue1, JiraIssue issue2) {
+					return getPosition(issue1) - getPosition(issue2);
+				}
+
+				private int getPosition(JiraIssue issue) {
+					Integer position = positionById.get(issue.getId());
+					return (position != null) ? position : positionById.size();
+				}
+			});
+		}
+		return new SearchPage(issues, unchangedIssues, size, searchResult.getTotal());
+	}
+
+	private SearchPage getIssues(final String jql, final int startAt, final int maxResults,
+			final IProgressMonitor monitor) throws JiraException {
+
+		boolean fullSearchFailed = false;
+		if (fullSearchSupported) {
+			SearchResult searchResult = call(monitor, JiraRestRequestType.SEARCH, new Callable<SearchResult>() {
+				public SearchResult call() throws Exception {
+					try {
+						return searchClient.searchJqlWithFullIssues(jql, maxResults, startAt,
+								new NullProgressMonitor());
+					} catch (RestClientException e) {
+						if (e.getMessage() != null && e.getMessage().contains(HTTP_400)) {
+							// fields or expand rejected by the server, an invalid JQL is reported by the search below
+							return null;
+						}
+						throw e;
+					}
+				}
+			});
+
+			List<Issue> rawIssues = (searchResult != null) ? getCompleteIssues(searchResult) : null;
+			if (rawIssues != null) {
+				List<JiraIssue> issues = new ArrayList<JiraIssue>(rawIssues.size());
+				for (Issue rawIssue : rawIssues) {
+					cacheIssue(rawIssue);
+					issues.add(JiraRestConverter.convertIssue(rawIssue, cache, url, monitor));
+				}
+				return new SearchPage(issues, searchResult.getTotal());
 			}
+			fullSearchFailed = true;
+		}
 
+		SearchResult searchResult = call(monitor, JiraRestRequestType.SEARCH, new Callable<SearchResult>() {
+			public SearchResult call() throws Exception {
+				return restClient.getSearchClient().searchJql(jql, maxResults, startAt, new NullProgressMonitor());
+			}
 		});
 
+		if (fullSearchFailed) {
+			// the same query works without the expand so the server does not support it
+			fullSearchSupported = false;
+			StatusHandler.log(new Status(IStatus.INFO, JiraCorePlugin.ID_PLUGIN, NLS.bind(
+					"Search on {0} does not return complete issues. Issues will be retrieved one by one.", url))); //$NON-NLS-1$
+		}
+
+		List<JiraIssue> issues = getFullIssues(JiraRestConverter.convertIssues(searchResult.getIssues()), monitor);
+		return new SearchPage(issues, searchResult.getTotal());
+	}
+
+	/**
+	 * Returns the complete issues contained in <code>searchResult</code> or <code>null</code> if the server omitted
+	 * the edit metadata.
+	 */
+	private List<Issue> getCompleteIssues(SearchResult searchResult) {
+		List<Issue> issues = new ArrayList<Issue>();
+		for (BasicIssue basicIssue : searchResult.getIssues()) {
+			if (!(basicIssue instanceof Issue) || !JiraRestSearchClient.hasEditMeta((Issue) basicIssue)) {
+				return null;
+			}
+			issues.add((Issue) basicIssue);
+		}
+		return issues;
+	}
+
+	/**
+	 * Retrieves the details of <code>issues</code> using up to {@link #maxConcurrentRequests} parallel requests. The
+	 * returned list preserves the order of <code>issues</code>. Conversion is done on the calling thread so the cache
+	 * is only refreshed from a single thread at a time.
+	 */
+	private List<JiraIssue> getFullIssues(List<JiraIssue> issues, IProgressMonitor progressMonitor)
+			throws JiraException {
+		final IProgressMonitor monitor = Policy.monitorFor(progressMonitor);
+
+		final AtomicReference<JiraAuthenticationException> authenticationFailure = new AtomicReference<JiraAuthenticationException>();
+
+		ExecutorService executor = getExecutor();
+		List<Future<Issue>> futures = new ArrayList<Future<Issue>>(issues.size());
+		try {
+			for (final JiraIssue issue : issues) {
+				futures.add(executor.submit(new Callable<Issue>() {
+					public Issue call() throws JiraException {
+						// do not bother the server with more requests once credentials are known to be wrong
+						JiraAuthenticationException failure = authenticationFailure.get();
+						if (failure != null) {
+							throw failure;
+						}
+						try {
+							return getIssue(issue.getKey(), monitor);
+						} catch (JiraAuthenticationException e) {
+							authenticationFailure.compareAndSet(null, e);
+							throw e;
+						}
+					}
+				}));
+			}
+
+			List<JiraIssue> fullIssues = new ArrayList<JiraIssue>(issues.size());
+			for (Future<Issue> future : futures) {
+				Issue rawIssue = JiraExecutors.waitFor(future, authenticationFailure, monitor);
+				fullIssues.add(JiraRestConverter.convertIssue(rawIssue, cache, url, monitor));
+			}
+			return fullIssues;
+		} finally {
+			// no-op for completed requests, drops pending ones if the operation failed or was canceled
+			for (Future<Issue> future : futures) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = JiraExecutors.newFixedThreadPool(maxConcurrentRequests, "JIRA REST Request", url); //$NON-NLS-1$
+		}
+		return executor;
+	}
+
+	/**
+	 * Registers a caller that is about to send requests. The adapter is not shut down by {@link #dispose()} until each
+	 * caller has invoked {@link #release()}.
+	 */
+	public synchronized void acquire() {
+		++users;
+	}
+
+	/**
+	 * Unregisters a caller registered by {@link #acquire()} and shuts the adapter down if it was disposed while the
+	 * caller was sending requests.
+	 */
+	public synchronized void release() {
+		if (--users == 0 && disposed) {
+			shutdown();
+		}
+	}
+
+	/**
+	 * Releases the threads used for parallel requests and the connections once pending requests have completed and
+	 * all callers have been released.
+	 */
+	public synchronized void dispose() {
+		disposed = true;
+		if (users == 0) {
+			shutdown();
+		}
+	}
+
+	private void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+		}
+		if (connectionPool != null) {
+			connectionPool.shutdown();
+		}
+	}
+
+	/**
+	 * Returns the usage of the connections to the repository or <code>null</code>, if the adapter does not connect
+	 * to a repository.
+	 */
+	public JiraRestConnectionPool.Statistics getConnectionPoolStatistics() {
+		return (connectionPool != null) ? connectionPool.getStatistics() : null;
 	}
 
 //	public Component[] getComponents(String projectKey) {
@@ -344,24 +990,59 @@ public class JiraRestClientAdapter {
 //				.getVersions());
 //	}
 
-	public void getProjectDetails(Project project) {
+	public void getProjectDetails(final Project project, IProgressMonitor monitor) throws JiraException {
 
-		com.atlassian.jira.rest.client.domain.Project projectWithDetails = restClient.getProjectClient().getProject(
-				project.getKey(), new NullProgressMonitor());
+		com.atlassian.jira.rest.client.domain.Project projectWithDetails = call(monitor, JiraRestRequestType.METADATA,
+				new Callable<com.atlassian.jira.rest.client.domain.Project>() {
+					public com.atlassian.jira.rest.client.domain.Project call() throws Exception {
+						return restClient.getProjectClient().getProject(project.getKey(), new NullProgressMonitor());
+					}
+				});
+
+		setProjectDetails(project, projectWithDetails);
+	}
+
+	/**
+	 * Retrieves the details of <code>project</code> unless they have not changed since <code>validator</code> was
+	 * obtained. The project is left unchanged in that case.
+	 */
+	public JiraConditionalResult<Project> getProjectDetails(final Project project,
+			final JiraResourceValidator validator, IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor,
+				new ConditionalRequest<com.atlassian.jira.rest.client.domain.Project, Project>() {
+					public JiraConditionalResult<com.atlassian.jira.rest.client.domain.Project> call()
+							throws Exception {
+						return metadataClient.getProject(project.getKey(), validator);
+					}
+
+					@Override
+					protected Project convert(com.atlassian.jira.rest.client.domain.Project value) {
+						setProjectDetails(project, value);
+						return project;
+					}
+				});
+	}
 
+	private void setProjectDetails(Project project, com.atlassian.jira.rest.client.domain.Project projectWithDetails) {
 		project.setComponents(JiraRestConverter.convertComponents(projectWithDetails.getComponents()));
 		project.setVersions(JiraRestConverter.convertVersions(projectWithDetails.getVersions()));
 		project.setIssueTypes(JiraRestConverter.convertIssueTypes(projectWithDetails.getIssueTypes()));
 	}
 
-	public void addWorklog(String issueKey, JiraWorkLog jiraWorklog) throws JiraException {
-		Issue issue = getIssue(issueKey);
-		restClient.getIssueClient().addWorklog(issue.getWorklogUri(),
-				JiraRestConverter.convert(jiraWorklog, issue.getSelf()), new NullProgressMonitor());
+	public void addWorklog(final IssueOperationContext context, final JiraWorkLog jiraWorklog) throws JiraException {
+		call(context.getMonitor(), JiraRestRequestType.ISSUE, new Callable<Void>() {
+			public Void call() throws Exception {
+				URI issueUri = issueClient.getIssueUri(context.getIssueKey());
+				restClient.getIssueClient().addWorklog(issueClient.getWorklogUri(context.getIssueKey()),
+						JiraRestConverter.convert(jiraWorklog, issueUri), new NullProgressMonitor());
+				return null;
+			}
+		});
+		context.invalidate();
 	}
 
-	public ServerInfo getServerInfo() throws JiraException {
-		return call(new Callable<ServerInfo>() {
+	public ServerInfo getServerInfo(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<ServerInfo>() {
 			public ServerInfo call() {
 				return JiraRestConverter.convert(restClient.getMetadataClient()
 						.getServerInfo(new NullProgressMonitor()));
@@ -369,8 +1050,8 @@ public class JiraRestClientAdapter {
 		});
 	}
 
-	public SessionInfo getSessionInfo() throws JiraException {
-		return call(new Callable<SessionInfo>() {
+	public SessionInfo getSessionInfo(IProgressMonitor monitor) throws JiraException {
+		return call(monitor, JiraRestRequestType.METADATA, new Callable<SessionInfo>() {
 			public SessionInfo call() {
 				return restClient.getMetadataClient().getSessionInfo(new NullProgressMonitor());
 			}
@@ -378,23 +1059,45 @@ public class JiraRestClientAdapter {
 
 	}
 
-	public Iterable<JiraAction> getTransitions(String issueKey) throws JiraException {
+	public Iterable<JiraAction> getTransitions(String issueKey, IProgressMonitor monitor) throws JiraException {
 
-		URI transitionUri = UriBuilder.fromUri(url).path("/rest/api/latest") //$NON-NLS-1$
+		final URI transitionUri = UriBuilder.fromUri(url).path("/rest/api/latest") //$NON-NLS-1$
 				.path("issue") //$NON-NLS-1$
 				.path(issueKey)
 				.path("transitions") //$NON-NLS-1$
 				.queryParam("expand", "transitions.fields") //$NON-NLS-1$ //$NON-NLS-2$
 				.build();
 
-		return JiraRestConverter.convertTransitions(restClient.getIssueClient().getTransitions(transitionUri,
-				new NullProgressMonitor()));
+		return call(monitor, JiraRestRequestType.ISSUE, new Callable<Iterable<JiraAction>>() {
+			public Iterable<JiraAction> call() throws Exception {
+				return JiraRestConverter.convertTransitions(restClient.getIssueClient().getTransitions(
+						transitionUri, new NullProgressMonitor()));
+			}
+		});
 	}
 
-	public void transitionIssue(JiraIssue issue, String transitionKey, String comment,
-			Iterable<IssueField> transitionFields) throws JiraException {
+	/**
+	 * Performs a transition and adds <code>comment</code> to the issue. The comment is sent with the transition if the
+	 * transition has a screen. JIRA rejects or drops a comment on a transition without a screen, so it is added
+	 * separately after such a transition or after the transition was rejected with the comment.
+	 */
+	public void transitionIssue(final IssueOperationContext context, JiraIssue issue, String transitionKey,
+			String comment) throws JiraException {
+
+		JiraAction transition = null;
+		for (JiraAction action : context.getTransitions()) {
+			if (action.getId().equals(transitionKey)) {
+				transition = action;
+				break;
+			}
+		}
+		Iterable<IssueField> transitionFields = (transition != null) ? transition.getFields() : Collections
+				.<IssueField> emptyList();
 
-		Comment outComment = (StringUtils.isEmpty(comment) ? null : Comment.valueOf(comment));
+		// the fields of a transition are empty if it has no screen
+		boolean separateComment = !StringUtils.isEmpty(comment) && transition != null
+				&& transition.getFields().isEmpty();
+		Comment outComment = (StringUtils.isEmpty(comment) || separateComment) ? null : Comment.valueOf(comment);
 
 		List<FieldInput> fields = new ArrayList<FieldInput>();
 		for (IssueField transitionField : transitionFields) {
@@ -411,9 +1114,9 @@ public class JiraRestClientAdapter {
 						fields.add(new FieldInput(transitionField.getName(), values[0]));
 
 					} else if (transitionField.getName().equals(JiraRestFields.DUEDATE)) {
-						String date = new DateTime(issue.getDue()).toString(JiraRestFields.DATE_FORMAT);
-						if (values[0] == null) {
-							date = null;
+						String date = null;
+						if (values[0] != null) {
+							date = JiraDateFormats.REST_DATE.print(new DateTime(issue.getDue()));
 						}
 						fields.add(new FieldInput(JiraRestFields.DUEDATE, date));
 
@@ -474,19 +1177,56 @@ public class JiraRestClientAdapter {
 //		fields.add(new FieldInput("resolution", new com.atlassian.jira.rest.client.domain.Resolution(null, "Duplicate",
 //				null)));
 
-		TransitionInput transitionInput = new TransitionInput(Integer.parseInt(transitionKey), fields, outComment);
+		try {
+			postTransition(context, new TransitionInput(Integer.parseInt(transitionKey), fields, outComment));
+		} catch (JiraException e) {
+			if (outComment == null || !isBadRequest(e)) {
+				throw e;
+			}
+			// a rejected transition was not performed, retry without the comment
+			postTransition(context, new TransitionInput(Integer.parseInt(transitionKey), fields));
+			separateComment = true;
+		}
+		context.invalidate();
 
-		restClient.getIssueClient().transition(getIssue(issue.getKey()), transitionInput, new NullProgressMonitor());
+		if (separateComment) {
+			addComment(context, comment);
+		}
+	}
 
+	private void postTransition(final IssueOperationContext context, final TransitionInput transitionInput)
+			throws JiraException {
+		call(context.getMonitor(), JiraRestRequestType.ISSUE, new Callable<Void>() {
+			public Void call() throws Exception {
+				restClient.getIssueClient().transition(issueClient.getTransitionsUri(context.getIssueKey()),
+						transitionInput, new NullProgressMonitor());
+				return null;
+			}
+		});
 	}
 
-	public void assignIssue(String issueKey, String user, String comment) throws JiraException {
-		Issue issue = getIssue(issueKey);
+	private static boolean isBadRequest(JiraException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RestClientException) {
+			cause = cause.getCause();
+		}
+		return cause instanceof UniformInterfaceException
+				&& ((UniformInterfaceException) cause).getResponse().getStatus() == HttpURLConnection.HTTP_BAD_REQUEST;
+	}
 
-		ImmutableList<FieldInput> fields = ImmutableList.<FieldInput> of(new FieldInput(JiraRestFields.ASSIGNEE,
-				ComplexIssueInputFieldValue.with(JiraRestFields.NAME, user)));
+	public void assignIssue(final IssueOperationContext context, String user, final String comment)
+			throws JiraException {
+		final ImmutableList<FieldInput> fields = ImmutableList.<FieldInput> of(new FieldInput(
+				JiraRestFields.ASSIGNEE, ComplexIssueInputFieldValue.with(JiraRestFields.NAME, user)));
 
-		restClient.getIssueClient().update(issue, fields, new NullProgressMonitor());
+		call(context.getMonitor(), JiraRestRequestType.ISSUE, new Callable<Void>() {
+			public Void call() throws Exception {
+				issueClient.update(issueClient.getIssueUri(context.getIssueKey()), fields, comment,
+						new NullProgressMonitor());
+				return null;
+			}
+		});
+		context.invalidate();
 
 	}
 
@@ -495,7 +1235,7 @@ public class JiraRestClientAdapter {
 	 * @return issue key
 	 * @throws JiraException
 	 */
-	public String createIssue(JiraIssue issue) throws JiraException {
+	public String createIssue(JiraIssue issue, IProgressMonitor monitor) throws JiraException {
 
 //		GetCreateIssueMetadataOptionsBuilder builder = new GetCreateIssueMetadataOptionsBuilder();
 //		builder.withExpandedIssueTypesFields().withProjectKeys("TEST");
@@ -580,7 +1320,7 @@ public class JiraRestClientAdapter {
 					JiraRestFields.ID, issue.getParentId())));
 		}
 
-		return call(new Callable<String>() {
+		return call(monitor, JiraRestRequestType.ISSUE, new Callable<String>() {
 
 			public String call() throws Exception {
 				return restClient.getIssueClient()
@@ -590,13 +1330,13 @@ public class JiraRestClientAdapter {
 		});
 	}
 
-	public void updateIssue(JiraIssue changedIssue, boolean updateEstimate) throws JiraException {
-		final JiraIssue fullIssue = getIssueByKeyOrId(changedIssue.getKey(),
-				new org.eclipse.core.runtime.NullProgressMonitor());
-
-		final Issue issue = fullIssue.getRawIssue();
-
-		Collection<IssueField> editableFields = Arrays.asList(fullIssue.getEditableFields());
+	/**
+	 * Updates the fields of the issue and adds <code>comment</code> with a single request.
+	 */
+	public void updateIssue(final IssueOperationContext context, JiraIssue changedIssue, boolean updateEstimate,
+			final String comment) throws JiraException {
+		Collection<IssueField> editableFields = context.getEditableFields();
+		TimeTracking timeTracking = context.getTimeTracking();
 
 		final List<FieldInput> updateFields = new ArrayList<FieldInput>();
 
@@ -609,18 +1349,15 @@ public class JiraRestClientAdapter {
 		}
 
 		if (editableFields.contains(new IssueField(JiraRestFields.DUEDATE, null))) {
-			String date = new DateTime(changedIssue.getDue()).toString(JiraRestFields.DATE_FORMAT);
-			if (changedIssue.getDue() == null) {
-				date = null;
-			}
+			String date = JiraDateFormats.format(JiraDateFormats.REST_DATE, changedIssue.getDue());
 			updateFields.add(new FieldInput(JiraRestFields.DUEDATE, date));
 		}
 
 		// if time tracking is enabled and estimate changed
-		if (issue.getTimeTracking() != null && updateEstimate) {
+		if (timeTracking != null && updateEstimate) {
 
 			Long currentEstimateInSeconds = changedIssue.getEstimate();
-			Integer previousEstimateInMinutes = issue.getTimeTracking().getRemainingEstimateMinutes();
+			Integer previousEstimateInMinutes = timeTracking.getRemainingEstimateMinutes();
 
 			String outputOriginalEstimateInMinutes = null;
 			String outputRemainingEstimateInMinutes = null;
@@ -629,8 +1366,8 @@ public class JiraRestClientAdapter {
 			if (currentEstimateInSeconds == null && previousEstimateInMinutes != null) {
 
 				// set estimate (remaining estimate) to original estimate (the same way as JIRA UI does)
-				if (issue.getTimeTracking().getOriginalEstimateMinutes() != null) {
-					outputRemainingEstimateInMinutes = outputOriginalEstimateInMinutes = String.valueOf(issue.getTimeTracking()
+				if (timeTracking.getOriginalEstimateMinutes() != null) {
+					outputRemainingEstimateInMinutes = outputOriginalEstimateInMinutes = String.valueOf(timeTracking
 							.getOriginalEstimateMinutes());
 				} else {
 					StatusHandler.log(new Status(IStatus.WARNING, JiraCorePlugin.ID_PLUGIN,
@@ -645,11 +1382,10 @@ public class JiraRestClientAdapter {
 
 				// we must set original estimate explicitly otherwise it is overwritten by remaining estimate (REST bug) 
 				outputOriginalEstimateInMinutes = outputRemainingEstimateInMinutes;
-				if (issue.getTimeTracking().getOriginalEstimateMinutes() != null
-						&& issue.getTimeTracking().getOriginalEstimateMinutes() != 0) {
+				if (timeTracking.getOriginalEstimateMinutes() != null
+						&& timeTracking.getOriginalEstimateMinutes() != 0) {
 					// preserve original estimate
-					outputOriginalEstimateInMinutes = String.valueOf(issue.getTimeTracking()
-							.getOriginalEstimateMinutes());
+					outputOriginalEstimateInMinutes = String.valueOf(timeTracking.getOriginalEstimateMinutes());
 				}
 			}
 
@@ -711,7 +1447,7 @@ public class JiraRestClientAdapter {
 
 		if (editableFields.contains(new IssueField(JiraRestFields.ASSIGNEE, null))) {
 			String assigne = "-1".equals(changedIssue.getAssignee()) ? "" : changedIssue.getAssignee(); //$NON-NLS-1$//$NON-NLS-2$
-			String prevAssigne = issue.getAssignee() != null ? issue.getAssignee().getName() : ""; //$NON-NLS-1$
+			String prevAssigne = context.getAssignee() != null ? context.getAssignee() : ""; //$NON-NLS-1$
 
 			if (!assigne.equals(prevAssigne)) {
 				updateFields.add(new FieldInput(JiraRestFields.ASSIGNEE, ComplexIssueInputFieldValue.with(
@@ -730,22 +1466,59 @@ public class JiraRestClientAdapter {
 			}
 		}
 
-		call(new Callable<Void>() {
+		call(context.getMonitor(), JiraRestRequestType.ISSUE, new Callable<Void>() {
 
 			public Void call() throws Exception {
-				restClient.getIssueClient().update(issue, updateFields, new NullProgressMonitor());
+				issueClient.update(issueClient.getIssueUri(context.getIssueKey()), updateFields, comment,
+						new NullProgressMonitor());
 				return null;
 			}
 		});
+		context.invalidate();
+
+	}
+
+	/**
+	 * A conditional request for repository metadata, see {@link #callIfModified(IProgressMonitor, ConditionalRequest)}.
+	 */
+	private abstract static class ConditionalRequest<T, R> implements Callable<JiraConditionalResult<T>> {
+
+		/**
+		 * Converts the retrieved value, only invoked if the resource has changed.
+		 */
+		protected abstract R convert(T value);
 
 	}
 
-	private <V> V call(Callable<V> callable) throws JiraException {
+	/**
+	 * Sends the conditional metadata request <code>request</code> and converts the result if the resource has changed.
+	 */
+	private <T, R> JiraConditionalResult<R> callIfModified(IProgressMonitor monitor, ConditionalRequest<T, R> request)
+			throws JiraException {
+		JiraConditionalResult<T> result = call(monitor, JiraRestRequestType.METADATA, request);
+		if (!result.isModified()) {
+			return JiraConditionalResult.notModified(result.getValidator());
+		}
+		return JiraConditionalResult.modified(request.convert(result.getValue()), result.getValidator());
+	}
+
+	/**
+	 * Invokes <code>callable</code> with <code>monitor</code> bound to the requests it sends. The requests use the
+	 * read timeout of <code>type</code> and are aborted when <code>monitor</code> is canceled.
+	 *
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> was canceled
+	 */
+	private <V> V call(IProgressMonitor monitor, JiraRestRequestType type, Callable<V> callable)
+			throws JiraException {
 
 		try {
-			return callable.call();
+			return JiraRestRequestMonitor.run(monitor, type, callable);
 		} catch (RestClientException e) {
-			if (e.getMessage().contains(HTTP_401)) {
+			if (monitor != null && monitor.isCanceled()) {
+				// the request was aborted
+				throw new OperationCanceledException();
+			} else if (e.getMessage().contains(HTTP_401)) {
 				throw new JiraAuthenticationException(HTTP_401);
 			} else if (e.getMessage().contains(HTTP_403)) {
 				throw new JiraException(HTTP_403 + ". Captcha might be required. Please try to log in via browser."); //$NON-NLS-1$
@@ -782,7 +1555,12 @@ public class JiraRestClientAdapter {
 				// use "e.getMessage()" as an argument instead of "e" so it fits error window (mainly TaskRepository dialog) 
 				throw new JiraException(e.getMessage(), e);
 			}
+		} catch (OperationCanceledException e) {
+			throw e;
 		} catch (Exception e) {
+			if (monitor != null && monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
 			e.printStackTrace();
 			if (e instanceof RuntimeException) {
 				throw (RuntimeException) e;
@@ -792,21 +1570,37 @@ public class JiraRestClientAdapter {
 
 	}
 
-	public static SimpleDateFormat getDateTimeFormat() {
-		return REST_DATETIME_FORMAT;
-	}
+	public SecurityLevel[] getSecurityLevels(String projectKey, IProgressMonitor monitor) throws JiraException {
 
-	public static SimpleDateFormat getDateFormat() {
-		return REST_DATE_FORMAT;
-	}
+		final GetCreateIssueMetadataOptionsBuilder builder = new GetCreateIssueMetadataOptionsBuilder();
+		builder.withExpandedIssueTypesFields().withProjectKeys(projectKey);
 
-	public SecurityLevel[] getSecurityLevels(String projectKey) throws JiraException {
+		Iterable<CimProject> createIssueMetadata = call(monitor, JiraRestRequestType.METADATA,
+				new Callable<Iterable<CimProject>>() {
+					public Iterable<CimProject> call() throws Exception {
+						return restClient.getIssueClient().getCreateIssueMetadata(builder.build(),
+								new NullProgressMonitor());
+					}
+				});
 
-		GetCreateIssueMetadataOptionsBuilder builder = new GetCreateIssueMetadataOptionsBuilder();
+		return convertSecurityLevels(createIssueMetadata);
+	}
+
+	public JiraConditionalResult<SecurityLevel[]> getSecurityLevels(final String projectKey,
+			final JiraResourceValidator validator, IProgressMonitor monitor) throws JiraException {
+		return callIfModified(monitor, new ConditionalRequest<Iterable<CimProject>, SecurityLevel[]>() {
+			public JiraConditionalResult<Iterable<CimProject>> call() throws Exception {
+				return metadataClient.getCreateIssueMetadata(projectKey, validator);
+			}
 
-		Iterable<CimProject> createIssueMetadata = restClient.getIssueClient().getCreateIssueMetadata(
-				builder.withExpandedIssueTypesFields().withProjectKeys(projectKey).build(), new NullProgressMonitor());
+			@Override
+			protected SecurityLevel[] convert(Iterable<CimProject> value) {
+				return convertSecurityLevels(value);
+			}
+		});
+	}
 
+	private static SecurityLevel[] convertSecurityLevels(Iterable<CimProject> createIssueMetadata) {
 		if (createIssueMetadata.iterator().hasNext()) {
 			CimProject cimProject = createIssueMetadata.iterator().next();
 
@@ -842,7 +1636,7 @@ public class JiraRestClientAdapter {
 	}
 
 	public void deleteIssue(final String key, IProgressMonitor monitor) throws JiraException {
-		call(new Callable<Void>() {
+		call(monitor, JiraRestRequestType.ISSUE, new Callable<Void>() {
 			public Void call() {
 				restClient.getIssueClient().removeIssue(key, true, new NullProgressMonitor());
 				return null;
@@ -850,4 +1644,112 @@ public class JiraRestClientAdapter {
 		});
 	}
 
+	/**
+	 * Shares what was retrieved from the repository between the operations on a single issue, e.g. the changes of a
+	 * single submit from the task editor. The issue and its transitions are retrieved at most once and discarded when
+	 * an operation changes the issue. Only the values needed to update the issue are kept rather than the retrieved
+	 * issue and its JSON representation. Instances are not thread safe.
+	 */
+	public class IssueOperationContext {
+
+		private final String issueKey;
+
+		private final IProgressMonitor monitor;
+
+		private boolean loaded;
+
+		private Collection<IssueField> editableFields;
+
+		private TimeTracking timeTracking;
+
+		private String assignee;
+
+		private Iterable<JiraAction> transitions;
+
+		private IssueOperationContext(String issueKey, IProgressMonitor monitor) {
+			this.issueKey = issueKey;
+			this.monitor = monitor;
+		}
+
+		public String getIssueKey() {
+			return issueKey;
+		}
+
+		private IProgressMonitor getMonitor() {
+			return monitor;
+		}
+
+		/**
+		 * Retrieves the issue including the edit metadata. The issue cache is bypassed since the edit metadata must
+		 * reflect the current permissions of the user.
+		 */
+		private void load() throws JiraException {
+			if (!loaded) {
+				Issue issue = JiraRestClientAdapter.this.getIssue(issueKey, monitor);
+				editableFields = Arrays.asList(JiraRestConverter.getEditableFieldsFromIssue(issue));
+				timeTracking = issue.getTimeTracking();
+				assignee = (issue.getAssignee() != null) ? issue.getAssignee().getName() : null;
+				loaded = true;
+			}
+		}
+
+		private Collection<IssueField> getEditableFields() throws JiraException {
+			load();
+			return editableFields;
+		}
+
+		/**
+		 * Returns the time tracking of the issue or <code>null</code> if time tracking is disabled.
+		 */
+		private TimeTracking getTimeTracking() throws JiraException {
+			load();
+			return timeTracking;
+		}
+
+		private String getAssignee() throws JiraException {
+			load();
+			return assignee;
+		}
+
+		public Iterable<JiraAction> getTransitions() throws JiraException {
+			if (transitions == null) {
+				transitions = JiraRestClientAdapter.this.getTransitions(issueKey, monitor);
+			}
+			return transitions;
+		}
+
+		private void invalidate() {
+			loaded = false;
+			editableFields = null;
+			timeTracking = null;
+			assignee = null;
+			transitions = null;
+		}
+
+	}
+
+	private static final class SearchPage {
+
+		private final List<JiraIssue> issues;
+
+		private final List<JiraIssue> unchangedIssues;
+
+		/** the number of issues on the page including unchanged issues */
+		private final int size;
+
+		private final int total;
+
+		public SearchPage(List<JiraIssue> issues, int total) {
+			this(issues, Collections.<JiraIssue> emptyList(), issues.size(), total);
+		}
+
+		public SearchPage(List<JiraIssue> issues, List<JiraIssue> unchangedIssues, int size, int total) {
+			this.issues = issues;
+			this.unchangedIssues = unchangedIssues;
+			this.size = size;
+			this.total = total;
+		}
+
+	}
+
 }
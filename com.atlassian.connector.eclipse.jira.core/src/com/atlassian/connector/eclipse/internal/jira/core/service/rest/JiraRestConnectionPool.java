@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.util.IdleConnectionTimeoutThread;
+
+/**
+ * The pool of persistent connections to a single repository. Connections are kept alive between requests, checked
+ * for staleness before they are reused and closed after they have been idle for
+ * {@link #IDLE_CONNECTION_TIMEOUT_IN_MS}.
+ */
+public class JiraRestConnectionPool extends MultiThreadedHttpConnectionManager {
+
+	/**
+	 * A snapshot of the usage of a connection pool.
+	 */
+	public static class Statistics {
+
+		private final int maxConnectionsPerHost;
+
+		private final int connectionsInPool;
+
+		private final int connectionsInUse;
+
+		private final long leases;
+
+		private final long leaseWaitTime;
+
+		private final long maxLeaseWaitTime;
+
+		private final long leaseTimeouts;
+
+		private Statistics(int maxConnectionsPerHost, int connectionsInPool, int connectionsInUse, long leases,
+				long leaseWaitTime, long maxLeaseWaitTime, long leaseTimeouts) {
+			this.maxConnectionsPerHost = maxConnectionsPerHost;
+			this.connectionsInPool = connectionsInPool;
+			this.connectionsInUse = connectionsInUse;
+			this.leases = leases;
+			this.leaseWaitTime = leaseWaitTime;
+			this.maxLeaseWaitTime = maxLeaseWaitTime;
+			this.leaseTimeouts = leaseTimeouts;
+		}
+
+		public int getMaxConnectionsPerHost() {
+			return maxConnectionsPerHost;
+		}
+
+		/**
+		 * Returns the number of open connections, including the connections in use.
+		 */
+		public int getConnectionsInPool() {
+			return connectionsInPool;
+		}
+
+		public int getConnectionsInUse() {
+			return connectionsInUse;
+		}
+
+		/**
+		 * Returns the number of times a connection was handed out by the pool.
+		 */
+		public long getLeases() {
+			return leases;
+		}
+
+		/**
+		 * Returns the total time in milliseconds requests waited for a connection.
+		 */
+		public long getLeaseWaitTime() {
+			return leaseWaitTime;
+		}
+
+		public long getMaxLeaseWaitTime() {
+			return maxLeaseWaitTime;
+		}
+
+		/**
+		 * Returns the number of requests that failed since no connection became available in time.
+		 */
+		public long getLeaseTimeouts() {
+			return leaseTimeouts;
+		}
+
+		@Override
+		public String toString() {
+			return "connections=" + connectionsInPool + ", inUse=" + connectionsInUse + ", maxPerHost=" //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ maxConnectionsPerHost + ", leases=" + leases + ", leaseWaitTime=" + leaseWaitTime //$NON-NLS-1$ //$NON-NLS-2$
+					+ "ms, maxLeaseWaitTime=" + maxLeaseWaitTime + "ms, leaseTimeouts=" + leaseTimeouts; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+
+	}
+
+	public static final long IDLE_CONNECTION_TIMEOUT_IN_MS = 30 * 1000;
+
+	private static final long IDLE_CONNECTION_CHECK_INTERVAL_IN_MS = 10 * 1000;
+
+	private static IdleConnectionTimeoutThread idleConnectionTimeoutThread;
+
+	private final int maxConnectionsPerHost;
+
+	private final AtomicLong leases = new AtomicLong();
+
+	private final AtomicLong releases = new AtomicLong();
+
+	private final AtomicLong leaseWaitTime = new AtomicLong();
+
+	private final AtomicLong maxLeaseWaitTime = new AtomicLong();
+
+	private final AtomicLong leaseTimeouts = new AtomicLong();
+
+	public JiraRestConnectionPool(int maxConnectionsPerHost) {
+		this.maxConnectionsPerHost = maxConnectionsPerHost;
+
+		HttpConnectionManagerParams params = getParams();
+		params.setDefaultMaxConnectionsPerHost(maxConnectionsPerHost);
+		// leaves room for connections to a proxy
+		params.setMaxTotalConnections(2 * maxConnectionsPerHost);
+		params.setStaleCheckingEnabled(true);
+		params.setTcpNoDelay(true);
+
+		getIdleConnectionTimeoutThread().addConnectionManager(this);
+	}
+
+	private static synchronized IdleConnectionTimeoutThread getIdleConnectionTimeoutThread() {
+		if (idleConnectionTimeoutThread == null) {
+			// the thread is a daemon and closes the idle connections of all pools
+			idleConnectionTimeoutThread = new IdleConnectionTimeoutThread();
+			idleConnectionTimeoutThread.setName("JIRA REST Idle Connection Evictor"); //$NON-NLS-1$
+			idleConnectionTimeoutThread.setConnectionTimeout(IDLE_CONNECTION_TIMEOUT_IN_MS);
+			idleConnectionTimeoutThread.setTimeoutInterval(IDLE_CONNECTION_CHECK_INTERVAL_IN_MS);
+			idleConnectionTimeoutThread.start();
+		}
+		return idleConnectionTimeoutThread;
+	}
+
+	@Override
+	public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+			throws ConnectionPoolTimeoutException {
+		long start = System.currentTimeMillis();
+		HttpConnection connection;
+		try {
+			connection = super.getConnectionWithTimeout(hostConfiguration, timeout);
+		} catch (ConnectionPoolTimeoutException e) {
+			leaseTimeouts.incrementAndGet();
+			throw e;
+		}
+		long waitTime = System.currentTimeMillis() - start;
+		leases.incrementAndGet();
+		leaseWaitTime.addAndGet(waitTime);
+		long max = maxLeaseWaitTime.get();
+		while (waitTime > max && !maxLeaseWaitTime.compareAndSet(max, waitTime)) {
+			max = maxLeaseWaitTime.get();
+		}
+		return connection;
+	}
+
+	@Override
+	public void releaseConnection(HttpConnection connection) {
+		releases.incrementAndGet();
+		super.releaseConnection(connection);
+	}
+
+	public Statistics getStatistics() {
+		// releases are read first so that connections leased in between are not counted as negative use
+		long released = releases.get();
+		long leased = leases.get();
+		return new Statistics(maxConnectionsPerHost, getConnectionsInPool(), (int) (leased - released), leased,
+				leaseWaitTime.get(), maxLeaseWaitTime.get(), leaseTimeouts.get());
+	}
+
+	/**
+	 * Closes all connections. The pool must not be used afterwards.
+	 */
+	@Override
+	public void shutdown() {
+		getIdleConnectionTimeoutThread().removeConnectionManager(this);
+		super.shutdown();
+	}
+
+}
@@ -17,7 +17,6 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jettison.json.JSONArray;
@@ -28,7 +27,6 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.mylyn.commons.core.StatusHandler;
 import org.eclipse.osgi.util.NLS;
 import org.joda.time.DateTime;
-import org.joda.time.format.DateTimeFormat;
 
 import com.atlassian.connector.eclipse.internal.jira.core.JiraAttribute;
 import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
@@ -55,6 +53,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Subtask;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.atlassian.jira.rest.client.IssueRestClient;
 import com.atlassian.jira.rest.client.domain.BasicComponent;
 import com.atlassian.jira.rest.client.domain.BasicIssue;
@@ -144,8 +143,6 @@ public class JiraRestConverter {
 			throws JiraException {
 		JiraIssue issue = new JiraIssue();
 
-		issue.setRawIssue(rawIssue);
-
 		issue.setCustomFields(getCustomFieldsFromIssue(rawIssue));
 		issue.setEditableFields(getEditableFieldsFromIssue(rawIssue));
 
@@ -416,7 +413,7 @@ public class JiraRestConverter {
 		return new CustomField[0];
 	}
 
-	private static IssueField[] getEditableFieldsFromIssue(Issue issue) {
+	static IssueField[] getEditableFieldsFromIssue(Issue issue) {
 
 		List<IssueField> editableFields = new ArrayList<IssueField>();
 
@@ -1021,9 +1018,9 @@ public class JiraRestConverter {
 				String date = null;
 
 				try {
-					date = new DateTime(Long.valueOf(customField.getValues().get(0))).toString(JiraRestFields.DATE_FORMAT);
+					date = JiraDateFormats.REST_DATE.print(Long.parseLong(customField.getValues().get(0)));
 				} catch (IllegalArgumentException e) {
-					date = new DateTime(customField.getValues().get(0)).toString(JiraRestFields.DATE_FORMAT);
+					date = JiraDateFormats.REST_DATE.print(new DateTime(customField.getValues().get(0)));
 				}
 
 				return new FieldInput(customField.getId(), date);
@@ -1036,13 +1033,11 @@ public class JiraRestConverter {
 				String date = null;
 
 				try {
-					date = new DateTime(customField.getValues().get(0)).toString(JiraRestFields.DATE_TIME_FORMAT);
+					date = JiraDateFormats.REST_DATE_TIME.print(new DateTime(customField.getValues().get(0)));
 				} catch (IllegalArgumentException e) {
 
-					date = DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss") //$NON-NLS-1$
-							.withLocale(Locale.ENGLISH)
-							.parseDateTime(customField.getValues().get(0))
-							.toString(JiraRestFields.DATE_TIME_FORMAT);
+					date = JiraDateFormats.REST_DATE_TIME.print(JiraDateFormats.ATTRIBUTE_DATE_TIME
+							.parseMillis(customField.getValues().get(0)));
 				}
 
 				return new FieldInput(customField.getId(), date);
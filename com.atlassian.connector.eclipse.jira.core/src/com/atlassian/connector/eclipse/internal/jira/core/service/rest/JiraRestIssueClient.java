@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriBuilder;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+
+import com.atlassian.jira.rest.client.ProgressMonitor;
+import com.atlassian.jira.rest.client.domain.input.FieldInput;
+import com.atlassian.jira.rest.client.internal.jersey.AbstractJerseyRestClient;
+import com.atlassian.jira.rest.client.internal.json.gen.IssueUpdateJsonGenerator;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.client.apache.ApacheHttpClient;
+
+/**
+ * Updates issues addressed by their key. Unlike the JIRA REST Java Client the issue does not need to be retrieved
+ * first to obtain the URIs of its resources and a comment can be added with the same request that updates the
+ * fields.
+ */
+public class JiraRestIssueClient extends AbstractJerseyRestClient {
+
+	private static final String ISSUE_URI_PREFIX = "issue"; //$NON-NLS-1$
+
+	private static final String COMMENT_URI_SUFFIX = "comment"; //$NON-NLS-1$
+
+	private static final String TRANSITIONS_URI_SUFFIX = "transitions"; //$NON-NLS-1$
+
+	private static final String WORKLOG_URI_SUFFIX = "worklog"; //$NON-NLS-1$
+
+	private static final String ATTACHMENTS_URI_SUFFIX = "attachments"; //$NON-NLS-1$
+
+	private static final String FIELDS_ATTRIBUTE = "fields"; //$NON-NLS-1$
+
+	private static final String UPDATE_ATTRIBUTE = "update"; //$NON-NLS-1$
+
+	private static final String COMMENT_ATTRIBUTE = "comment"; //$NON-NLS-1$
+
+	private static final String ADD_OPERATION = "add"; //$NON-NLS-1$
+
+	private static final String BODY_ATTRIBUTE = "body"; //$NON-NLS-1$
+
+	private static final String RANGE_HEADER = "Range"; //$NON-NLS-1$
+
+	public JiraRestIssueClient(URI baseUri, ApacheHttpClient client, boolean followRedirects) {
+		super(baseUri, client, followRedirects);
+	}
+
+	public URI getIssueUri(String issueKey) {
+		return UriBuilder.fromUri(baseUri).path(ISSUE_URI_PREFIX).path(issueKey).build();
+	}
+
+	public URI getCommentsUri(String issueKey) {
+		return UriBuilder.fromUri(getIssueUri(issueKey)).path(COMMENT_URI_SUFFIX).build();
+	}
+
+	public URI getTransitionsUri(String issueKey) {
+		return UriBuilder.fromUri(getIssueUri(issueKey)).path(TRANSITIONS_URI_SUFFIX).build();
+	}
+
+	public URI getWorklogUri(String issueKey) {
+		return UriBuilder.fromUri(getIssueUri(issueKey)).path(WORKLOG_URI_SUFFIX).build();
+	}
+
+	public URI getAttachmentsUri(String issueKey) {
+		return UriBuilder.fromUri(getIssueUri(issueKey)).path(ATTACHMENTS_URI_SUFFIX).build();
+	}
+
+	/**
+	 * Sets the values of <code>fields</code> and adds <code>comment</code> with a single request.
+	 *
+	 * @param comment
+	 *            the body of the comment to add or <code>null</code>
+	 */
+	public void update(final URI issueUri, final Iterable<FieldInput> fields, final String comment,
+			ProgressMonitor progressMonitor) {
+		invoke(new Callable<Void>() {
+			public Void call() throws Exception {
+				JSONObject entity = new JSONObject();
+				JSONObject fieldsJson = new IssueUpdateJsonGenerator().generate(fields);
+				if (fieldsJson.keys().hasNext()) {
+					entity.put(FIELDS_ATTRIBUTE, fieldsJson);
+				}
+				if (comment != null && comment.length() > 0) {
+					JSONObject addComment = new JSONObject().put(ADD_OPERATION,
+							new JSONObject().put(BODY_ATTRIBUTE, comment));
+					entity.put(UPDATE_ATTRIBUTE,
+							new JSONObject().put(COMMENT_ATTRIBUTE, new JSONArray().put(addComment)));
+				}
+
+				WebResource resource = client.resource(issueUri);
+				for (Map.Entry<String, String> entry : getQueryParams().entrySet()) {
+					resource = resource.queryParam(entry.getKey(), entry.getValue());
+				}
+				WebResource.Builder builder = resource.type(MediaType.APPLICATION_JSON_TYPE);
+				for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
+					builder = builder.header(entry.getKey(), entry.getValue());
+				}
+				builder.put(entity);
+				return null;
+			}
+		});
+	}
+
+	/**
+	 * Requests the content of an attachment starting at byte <code>offset</code>. The response has the status
+	 * <code>206</code> if the server returns the requested range and <code>200</code> if it returns the complete
+	 * content. The caller closes the response.
+	 */
+	public ClientResponse getAttachment(final URI attachmentUri, final long offset, ProgressMonitor progressMonitor) {
+		return invoke(new Callable<ClientResponse>() {
+			public ClientResponse call() throws Exception {
+				WebResource.Builder builder = client.resource(attachmentUri).getRequestBuilder();
+				for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
+					builder = builder.header(entry.getKey(), entry.getValue());
+				}
+				if (offset > 0) {
+					builder = builder.header(RANGE_HEADER, "bytes=" + offset + "-"); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				ClientResponse response = builder.get(ClientResponse.class);
+				if (response.getStatus() >= 300) {
+					throw new UniformInterfaceException(response);
+				}
+				return response;
+			}
+		});
+	}
+
+}
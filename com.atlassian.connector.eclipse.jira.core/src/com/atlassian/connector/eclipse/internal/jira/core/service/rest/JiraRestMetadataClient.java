@@ -0,0 +1,209 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.UriBuilder;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraResourceValidator;
+import com.atlassian.jira.rest.client.RestClientException;
+import com.atlassian.jira.rest.client.domain.BasicProject;
+import com.atlassian.jira.rest.client.domain.CimProject;
+import com.atlassian.jira.rest.client.domain.IssueType;
+import com.atlassian.jira.rest.client.domain.Priority;
+import com.atlassian.jira.rest.client.domain.Project;
+import com.atlassian.jira.rest.client.domain.Resolution;
+import com.atlassian.jira.rest.client.domain.Status;
+import com.atlassian.jira.rest.client.internal.jersey.AbstractJerseyRestClient;
+import com.atlassian.jira.rest.client.internal.json.BasicProjectsJsonParser;
+import com.atlassian.jira.rest.client.internal.json.CreateIssueMetadataJsonParser;
+import com.atlassian.jira.rest.client.internal.json.GenericJsonArrayParser;
+import com.atlassian.jira.rest.client.internal.json.IssueTypeJsonParser;
+import com.atlassian.jira.rest.client.internal.json.JsonArrayParser;
+import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
+import com.atlassian.jira.rest.client.internal.json.PriorityJsonParser;
+import com.atlassian.jira.rest.client.internal.json.ProjectJsonParser;
+import com.atlassian.jira.rest.client.internal.json.ResolutionJsonParser;
+import com.atlassian.jira.rest.client.internal.json.StatusJsonParser;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.UniformInterfaceException;
+import com.sun.jersey.api.client.WebResource;
+import com.sun.jersey.client.apache.ApacheHttpClient;
+
+/**
+ * Retrieves repository metadata with conditional requests. Responses are only parsed if the resource has changed
+ * since the validator passed with the request was obtained. Servers that do not support conditional requests return
+ * the complete resource in which case unchanged resources are detected by comparing a hash of the content.
+ */
+public class JiraRestMetadataClient extends AbstractJerseyRestClient {
+
+	private static final String HEADER_IF_NONE_MATCH = "If-None-Match"; //$NON-NLS-1$
+
+	private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since"; //$NON-NLS-1$
+
+	private static final String HEADER_ETAG = "ETag"; //$NON-NLS-1$
+
+	private static final String HEADER_LAST_MODIFIED = "Last-Modified"; //$NON-NLS-1$
+
+	private static final int HTTP_NOT_MODIFIED = 304;
+
+	private static final int HTTP_MULTIPLE_CHOICES = 300;
+
+	private static final String CHARSET = "UTF-8"; //$NON-NLS-1$
+
+	public JiraRestMetadataClient(URI baseUri, ApacheHttpClient client, boolean followRedirects) {
+		super(baseUri, client, followRedirects);
+	}
+
+	public JiraConditionalResult<Iterable<Priority>> getPriorities(JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("priority").build(), validator, //$NON-NLS-1$
+				GenericJsonArrayParser.create(new PriorityJsonParser()));
+	}
+
+	public JiraConditionalResult<Iterable<Status>> getStatuses(JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("status").build(), validator, //$NON-NLS-1$
+				GenericJsonArrayParser.create(new StatusJsonParser()));
+	}
+
+	public JiraConditionalResult<Iterable<Resolution>> getResolutions(JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("resolution").build(), validator, //$NON-NLS-1$
+				GenericJsonArrayParser.create(new ResolutionJsonParser()));
+	}
+
+	public JiraConditionalResult<Iterable<IssueType>> getIssueTypes(JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("issuetype").build(), validator, //$NON-NLS-1$
+				GenericJsonArrayParser.create(new IssueTypeJsonParser()));
+	}
+
+	public JiraConditionalResult<Iterable<BasicProject>> getAllProjects(JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("project").build(), validator, //$NON-NLS-1$
+				new BasicProjectsJsonParser());
+	}
+
+	public JiraConditionalResult<Project> getProject(String projectKey, JiraResourceValidator validator) {
+		return getAndParseIfModified(UriBuilder.fromUri(baseUri).path("project").path(projectKey).build(), //$NON-NLS-1$
+				validator, new ProjectJsonParser());
+	}
+
+	/**
+	 * Retrieves the create issue metadata of a project including the fields of all issue types.
+	 */
+	public JiraConditionalResult<Iterable<CimProject>> getCreateIssueMetadata(String projectKey,
+			JiraResourceValidator validator) {
+		URI uri = UriBuilder.fromUri(baseUri)
+				.path("issue/createmeta") //$NON-NLS-1$
+				.queryParam("projectKeys", projectKey) //$NON-NLS-1$
+				.queryParam("expand", "projects.issuetypes.fields") //$NON-NLS-1$ //$NON-NLS-2$
+				.build();
+		return getAndParseIfModified(uri, validator, new CreateIssueMetadataJsonParser());
+	}
+
+	private <T> JiraConditionalResult<T> getAndParseIfModified(URI uri, JiraResourceValidator validator,
+			JsonObjectParser<T> parser) {
+		JiraConditionalResult<String> content = getIfModified(uri, validator);
+		if (!content.isModified()) {
+			return JiraConditionalResult.notModified(content.getValidator());
+		}
+		try {
+			return JiraConditionalResult.modified(parser.parse(new JSONObject(content.getValue())),
+					content.getValidator());
+		} catch (JSONException e) {
+			throw new RestClientException(e);
+		}
+	}
+
+	private <T> JiraConditionalResult<T> getAndParseIfModified(URI uri, JiraResourceValidator validator,
+			JsonArrayParser<T> parser) {
+		JiraConditionalResult<String> content = getIfModified(uri, validator);
+		if (!content.isModified()) {
+			return JiraConditionalResult.notModified(content.getValidator());
+		}
+		try {
+			return JiraConditionalResult.modified(parser.parse(new JSONArray(content.getValue())),
+					content.getValidator());
+		} catch (JSONException e) {
+			throw new RestClientException(e);
+		}
+	}
+
+	private JiraConditionalResult<String> getIfModified(final URI uri, final JiraResourceValidator validator) {
+		return invoke(new Callable<JiraConditionalResult<String>>() {
+			public JiraConditionalResult<String> call() throws Exception {
+				WebResource resource = client.resource(uri);
+				for (Map.Entry<String, String> entry : getQueryParams().entrySet()) {
+					resource = resource.queryParam(entry.getKey(), entry.getValue());
+				}
+				WebResource.Builder builder = resource.accept(MediaType.APPLICATION_JSON_TYPE);
+				for (Map.Entry<String, String> entry : getHeaders().entrySet()) {
+					builder = builder.header(entry.getKey(), entry.getValue());
+				}
+				if (validator != null) {
+					if (validator.getEntityTag() != null) {
+						builder = builder.header(HEADER_IF_NONE_MATCH, validator.getEntityTag());
+					}
+					if (validator.getLastModified() != null) {
+						builder = builder.header(HEADER_IF_MODIFIED_SINCE, validator.getLastModified());
+					}
+				}
+
+				ClientResponse response = builder.get(ClientResponse.class);
+				if (response.getStatus() == HTTP_NOT_MODIFIED) {
+					response.close();
+					return JiraConditionalResult.notModified(validator);
+				}
+				if (response.getStatus() >= HTTP_MULTIPLE_CHOICES) {
+					throw new UniformInterfaceException(response);
+				}
+
+				String content = response.getEntity(String.class);
+				JiraResourceValidator newValidator = new JiraResourceValidator(response.getHeaders().getFirst(
+						HEADER_ETAG), response.getHeaders().getFirst(HEADER_LAST_MODIFIED), getContentHash(content));
+				if (validator != null && newValidator.getContentHash() != null
+						&& newValidator.getContentHash().equals(validator.getContentHash())) {
+					// the server does not support conditional requests but the content is unchanged
+					return JiraConditionalResult.notModified(newValidator);
+				}
+				return JiraConditionalResult.modified(content, newValidator);
+			}
+		});
+	}
+
+	private static String getContentHash(String content) {
+		try {
+			byte[] digest = MessageDigest.getInstance("MD5").digest(content.getBytes(CHARSET)); //$NON-NLS-1$
+			StringBuilder sb = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+				sb.append(Character.forDigit(b & 0xF, 16));
+			}
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// unchanged content will not be detected
+			return null;
+		} catch (UnsupportedEncodingException e) {
+			return null;
+		}
+	}
+
+}
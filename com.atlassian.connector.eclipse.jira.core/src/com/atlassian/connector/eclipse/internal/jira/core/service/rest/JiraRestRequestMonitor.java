@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+import org.apache.commons.httpclient.HttpConnectionManager;
+import org.apache.commons.httpclient.HttpException;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientRequest;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.config.ClientConfig;
+import com.sun.jersey.api.client.filter.ClientFilter;
+
+/**
+ * Binds the progress monitor of an operation to the HTTP requests it sends. The JIRA REST Java Client does not
+ * consult its progress monitors, therefore the monitor is bound to the calling thread for the duration of
+ * {@link #run(IProgressMonitor, JiraRestRequestType, Callable)}. While bound, requests use the read timeout and
+ * transfer encoding of the operation type and are aborted once the monitor is canceled by closing the connections
+ * they hold. Closed connections are returned to the connection pool which reopens them on the next use.
+ */
+public final class JiraRestRequestMonitor {
+
+	private static final long POLL_INTERVAL_IN_MS = 250;
+
+	private static final ThreadLocal<Request> CURRENT_REQUEST = new ThreadLocal<Request>();
+
+	private static ScheduledExecutorService watchdog;
+
+	private static final class Request implements Runnable {
+
+		private final IProgressMonitor monitor;
+
+		private final JiraRestRequestType type;
+
+		private final List<HttpConnection> connections = new ArrayList<HttpConnection>();
+
+		private boolean aborted;
+
+		private Request(IProgressMonitor monitor, JiraRestRequestType type) {
+			this.monitor = monitor;
+			this.type = type;
+		}
+
+		private boolean isCanceled() {
+			return monitor != null && monitor.isCanceled();
+		}
+
+		private synchronized void connectionAcquired(HttpConnection connection) {
+			if (aborted) {
+				connection.close();
+			} else {
+				connections.add(connection);
+			}
+		}
+
+		private synchronized void abort() {
+			aborted = true;
+			// connections that were released already are detached from the pooled connection so this is a no-op
+			for (HttpConnection connection : connections) {
+				connection.close();
+			}
+			connections.clear();
+		}
+
+		private synchronized void done() {
+			connections.clear();
+		}
+
+		public void run() {
+			if (isCanceled()) {
+				abort();
+			}
+		}
+
+	}
+
+	private static final class RequestFilter extends ClientFilter {
+
+		@Override
+		public ClientResponse handle(ClientRequest request) throws ClientHandlerException {
+			Request current = CURRENT_REQUEST.get();
+			if (current != null) {
+				if (current.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				request.getProperties().put(ClientConfig.PROPERTY_READ_TIMEOUT, current.type.getReadTimeout());
+				if (current.type.getChunkSize() != null) {
+					// streams the entity instead of buffering it in memory
+					request.getProperties().put(ClientConfig.PROPERTY_CHUNKED_ENCODING_SIZE,
+							current.type.getChunkSize());
+				}
+			}
+			return getNext().handle(request);
+		}
+
+	}
+
+	private static final class MonitoredConnectionManager implements HttpConnectionManager {
+
+		private final HttpConnectionManager delegate;
+
+		private MonitoredConnectionManager(HttpConnectionManager delegate) {
+			this.delegate = delegate;
+		}
+
+		private HttpConnection acquired(HttpConnection connection) {
+			Request current = CURRENT_REQUEST.get();
+			if (current != null) {
+				current.connectionAcquired(connection);
+			}
+			return connection;
+		}
+
+		public HttpConnection getConnection(HostConfiguration hostConfiguration) {
+			return acquired(delegate.getConnection(hostConfiguration));
+		}
+
+		@SuppressWarnings("deprecation")
+		public HttpConnection getConnection(HostConfiguration hostConfiguration, long timeout) throws HttpException {
+			return acquired(delegate.getConnection(hostConfiguration, timeout));
+		}
+
+		public HttpConnection getConnectionWithTimeout(HostConfiguration hostConfiguration, long timeout)
+				throws ConnectionPoolTimeoutException {
+			return acquired(delegate.getConnectionWithTimeout(hostConfiguration, timeout));
+		}
+
+		public void releaseConnection(HttpConnection connection) {
+			delegate.releaseConnection(connection);
+		}
+
+		public void closeIdleConnections(long idleTimeout) {
+			delegate.closeIdleConnections(idleTimeout);
+		}
+
+		public HttpConnectionManagerParams getParams() {
+			return delegate.getParams();
+		}
+
+		public void setParams(HttpConnectionManagerParams params) {
+			delegate.setParams(params);
+		}
+
+	}
+
+	private JiraRestRequestMonitor() {
+	}
+
+	/**
+	 * Returns a filter that applies the read timeout of the current operation and stops requests of canceled
+	 * operations before they are sent.
+	 */
+	public static ClientFilter createFilter() {
+		return new RequestFilter();
+	}
+
+	/**
+	 * Wraps <code>connectionManager</code> so that the connections of an operation are closed when it is canceled.
+	 */
+	public static HttpConnectionManager monitor(HttpConnectionManager connectionManager) {
+		if (connectionManager instanceof MonitoredConnectionManager) {
+			return connectionManager;
+		}
+		return new MonitoredConnectionManager(connectionManager);
+	}
+
+	/**
+	 * Invokes <code>callable</code> with <code>monitor</code> bound to the requests it sends.
+	 *
+	 * @param monitor
+	 *            the monitor of the operation or <code>null</code>, if the operation can not be canceled
+	 * @throws OperationCanceledException
+	 *             if <code>monitor</code> was canceled before the invocation
+	 */
+	public static <V> V run(IProgressMonitor monitor, JiraRestRequestType type, Callable<V> callable)
+			throws Exception {
+		if (monitor != null && monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+
+		Request previous = CURRENT_REQUEST.get();
+		Request request = new Request(monitor, type);
+		ScheduledFuture<?> check = (monitor != null) ? getWatchdog().scheduleWithFixedDelay(request,
+				POLL_INTERVAL_IN_MS, POLL_INTERVAL_IN_MS, TimeUnit.MILLISECONDS) : null;
+		CURRENT_REQUEST.set(request);
+		try {
+			return callable.call();
+		} finally {
+			if (check != null) {
+				check.cancel(false);
+			}
+			request.done();
+			CURRENT_REQUEST.set(previous);
+		}
+	}
+
+	private static synchronized ScheduledExecutorService getWatchdog() {
+		if (watchdog == null) {
+			watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "JIRA REST Request Watchdog"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return watchdog;
+	}
+
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+/**
+ * The kinds of requests sent to the repository. Each kind has its own read timeout, i.e. the time the server may
+ * take to send the next part of a response.
+ */
+public enum JiraRestRequestType {
+
+	/** server and session information, projects and other configuration */
+	METADATA(30 * 1000),
+
+	/** retrieving and changing single issues */
+	ISSUE(2 * 60 * 1000),
+
+	/** searches that may return complete issues */
+	SEARCH(5 * 60 * 1000),
+
+	/** uploading and downloading attachments, uploads are streamed in chunks of 64 KB */
+	ATTACHMENT(10 * 60 * 1000, new Integer(64 * 1024));
+
+	private final Integer readTimeout;
+
+	private final Integer chunkSize;
+
+	private JiraRestRequestType(int readTimeout) {
+		this(readTimeout, null);
+	}
+
+	private JiraRestRequestType(int readTimeout, Integer chunkSize) {
+		this.readTimeout = new Integer(readTimeout);
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Returns the read timeout in milliseconds.
+	 */
+	public Integer getReadTimeout() {
+		return readTimeout;
+	}
+
+	/**
+	 * Returns the chunk size in bytes for sending request entities with chunked transfer encoding or
+	 * <code>null</code>, if request entities are buffered to determine their length.
+	 */
+	public Integer getChunkSize() {
+		return chunkSize;
+	}
+
+}
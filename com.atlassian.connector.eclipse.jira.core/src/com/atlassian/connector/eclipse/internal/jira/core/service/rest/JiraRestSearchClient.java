@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.UriBuilder;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONException;
+import org.codehaus.jettison.json.JSONObject;
+
+import com.atlassian.jira.rest.client.IssueRestClient;
+import com.atlassian.jira.rest.client.ProgressMonitor;
+import com.atlassian.jira.rest.client.RestClientException;
+import com.atlassian.jira.rest.client.domain.BasicIssue;
+import com.atlassian.jira.rest.client.domain.Issue;
+import com.atlassian.jira.rest.client.domain.SearchResult;
+import com.atlassian.jira.rest.client.internal.jersey.AbstractJerseyRestClient;
+import com.atlassian.jira.rest.client.internal.json.BasicIssueJsonParser;
+import com.atlassian.jira.rest.client.internal.json.IssueJsonParser;
+import com.atlassian.jira.rest.client.internal.json.JsonObjectParser;
+import com.atlassian.jira.rest.client.internal.json.JsonParseUtil;
+import com.sun.jersey.client.apache.ApacheHttpClient;
+
+/**
+ * Search client that retrieves complete issues, including the edit metadata and the field schema, with a single
+ * request per page of results. The JIRA REST Java Client only offers searches that return basic issues or that omit
+ * the edit metadata.
+ */
+public class JiraRestSearchClient extends AbstractJerseyRestClient {
+
+	private static final String SEARCH_URI_PREFIX = "search"; //$NON-NLS-1$
+
+	private static final String JQL_ATTRIBUTE = "jql"; //$NON-NLS-1$
+
+	private static final String START_AT_ATTRIBUTE = "startAt"; //$NON-NLS-1$
+
+	private static final String MAX_RESULTS_ATTRIBUTE = "maxResults"; //$NON-NLS-1$
+
+	private static final String FIELDS_ATTRIBUTE = "fields"; //$NON-NLS-1$
+
+	private static final String EXPAND_ATTRIBUTE = "expand"; //$NON-NLS-1$
+
+	private static final String ALL_FIELDS = "*all"; //$NON-NLS-1$
+
+	private static final String EXPAND = "editmeta,schema,names"; //$NON-NLS-1$
+
+	private static final String UPDATED_FIELD = "updated"; //$NON-NLS-1$
+
+	private static final String ISSUES_ATTRIBUTE = "issues"; //$NON-NLS-1$
+
+	// same limit as used by JerseySearchRestClient
+	private static final int MAX_JQL_LENGTH_FOR_HTTP_GET = 500;
+
+	private final URI searchUri;
+
+	public JiraRestSearchClient(URI baseUri, ApacheHttpClient client, boolean followRedirects) {
+		super(baseUri, client, followRedirects);
+		this.searchUri = UriBuilder.fromUri(baseUri).path(SEARCH_URI_PREFIX).build();
+	}
+
+	public SearchResult searchJqlWithFullIssues(final String jql, final int maxResults, final int startAt,
+			ProgressMonitor progressMonitor) {
+		String query = jql != null ? jql : ""; //$NON-NLS-1$
+
+		if (query.length() > MAX_JQL_LENGTH_FOR_HTTP_GET) {
+			final JSONObject postEntity = new JSONObject();
+			try {
+				postEntity.put(JQL_ATTRIBUTE, query);
+				postEntity.put(START_AT_ATTRIBUTE, startAt);
+				postEntity.put(MAX_RESULTS_ATTRIBUTE, maxResults);
+				postEntity.put(FIELDS_ATTRIBUTE, new JSONArray().put(ALL_FIELDS));
+				// searches sent as POST only read the expand from the body
+				JSONArray expand = new JSONArray();
+				for (String expando : EXPAND.split(",")) { //$NON-NLS-1$
+					expand.put(expando);
+				}
+				postEntity.put(EXPAND_ATTRIBUTE, expand);
+			} catch (JSONException e) {
+				throw new RestClientException(e);
+			}
+			return postAndParse(searchUri, postEntity, new FullSearchResultJsonParser(), progressMonitor);
+		}
+
+		URI uri = UriBuilder.fromUri(searchUri)
+				.queryParam(JQL_ATTRIBUTE, query)
+				.queryParam(START_AT_ATTRIBUTE, startAt)
+				.queryParam(MAX_RESULTS_ATTRIBUTE, maxResults)
+				.queryParam(FIELDS_ATTRIBUTE, ALL_FIELDS)
+				.queryParam(EXPAND_ATTRIBUTE, EXPAND)
+				.build();
+		return getAndParse(uri, new FullSearchResultJsonParser(), progressMonitor);
+	}
+
+	/**
+	 * Returns a page of the issues matching <code>jql</code> that only contains the id, key and updated time stamp of
+	 * each issue. The issues of the returned result are instances of {@link IssueHeader}.
+	 */
+	public SearchResult searchJqlForHeaders(final String jql, final int maxResults, final int startAt,
+			ProgressMonitor progressMonitor) {
+		String query = jql != null ? jql : ""; //$NON-NLS-1$
+
+		if (query.length() > MAX_JQL_LENGTH_FOR_HTTP_GET) {
+			final JSONObject postEntity = new JSONObject();
+			try {
+				postEntity.put(JQL_ATTRIBUTE, query);
+				postEntity.put(START_AT_ATTRIBUTE, startAt);
+				postEntity.put(MAX_RESULTS_ATTRIBUTE, maxResults);
+				postEntity.put(FIELDS_ATTRIBUTE, new JSONArray().put(UPDATED_FIELD));
+			} catch (JSONException e) {
+				throw new RestClientException(e);
+			}
+			return postAndParse(searchUri, postEntity, new HeaderSearchResultJsonParser(), progressMonitor);
+		}
+
+		URI uri = UriBuilder.fromUri(searchUri)
+				.queryParam(JQL_ATTRIBUTE, query)
+				.queryParam(START_AT_ATTRIBUTE, startAt)
+				.queryParam(MAX_RESULTS_ATTRIBUTE, maxResults)
+				.queryParam(FIELDS_ATTRIBUTE, UPDATED_FIELD)
+				.build();
+		return getAndParse(uri, new HeaderSearchResultJsonParser(), progressMonitor);
+	}
+
+	/**
+	 * Returns the updated time stamps of the issues matching <code>jql</code> keyed by issue id. Only the id and the
+	 * updated field are retrieved which makes this considerably cheaper than retrieving the issues.
+	 */
+	public Map<String, String> searchJqlForUpdated(final String jql, final int maxResults,
+			ProgressMonitor progressMonitor) {
+		URI uri = UriBuilder.fromUri(searchUri)
+				.queryParam(JQL_ATTRIBUTE, jql)
+				.queryParam(MAX_RESULTS_ATTRIBUTE, maxResults)
+				.queryParam(FIELDS_ATTRIBUTE, UPDATED_FIELD)
+				.build();
+		return getAndParse(uri, new JsonObjectParser<Map<String, String>>() {
+			public Map<String, String> parse(JSONObject json) throws JSONException {
+				JSONArray issuesJson = json.getJSONArray(ISSUES_ATTRIBUTE);
+				Map<String, String> updatedById = new LinkedHashMap<String, String>();
+				for (int i = 0; i < issuesJson.length(); i++) {
+					JSONObject issueJson = issuesJson.getJSONObject(i);
+					String updated = getUpdated(issueJson);
+					if (updated != null) {
+						updatedById.put(issueJson.getString("id"), updated); //$NON-NLS-1$
+					}
+				}
+				return updatedById;
+			}
+		}, progressMonitor);
+	}
+
+	/**
+	 * Returns the unparsed updated time stamp of the issue represented by <code>issueJson</code> or <code>null</code>
+	 * if the field is missing.
+	 */
+	public static String getUpdated(JSONObject issueJson) {
+		JSONObject fields = issueJson.optJSONObject(FIELDS_ATTRIBUTE);
+		if (fields == null) {
+			return null;
+		}
+		Object updated = fields.opt(UPDATED_FIELD);
+		if (updated instanceof JSONObject) {
+			// JIRA 4.x wraps field values
+			return ((JSONObject) updated).optString("value", null); //$NON-NLS-1$
+		}
+		return (updated instanceof String) ? (String) updated : null;
+	}
+
+	/**
+	 * Returns true if <code>issue</code> was returned with edit metadata. Older servers silently ignore the
+	 * <code>editmeta</code> expand on searches.
+	 */
+	public static boolean hasEditMeta(Issue issue) {
+		return issue.getRawObject() != null
+				&& JsonParseUtil.getOptionalJsonObject(issue.getRawObject(),
+						IssueRestClient.Expandos.EDITMETA.getFieldName()) != null;
+	}
+
+	/**
+	 * An issue that was returned by a search with only the updated field.
+	 */
+	public static class IssueHeader extends BasicIssue {
+
+		private final String updated;
+
+		public IssueHeader(URI self, String key, Long id, String updated) {
+			super(self, key, id);
+			this.updated = updated;
+		}
+
+		/**
+		 * Returns the unparsed updated time stamp or <code>null</code> if the field is missing.
+		 */
+		public String getUpdated() {
+			return updated;
+		}
+
+	}
+
+	private static class HeaderSearchResultJsonParser implements JsonObjectParser<SearchResult> {
+
+		private final BasicIssueJsonParser basicIssueParser = new BasicIssueJsonParser();
+
+		public SearchResult parse(JSONObject json) throws JSONException {
+			int startAt = json.getInt(START_AT_ATTRIBUTE);
+			int maxResults = json.getInt(MAX_RESULTS_ATTRIBUTE);
+			int total = json.getInt("total"); //$NON-NLS-1$
+
+			JSONArray issuesJson = json.getJSONArray(ISSUES_ATTRIBUTE);
+			List<IssueHeader> issues = new ArrayList<IssueHeader>(issuesJson.length());
+			for (int i = 0; i < issuesJson.length(); i++) {
+				JSONObject issueJson = issuesJson.getJSONObject(i);
+				BasicIssue basicIssue = basicIssueParser.parse(issueJson);
+				issues.add(new IssueHeader(basicIssue.getSelf(), basicIssue.getKey(), basicIssue.getId(),
+						getUpdated(issueJson)));
+			}
+
+			return new SearchResult(startAt, maxResults, total, issues);
+		}
+	}
+
+	private static class FullSearchResultJsonParser implements JsonObjectParser<SearchResult> {
+
+		public SearchResult parse(JSONObject json) throws JSONException {
+			int startAt = json.getInt(START_AT_ATTRIBUTE);
+			int maxResults = json.getInt(MAX_RESULTS_ATTRIBUTE);
+			int total = json.getInt("total"); //$NON-NLS-1$
+			JSONObject names = JsonParseUtil.getOptionalJsonObject(json, IssueJsonParser.NAMES_SECTION);
+			JSONObject schema = JsonParseUtil.getOptionalJsonObject(json, IssueJsonParser.SCHEMA_SECTION);
+
+			IssueJsonParser issueParser = new IssueJsonParser(true, names, schema);
+
+			JSONArray issuesJson = json.getJSONArray(ISSUES_ATTRIBUTE);
+			List<Issue> issues = new ArrayList<Issue>(issuesJson.length());
+			for (int i = 0; i < issuesJson.length(); i++) {
+				JSONObject issueJson = issuesJson.getJSONObject(i);
+				// search returns the schema and names once for all issues, JiraRestConverter expects them in each
+				// issue and keeping them with the issue allows it to be parsed again from the issue cache
+				if (schema != null && !issueJson.has(IssueJsonParser.SCHEMA_SECTION)) {
+					issueJson.put(IssueJsonParser.SCHEMA_SECTION, schema);
+				}
+				if (names != null && !issueJson.has(IssueJsonParser.NAMES_SECTION)) {
+					issueJson.put(IssueJsonParser.NAMES_SECTION, names);
+				}
+				issues.add(issueParser.parse(issueJson));
+			}
+
+			return new SearchResult(startAt, maxResults, total, issues);
+		}
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.service.rest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+/**
+ * The content of an upload. Every byte read is reported as one unit of work to the monitor since the content is read
+ * while the request is written.
+ */
+class JiraRestUploadInputStream extends FilterInputStream {
+
+	private final IProgressMonitor monitor;
+
+	JiraRestUploadInputStream(InputStream in, IProgressMonitor monitor) {
+		super(in);
+		this.monitor = monitor;
+	}
+
+	private void checkCanceled() throws IOException {
+		// an interrupted write is neither retried by HttpClient nor is the connection reused
+		if (monitor.isCanceled()) {
+			throw new InterruptedIOException("Upload canceled"); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		checkCanceled();
+		int b = super.read();
+		if (b != -1) {
+			monitor.worked(1);
+		}
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkCanceled();
+		int count = super.read(b, off, len);
+		if (count > 0) {
+			monitor.worked(count);
+		}
+		return count;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		checkCanceled();
+		return super.skip(n);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+}
@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.util;
+
+import java.util.Date;
+import java.util.Locale;
+
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+
+/**
+ * Date formats with a fixed pattern that are used to exchange dates with the repository. Unlike
+ * {@link java.text.SimpleDateFormat} the formatters are immutable and may be shared between threads.
+ */
+public final class JiraDateFormats {
+
+	/** Format of date fields in the REST API */
+	public static final DateTimeFormatter REST_DATE = DateTimeFormat.forPattern("yyyy-MM-dd"); //$NON-NLS-1$
+
+	/** Format of date time fields in the REST API */
+	public static final DateTimeFormatter REST_DATE_TIME = DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss.SSSZ"); //$NON-NLS-1$
+
+	/** Format of dates in JQL queries */
+	public static final DateTimeFormatter JQL_DATE = DateTimeFormat.forPattern("yyyy-MM-dd"); //$NON-NLS-1$
+
+	/** Format of date times in JQL queries */
+	public static final DateTimeFormatter JQL_DATE_TIME = DateTimeFormat.forPattern("yyyy-MM-dd HH:mm"); //$NON-NLS-1$
+
+	/** Format of date times in task attributes that were set locally, e.g. by the editor */
+	public static final DateTimeFormatter ATTRIBUTE_DATE_TIME = DateTimeFormat.forPattern("EEE, dd MMM yyyy HH:mm:ss") //$NON-NLS-1$
+			.withLocale(Locale.US);
+
+	private JiraDateFormats() {
+	}
+
+	/**
+	 * Returns <code>null</code>, if <code>date</code> is <code>null</code>.
+	 */
+	public static String format(DateTimeFormatter formatter, Date date) {
+		return (date != null) ? formatter.print(date.getTime()) : null;
+	}
+
+	/**
+	 * Returns <code>null</code>, if <code>text</code> is <code>null</code> or can not be parsed.
+	 */
+	public static Date parse(DateTimeFormatter formatter, String text) {
+		if (text == null) {
+			return null;
+		}
+		try {
+			return new Date(formatter.parseMillis(text));
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.internal.jira.core.util;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Finds issue keys such as <code>PRJ-123</code> for a fixed set of project keys in text. Project keys are matched
+ * ignoring case. The project keys are stored in a trie so the time to search a text does not depend on the number of
+ * projects. Instances are immutable and may be shared between threads.
+ */
+public final class JiraIssueKeyMatcher {
+
+	private static final String[] NO_KEYS = new String[0];
+
+	private static final class Node {
+
+		private char[] labels = new char[0];
+
+		private Node[] children = new Node[0];
+
+		/** Set if the path to this node spells a project key. */
+		private boolean key;
+
+		private Node getChild(char c) {
+			for (int i = 0; i < labels.length; i++) {
+				if (labels[i] == c) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		private Node addChild(char c) {
+			Node child = getChild(c);
+			if (child == null) {
+				child = new Node();
+				char[] newLabels = new char[labels.length + 1];
+				System.arraycopy(labels, 0, newLabels, 0, labels.length);
+				newLabels[labels.length] = c;
+				Node[] newChildren = new Node[children.length + 1];
+				System.arraycopy(children, 0, newChildren, 0, children.length);
+				newChildren[children.length] = child;
+				labels = newLabels;
+				children = newChildren;
+			}
+			return child;
+		}
+
+	}
+
+	private final Node root = new Node();
+
+	private final boolean empty;
+
+	/**
+	 * @param projectKeys
+	 *            the keys of the projects, <code>null</code> and empty keys are ignored
+	 */
+	public JiraIssueKeyMatcher(Collection<String> projectKeys) {
+		boolean empty = true;
+		for (String projectKey : projectKeys) {
+			if (projectKey == null || projectKey.length() == 0) {
+				continue;
+			}
+			Node node = root;
+			for (int i = 0; i < projectKey.length(); i++) {
+				node = node.addChild(toUpperCase(projectKey.charAt(i)));
+			}
+			node.key = true;
+			empty = false;
+		}
+		this.empty = empty;
+	}
+
+	/**
+	 * Returns true, if the matcher does not have any project keys and never finds an issue key.
+	 */
+	public boolean isEmpty() {
+		return empty;
+	}
+
+	/**
+	 * Returns the distinct issue keys found in <code>text</code> in the order of their first occurrence. The keys are
+	 * returned as they appear in the text.
+	 */
+	public String[] findIssueKeys(CharSequence text) {
+		if (empty || text == null) {
+			return NO_KEYS;
+		}
+
+		Set<String> issueKeys = null;
+		int length = text.length();
+		int start = 0;
+		while (start < length) {
+			int end = matchIssueKey(text, start, length);
+			if (end != -1) {
+				if (issueKeys == null) {
+					issueKeys = new LinkedHashSet<String>();
+				}
+				issueKeys.add(text.subSequence(start, end).toString());
+				start = end;
+			} else {
+				start++;
+			}
+		}
+		return (issueKeys != null) ? issueKeys.toArray(new String[issueKeys.size()]) : NO_KEYS;
+	}
+
+	/**
+	 * Returns the end of the issue key that starts at <code>start</code> or -1, if there is no issue key at that
+	 * position.
+	 */
+	private int matchIssueKey(CharSequence text, int start, int length) {
+		Node node = root;
+		for (int i = start; i < length; i++) {
+			char c = text.charAt(i);
+			if (c == '-') {
+				// project keys do not contain dashes so this is the only candidate
+				if (!node.key) {
+					return -1;
+				}
+				int end = i + 1;
+				while (end < length && isDigit(text.charAt(end))) {
+					end++;
+				}
+				return (end > i + 1) ? end : -1;
+			}
+			node = node.getChild(toUpperCase(c));
+			if (node == null) {
+				return -1;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean isDigit(char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	private static char toUpperCase(char c) {
+		return (c >= 'a' && c <= 'z') ? (char) (c - 'a' + 'A') : c;
+	}
+
+}
@@ -82,6 +82,10 @@ public class JiraUtil {
 //	public static final int DEFAULT_MAX_SEARCH_RESULTS = TaskDataCollector.MAX_HITS;
 	public static final int DEFAULT_MAX_SEARCH_RESULTS = 1000;
 
+	private static final String MAX_CONCURRENT_REQUESTS = "jira.maxConcurrentRequests"; //$NON-NLS-1$
+
+	private static final String MAX_CONNECTIONS_PER_HOST = "jira.maxConnectionsPerHost"; //$NON-NLS-1$
+
 	private static final boolean TRACE_ENABLED = Boolean.valueOf(Platform.getDebugOption("com.atlassian.connector.eclipse.jira.core/debug/repository")); //$NON-NLS-1$
 
 	private static final String LINKED_TASKS_AS_SUBTASKS = "jira.linkedTasksAsSubtasks"; //$NON-NLS-1$
@@ -181,6 +185,24 @@ public class JiraUtil {
 		return value;
 	}
 
+	public static int getMaxConcurrentRequests(TaskRepository repository) {
+		int value = getInteger(repository, MAX_CONCURRENT_REQUESTS,
+				JiraLocalConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS);
+		if (value <= 0) {
+			return JiraLocalConfiguration.DEFAULT_MAX_CONCURRENT_REQUESTS;
+		}
+		return value;
+	}
+
+	public static int getMaxConnectionsPerHost(TaskRepository repository) {
+		int value = getInteger(repository, MAX_CONNECTIONS_PER_HOST,
+				JiraLocalConfiguration.DEFAULT_MAX_CONNECTIONS_PER_HOST);
+		if (value <= 0) {
+			return JiraLocalConfiguration.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+		}
+		return value;
+	}
+
 	public static NamedFilter getNamedFilter(IRepositoryQuery query) {
 		String id = query.getAttribute(KEY_FILTER_ID);
 		if (id != null) {
@@ -325,6 +347,14 @@ public class JiraUtil {
 		repository.setProperty(MAX_SEARCH_RESULTS, String.valueOf(maxSearchResults));
 	}
 
+	public static void setMaxConcurrentRequests(TaskRepository repository, int maxConcurrentRequests) {
+		repository.setProperty(MAX_CONCURRENT_REQUESTS, String.valueOf(maxConcurrentRequests));
+	}
+
+	public static void setMaxConnectionsPerHost(TaskRepository repository, int maxConnectionsPerHost) {
+		repository.setProperty(MAX_CONNECTIONS_PER_HOST, String.valueOf(maxConnectionsPerHost));
+	}
+
 	public static void setQuery(TaskRepository taskRepository, IRepositoryQuery query, JiraFilter filter) {
 		if (filter instanceof NamedFilter) {
 			final NamedFilter namedFilter = (NamedFilter) filter;
@@ -428,6 +458,8 @@ public class JiraUtil {
 				configuration.setMaxSearchResults(DEFAULT_MAX_SEARCH_RESULTS);
 			}
 		}
+		configuration.setMaxConcurrentRequests(getMaxConcurrentRequests(repository));
+		configuration.setMaxConnectionsPerHost(getMaxConnectionsPerHost(repository));
 
 		return configuration;
 	}
@@ -16,14 +16,23 @@ import junit.framework.TestSuite;
 
 import com.atlassian.connector.eclipse.jira.tests.client.JiraClientOfflineTest;
 import com.atlassian.connector.eclipse.jira.tests.client.JiraClientTest;
+import com.atlassian.connector.eclipse.jira.tests.client.JiraRestClientAdapterOfflineTest;
+import com.atlassian.connector.eclipse.jira.tests.client.JiraRestConnectionPoolTest;
 import com.atlassian.connector.eclipse.jira.tests.client.JiraRssHandlerTest;
 import com.atlassian.connector.eclipse.jira.tests.client.JiraWebClientTest;
 import com.atlassian.connector.eclipse.jira.tests.core.FilterDefinitionConverterTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraAttachmentCacheTest;
 import com.atlassian.connector.eclipse.jira.tests.core.JiraClientCacheTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraClientDataStoreTest;
 import com.atlassian.connector.eclipse.jira.tests.core.JiraCommentDateComparatorTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraDateFormatsTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraDiskCacheIndexTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraIssueCacheTest;
+import com.atlassian.connector.eclipse.jira.tests.core.JiraIssueKeyMatcherTest;
 import com.atlassian.connector.eclipse.jira.tests.core.JiraRemoteMessageExceptionTest;
 import com.atlassian.connector.eclipse.jira.tests.core.JiraTimeFormatTest;
 import com.atlassian.connector.eclipse.jira.tests.model.ComponentFilterTest;
+import com.atlassian.connector.eclipse.jira.tests.model.JiraIssueTest;
 import com.atlassian.connector.eclipse.jira.tests.model.JiraVersionTest;
 import com.atlassian.connector.eclipse.jira.tests.model.VersionFilterTest;
 import com.atlassian.connector.eclipse.jira.tests.ui.JiraUiUtilTest;
@@ -39,10 +48,19 @@ public class AllJiraHeadlessStandaloneTests {
 		TestSuite suite = new TestSuite("Headless Standalone Tests for com.atlassian.connector.eclipse.jira.tests");
 		suite.addTestSuite(JiraTimeFormatTest.class);
 		suite.addTestSuite(JiraClientOfflineTest.class);
+		suite.addTestSuite(JiraRestClientAdapterOfflineTest.class);
+		suite.addTestSuite(JiraRestConnectionPoolTest.class);
 		suite.addTestSuite(FilterDefinitionConverterTest.class);
 		suite.addTestSuite(JiraRssHandlerTest.class);
 		suite.addTestSuite(JiraVersionTest.class);
+		suite.addTestSuite(JiraIssueTest.class);
 		suite.addTestSuite(JiraClientCacheTest.class);
+		suite.addTestSuite(JiraDiskCacheIndexTest.class);
+		suite.addTestSuite(JiraIssueCacheTest.class);
+		suite.addTestSuite(JiraAttachmentCacheTest.class);
+		suite.addTestSuite(JiraClientDataStoreTest.class);
+		suite.addTestSuite(JiraDateFormatsTest.class);
+		suite.addTestSuite(JiraIssueKeyMatcherTest.class);
 		suite.addTestSuite(WdhmUtilTest.class);
 		suite.addTestSuite(VersionFilterTest.class);
 		suite.addTestSuite(ComponentFilterTest.class);
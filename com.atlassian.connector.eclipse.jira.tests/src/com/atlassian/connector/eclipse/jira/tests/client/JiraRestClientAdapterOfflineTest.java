@@ -0,0 +1,504 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.mortbay.jetty.Server;
+import org.mortbay.jetty.bio.SocketConnector;
+import org.mortbay.jetty.servlet.Context;
+import org.mortbay.jetty.servlet.ServletHolder;
+import org.mortbay.util.IO;
+
+import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IncrementalIssueCollector;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraLocalConfiguration;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter.IssueOperationContext;
+
+/**
+ * Counts the requests sent to the repository by the operations that submit changes of an issue.
+ */
+public class JiraRestClientAdapterOfflineTest extends TestCase {
+
+	private static final String ISSUE_PATH = "/rest/api/latest/issue/PRJ-1";
+
+	private static final String ATTACHMENT_PATH = "/secure/attachment/";
+
+	private static final String ATTACHMENT_CONTENT = "content";
+
+	private static final String ISSUE = "{\"expand\":\"editmeta,schema\",\"id\":\"10000\","
+			+ "\"self\":\"${baseUrl}/rest/api/2/issue/10000\",\"key\":\"PRJ-1\",\"fields\":{\"summary\":\"summary\","
+			+ "\"issuetype\":{\"self\":\"${baseUrl}/rest/api/2/issuetype/1\",\"id\":\"1\",\"name\":\"Bug\","
+			+ "\"subtask\":false},\"created\":\"2012-11-27T10:00:00.000+0000\","
+			+ "\"updated\":\"2012-11-27T10:00:00.000+0000\","
+			+ "\"project\":{\"self\":\"${baseUrl}/rest/api/2/project/PRJ\",\"key\":\"PRJ\",\"name\":\"Project\"},"
+			+ "\"status\":{\"self\":\"${baseUrl}/rest/api/2/status/1\",\"name\":\"Open\"}}}";
+
+	private static final String SERVER_INFO = "{\"baseUrl\":\"http://localhost\",\"version\":\"5.2\","
+			+ "\"versionNumbers\":[5,2,0],\"buildNumber\":849,\"buildDate\":\"2012-11-27T00:00:00.000+0000\","
+			+ "\"scmInfo\":\"1\",\"serverTitle\":\"JIRA\"}";
+
+	/** Start Progress has no screen, Resolve Issue has a screen */
+	private static final String TRANSITIONS = "{\"expand\":\"transitions\",\"transitions\":["
+			+ "{\"id\":\"4\",\"name\":\"Start Progress\",\"fields\":{}},"
+			+ "{\"id\":\"5\",\"name\":\"Resolve Issue\",\"fields\":{\"assignee\":{\"required\":false,"
+			+ "\"schema\":{\"type\":\"user\",\"system\":\"assignee\"},\"name\":\"Assignee\"}}}]}";
+
+	private static final String COMMENT_NOT_ON_SCREEN = "{\"errorMessages\":[],\"errors\":{\"comment\":"
+			+ "\"Field 'comment' cannot be set. It is not on the appropriate screen, or unknown.\"}}";
+
+	private static final String RESOLUTIONS = "[{\"self\":\"http://localhost/rest/api/2/resolution/1\",\"id\":\"1\","
+			+ "\"name\":\"Fixed\",\"description\":\"Fixed\"}]";
+
+	private static final String EMPTY_SEARCH_RESULT = "{\"startAt\":0,\"maxResults\":50,\"total\":0,\"issues\":[]}";
+
+	private static final String HEADER_SEARCH_RESULT = "{\"startAt\":0,\"maxResults\":50,\"total\":2,\"issues\":["
+			+ "{\"id\":\"10001\",\"key\":\"PRJ-1\",\"self\":\"http://localhost/rest/api/2/issue/10001\","
+			+ "\"fields\":{\"updated\":\"2012-11-27T10:00:00.000+0000\"}},"
+			+ "{\"id\":\"10002\",\"key\":\"PRJ-2\",\"self\":\"http://localhost/rest/api/2/issue/10002\","
+			+ "\"fields\":{\"updated\":\"2012-11-27T11:00:00.000+0000\"}}]}";
+
+	private static class RecordingServlet extends HttpServlet {
+
+		private static final long serialVersionUID = 1L;
+
+		private final List<String> requests = new ArrayList<String>();
+
+		private final List<String> bodies = new ArrayList<String>();
+
+		private final List<String> queries = new ArrayList<String>();
+
+		private final List<Map<String, String>> headers = new ArrayList<Map<String, String>>();
+
+		private volatile boolean rangesSupported = true;
+
+		private volatile boolean transitionCommentsRejected;
+
+		@Override
+		protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException,
+				IOException {
+			String path = request.getRequestURI();
+			String body;
+			synchronized (this) {
+				requests.add(request.getMethod() + " " + path);
+				body = IO.toString(request.getInputStream());
+				bodies.add(body);
+				queries.add(request.getQueryString());
+				Map<String, String> requestHeaders = new HashMap<String, String>();
+				for (Enumeration<?> it = request.getHeaderNames(); it.hasMoreElements();) {
+					String name = (String) it.nextElement();
+					requestHeaders.put(name.toLowerCase(Locale.ENGLISH), request.getHeader(name));
+				}
+				headers.add(requestHeaders);
+			}
+			if ("GET".equals(request.getMethod()) && path.startsWith(ATTACHMENT_PATH)) {
+				String range = request.getHeader("Range");
+				if (rangesSupported && range != null) {
+					int offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+					response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+					response.setHeader("Content-Range", "bytes " + offset + "-" + (ATTACHMENT_CONTENT.length() - 1)
+							+ "/" + ATTACHMENT_CONTENT.length());
+					response.getOutputStream().write(ATTACHMENT_CONTENT.substring(offset).getBytes("UTF-8"));
+				} else {
+					response.getOutputStream().write(ATTACHMENT_CONTENT.getBytes("UTF-8"));
+				}
+			} else if ("GET".equals(request.getMethod())) {
+				response.setContentType("application/json");
+				if (path.equals(ISSUE_PATH)) {
+					String baseUrl = "http://" + request.getServerName() + ":" + request.getServerPort();
+					response.getWriter().write(ISSUE.replace("${baseUrl}", baseUrl));
+				} else if (path.endsWith("/serverInfo")) {
+					response.getWriter().write(SERVER_INFO);
+				} else if (path.endsWith("/transitions")) {
+					response.getWriter().write(TRANSITIONS);
+				} else if (path.endsWith("/resolution")) {
+					response.getWriter().write(RESOLUTIONS);
+				} else if (path.endsWith("/search")) {
+					String query = request.getQueryString();
+					if (query != null && query.contains("fields=updated")) {
+						response.getWriter().write(HEADER_SEARCH_RESULT);
+					} else {
+						response.getWriter().write(EMPTY_SEARCH_RESULT);
+					}
+				} else {
+					response.sendError(HttpServletResponse.SC_NOT_FOUND);
+				}
+			} else if ("POST".equals(request.getMethod()) && path.endsWith("/search")) {
+				response.setContentType("application/json");
+				response.getWriter().write(EMPTY_SEARCH_RESULT);
+			} else if ("POST".equals(request.getMethod()) && path.endsWith("/transitions")
+					&& transitionCommentsRejected && body.contains("\"comment\"")) {
+				response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+				response.setContentType("application/json");
+				response.getWriter().write(COMMENT_NOT_ON_SCREEN);
+			} else if ("POST".equals(request.getMethod()) && path.endsWith("/comment")) {
+				response.setStatus(HttpServletResponse.SC_CREATED);
+			} else {
+				response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+			}
+		}
+
+		public synchronized List<String> getRequests() {
+			return new ArrayList<String>(requests);
+		}
+
+		public synchronized String getBody(int index) {
+			return bodies.get(index);
+		}
+
+		public synchronized String getQuery(int index) {
+			return queries.get(index);
+		}
+
+		public synchronized String getHeader(int index, String name) {
+			return headers.get(index).get(name.toLowerCase(Locale.ENGLISH));
+		}
+
+	}
+
+	private static class RecordingIncrementalCollector implements IncrementalIssueCollector {
+
+		private final List<String> changedKeys;
+
+		private final List<String> checkedKeys = new ArrayList<String>();
+
+		private final List<String> unchangedKeys = new ArrayList<String>();
+
+		private final List<JiraIssue> unchangedIssues = new ArrayList<JiraIssue>();
+
+		private final List<JiraIssue> issues = new ArrayList<JiraIssue>();
+
+		public RecordingIncrementalCollector(String... changedKeys) {
+			this.changedKeys = Arrays.asList(changedKeys);
+		}
+
+		public boolean isChanged(JiraIssue issue) {
+			checkedKeys.add(issue.getKey());
+			return changedKeys.contains(issue.getKey());
+		}
+
+		public void collectUnchangedIssue(JiraIssue issue) {
+			unchangedKeys.add(issue.getKey());
+			unchangedIssues.add(issue);
+		}
+
+		public void start() {
+		}
+
+		public void collectIssue(JiraIssue issue) {
+			issues.add(issue);
+		}
+
+		public boolean isCancelled() {
+			return false;
+		}
+
+		public void done() {
+		}
+
+		public int getMaxHits() {
+			return NO_LIMIT;
+		}
+
+	}
+
+	private static class WorkCountingMonitor extends NullProgressMonitor {
+
+		private int work;
+
+		@Override
+		public void worked(int work) {
+			this.work += work;
+		}
+
+	}
+
+	private Server server;
+
+	private RecordingServlet servlet;
+
+	private JiraRestClientAdapter adapter;
+
+	private String baseUrl;
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		servlet = new RecordingServlet();
+		server = new Server();
+		SocketConnector connector = new SocketConnector();
+		connector.setHost("127.0.0.1");
+		connector.setPort(0);
+		server.addConnector(connector);
+		Context context = new Context(server, "/", Context.NO_SESSIONS | Context.NO_SECURITY);
+		context.addServlet(new ServletHolder(servlet), "/*");
+		server.start();
+
+		baseUrl = "http://127.0.0.1:" + connector.getLocalPort();
+		adapter = new JiraRestClientAdapter(baseUrl, "user", "password", null, null, new JiraLocalConfiguration());
+		file = File.createTempFile("attachment", null);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop();
+		file.delete();
+	}
+
+	private void write(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private String read(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return IO.toString(in, "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	public void testAddComment() throws Exception {
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", null);
+		adapter.addComment(context, "comment");
+		assertEquals(Arrays.asList("POST " + ISSUE_PATH + "/comment"), servlet.getRequests());
+	}
+
+	public void testAddAttachmentStreamsContent() throws Exception {
+		byte[] content = new byte[200 * 1024];
+		Arrays.fill(content, (byte) 'a');
+		WorkCountingMonitor monitor = new WorkCountingMonitor();
+		adapter.addAttachment("PRJ-1", new ByteArrayInputStream(content), "file.txt", monitor);
+
+		// the attachments URI is built from the key without fetching the issue
+		assertEquals(Arrays.asList("POST " + ISSUE_PATH + "/attachments"), servlet.getRequests());
+		// the upload is sent without buffering it to determine its length
+		assertEquals("chunked", servlet.getHeader(0, "Transfer-Encoding"));
+		assertNull(servlet.getHeader(0, "Content-Length"));
+		String body = servlet.getBody(0);
+		assertTrue(body.contains("file.txt"));
+		assertTrue(body.length() > content.length);
+		// each byte of the content is reported as it is sent
+		assertEquals(content.length, monitor.work);
+	}
+
+	public void testAssignIssueWithComment() throws Exception {
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", null);
+		adapter.assignIssue(context, "joe", "comment");
+		assertEquals(Arrays.asList("PUT " + ISSUE_PATH), servlet.getRequests());
+		String body = servlet.getBody(0);
+		assertTrue(body, body.contains("\"assignee\""));
+		assertTrue(body, body.contains("\"comment\""));
+	}
+
+	public void testCanceledOperationSendsNoRequest() throws Exception {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		monitor.setCanceled(true);
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", monitor);
+		try {
+			adapter.addComment(context, "comment");
+			fail("Expected OperationCanceledException");
+		} catch (OperationCanceledException e) {
+			// expected
+		}
+		assertEquals(0, servlet.getRequests().size());
+	}
+
+	public void testFindIssuesWithLongJql() throws Exception {
+		StringBuilder jql = new StringBuilder("key in (PRJ-1");
+		for (int i = 2; i < 200; i++) {
+			jql.append(", PRJ-").append(i);
+		}
+		jql.append(")");
+		final List<JiraIssue> issues = new ArrayList<JiraIssue>();
+		adapter.findIssues(jql.toString(), 50, new IssueCollector() {
+			public void start() {
+			}
+
+			public void collectIssue(JiraIssue issue) {
+				issues.add(issue);
+			}
+
+			public boolean isCancelled() {
+				return false;
+			}
+
+			public void done() {
+			}
+
+			public int getMaxHits() {
+				return NO_LIMIT;
+			}
+		}, null);
+
+		assertEquals(0, issues.size());
+		assertEquals(Arrays.asList("POST /rest/api/latest/search"), servlet.getRequests());
+		// searches sent as POST ignore the expand query parameter
+		String body = servlet.getBody(0);
+		assertTrue(body, body.contains("\"expand\":[\"editmeta\",\"schema\",\"names\"]"));
+	}
+
+	public void testDisposeWaitsForRelease() throws Exception {
+		adapter.acquire();
+		adapter.dispose();
+		// a caller that acquired the adapter before it was disposed can still send requests
+		assertTrue(adapter.getResolutions(null, new NullProgressMonitor()).isModified());
+
+		adapter.release();
+		try {
+			adapter.getResolutions(null, new NullProgressMonitor());
+			fail("Expected the connections to be shut down");
+		} catch (Exception e) {
+		}
+		assertEquals(Arrays.asList("GET /rest/api/latest/resolution"), servlet.getRequests());
+	}
+
+	public void testDownloadAttachment() throws Exception {
+		WorkCountingMonitor monitor = new WorkCountingMonitor();
+		long length = adapter.downloadAttachment(new URI(baseUrl + ATTACHMENT_PATH + "10000/file.txt"), file, monitor);
+
+		assertEquals(7, length);
+		assertEquals("content", read(file));
+		assertNull(servlet.getHeader(0, "Range"));
+		assertEquals(7, monitor.work);
+	}
+
+	public void testDownloadAttachmentResume() throws Exception {
+		write(file, "con");
+		WorkCountingMonitor monitor = new WorkCountingMonitor();
+		long length = adapter.downloadAttachment(new URI(baseUrl + ATTACHMENT_PATH + "10000/file.txt"), file, monitor);
+
+		// only the remainder is transferred and appended
+		assertEquals(7, length);
+		assertEquals("content", read(file));
+		assertEquals("bytes=3-", servlet.getHeader(0, "Range"));
+		assertEquals(7, monitor.work);
+	}
+
+	public void testDownloadAttachmentResumeNotSupported() throws Exception {
+		servlet.rangesSupported = false;
+		write(file, "con");
+		WorkCountingMonitor monitor = new WorkCountingMonitor();
+		long length = adapter.downloadAttachment(new URI(baseUrl + ATTACHMENT_PATH + "10000/file.txt"), file, monitor);
+
+		// the complete content returned with status 200 replaces the partial content
+		assertEquals(7, length);
+		assertEquals("content", read(file));
+		assertEquals("bytes=3-", servlet.getHeader(0, "Range"));
+		assertEquals(7, monitor.work);
+	}
+
+	public void testFindIssuesIncrementally() throws Exception {
+		RecordingIncrementalCollector collector = new RecordingIncrementalCollector("PRJ-2");
+		adapter.findIssues("project = PRJ", 0, collector, null);
+
+		// only the changed issue is retrieved completely
+		assertEquals(Arrays.asList("GET /rest/api/latest/search", "GET /rest/api/latest/search"),
+				servlet.getRequests());
+		String query = URLDecoder.decode(servlet.getQuery(1), "UTF-8");
+		assertTrue(query, query.contains("jql=id in (10002)"));
+		assertEquals(Arrays.asList("PRJ-1", "PRJ-2"), collector.checkedKeys);
+		assertEquals(Arrays.asList("PRJ-1"), collector.unchangedKeys);
+		// 2012-11-27T10:00:00.000+0000
+		assertEquals(1354010400000L, collector.unchangedIssues.get(0).getUpdated().getTime());
+	}
+
+	public void testFindIssuesIncrementallyWithoutChanges() throws Exception {
+		RecordingIncrementalCollector collector = new RecordingIncrementalCollector();
+		adapter.findIssues("project = PRJ", 0, collector, null);
+
+		// the header search is the only request if no issue has changed
+		assertEquals(Arrays.asList("GET /rest/api/latest/search"), servlet.getRequests());
+		String query = URLDecoder.decode(servlet.getQuery(0), "UTF-8");
+		assertTrue(query, query.contains("fields=updated"));
+		assertEquals(Arrays.asList("PRJ-1", "PRJ-2"), collector.unchangedKeys);
+		assertEquals(0, collector.issues.size());
+	}
+
+	public void testGetResolutionsSendsRequestSource() throws Exception {
+		JiraConditionalResult<Resolution[]> result = adapter.getResolutions(null, new NullProgressMonitor());
+		assertTrue(result.isModified());
+		assertEquals(1, result.getValue().length);
+		assertEquals(Arrays.asList("GET /rest/api/latest/resolution"), servlet.getRequests());
+		String query = servlet.getQuery(0);
+		assertTrue(query, query != null && query.contains("requestSource="));
+	}
+
+	public void testTransitionIssueWithComment() throws Exception {
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", null);
+		context.getTransitions();
+		context.getTransitions();
+		adapter.transitionIssue(context, new JiraIssue(), "5", "comment");
+		assertEquals(Arrays.asList("GET " + ISSUE_PATH + "/transitions", "GET /rest/api/latest/serverInfo",
+				"POST " + ISSUE_PATH + "/transitions"), servlet.getRequests());
+		assertTrue(servlet.getBody(2), servlet.getBody(2).contains("\"comment\""));
+
+		// the transition changed the issue
+		context.getTransitions();
+		assertEquals(4, servlet.getRequests().size());
+	}
+
+	public void testTransitionIssueWithoutScreenAddsCommentSeparately() throws Exception {
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", null);
+		adapter.transitionIssue(context, new JiraIssue(), "4", "comment");
+		assertEquals(Arrays.asList("GET " + ISSUE_PATH + "/transitions", "GET /rest/api/latest/serverInfo",
+				"POST " + ISSUE_PATH + "/transitions", "POST " + ISSUE_PATH + "/comment"), servlet.getRequests());
+		assertFalse(servlet.getBody(2), servlet.getBody(2).contains("\"comment\""));
+		assertTrue(servlet.getBody(3), servlet.getBody(3).contains("comment"));
+	}
+
+	public void testTransitionIssueWithRejectedCommentAddsCommentSeparately() throws Exception {
+		servlet.transitionCommentsRejected = true;
+		IssueOperationContext context = adapter.createIssueOperationContext("PRJ-1", null);
+		adapter.transitionIssue(context, new JiraIssue(), "5", "comment");
+		assertEquals(Arrays.asList("GET " + ISSUE_PATH + "/transitions", "GET /rest/api/latest/serverInfo",
+				"POST " + ISSUE_PATH + "/transitions", "POST " + ISSUE_PATH + "/transitions",
+				"POST " + ISSUE_PATH + "/comment"), servlet.getRequests());
+		assertTrue(servlet.getBody(2), servlet.getBody(2).contains("\"comment\""));
+		assertFalse(servlet.getBody(3), servlet.getBody(3).contains("\"comment\""));
+	}
+
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.client;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.httpclient.ConnectionPoolTimeoutException;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpConnection;
+
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestConnectionPool;
+import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestConnectionPool.Statistics;
+
+public class JiraRestConnectionPoolTest extends TestCase {
+
+	private JiraRestConnectionPool pool;
+
+	private HostConfiguration host;
+
+	@Override
+	protected void setUp() throws Exception {
+		pool = new JiraRestConnectionPool(2);
+		host = new HostConfiguration();
+		host.setHost("localhost", 8080);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		pool.shutdown();
+	}
+
+	public void testStatistics() throws Exception {
+		HttpConnection first = pool.getConnectionWithTimeout(host, 0);
+		HttpConnection second = pool.getConnectionWithTimeout(host, 0);
+
+		Statistics statistics = pool.getStatistics();
+		assertEquals(2, statistics.getMaxConnectionsPerHost());
+		assertEquals(2, statistics.getConnectionsInPool());
+		assertEquals(2, statistics.getConnectionsInUse());
+		assertEquals(2, statistics.getLeases());
+		assertEquals(0, statistics.getLeaseTimeouts());
+
+		first.releaseConnection();
+		second.releaseConnection();
+
+		// released connections are kept for reuse
+		statistics = pool.getStatistics();
+		assertEquals(2, statistics.getConnectionsInPool());
+		assertEquals(0, statistics.getConnectionsInUse());
+	}
+
+	public void testLeaseTimeout() throws Exception {
+		pool.getConnectionWithTimeout(host, 0);
+		pool.getConnectionWithTimeout(host, 0);
+		try {
+			pool.getConnectionWithTimeout(host, 1);
+			fail("Expected ConnectionPoolTimeoutException");
+		} catch (ConnectionPoolTimeoutException e) {
+			// expected
+		}
+
+		Statistics statistics = pool.getStatistics();
+		assertEquals(2, statistics.getLeases());
+		assertEquals(1, statistics.getLeaseTimeouts());
+	}
+
+}
@@ -191,8 +191,8 @@ public class FilterDefinitionConverterTest extends TestCase {
 
 	public void testGetJqlString() {
 		// Date 1970-01-01 in a localized date time format and in the local time zone
-		final String datetime19700101 = FilterDefinitionConverter.JQL_DATE_TIME_FORMAT.format(new Date(0));
-		final String date19700101 = FilterDefinitionConverter.JQL_DATE_FORMAT.format(new Date(0));
+		final String datetime19700101 = FilterDefinitionConverter.JQL_DATE_TIME_FORMAT.print(0);
+		final String date19700101 = FilterDefinitionConverter.JQL_DATE_FORMAT.print(0);
 		final String jqlExpected = calcExpectedJql(datetime19700101, date19700101);
 
 		final FilterDefinitionConverter converter = new FilterDefinitionConverter(
@@ -205,8 +205,8 @@ public class FilterDefinitionConverterTest extends TestCase {
 	public void testToJqlUrl() {
 		try {
 			// Date 1970-01-01 in a localized date time format and in the local time zone
-			final String datetime19700101 = FilterDefinitionConverter.JQL_DATE_TIME_FORMAT.format(new Date(0));
-			final String date19700101 = FilterDefinitionConverter.JQL_DATE_FORMAT.format(new Date(0));
+			final String datetime19700101 = FilterDefinitionConverter.JQL_DATE_TIME_FORMAT.print(0);
+			final String date19700101 = FilterDefinitionConverter.JQL_DATE_FORMAT.print(0);
 			final String jqlUrlExpected = "http://host.net//issues/?jql="
 					+ URLEncoder.encode(calcExpectedJql(datetime19700101, date19700101),
 							taskRepository.getCharacterEncoding());
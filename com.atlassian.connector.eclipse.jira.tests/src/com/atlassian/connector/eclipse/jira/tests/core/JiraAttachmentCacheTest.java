@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraAttachmentCache;
+
+public class JiraAttachmentCacheTest extends TestCase {
+
+	private static final String URL = "http://localhost";
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("jiraAttachmentCache", null);
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		new JiraAttachmentCache(directory, URL).clear();
+		directory.delete();
+	}
+
+	private void download(JiraAttachmentCache cache, String attachmentId, String content) throws IOException {
+		File file = cache.startDownload(attachmentId, content.length());
+		assertNotNull(file);
+		try {
+			append(file, content.substring((int) file.length()));
+			InputStream in = cache.completeDownload(attachmentId, content.length());
+			assertNotNull(in);
+			in.close();
+		} finally {
+			cache.finishDownload(attachmentId);
+		}
+	}
+
+	private void append(File file, String content) throws IOException {
+		OutputStream out = new FileOutputStream(file, true);
+		try {
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+
+	private String get(JiraAttachmentCache cache, String attachmentId, long length) throws IOException {
+		InputStream in = cache.get(attachmentId, length);
+		if (in == null) {
+			return null;
+		}
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int count;
+			while ((count = in.read(buffer)) != -1) {
+				out.write(buffer, 0, count);
+			}
+			return out.toString("UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	public void testDownloadGet() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		assertNull(cache.get("10000", 7));
+
+		download(cache, "10000", "content");
+		assertEquals("content", get(cache, "10000", 7));
+		// a different size identifies different content
+		assertNull(get(cache, "10000", 8));
+		assertEquals(1, cache.size());
+	}
+
+	public void testResumeDownload() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		File file = cache.startDownload("10000", 7);
+		append(file, "con");
+		cache.finishDownload("10000");
+		assertNull(cache.get("10000", 7));
+
+		// the interrupted download is continued at the next download
+		file = cache.startDownload("10000", 7);
+		assertEquals(3, file.length());
+		append(file, "tent");
+		InputStream in = cache.completeDownload("10000", 7);
+		cache.finishDownload("10000");
+		assertNotNull(in);
+		in.close();
+		assertEquals("content", get(cache, "10000", 7));
+	}
+
+	public void testConcurrentDownload() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		assertNotNull(cache.startDownload("10000", 7));
+		assertNull(cache.startDownload("10000", 7));
+		cache.finishDownload("10000");
+		assertNotNull(cache.startDownload("10000", 7));
+		cache.finishDownload("10000");
+	}
+
+	public void testIncompleteDownload() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		File file = cache.startDownload("10000", 7);
+		append(file, "content!");
+		assertNull(cache.completeDownload("10000", 7));
+		cache.finishDownload("10000");
+		assertFalse(file.exists());
+		assertEquals(0, cache.size());
+	}
+
+	public void testResumeCompleteDownload() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		File file = cache.startDownload("10000", 7);
+		append(file, "content");
+		// interrupted before the download was completed
+		cache.finishDownload("10000");
+
+		file = cache.startDownload("10000", 7);
+		assertEquals(7, file.length());
+		InputStream in = cache.completeDownload("10000", 7);
+		cache.finishDownload("10000");
+		assertNotNull(in);
+		in.close();
+		assertEquals("content", get(cache, "10000", 7));
+	}
+
+	public void testNotCacheable() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL, 20);
+		// attachments larger than the cache are not cached
+		assertFalse(cache.isCacheable("4", 21));
+		assertNull(cache.startDownload("4", 21));
+		assertFalse(cache.isCacheable("../4", 10));
+	}
+
+	public void testClearKeepsActiveDownloads() throws Exception {
+		JiraAttachmentCache cache = new JiraAttachmentCache(directory, URL);
+		download(cache, "10000", "content");
+		File file = cache.startDownload("10001", 7);
+		append(file, "con");
+
+		cache.clear();
+		assertEquals(0, cache.size());
+		assertTrue(file.exists());
+		cache.finishDownload("10001");
+	}
+
+}
@@ -11,16 +11,27 @@
 
 package com.atlassian.connector.eclipse.jira.tests.core;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import junit.framework.TestCase;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 
 import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
+import com.atlassian.connector.eclipse.internal.jira.core.model.JiraStatus;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Priority;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
+import com.atlassian.connector.eclipse.internal.jira.core.model.User;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientData;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraResourceValidator;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraIssueKeyMatcher;
 import com.atlassian.connector.eclipse.jira.tests.util.JiraTestUtil;
 import com.atlassian.connector.eclipse.jira.tests.util.MockJiraClient;
 
@@ -91,4 +102,207 @@ public class JiraClientCacheTest extends TestCase {
 		assertNotNull(mockClient.getCache().getIssueTypes());
 		assertEquals(0, mockClient.getCache().getIssueTypes().length);
 	}
+
+	public void testRefreshDetailsKeepsProjectDetails() throws JiraException {
+		JiraClient mockClient = new MockJiraClient("http://localhost") {
+			@Override
+			public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
+				return new Project[] { MockJiraClient.createProject() };
+			}
+
+			@Override
+			public void getProjectDetails(Project project) throws JiraException {
+				project.setVersions(new Version[] { MockJiraClient.createVersion("1", "Version 1") });
+			}
+		};
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		assertFalse(mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1).hasDetails());
+		mockClient.getCache().refreshProjectDetails(JiraTestUtil.PROJECT1, new NullProgressMonitor());
+
+		Project oldProject = mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1);
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+
+		// details of projects that were in use are refreshed with the configuration
+		Project project = mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1);
+		assertNotSame(oldProject, project);
+		assertTrue(project.hasDetails());
+		assertEquals(1, project.getVersions().length);
+	}
+
+	public void testRefreshDetailsFailureKeepsData() throws JiraException {
+		final boolean[] fail = { false };
+		JiraClient mockClient = new MockJiraClient("http://localhost") {
+			@Override
+			public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
+				return new Project[] { MockJiraClient.createProject() };
+			}
+
+			@Override
+			public JiraStatus[] getStatuses(IProgressMonitor monitor) throws JiraException {
+				if (fail[0]) {
+					throw new JiraException("failed");
+				}
+				return super.getStatuses(monitor);
+			}
+		};
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		JiraClientData data = mockClient.getCache().getData();
+
+		fail[0] = true;
+		try {
+			mockClient.getCache().refreshDetails(new NullProgressMonitor());
+			fail("Expected JiraException");
+		} catch (JiraException e) {
+			assertEquals("failed", e.getMessage());
+		}
+		assertSame(data, mockClient.getCache().getData());
+		assertEquals(1, mockClient.getCache().getProjects().length);
+	}
+
+	public void testPutUsers() {
+		JiraClientCache cache = new MockJiraClient("http://localhost").getCache();
+		Map<String, String> fullNameByName = new HashMap<String, String>();
+		fullNameByName.put("admin", "Administrator");
+		fullNameByName.put("user", "User");
+		cache.putUsers(fullNameByName);
+
+		assertEquals("Administrator", cache.getUser("admin").getFullName());
+		User user = cache.getUser("user");
+		assertSame(user, cache.putUser("user", "User"));
+		assertEquals("Renamed", cache.putUser("user", "Renamed").getFullName());
+		assertEquals("Renamed", cache.getUser("user").getFullName());
+		assertNull(cache.getUser(null));
+	}
+
+	public void testPutUserEvicts() {
+		JiraClientCache cache = new MockJiraClient("http://localhost").getCache();
+		for (int i = 0; i <= JiraClientCache.MAX_USERS; i++) {
+			cache.putUser("user" + i, "User " + i);
+		}
+
+		int count = 0;
+		for (int i = 0; i <= JiraClientCache.MAX_USERS; i++) {
+			if (cache.getUser("user" + i) != null) {
+				count++;
+			}
+		}
+		assertTrue(count > 0);
+		assertTrue(count < JiraClientCache.MAX_USERS);
+	}
+
+	public void testRefreshDetailsNotModified() throws JiraException {
+		final JiraResourceValidator validator = new JiraResourceValidator("\"1\"", null, "hash");
+		final int[] retrieved = { 0 };
+		JiraClient mockClient = new MockJiraClient("http://localhost") {
+			@Override
+			public JiraConditionalResult<Priority[]> getPriorities(JiraResourceValidator previousValidator,
+					IProgressMonitor monitor) throws JiraException {
+				if (validator.equals(previousValidator)) {
+					return JiraConditionalResult.notModified(previousValidator);
+				}
+				retrieved[0]++;
+				return JiraConditionalResult.modified(new Priority[] { MockJiraClient.createPriority("3", "Major") },
+						validator);
+			}
+
+			@Override
+			public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
+				return new Project[] { MockJiraClient.createProject() };
+			}
+
+			@Override
+			public JiraConditionalResult<Project> getProjectDetails(Project project,
+					JiraResourceValidator previousValidator, IProgressMonitor monitor) throws JiraException {
+				if (validator.equals(previousValidator)) {
+					return JiraConditionalResult.notModified(previousValidator);
+				}
+				retrieved[0]++;
+				project.setVersions(new Version[] { MockJiraClient.createVersion("1", "Version 1") });
+				return JiraConditionalResult.modified(project, validator);
+			}
+		};
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		mockClient.getCache().refreshProjectDetails(JiraTestUtil.PROJECT1, new NullProgressMonitor());
+		assertEquals(2, retrieved[0]);
+		Priority priority = mockClient.getCache().getPriorityById("3");
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+
+		// unchanged parts of the configuration are taken from the previous configuration
+		assertEquals(2, retrieved[0]);
+		assertSame(priority, mockClient.getCache().getPriorityById("3"));
+		Project project = mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1);
+		assertTrue(project.hasDetails());
+		assertEquals(1, project.getVersions().length);
+		assertEquals("Version 1", project.getVersions()[0].getName());
+	}
+
+	public void testRefreshDetailsNotModifiedCopiesProjects() throws JiraException {
+		final int[] versions = { 1 };
+		JiraClient mockClient = new MockJiraClient("http://localhost") {
+			@Override
+			public JiraConditionalResult<Project[]> getProjects(JiraResourceValidator previousValidator,
+					IProgressMonitor monitor) throws JiraException {
+				if (previousValidator != null) {
+					return JiraConditionalResult.notModified(previousValidator);
+				}
+				return JiraConditionalResult.modified(new Project[] { MockJiraClient.createProject() },
+						new JiraResourceValidator("\"1\"", null, "hash"));
+			}
+
+			@Override
+			public void getProjectDetails(Project project) throws JiraException {
+				Version[] projectVersions = new Version[versions[0]];
+				for (int i = 0; i < projectVersions.length; i++) {
+					projectVersions[i] = MockJiraClient.createVersion(String.valueOf(i), "Version " + i);
+				}
+				project.setVersions(projectVersions);
+			}
+		};
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		mockClient.getCache().refreshProjectDetails(JiraTestUtil.PROJECT1, new NullProgressMonitor());
+		Project oldProject = mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1);
+
+		versions[0] = 2;
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+
+		// the details are refreshed on a copy, readers of the previous configuration see unchanged projects
+		Project project = mockClient.getCache().getProjectById(JiraTestUtil.PROJECT1);
+		assertNotSame(oldProject, project);
+		assertEquals(1, oldProject.getVersions().length);
+		assertEquals(2, project.getVersions().length);
+	}
+
+	public void testGetIssueKeyMatcher() throws JiraException {
+		final boolean[] modified = { true };
+		JiraClient mockClient = new MockJiraClient("http://localhost") {
+			@Override
+			public JiraConditionalResult<Project[]> getProjects(JiraResourceValidator previousValidator,
+					IProgressMonitor monitor) throws JiraException {
+				if (!modified[0]) {
+					return JiraConditionalResult.notModified(previousValidator);
+				}
+				return JiraConditionalResult.modified(new Project[] { MockJiraClient.createProject() }, null);
+			}
+		};
+		assertTrue(mockClient.getCache().getIssueKeyMatcher().isEmpty());
+
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		JiraIssueKeyMatcher matcher = mockClient.getCache().getIssueKeyMatcher();
+		assertEquals(1, matcher.findIssueKeys("fixed PRONE-12").length);
+		assertSame(matcher, mockClient.getCache().getIssueKeyMatcher());
+
+		// the matcher is kept as long as the projects are unchanged
+		modified[0] = false;
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		assertSame(matcher, mockClient.getCache().getIssueKeyMatcher());
+
+		modified[0] = true;
+		mockClient.getCache().refreshDetails(new NullProgressMonitor());
+		assertNotSame(matcher, mockClient.getCache().getIssueKeyMatcher());
+	}
 }
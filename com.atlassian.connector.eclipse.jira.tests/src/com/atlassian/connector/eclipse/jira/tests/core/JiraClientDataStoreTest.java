@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import junit.framework.TestCase;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Priority;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
+import com.atlassian.connector.eclipse.internal.jira.core.model.SecurityLevel;
+import com.atlassian.connector.eclipse.internal.jira.core.model.Version;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientDataStore;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraResourceValidator;
+import com.atlassian.connector.eclipse.jira.tests.util.JiraTestUtil;
+import com.atlassian.connector.eclipse.jira.tests.util.MockJiraClient;
+
+public class JiraClientDataStoreTest extends TestCase {
+
+	private static final String URL = "http://localhost";
+
+	private File directory;
+
+	private JiraClientDataStore store;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("jiraClientDataStore", null);
+		directory.delete();
+		store = new JiraClientDataStore(directory);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		store.clear();
+		directory.delete();
+	}
+
+	public void testReadNotStored() {
+		assertFalse(store.exists(URL));
+		assertNull(store.read(URL));
+	}
+
+	public void testWriteRead() throws Exception {
+		JiraClientCache cache = createCache();
+		cache.putUser("admin", "Administrator");
+		assertTrue(cache.isModified());
+
+		store.write(URL, cache.getData());
+		assertFalse(cache.isModified());
+		assertTrue(store.exists(URL));
+
+		cache = new MockJiraClient(URL).getCache();
+		cache.setData(store.read(URL));
+		assertFalse(cache.isModified());
+		assertTrue(cache.hasDetails());
+		assertEquals("Major", cache.getPriorityById("3").getName());
+		assertEquals("Bug", cache.getIssueTypeById("1").getName());
+		assertEquals("Administrator", cache.getUser("admin").getFullName());
+
+		Project project = cache.getProjectById(JiraTestUtil.PROJECT1);
+		assertNotNull(project);
+		assertTrue(project.hasDetails());
+		assertEquals(4, project.getComponents().length);
+		assertEquals("component1", project.getComponents()[0].getName());
+		assertEquals(2, project.getVersions().length);
+		assertTrue(project.getVersions()[1].isReleased());
+		assertEquals(2, project.getSecurityLevels().length);
+		assertSame(SecurityLevel.NONE, project.getSecurityLevels()[0]);
+		assertEquals("Private", project.getSecurityLevels()[1].getName());
+
+		Project projectWithoutDetails = cache.getProjectByKey("PRTWO");
+		assertNotNull(projectWithoutDetails);
+		assertFalse(projectWithoutDetails.hasDetails());
+	}
+
+	public void testWriteReadValidators() throws Exception {
+		final JiraResourceValidator validator = new JiraResourceValidator("\"1\"", "Mon, 02 Jan 2012 10:00:00 GMT",
+				"hash");
+		final int[] retrieved = { 0 };
+		JiraClient client = new MockJiraClient(URL) {
+			@Override
+			public JiraConditionalResult<Priority[]> getPriorities(JiraResourceValidator previousValidator,
+					IProgressMonitor monitor) throws JiraException {
+				if (validator.equals(previousValidator)) {
+					return JiraConditionalResult.notModified(previousValidator);
+				}
+				retrieved[0]++;
+				return JiraConditionalResult.modified(new Priority[] { MockJiraClient.createPriority("3", "Major") },
+						validator);
+			}
+		};
+		client.getCache().refreshDetails(new NullProgressMonitor());
+		store.write(URL, client.getCache().getData());
+
+		JiraClientCache cache = client.getCache();
+		cache.setData(store.read(URL));
+		cache.refreshDetails(new NullProgressMonitor());
+		// the stored priorities are validated rather than retrieved again
+		assertEquals(1, retrieved[0]);
+		assertEquals("Major", cache.getPriorityById("3").getName());
+	}
+
+	public void testReadMissingProjectDetails() throws Exception {
+		store.write(URL, createCache().getData());
+		assertTrue(new File(directory, Integer.toHexString(URL.hashCode()) + ".projects").delete());
+
+		JiraClientCache cache = new MockJiraClient(URL).getCache();
+		cache.setData(store.read(URL));
+		// the remaining configuration is still valid
+		assertTrue(cache.hasDetails());
+		assertFalse(cache.getProjectById(JiraTestUtil.PROJECT1).hasDetails());
+	}
+
+	public void testReadOtherRepository() throws Exception {
+		store.write(URL, createCache().getData());
+		File file = new File(directory, Integer.toHexString(URL.hashCode()) + ".configuration");
+		File otherFile = new File(directory, Integer.toHexString("http://otherhost".hashCode()) + ".configuration");
+		assertTrue(file.renameTo(otherFile));
+
+		assertNull(store.read("http://otherhost"));
+	}
+
+	public void testReadInvalidFile() throws Exception {
+		store.write(URL, createCache().getData());
+		FileOutputStream out = new FileOutputStream(new File(directory, Integer.toHexString(URL.hashCode())
+				+ ".configuration"));
+		try {
+			out.write(new byte[] { 1, 2, 3 });
+		} finally {
+			out.close();
+		}
+
+		assertNull(store.read(URL));
+	}
+
+	public void testDelete() throws Exception {
+		store.write(URL, createCache().getData());
+		store.delete(URL);
+		assertFalse(store.exists(URL));
+	}
+
+	private JiraClientCache createCache() throws JiraException {
+		JiraClient client = new MockJiraClient(URL) {
+			@Override
+			public Priority[] getPriorities(IProgressMonitor monitor) throws JiraException {
+				return new Priority[] { MockJiraClient.createPriority("3", "Major") };
+			}
+
+			@Override
+			public IssueType[] getIssueTypes(IProgressMonitor monitor) throws JiraException {
+				return new IssueType[] { MockJiraClient.createIssueType("1", "Bug") };
+			}
+
+			@Override
+			public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
+				Project project = new Project("10001");
+				project.setKey("PRTWO");
+				project.setName("Prtwo");
+				return new Project[] { MockJiraClient.createProject(), project };
+			}
+
+			@Override
+			public void getProjectDetails(Project project) throws JiraException {
+				Version released = MockJiraClient.createVersion("2", "2.0");
+				released.setReleased(true);
+				project.setVersions(new Version[] { MockJiraClient.createVersion("1", "1.0"), released });
+			}
+
+			@Override
+			public SecurityLevel[] getAvailableSecurityLevels(String projectKey, IProgressMonitor monitor)
+					throws JiraException {
+				return new SecurityLevel[] { new SecurityLevel("5", "Private") };
+			}
+		};
+		client.getCache().refreshDetails(new NullProgressMonitor());
+		client.getCache().refreshProjectDetails(JiraTestUtil.PROJECT1, new NullProgressMonitor());
+		return client.getCache();
+	}
+
+}
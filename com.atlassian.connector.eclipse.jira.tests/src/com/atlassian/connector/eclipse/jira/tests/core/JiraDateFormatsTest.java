@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.TestCase;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
+
+public class JiraDateFormatsTest extends TestCase {
+
+	public void testParseRestDateTime() {
+		Date date = JiraDateFormats.parse(JiraDateFormats.REST_DATE_TIME, "2012-01-02T15:04:05.123+0100");
+		assertEquals(new DateTime(2012, 1, 2, 14, 4, 5, 123, DateTimeZone.UTC).getMillis(), date.getTime());
+	}
+
+	public void testParseInvalid() {
+		assertNull(JiraDateFormats.parse(JiraDateFormats.REST_DATE, null));
+		assertNull(JiraDateFormats.parse(JiraDateFormats.REST_DATE, ""));
+		assertNull(JiraDateFormats.parse(JiraDateFormats.REST_DATE, "02/Jan/12"));
+	}
+
+	public void testFormat() {
+		assertNull(JiraDateFormats.format(JiraDateFormats.JQL_DATE, null));
+		Date date = new DateTime(2012, 1, 2, 15, 4, 0, 0).toDate();
+		assertEquals("2012-01-02", JiraDateFormats.format(JiraDateFormats.JQL_DATE, date));
+		assertEquals("2012-01-02 15:04", JiraDateFormats.format(JiraDateFormats.JQL_DATE_TIME, date));
+		assertEquals("Mon, 02 Jan 2012 15:04:00", JiraDateFormats.format(JiraDateFormats.ATTRIBUTE_DATE_TIME, date));
+	}
+
+	public void testFormatConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+			for (int i = 0; i < 8; i++) {
+				final long offset = i * 3600 * 1000L;
+				results.add(executor.submit(new Callable<Boolean>() {
+					public Boolean call() throws Exception {
+						for (int j = 0; j < 1000; j++) {
+							Date date = new Date(offset + j * 60 * 1000L);
+							String text = JiraDateFormats.format(JiraDateFormats.REST_DATE_TIME, date);
+							if (!date.equals(JiraDateFormats.parse(JiraDateFormats.REST_DATE_TIME, text))) {
+								return false;
+							}
+						}
+						return true;
+					}
+				}));
+			}
+			for (Future<Boolean> result : results) {
+				assertTrue(result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}
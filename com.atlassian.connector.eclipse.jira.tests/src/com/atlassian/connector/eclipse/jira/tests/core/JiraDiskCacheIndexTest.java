@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraDiskCacheIndex;
+
+public class JiraDiskCacheIndexTest extends TestCase {
+
+	private static final String URL = "http://localhost";
+
+	private static class TestIndex extends JiraDiskCacheIndex<Long> {
+
+		private final List<String> removedIds = new ArrayList<String>();
+
+		public TestIndex(File directory, String repositoryUrl, long maxSize) {
+			super(directory, repositoryUrl, ".entry", maxSize);
+		}
+
+		@Override
+		protected long getLength(Long length) {
+			return length.longValue();
+		}
+
+		@Override
+		protected Long readEntry(DataInput in) throws IOException {
+			return new Long(in.readLong());
+		}
+
+		@Override
+		protected void writeEntry(DataOutput out, Long length) throws IOException {
+			out.writeLong(length.longValue());
+		}
+
+		@Override
+		protected void entryRemoved(String id, Long length) {
+			removedIds.add(id);
+		}
+
+	}
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("jiraDiskCacheIndex", null);
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	private void put(TestIndex index, String id, int length) throws IOException {
+		directory.mkdirs();
+		OutputStream out = new FileOutputStream(index.getEntryFile(id));
+		try {
+			out.write(new byte[length]);
+		} finally {
+			out.close();
+		}
+		index.put(id, new Long(length));
+	}
+
+	public void testPutRemove() throws Exception {
+		TestIndex index = new TestIndex(directory, URL, 100);
+		put(index, "1", 10);
+		assertEquals(new Long(10), index.get("1"));
+		assertEquals(1, index.size());
+
+		index.remove("1");
+		assertNull(index.get("1"));
+		assertEquals(0, index.size());
+		assertFalse(index.getEntryFile("1").exists());
+		assertEquals(Arrays.asList("1"), index.removedIds);
+	}
+
+	public void testEvictLeastRecentlyUsed() throws Exception {
+		TestIndex index = new TestIndex(directory, URL, 20);
+		put(index, "1", 10);
+		put(index, "2", 10);
+		// access entry 1 so entry 2 becomes the least recently used one
+		assertNotNull(index.get("1"));
+		put(index, "3", 10);
+
+		assertEquals(2, index.size());
+		assertNotNull(index.get("1"));
+		assertNull(index.get("2"));
+		assertNotNull(index.get("3"));
+		assertFalse(index.getEntryFile("2").exists());
+		assertEquals(Arrays.asList("2"), index.removedIds);
+	}
+
+	public void testSaveLoad() throws Exception {
+		TestIndex index = new TestIndex(directory, URL, 100);
+		put(index, "1", 10);
+		put(index, "2", 10);
+		// access entry 1 so entry 2 becomes the least recently used one
+		assertNotNull(index.get("1"));
+		index.save();
+		// not included in the saved index
+		put(index, "3", 10);
+
+		index = new TestIndex(directory, URL, 20);
+		assertEquals(2, index.size());
+		assertFalse(index.getEntryFile("3").exists());
+
+		// the order of use is restored
+		put(index, "4", 10);
+		assertNull(index.get("2"));
+		assertNotNull(index.get("1"));
+	}
+
+	public void testLoadDifferentRepository() throws Exception {
+		TestIndex index = new TestIndex(directory, URL, 100);
+		put(index, "1", 10);
+		index.save();
+
+		index = new TestIndex(directory, "http://otherhost", 100);
+		assertEquals(0, index.size());
+		assertFalse(index.getEntryFile("1").exists());
+	}
+
+	public void testClearKeepsOtherFiles() throws Exception {
+		TestIndex index = new TestIndex(directory, URL, 100);
+		put(index, "1", 10);
+		index.save();
+		File otherFile = new File(directory, "1.other");
+		assertTrue(otherFile.createNewFile());
+
+		index.clear();
+		assertEquals(0, index.size());
+		assertFalse(index.getEntryFile("1").exists());
+		assertFalse(new File(directory, "index").exists());
+		assertTrue(otherFile.exists());
+	}
+
+	public void testIsValidId() {
+		assertTrue(JiraDiskCacheIndex.isValidId("10000"));
+		assertFalse(JiraDiskCacheIndex.isValidId(""));
+		assertFalse(JiraDiskCacheIndex.isValidId(null));
+		assertFalse(JiraDiskCacheIndex.isValidId("../index"));
+	}
+
+}
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.io.File;
+import java.io.FileFilter;
+
+import junit.framework.TestCase;
+
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraIssueCache;
+
+public class JiraIssueCacheTest extends TestCase {
+
+	private static final String URL = "http://localhost";
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws Exception {
+		directory = File.createTempFile("jiraIssueCache", null);
+		directory.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		new JiraIssueCache(directory, URL).clear();
+		directory.delete();
+	}
+
+	public void testPutGet() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL);
+		cache.put("10000", "PRONE-1", "2012-01-01T10:00:00.000+0100", "{\"id\":\"10000\"}");
+
+		assertEquals("10000", cache.getIssueId("10000"));
+		assertEquals("10000", cache.getIssueId("PRONE-1"));
+		assertNull(cache.getIssueId("PRONE-2"));
+		assertTrue(cache.contains("10000", "2012-01-01T10:00:00.000+0100"));
+		assertFalse(cache.contains("10000", "2012-01-02T10:00:00.000+0100"));
+		assertEquals("{\"id\":\"10000\"}", cache.get("10000"));
+
+		cache.put("10000", "PRONE-1", "2012-01-02T10:00:00.000+0100", "{\"id\":\"10000\",\"v\":2}");
+		assertEquals("2012-01-02T10:00:00.000+0100", cache.getUpdated("10000"));
+		assertEquals("{\"id\":\"10000\",\"v\":2}", cache.get("10000"));
+
+		cache.remove("10000");
+		assertNull(cache.get("10000"));
+		assertNull(cache.getIssueId("PRONE-1"));
+		assertEquals(0, cache.size());
+	}
+
+	public void testEvictRemovesKey() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL, 20);
+		cache.put("1", "A-1", "1", "0123456789");
+		cache.put("2", "A-2", "1", "0123456789");
+		cache.put("3", "A-3", "1", "0123456789");
+
+		assertNull(cache.getIssueId("A-1"));
+		assertEquals("3", cache.getIssueId("A-3"));
+	}
+
+	public void testSaveLoad() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL);
+		cache.put("10000", "PRONE-1", "1", "content");
+		cache.save();
+
+		// keys and time stamps are restored with the index
+		cache = new JiraIssueCache(directory, URL);
+		assertEquals("10000", cache.getIssueId("PRONE-1"));
+		assertTrue(cache.contains("10000", "1"));
+		assertEquals("content", cache.get("10000"));
+	}
+
+	public void testEntryRemovedFromDisk() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL);
+		cache.put("10000", "PRONE-1", "1", "content");
+		assertTrue(new File(directory, "10000.issue").delete());
+
+		assertNull(cache.get("10000"));
+		assertNull(cache.getIssueId("PRONE-1"));
+	}
+
+	public void testSharedContent() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL);
+		cache.put("1", "A-1", "1", "content1", "shared");
+		cache.put("2", "A-2", "1", "content2", "shared");
+		assertEquals(1, getSharedFiles().length);
+		assertEquals("content1", cache.get("1"));
+		assertEquals("shared", cache.getSharedContent("1"));
+		cache.save();
+
+		// shared content is read from disk with the entry
+		cache = new JiraIssueCache(directory, URL);
+		assertNull(cache.getSharedContent("2"));
+		assertEquals("content2", cache.get("2"));
+		assertEquals("shared", cache.getSharedContent("2"));
+
+		cache.remove("1");
+		assertEquals(1, getSharedFiles().length);
+		cache.remove("2");
+		assertEquals(0, getSharedFiles().length);
+	}
+
+	public void testSharedContentRemovedFromDisk() {
+		JiraIssueCache cache = new JiraIssueCache(directory, URL);
+		cache.put("10000", "PRONE-1", "1", "content", "shared");
+		cache.save();
+		assertTrue(getSharedFiles()[0].delete());
+
+		cache = new JiraIssueCache(directory, URL);
+		assertNull(cache.get("10000"));
+		assertNull(cache.getIssueId("PRONE-1"));
+	}
+
+	private File[] getSharedFiles() {
+		return directory.listFiles(new FileFilter() {
+			public boolean accept(File file) {
+				return file.getName().endsWith(".shared");
+			}
+		});
+	}
+
+}
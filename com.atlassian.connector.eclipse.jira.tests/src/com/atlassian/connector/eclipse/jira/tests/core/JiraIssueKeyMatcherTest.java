@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import junit.framework.TestCase;
+
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraIssueKeyMatcher;
+
+public class JiraIssueKeyMatcherTest extends TestCase {
+
+	private static final List<String> PROJECT_KEYS = Arrays.asList("PRONE", "PRTWO", "PR", "A1_B");
+
+	private JiraIssueKeyMatcher matcher;
+
+	@Override
+	protected void setUp() throws Exception {
+		matcher = new JiraIssueKeyMatcher(PROJECT_KEYS);
+	}
+
+	public void testFindIssueKeys() {
+		assertEquals(Arrays.asList("PRONE-1", "PRTWO-22", "PR-333"),
+				Arrays.asList(matcher.findIssueKeys("PRONE-1 fixes PRTWO-22, see PR-333.")));
+		assertEquals(Arrays.asList("PRONE-1"), Arrays.asList(matcher.findIssueKeys("PRONE-1 and PRONE-1")));
+		assertEquals(Arrays.asList("A1_B-7"), Arrays.asList(matcher.findIssueKeys("(A1_B-7)")));
+	}
+
+	public void testFindIssueKeysIgnoresCase() {
+		assertEquals(Arrays.asList("prone-4"), Arrays.asList(matcher.findIssueKeys("merged prone-4")));
+	}
+
+	public void testFindIssueKeysNoMatch() {
+		assertEquals(0, matcher.findIssueKeys("").length);
+		assertEquals(0, matcher.findIssueKeys("PRONE- PRONE-x PRTHREE-1 PRONE1").length);
+		assertEquals(0, new JiraIssueKeyMatcher(Collections.<String> emptyList()).findIssueKeys("PRONE-1").length);
+	}
+
+	public void testFindIssueKeysAsRegularExpression() {
+		String[] texts = new String[] { "PRONE-1", "xPRONE-12y", "PR-1,PR-2", "prtwo-3 PRTWO-3\nPR-10000",
+				"PRONE-1-2 PRTWO--3 A1_B-0", "no keys here" };
+		for (String text : texts) {
+			assertEquals(text, findIssueKeysWithRegularExpression(text),
+					new HashSet<String>(Arrays.asList(matcher.findIssueKeys(text))));
+		}
+	}
+
+	/**
+	 * The expression previously used by JiraRepositoryConnector.getTaskIdsFromComment().
+	 */
+	private Set<String> findIssueKeysWithRegularExpression(String text) {
+		List<String> alternatives = new ArrayList<String>();
+		for (String key : PROJECT_KEYS) {
+			alternatives.add("(?:" + key + "\\-\\d+?)");
+		}
+		StringBuilder sb = new StringBuilder("(");
+		for (int i = 0; i < alternatives.size(); i++) {
+			sb.append((i > 0) ? "|" : "").append(alternatives.get(i));
+		}
+		sb.append(")(?:\\D|\\z)");
+		Pattern p = Pattern.compile(sb.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL | Pattern.MULTILINE);
+		Matcher m = p.matcher(text);
+		Set<String> ids = new HashSet<String>();
+		while (m.find()) {
+			ids.add(m.group(1));
+		}
+		return ids;
+	}
+
+}
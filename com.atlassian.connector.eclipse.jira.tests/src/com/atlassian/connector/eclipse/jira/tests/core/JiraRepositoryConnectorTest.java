@@ -44,6 +44,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.JiraAttribute;
 import com.atlassian.connector.eclipse.internal.jira.core.JiraClientFactory;
 import com.atlassian.connector.eclipse.internal.jira.core.JiraCorePlugin;
 import com.atlassian.connector.eclipse.internal.jira.core.JiraRepositoryConnector;
+import com.atlassian.connector.eclipse.internal.jira.core.JiraTaskDataHandler;
 import com.atlassian.connector.eclipse.internal.jira.core.WorkLogConverter;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraWorkLog;
@@ -59,6 +60,8 @@ import com.atlassian.connector.eclipse.internal.jira.core.util.JiraUtil;
 import com.atlassian.connector.eclipse.jira.tests.util.JiraFixture;
 import com.atlassian.connector.eclipse.jira.tests.util.JiraTestResultCollector;
 import com.atlassian.connector.eclipse.jira.tests.util.JiraTestUtil;
+import com.atlassian.connector.eclipse.jira.tests.util.MockJiraClient;
+import com.atlassian.connector.eclipse.jira.tests.util.MockJiraClientFactory;
 
 /**
  * @author Steffen Pingel
@@ -258,69 +261,69 @@ public class JiraRepositoryConnectorTest extends TestCase {
 		assertEquals(0, worklogs.size());
 	}
 
-//	public void testMarkStaleNoTasks() throws Exception {
-//		init(jiraUrl());
-//
-//		repository.setSynchronizationTimeStamp(null);
-//		SynchronizationSession session = createSession();
-//		connector.preSynchronization(session, null);
-//		assertTrue(session.needsPerformQueries());
-//		assertNotNull(repository.getSynchronizationTimeStamp());
-//	}
+	public void testMarkStaleNoTasks() throws Exception {
+		init(jiraUrl());
 
-//	public void testMarkStaleOneTask() throws Exception {
-//		init(jiraUrl());
-//
-//		JiraIssue issue = JiraTestUtil.createIssue(client, "testMarkStale");
-//		Date start = new Date();
-//		repository.setSynchronizationTimeStamp(JiraUtil.dateToString(start));
-//		ITask task = JiraTestUtil.createTask(repository, issue.getKey());
-//		task.setModificationDate(null);
-//		Thread.sleep(5); // make sure markStaleTasks() finds a difference 
-//		assertNull(JiraUtil.getLastUpdate(repository));
-//
-//		SynchronizationSession session = createSession(task);
-//		connector.preSynchronization(session, null);
-//		assertTrue(session.needsPerformQueries());
-//		assertEquals(0, session.getStaleTasks().size());
-//		assertNotNull(repository.getSynchronizationTimeStamp());
-//		Date timestamp = JiraUtil.stringToDate(repository.getSynchronizationTimeStamp());
-//		assertTrue(timestamp.after(start));
-//		assertTrue(timestamp.before(new Date()));
-//		assertTrue(issue.getUpdated().before(new Date()));
-//
-//		Thread.sleep(5); // make sure markStaleTasks() finds a difference
-//
-//		session = createSession(task);
-//		connector.preSynchronization(session, null);
-//		assertFalse(session.needsPerformQueries());
-//		assertNotNull(repository.getSynchronizationTimeStamp());
-//		assertEquals(0, session.getStaleTasks().size());
-//		assertFalse("Expected updated synchronization timestamp",
-//				JiraUtil.dateToString(timestamp).equals(repository.getSynchronizationTimeStamp()));
-//		assertEquals(issue.getUpdated(), JiraUtil.getLastUpdate(repository));
-//	}
+		repository.setSynchronizationTimeStamp(null);
+		SynchronizationSession session = createSession();
+		connector.preSynchronization(session, null);
+		assertTrue(session.needsPerformQueries());
+		assertNotNull(repository.getSynchronizationTimeStamp());
+	}
 
-//	public void testMarkStaleRepositoryChanged() throws Exception {
-//		init(jiraUrl());
-//
-//		// create two issues, the first one is added to the task list
-//		Date start = new Date();
-//		JiraIssue issue = JiraTestUtil.createIssue(client, "testMarkStale");
-//		ITask task = JiraTestUtil.createTask(repository, issue.getKey());
-//		// make sure the second issue is created after the first one
-//		Thread.sleep(1000);
-//		JiraIssue issue2 = JiraTestUtil.createIssue(client, "testMarkStale2");
-//		assertTrue(issue2.getUpdated().after(issue.getUpdated()));
-//		repository.setSynchronizationTimeStamp(JiraUtil.dateToString(start));
-//
-//		SynchronizationSession session = createSession(task);
-//		connector.preSynchronization(session, null);
-//		assertTrue(session.needsPerformQueries());
-//		assertFalse("Expected updated synchronization timestamp",
-//				JiraUtil.dateToString(start).equals(repository.getSynchronizationTimeStamp()));
-//		assertEquals(issue2.getUpdated(), JiraUtil.getLastUpdate(repository));
-//	}
+	public void testMarkStaleOneTask() throws Exception {
+		init(jiraUrl());
+
+		JiraIssue issue = JiraTestUtil.createIssue(client, "testMarkStale");
+		Date start = new Date();
+		repository.setSynchronizationTimeStamp(JiraUtil.dateToString(start));
+		ITask task = JiraTestUtil.createTask(repository, issue.getKey());
+		task.setModificationDate(null);
+		Thread.sleep(5); // make sure markStaleTasks() finds a difference 
+		assertNull(JiraUtil.getLastUpdate(repository));
+
+		SynchronizationSession session = createSession(task);
+		connector.preSynchronization(session, null);
+		assertTrue(session.needsPerformQueries());
+		assertEquals(0, session.getStaleTasks().size());
+		assertNotNull(repository.getSynchronizationTimeStamp());
+		Date timestamp = JiraUtil.stringToDate(repository.getSynchronizationTimeStamp());
+		assertTrue(timestamp.after(start));
+		assertTrue(timestamp.before(new Date()));
+		assertTrue(issue.getUpdated().before(new Date()));
+
+		Thread.sleep(5); // make sure markStaleTasks() finds a difference
+
+		session = createSession(task);
+		connector.preSynchronization(session, null);
+		assertFalse(session.needsPerformQueries());
+		assertNotNull(repository.getSynchronizationTimeStamp());
+		assertEquals(0, session.getStaleTasks().size());
+		assertFalse("Expected updated synchronization timestamp",
+				JiraUtil.dateToString(timestamp).equals(repository.getSynchronizationTimeStamp()));
+		assertEquals(issue.getUpdated(), JiraUtil.getLastUpdate(repository));
+	}
+
+	public void testMarkStaleRepositoryChanged() throws Exception {
+		init(jiraUrl());
+
+		// create two issues, the first one is added to the task list
+		Date start = new Date();
+		JiraIssue issue = JiraTestUtil.createIssue(client, "testMarkStale");
+		ITask task = JiraTestUtil.createTask(repository, issue.getKey());
+		// make sure the second issue is created after the first one
+		Thread.sleep(1000);
+		JiraIssue issue2 = JiraTestUtil.createIssue(client, "testMarkStale2");
+		assertTrue(issue2.getUpdated().after(issue.getUpdated()));
+		repository.setSynchronizationTimeStamp(JiraUtil.dateToString(start));
+
+		SynchronizationSession session = createSession(task);
+		connector.preSynchronization(session, null);
+		assertTrue(session.needsPerformQueries());
+		assertFalse("Expected updated synchronization timestamp",
+				JiraUtil.dateToString(start).equals(repository.getSynchronizationTimeStamp()));
+		assertEquals(issue2.getUpdated(), JiraUtil.getLastUpdate(repository));
+	}
 
 //	public void testMarkStaleClosedTask() throws Exception {
 //		init(jiraUrl());
@@ -460,6 +463,36 @@ public class JiraRepositoryConnectorTest extends TestCase {
 		assertEquals("ABC-123", connector.getTaskIdFromTaskUrl("http://mylyn.eclipse.org/jiratest/browse/ABC-123"));
 	}
 
+	public void testUpdateTaskFromPartialTaskData() throws Exception {
+		repository = new TaskRepository(JiraCorePlugin.CONNECTOR_KIND, "http://jira.codehaus.org/");
+		connector = (JiraRepositoryConnector) TasksUi.getRepositoryConnector(JiraCorePlugin.CONNECTOR_KIND);
+		JiraTaskDataHandler dataHandler = new JiraTaskDataHandler(new MockJiraClientFactory(new MockJiraClient(
+				repository.getRepositoryUrl())));
+		Date resolved = new GregorianCalendar(2012, Calendar.NOVEMBER, 27).getTime();
+
+		TaskData taskData = new TaskData(dataHandler.getAttributeMapper(repository), JiraCorePlugin.CONNECTOR_KIND,
+				repository.getRepositoryUrl(), "1");
+		dataHandler.createAttribute(taskData, JiraAttribute.ISSUE_KEY).setValue("PRJ-1");
+		dataHandler.createAttribute(taskData, JiraAttribute.RESOLUTION).setValue("1");
+		dataHandler.createAttribute(taskData, JiraAttribute.MODIFICATION_DATE)
+				.setValue(JiraUtil.dateToString(resolved));
+		ITask task = new TaskTask(JiraCorePlugin.CONNECTOR_KIND, repository.getRepositoryUrl(), "1");
+		connector.updateTaskFromTaskData(repository, task, taskData);
+		assertTrue(task.isCompleted());
+		assertEquals(resolved, task.getCompletionDate());
+
+		// a query hit for the resolved issue that lacks the status and resolution
+		JiraIssue issue = new JiraIssue();
+		issue.setId("1");
+		issue.setKey("PRJ-1");
+		issue.setUpdated(addSecondsToDate(resolved, 60));
+		TaskData partialTaskData = dataHandler.createPartialTaskData(repository, issue);
+		connector.updateTaskFromTaskData(repository, task, partialTaskData);
+		assertTrue(task.isCompleted());
+		assertEquals(resolved, task.getCompletionDate());
+		assertEquals(resolved, task.getModificationDate());
+	}
+
 	private String jiraUrl() {
 		return JiraFixture.current().getRepositoryUrl();
 	}
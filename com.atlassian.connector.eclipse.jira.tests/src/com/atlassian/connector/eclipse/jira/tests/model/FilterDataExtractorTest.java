@@ -186,7 +186,7 @@ public abstract class FilterDataExtractorTest extends TestCase {
 
 	/**
 	 * @see FilterDataExtractor#extractDates(com.atlassian.connector.eclipse.internal.jira.core.model.filter.DateFilter,
-	 *      java.text.DateFormat)
+	 *      org.joda.time.format.DateTimeFormatter)
 	 */
 	public abstract void testExtractDates();
 
@@ -11,10 +11,12 @@
 
 package com.atlassian.connector.eclipse.jira.tests.model;
 
-import java.text.SimpleDateFormat;
 import java.util.Collection;
 
+import org.joda.time.format.DateTimeFormatter;
+
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.JQLFilterDataExtractor;
+import com.atlassian.connector.eclipse.internal.jira.core.util.JiraDateFormats;
 import com.google.common.collect.Lists;
 
 public class JQLFilterDataExtractorTest extends FilterDataExtractorTest {
@@ -65,7 +67,7 @@ public class JQLFilterDataExtractorTest extends FilterDataExtractorTest {
 
 	@Override
 	public void testExtractDates() {
-		final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+		final DateTimeFormatter dateFormat = JiraDateFormats.JQL_DATE;
 
 		// several date ranges		
 		Collection<String> actual = extractor.extractDates(filterDefinition.getCreatedDateFilter(), dateFormat);
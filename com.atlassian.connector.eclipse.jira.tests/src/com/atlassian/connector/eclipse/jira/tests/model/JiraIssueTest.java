@@ -0,0 +1,69 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ *******************************************************************************/
+
+package com.atlassian.connector.eclipse.jira.tests.model;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
+
+public class JiraIssueTest extends TestCase {
+
+	private static final String[] RAW_PACKAGES = { "com.atlassian.jira.rest.client.", "org.codehaus.jettison." };
+
+	/**
+	 * Issues are held in large numbers during synchronization and must not keep the parsed REST response alive.
+	 */
+	public void testNoRawIssueRetained() {
+		Set<Class<?>> visited = new HashSet<Class<?>>();
+		LinkedList<Type> types = new LinkedList<Type>();
+		types.add(JiraIssue.class);
+		while (!types.isEmpty()) {
+			Type type = types.removeFirst();
+			if (type instanceof ParameterizedType) {
+				types.add(((ParameterizedType) type).getRawType());
+				for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+					types.add(argument);
+				}
+			} else if (type instanceof GenericArrayType) {
+				types.add(((GenericArrayType) type).getGenericComponentType());
+			} else if (type instanceof Class<?>) {
+				Class<?> clazz = (Class<?>) type;
+				while (clazz.isArray()) {
+					clazz = clazz.getComponentType();
+				}
+				for (String rawPackage : RAW_PACKAGES) {
+					assertFalse("JiraIssue references " + clazz.getName(), clazz.getName().startsWith(rawPackage));
+				}
+				if (clazz.getName().startsWith("com.atlassian.") && visited.add(clazz)) {
+					for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+						for (Field field : c.getDeclaredFields()) {
+							if (!Modifier.isStatic(field.getModifiers())) {
+								types.add(field.getGenericType());
+							}
+						}
+					}
+				}
+			}
+		}
+		assertTrue(visited.size() > 1);
+	}
+
+}
@@ -38,8 +38,10 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.filter.FilterDef
 import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClient;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraConditionalResult;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraLocalConfiguration;
+import com.atlassian.connector.eclipse.internal.jira.core.service.JiraResourceValidator;
 
 public class MockJiraClient extends JiraClient {
 
@@ -191,6 +193,12 @@ public class MockJiraClient extends JiraClient {
 		return new IssueType[0];
 	}
 
+	@Override
+	public JiraConditionalResult<IssueType[]> getIssueTypes(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		return JiraConditionalResult.modified(getIssueTypes(monitor), null);
+	}
+
 //	@Override
 //	public String getKeyFromId(String issueId, IProgressMonitor monitor) throws JiraException {
 //		return null;
@@ -206,11 +214,30 @@ public class MockJiraClient extends JiraClient {
 		return new Priority[0];
 	}
 
+	@Override
+	public JiraConditionalResult<Priority[]> getPriorities(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		return JiraConditionalResult.modified(getPriorities(monitor), null);
+	}
+
 	@Override
 	public Project[] getProjects(IProgressMonitor monitor) throws JiraException {
 		return new Project[0];
 	}
 
+	@Override
+	public JiraConditionalResult<Project[]> getProjects(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		return JiraConditionalResult.modified(getProjects(monitor), null);
+	}
+
+	@Override
+	public JiraConditionalResult<Project> getProjectDetails(Project project, JiraResourceValidator validator,
+			IProgressMonitor monitor) throws JiraException {
+		getProjectDetails(project);
+		return JiraConditionalResult.modified(project, null);
+	}
+
 	@Override
 	public ServerInfo getServerInfo(IProgressMonitor monitor) throws JiraException {
 		ServerInfo si = new ServerInfo();
@@ -224,6 +251,12 @@ public class MockJiraClient extends JiraClient {
 		return new SecurityLevel[0];
 	}
 
+	@Override
+	public JiraConditionalResult<SecurityLevel[]> getAvailableSecurityLevels(String projectKey,
+			JiraResourceValidator validator, IProgressMonitor monitor) throws JiraException {
+		return JiraConditionalResult.modified(getAvailableSecurityLevels(projectKey, monitor), null);
+	}
+
 //	@Override
 //	public IssueType[] getSubTaskIssueTypes(final String projectId, IProgressMonitor monitor) throws JiraException {
 //		return new IssueType[0];
@@ -295,9 +328,21 @@ public class MockJiraClient extends JiraClient {
 		return new Resolution[0];
 	}
 
+	@Override
+	public JiraConditionalResult<Resolution[]> getResolutions(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		return JiraConditionalResult.modified(getResolutions(monitor), null);
+	}
+
 	@Override
 	public JiraStatus[] getStatuses(IProgressMonitor monitor) throws JiraException {
 		return new JiraStatus[0];
 	}
 
+	@Override
+	public JiraConditionalResult<JiraStatus[]> getStatuses(JiraResourceValidator validator, IProgressMonitor monitor)
+			throws JiraException {
+		return JiraConditionalResult.modified(getStatuses(monitor), null);
+	}
+
 }
@@ -13,13 +13,10 @@ package com.atlassian.connector.eclipse.jira.tests.util;
 
 import java.io.InputStream;
 import java.net.URI;
-import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.List;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 
-import com.atlassian.connector.eclipse.internal.jira.core.model.IssueField;
 import com.atlassian.connector.eclipse.internal.jira.core.model.IssueType;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraAction;
 import com.atlassian.connector.eclipse.internal.jira.core.model.JiraIssue;
@@ -30,6 +27,7 @@ import com.atlassian.connector.eclipse.internal.jira.core.model.Priority;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Project;
 import com.atlassian.connector.eclipse.internal.jira.core.model.Resolution;
 import com.atlassian.connector.eclipse.internal.jira.core.model.ServerInfo;
+import com.atlassian.connector.eclipse.internal.jira.core.model.filter.IssueCollector;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraClientCache;
 import com.atlassian.connector.eclipse.internal.jira.core.service.JiraException;
 import com.atlassian.connector.eclipse.internal.jira.core.service.rest.JiraRestClientAdapter;
@@ -41,37 +39,38 @@ public class MockJiraRestClientAdapter extends JiraRestClientAdapter {
 	}
 
 	@Override
-	public void addComment(String issueKey, String comment) throws JiraException {
+	public void addComment(IssueOperationContext context, String comment) throws JiraException {
 		// ignore
 	}
 
 	@Override
-	public void addAttachment(String issueKey, byte[] content, String filename) throws JiraException {
+	public void addAttachment(String issueKey, InputStream content, String filename, IProgressMonitor monitor)
+			throws JiraException {
 		// ignore
 	}
 
 	@Override
-	public InputStream getAttachment(URI attachmentUri) {
+	public InputStream getAttachment(URI attachmentUri, IProgressMonitor monitor) {
 		return null;
 	}
 
 	@Override
-	public Project[] getProjects() {
+	public Project[] getProjects(IProgressMonitor monitor) {
 		return new Project[0];
 	}
 
 	@Override
-	public NamedFilter[] getFavouriteFilters() {
+	public NamedFilter[] getFavouriteFilters(IProgressMonitor monitor) {
 		return new NamedFilter[0];
 	}
 
 	@Override
-	public Resolution[] getResolutions() {
+	public Resolution[] getResolutions(IProgressMonitor monitor) {
 		return new Resolution[0];
 	}
 
 	@Override
-	public Priority[] getPriorities() {
+	public Priority[] getPriorities(IProgressMonitor monitor) {
 		return new Priority[0];
 	}
 
@@ -81,42 +80,44 @@ public class MockJiraRestClientAdapter extends JiraRestClientAdapter {
 	}
 
 	@Override
-	public JiraStatus[] getStatuses() {
+	public JiraStatus[] getStatuses(IProgressMonitor monitor) {
 		return new JiraStatus[0];
 	}
 
 	@Override
-	public IssueType[] getIssueTypes() {
+	public IssueType[] getIssueTypes(IProgressMonitor monitor) {
 		return new IssueType[0];
 	}
 
 	@Override
-	public IssueType[] getIssueTypes(String projectKey) {
+	public IssueType[] getIssueTypes(String projectKey, IProgressMonitor monitor) {
 		return new IssueType[0];
 	}
 
 	@Override
-	public List<JiraIssue> getIssues(String jql, int maxResult, IProgressMonitor monitor) throws JiraException {
-		return new ArrayList<JiraIssue>();
+	public void findIssues(String jql, int maxResult, IssueCollector collector, IProgressMonitor monitor)
+			throws JiraException {
+		collector.start();
+		collector.done();
 	}
 
 	@Override
-	public void getProjectDetails(Project project) {
+	public void getProjectDetails(Project project, IProgressMonitor monitor) {
 		// ignore
 	}
 
 	@Override
-	public void addWorklog(String issueKey, JiraWorkLog jiraWorklog) throws JiraException {
+	public void addWorklog(IssueOperationContext context, JiraWorkLog jiraWorklog) throws JiraException {
 		// ignore
 	}
 
 	@Override
-	public ServerInfo getServerInfo() throws JiraException {
+	public ServerInfo getServerInfo(IProgressMonitor monitor) throws JiraException {
 		return new ServerInfo();
 	}
 
 	@Override
-	public Iterable<JiraAction> getTransitions(String issueKey) throws JiraException {
+	public Iterable<JiraAction> getTransitions(String issueKey, IProgressMonitor monitor) throws JiraException {
 		return new Iterable<JiraAction>() {
 			public Iterator<JiraAction> iterator() {
 				return null;
@@ -125,23 +126,24 @@ public class MockJiraRestClientAdapter extends JiraRestClientAdapter {
 	}
 
 	@Override
-	public void transitionIssue(JiraIssue issue, String transitionKey, String comment,
-			Iterable<IssueField> transitionFields) throws JiraException {
+	public void transitionIssue(IssueOperationContext context, JiraIssue issue, String transitionKey, String comment)
+			throws JiraException {
 		// ignore
 	}
 
 	@Override
-	public void assignIssue(String issueKey, String user, String comment) throws JiraException {
+	public void assignIssue(IssueOperationContext context, String user, String comment) throws JiraException {
 		// ignore
 	}
 
 	@Override
-	public String createIssue(JiraIssue issue) throws JiraException {
+	public String createIssue(JiraIssue issue, IProgressMonitor monitor) throws JiraException {
 		return "KEY-1";
 	}
 
 	@Override
-	public void updateIssue(JiraIssue changedIssue, boolean updateEstimate) throws JiraException {
+	public void updateIssue(IssueOperationContext context, JiraIssue changedIssue, boolean updateEstimate,
+			String comment) throws JiraException {
 		// ignore
 	}
 
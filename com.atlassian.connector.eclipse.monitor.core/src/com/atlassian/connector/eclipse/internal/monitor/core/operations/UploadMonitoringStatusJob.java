@@ -89,7 +89,7 @@ public final class UploadMonitoringStatusJob extends Job {
 	 * 
 	 * @param f
 	 *            The file to upload
-	 * @return true on success
+	 * @return true if the server accepted the upload
 	 */
 	private boolean upload(String uploadUrl, File log, IProgressMonitor monitor) {
 		int status = 0;
@@ -120,6 +120,7 @@ public final class UploadMonitoringStatusJob extends Job {
 			return false;
 		}
 
-		return status == 200;
+		// the server may store the upload later (202)
+		return status == 200 || status == 202;
 	}
 }
\ No newline at end of file
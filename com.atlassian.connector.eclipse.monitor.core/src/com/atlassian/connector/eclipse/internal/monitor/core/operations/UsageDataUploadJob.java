@@ -34,7 +34,6 @@ import org.eclipse.mylyn.internal.commons.core.ZipFileUtil;
 import org.eclipse.osgi.util.NLS;
 
 import com.atlassian.connector.eclipse.internal.monitor.core.Messages;
-import com.atlassian.connector.eclipse.monitor.core.InteractionEvent;
 import com.atlassian.connector.eclipse.monitor.core.InteractionEventLogger;
 import com.atlassian.connector.eclipse.monitor.core.MonitorCorePlugin;
 
@@ -140,14 +139,7 @@ public final class UsageDataUploadJob extends Job {
 		File processedFile = File.createTempFile(String.format("processed-%s%d.", MonitorCorePlugin.MONITOR_LOG_NAME,
 				processedFileCount++), ".xml");
 		InteractionEventLogger logger = new InteractionEventLogger(processedFile);
-		logger.startMonitoring();
-		List<InteractionEvent> eventList = logger.getHistoryFromFile(monitorFile);
-
-		if (eventList.size() > 0) {
-			for (InteractionEvent event : eventList) {
-				logger.interactionObserved(event);
-			}
-		}
+		logger.copyHistoryFromFile(monitorFile);
 
 		return processedFile;
 	}
@@ -196,13 +188,13 @@ public final class UsageDataUploadJob extends Job {
 		} else if (status == 407) {
 			StatusHandler.log(new Status(IStatus.ERROR, MonitorCorePlugin.ID_PLUGIN,
 					Messages.UsageDataUploadJob_proxy_authentication));
-		} else if (status != 200) {
+		} else if (status != 200 && status != 202) {
 			// there was a problem with the file upload so throw up an error
 			// dialog to inform the user
 			StatusHandler.log(new Status(IStatus.ERROR, MonitorCorePlugin.ID_PLUGIN, NLS.bind(
 					Messages.UsageDataUploadJob_30, f.getName(), status)));
 		} else {
-			// the file was uploaded successfully
+			// the file was uploaded successfully, the server may store it later (202)
 			return true;
 		}
 		return false;
@@ -12,19 +12,26 @@
 
 package com.atlassian.connector.eclipse.monitor.core;
 
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.mylyn.commons.core.StatusHandler;
@@ -34,13 +41,73 @@ import com.thoughtworks.xstream.converters.reflection.Sun14ReflectionProvider;
 import com.thoughtworks.xstream.io.xml.JDomDriver;
 
 /**
+ * Logs interaction events to a file. Events are queued without locking and written in batches by a background thread
+ * so that threads raising events never wait for disk I/O. Queued events are written at least every
+ * {@link #FLUSH_INTERVAL_IN_MS} and when monitoring is stopped. Events raised while the queue is full are dropped.
+ *
  * @author Mik Kersten
  * @author Pawel Niewiadomski
  * @author Jacek Jaroczynski
  */
 public class InteractionEventLogger extends AbstractMonitorLog {
 
-	private final List<InteractionEvent> queue = new CopyOnWriteArrayList<InteractionEvent>();
+	public static final int MAX_QUEUED_EVENTS = 10000;
+
+	public static final long FLUSH_INTERVAL_IN_MS = 1000;
+
+	/** the writer is woken up before the flush interval expires once this many events are queued */
+	private static final int BATCH_SIZE = 100;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * Writes the queued events until monitoring is stopped.
+	 */
+	private class EventWriter extends Thread {
+
+		private final OutputStream out;
+
+		private volatile boolean stopped;
+
+		public EventWriter(OutputStream out) {
+			super("Usage Data Writer");
+			this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			while (!stopped) {
+				LockSupport.parkNanos(FLUSH_INTERVAL_IN_MS * 1000 * 1000);
+				writeQueuedEvents(out);
+			}
+			writeQueuedEvents(out);
+		}
+
+		/**
+		 * Writes the remaining events and waits for the writer to terminate.
+		 */
+		public void shutdown() {
+			stopped = true;
+			LockSupport.unpark(this);
+			try {
+				join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+	}
+
+	private final Queue<InteractionEvent> queue = new ConcurrentLinkedQueue<InteractionEvent>();
+
+	private final AtomicInteger queueSize = new AtomicInteger();
+
+	private final AtomicLong droppedEvents = new AtomicLong();
+
+	private long reportedDroppedEvents;
+
+	private volatile EventWriter writer;
 
 	private final XStream xs;
 
@@ -50,38 +117,87 @@ public class InteractionEventLogger extends AbstractMonitorLog {
 		xs.aliasType("interactionEvent", InteractionEvent.class);
 	}
 
-	public synchronized void interactionObserved(InteractionEvent event) {
+	/**
+	 * Queues <code>event</code> for writing. Events observed before monitoring is started are written once it starts.
+	 */
+	public void interactionObserved(InteractionEvent event) {
 		if (MonitorCorePlugin.getDefault() == null) {
 			StatusHandler.log(new Status(IStatus.WARNING, MonitorCorePlugin.ID_PLUGIN,
 					"Attempted to log event before usage monitor start"));
 		}
-		try {
-			if (started) {
-				String xml = getXmlForEvent(event);
-				outputStream.write(xml.getBytes());
-			} else if (event != null) {
-				queue.add(event);
+		if (event == null) {
+			return;
+		}
+
+		int size = queueSize.incrementAndGet();
+		if (size > MAX_QUEUED_EVENTS) {
+			queueSize.decrementAndGet();
+			droppedEvents.incrementAndGet();
+			return;
+		}
+		queue.offer(event);
+
+		if (size == BATCH_SIZE) {
+			EventWriter currentWriter = writer;
+			if (currentWriter != null) {
+				LockSupport.unpark(currentWriter);
 			}
-		} catch (Throwable t) {
-			StatusHandler.log(new Status(IStatus.WARNING, MonitorCorePlugin.ID_PLUGIN,
-					"Could not log interaction event", t));
 		}
 	}
 
+	/**
+	 * Returns the number of events that were dropped since the queue was full.
+	 */
+	public long getDroppedEventCount() {
+		return droppedEvents.get();
+	}
+
 	@Override
-	public void startMonitoring() {
+	public synchronized void startMonitoring() {
+		if (started) {
+			return;
+		}
 		super.startMonitoring();
-		for (InteractionEvent queuedEvent : queue) {
-			interactionObserved(queuedEvent);
+		if (outputStream != null) {
+			writer = new EventWriter(outputStream);
+			writer.start();
 		}
-		queue.clear();
 	}
 
 	@Override
-	public void stopMonitoring() {
+	public synchronized void stopMonitoring() {
+		EventWriter currentWriter = writer;
+		if (currentWriter != null) {
+			writer = null;
+			currentWriter.shutdown();
+		}
 		super.stopMonitoring();
 	}
 
+	/**
+	 * Invoked by the writer thread only.
+	 */
+	private void writeQueuedEvents(OutputStream out) {
+		try {
+			InteractionEvent event;
+			while ((event = queue.poll()) != null) {
+				queueSize.decrementAndGet();
+				out.write(getXmlForEvent(event).getBytes());
+			}
+			out.flush();
+		} catch (Throwable t) {
+			StatusHandler.log(new Status(IStatus.WARNING, MonitorCorePlugin.ID_PLUGIN,
+					"Could not log interaction event", t));
+		}
+
+		long dropped = droppedEvents.get();
+		if (dropped > reportedDroppedEvents) {
+			StatusHandler.log(new Status(IStatus.WARNING, MonitorCorePlugin.ID_PLUGIN, "Dropped "
+					+ (dropped - reportedDroppedEvents) + " interaction events since the queue was full"));
+			reportedDroppedEvents = dropped;
+		}
+	}
+
 	private String getXmlForEvent(InteractionEvent event) {
 		try {
 			return xs.toXML(event);
@@ -112,45 +228,85 @@ public class InteractionEventLogger extends AbstractMonitorLog {
 
 	public List<InteractionEvent> getHistoryFromFile(File file) {
 		List<InteractionEvent> events = new ArrayList<InteractionEvent>();
+		InteractionEventReader reader = null;
 		try {
-			// The file may be a zip file...
-			if (file.getName().endsWith(".zip")) {
-				ZipFile zip = new ZipFile(file);
-				if (zip.entries().hasMoreElements()) {
-					ZipEntry entry = zip.entries().nextElement();
-					getHistoryFromStream(zip.getInputStream(entry), events);
-				}
-			} else {
-				InputStream reader = new FileInputStream(file);
-				getHistoryFromStream(reader, events);
-				reader.close();
+			reader = openHistory(file);
+			InteractionEvent event;
+			while ((event = reader.read()) != null) {
+				events.add(event);
 			}
-
 		} catch (Exception e) {
 			StatusHandler.log(new Status(IStatus.ERROR, MonitorCorePlugin.ID_PLUGIN,
 					"Could not read interaction history", e));
+		} finally {
+			closeHistory(reader);
 		}
 		return events;
 	}
 
 	/**
-	 * @param events
-	 * @param tag
-	 * @param endl
-	 * @param buf
+	 * Appends the events of the interaction history in <code>file</code> to the output file on the calling thread.
+	 * Events are read and written one at a time, events that cannot be read are skipped. Must not be invoked while
+	 * monitoring.
 	 */
-	private void getHistoryFromStream(InputStream reader, List<InteractionEvent> events) throws IOException {
-		ByteArrayOutputStream out = new ByteArrayOutputStream();
-		out.write("<list>".getBytes());
-		IOUtils.copy(reader, out);
-		out.write("</list>".getBytes());
-
-		List<?> list = (List<?>) xs.fromXML(out.toString());
-		if (list != null) {
-			for (Object e : list) {
-				if (e instanceof InteractionEvent) {
-					events.add((InteractionEvent) e);
+	public synchronized void copyHistoryFromFile(File file) throws IOException {
+		if (started) {
+			throw new IllegalStateException("Events are written by the monitor");
+		}
+		InteractionEventReader reader = openHistory(file);
+		try {
+			OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile, true), BUFFER_SIZE);
+			try {
+				InteractionEvent event;
+				while ((event = reader.read()) != null) {
+					out.write(getXmlForEvent(event).getBytes());
 				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			closeHistory(reader);
+		}
+	}
+
+	private InteractionEventReader openHistory(File file) throws IOException {
+		// The file may be a zip file...
+		if (file.getName().endsWith(".zip")) {
+			final ZipFile zip = new ZipFile(file);
+			InputStream in;
+			try {
+				Enumeration<? extends ZipEntry> entries = zip.entries();
+				in = (entries.hasMoreElements()) ? zip.getInputStream(entries.nextElement())
+						: new ByteArrayInputStream(new byte[0]);
+			} catch (IOException e) {
+				zip.close();
+				throw e;
+			}
+			return new InteractionEventReader(new FilterInputStream(in) {
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					} finally {
+						zip.close();
+					}
+				}
+			}, xs);
+		} else {
+			return new InteractionEventReader(new FileInputStream(file), xs);
+		}
+	}
+
+	private void closeHistory(InteractionEventReader reader) {
+		if (reader != null) {
+			if (reader.getSkippedEvents() > 0) {
+				StatusHandler.log(new Status(IStatus.WARNING, MonitorCorePlugin.ID_PLUGIN, "Skipped "
+						+ reader.getSkippedEvents() + " malformed events in interaction history"));
+			}
+			try {
+				reader.close();
+			} catch (IOException e) {
+				// ignore
 			}
 		}
 	}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2009 Atlassian and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Atlassian - initial API and implementation
+ ******************************************************************************/
+
+package com.atlassian.connector.eclipse.monitor.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+/**
+ * Reads the events of an interaction history one at a time. The history is a sequence of
+ * <code>&lt;interactionEvent&gt;</code> fragments without a root element as written by
+ * {@link InteractionEventLogger}, therefore only the fragment of the current event is kept in memory.
+ * <p>
+ * Fragments that cannot be parsed are skipped. A fragment that is not terminated before the next one starts, e.g.
+ * since the workbench was terminated while writing it, is skipped as well.
+ */
+class InteractionEventReader {
+
+	private static final String START_TAG = "<interactionEvent>";
+
+	private static final String END_TAG = "</interactionEvent>";
+
+	private static final int BUFFER_SIZE = 8 * 1024;
+
+	private final Reader reader;
+
+	private final XStream xs;
+
+	private final char[] buffer = new char[BUFFER_SIZE];
+
+	private int position;
+
+	private int length;
+
+	private final StringBuilder fragment = new StringBuilder();
+
+	private int skippedEvents;
+
+	public InteractionEventReader(InputStream in, XStream xs) {
+		// events are written in the default encoding
+		this.reader = new InputStreamReader(in);
+		this.xs = xs;
+	}
+
+	/**
+	 * Returns the next event or <code>null</code> if the end of the history has been reached.
+	 */
+	public InteractionEvent read() throws IOException {
+		while (readFragment()) {
+			try {
+				Object event = xs.fromXML(fragment.toString());
+				if (event instanceof InteractionEvent) {
+					return (InteractionEvent) event;
+				}
+			} catch (XStreamException e) {
+				// ignore
+			}
+			skippedEvents++;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the number of events that were skipped since they could not be parsed.
+	 */
+	public int getSkippedEvents() {
+		return skippedEvents;
+	}
+
+	public void close() throws IOException {
+		reader.close();
+	}
+
+	private boolean readFragment() throws IOException {
+		fragment.setLength(0);
+		boolean inFragment = false;
+		int startMatched = 0;
+		int endMatched = 0;
+		int c;
+		while ((c = readChar()) != -1) {
+			char ch = (char) c;
+			startMatched = match(START_TAG, startMatched, ch);
+			if (startMatched == START_TAG.length()) {
+				if (inFragment) {
+					// the previous fragment was truncated
+					skippedEvents++;
+				}
+				fragment.setLength(0);
+				fragment.append(START_TAG);
+				inFragment = true;
+				startMatched = 0;
+				endMatched = 0;
+			} else if (inFragment) {
+				fragment.append(ch);
+				endMatched = match(END_TAG, endMatched, ch);
+				if (endMatched == END_TAG.length()) {
+					return true;
+				}
+			}
+		}
+		if (inFragment) {
+			skippedEvents++;
+		}
+		return false;
+	}
+
+	private int readChar() throws IOException {
+		if (position == length) {
+			length = reader.read(buffer);
+			position = 0;
+			if (length <= 0) {
+				length = 0;
+				return -1;
+			}
+		}
+		return buffer[position++];
+	}
+
+	/**
+	 * Returns the number of characters of <code>tag</code> matched after <code>c</code>. Tags contain a single '&lt;'
+	 * which allows to restart matching at a mismatch without backtracking.
+	 */
+	private static int match(String tag, int matched, char c) {
+		if (c == tag.charAt(matched)) {
+			return matched + 1;
+		}
+		return (c == tag.charAt(0)) ? 1 : 0;
+	}
+
+}
@@ -2,19 +2,16 @@ package com.atlassian.connector.eclipse.monitor.core;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-import java.util.List;
+import java.io.ObjectInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.fileupload.FileItem;
-import org.apache.commons.httpclient.methods.multipart.FilePart;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.atlassian.connector.eclipse.monitor.server.servlet.UploadServlet;
+import com.atlassian.connector.eclipse.monitor.server.servlet.UsageDataUtil;
 import com.thoughtworks.xstream.XStream;
 import com.thoughtworks.xstream.core.BaseException;
 
@@ -41,58 +38,60 @@ public class UsageDataUtil2 {
 		log.debug(String.format("Parsing %s", file.getName()));
 		
 		if (file.getContentType().startsWith("application/zip")) {
-			ZipInputStream zip = new ZipInputStream(file.getInputStream());
-			ZipEntry ze;
-			
-			int firstDot = file.getName().indexOf(".");
-			if (firstDot == -1 || firstDot == 0) {
-				log.warn("Silently ignoring upload because file name doesn't have '.'");
-			}
-			
-			final String uid = file.getName().substring(0, firstDot);
-			
-			while((ze = zip.getNextEntry()) != null) {
-				log.debug(String.format("Processing %s", ze.getName()));
-				
-				if (ze.isDirectory()) continue;
-				if (!ze.getName().endsWith(".xml")) continue;
-				
-				processStream(zip, callback, uid);
-			}
+			processZip(file.getName(), file.getInputStream(), callback);
 		} else {
 			log.warn(String.format("Silently ignoring upload from someone (not a ZIP file): %s", file.getName()));
 		}
 	}
 
-	// TODO: naive implementation, may require improvements
-	public static void processStream(InputStream is, UserInteractionEventCallback callback, String uid) {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		try {
-			IOUtils.copy(is, os);
-		} catch (IOException e1) {
-			log.error("Unable to read input stream", e1);
+	/**
+	 * Visits the events of the usage data files in the zip file <code>is</code>, see
+	 * {@link UsageDataUtil#processZip}.
+	 */
+	public static void processZip(String name, InputStream is, UserInteractionEventCallback callback)
+			throws IOException {
+		int firstDot = name.indexOf(".");
+		if (firstDot == -1 || firstDot == 0) {
+			log.warn("Silently ignoring upload because file name doesn't have '.'");
 			return;
 		}
 		
-		String xml = null;
-		try {
-			xml = "<list>" + os.toString(FilePart.DEFAULT_CHARSET) + "</list>";
-		} catch (UnsupportedEncodingException e1) {
-			log.error("Unable to read input stream", e1);
-			return;
-		} 
+		final String uid = name.substring(0, firstDot);
 		
+		ZipInputStream zip = new ZipInputStream(is);
+		ZipEntry ze;
+		while((ze = zip.getNextEntry()) != null) {
+			log.debug(String.format("Processing %s", ze.getName()));
+			
+			if (ze.isDirectory()) continue;
+			if (!ze.getName().endsWith(".xml")) continue;
+			
+			processStream(zip, callback, uid);
+		}
+	}
+
+	/**
+	 * Visits the events in <code>is</code> one at a time, see {@link UsageDataUtil#processStream}.
+	 */
+	public static void processStream(InputStream is, UserInteractionEventCallback callback, String uid) {
 		try {
-			Object o = xs.fromXML(xml);
-			if (o != null && o instanceof List<?>) {
-				List<?> events = (List<?>) o;
-				for (Object event : events) {
-					if(!callback.visit(new UserInteractionEvent((InteractionEvent) event, uid, null))) {
+			ObjectInputStream in = UsageDataUtil.createEventStream(xs, is);
+			try {
+				Object event;
+				while ((event = UsageDataUtil.readEvent(in)) != null) {
+					if (event instanceof InteractionEvent
+							&& !callback.visit(new UserInteractionEvent((InteractionEvent) event, uid, null))) {
 						break;
 					}
 				}
+			} finally {
+				in.close();
 			}
-		} catch(BaseException e) {
+		} catch (IOException e) {
+			log.error("Unable to read input stream", e);
+		} catch (ClassNotFoundException e) {
+			log.error("Unable to deserialize XML", e);
+		} catch (BaseException e) {
 			log.error("Unable to deserialize XML", e);
 		}
 	}
@@ -7,16 +7,16 @@ public class UserInteractionEvent extends InteractionEvent {
 
 	private final String uid;
 	
-	private Integer id;
+	private Long id;
 
-	public UserInteractionEvent(Kind kind, String pluginId, String eventId, String details, Date startDate, String uid, Integer id) {
+	public UserInteractionEvent(Kind kind, String pluginId, String eventId, String details, Date startDate, String uid, Long id) {
 		super(kind, pluginId, eventId, details, startDate);
 			
 		this.uid = uid;
 		this.id = id;
 	}
 
-	public UserInteractionEvent(InteractionEvent ie, String uid, Integer id) {
+	public UserInteractionEvent(InteractionEvent ie, String uid, Long id) {
 		this(ie.getKind(), ie.getPluginId(), ie.getEventId(), ie.getDetails(), ie.getDate(), uid, id);
 	}
 
@@ -24,11 +24,11 @@ public class UserInteractionEvent extends InteractionEvent {
 		return uid;
 	}
 	
-	public void setId(Integer id) {
+	public void setId(Long id) {
 		this.id = id;
 	}
 	
-	public Integer getId() {
+	public Long getId() {
 		return id;
 	}
 
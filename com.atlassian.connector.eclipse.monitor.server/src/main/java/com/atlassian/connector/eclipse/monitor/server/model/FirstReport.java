@@ -0,0 +1,49 @@
+package com.atlassian.connector.eclipse.monitor.server.model;
+
+import java.util.Date;
+
+/**
+ * The week and month in which a user reported usage data first.
+ */
+public class FirstReport {
+
+	private String uid;
+
+	private Date week;
+
+	private Date month;
+
+	public FirstReport() {
+	}
+
+	public FirstReport(String uid, Date week, Date month) {
+		this.uid = uid;
+		this.week = week;
+		this.month = month;
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public void setUid(String uid) {
+		this.uid = uid;
+	}
+
+	public Date getWeek() {
+		return week;
+	}
+
+	public void setWeek(Date week) {
+		this.week = week;
+	}
+
+	public Date getMonth() {
+		return month;
+	}
+
+	public void setMonth(Date month) {
+		this.month = month;
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.atlassian.connector.eclipse.monitor.server.model;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Which features a user used in a period. Flags are 1 if the user did and 0 otherwise so that reports can sum them.
+ * Mapped as <code>WeeklyUsage</code> and <code>MonthlyUsage</code>.
+ */
+@SuppressWarnings("serial")
+public class UsageRollup implements Serializable {
+
+	private String uid;
+
+	private Date period;
+
+	private int atlassian;
+
+	private int jira;
+
+	private int crucible;
+
+	private int bamboo;
+
+	private int fisheye;
+
+	private int optin;
+
+	private int optout;
+
+	public UsageRollup() {
+	}
+
+	public UsageRollup(String uid, Date period) {
+		this.uid = uid;
+		this.period = period;
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public void setUid(String uid) {
+		this.uid = uid;
+	}
+
+	public Date getPeriod() {
+		return period;
+	}
+
+	public void setPeriod(Date period) {
+		this.period = period;
+	}
+
+	public int getAtlassian() {
+		return atlassian;
+	}
+
+	public void setAtlassian(int atlassian) {
+		this.atlassian = atlassian;
+	}
+
+	public int getJira() {
+		return jira;
+	}
+
+	public void setJira(int jira) {
+		this.jira = jira;
+	}
+
+	public int getCrucible() {
+		return crucible;
+	}
+
+	public void setCrucible(int crucible) {
+		this.crucible = crucible;
+	}
+
+	public int getBamboo() {
+		return bamboo;
+	}
+
+	public void setBamboo(int bamboo) {
+		this.bamboo = bamboo;
+	}
+
+	public int getFisheye() {
+		return fisheye;
+	}
+
+	public void setFisheye(int fisheye) {
+		this.fisheye = fisheye;
+	}
+
+	public int getOptin() {
+		return optin;
+	}
+
+	public void setOptin(int optin) {
+		this.optin = optin;
+	}
+
+	public int getOptout() {
+		return optout;
+	}
+
+	public void setOptout(int optout) {
+		this.optout = optout;
+	}
+
+	/**
+	 * Adds the flags of <code>rollup</code> to this rollup.
+	 */
+	public void update(UsageRollup rollup) {
+		this.atlassian |= rollup.atlassian;
+		this.jira |= rollup.jira;
+		this.crucible |= rollup.crucible;
+		this.bamboo |= rollup.bamboo;
+		this.fisheye |= rollup.fisheye;
+		this.optin |= rollup.optin;
+		this.optout |= rollup.optout;
+	}
+
+	@Override
+	public boolean equals(Object object) {
+		if (!(object instanceof UsageRollup)) {
+			return false;
+		}
+		UsageRollup rollup = (UsageRollup) object;
+		return uid.equals(rollup.uid) && period.getTime() == rollup.period.getTime();
+	}
+
+	@Override
+	public int hashCode() {
+		return uid.hashCode() + (int) period.getTime();
+	}
+
+}
@@ -0,0 +1,299 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+/**
+ * Counts the upload statistics per day in memory and adds them to the <code>DailyStatistic</code> table periodically
+ * and on shutdown. Workers increment counters of their own stripe, so storing uploads concurrently neither contends
+ * on a counter nor on the row of the day.
+ * <p>
+ * Counts are added to the stored row by a single update, so servers sharing the database do not lose updates.
+ * Counts that could not be stored are kept and stored with the next flush.
+ */
+public class DailyStatisticCounter {
+
+	public static final long DEFAULT_FLUSH_INTERVAL_IN_MS = 60 * 1000;
+
+	private static final int UPLOAD_REQUESTS = 0;
+
+	private static final int ENTRIES_SUCCEEDED = 1;
+
+	private static final int ENTRIES_FAILED = 2;
+
+	private static final int ENTRIES_CONFLICTING = 3;
+
+	private static final int FIELDS = 4;
+
+	/** must be a power of two */
+	private static final int STRIPES = 16;
+
+	/** stripes are 128 bytes apart so they do not share a cache line */
+	private static final int STRIPE_SIZE = 16;
+
+	private static final String UPDATE_QUERY = "update "
+			+ "com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic s "
+			+ "set s.uploadRequests = s.uploadRequests + :uploadRequests, "
+			+ "s.entriesSucceeded = s.entriesSucceeded + :entriesSucceeded, "
+			+ "s.entriesFailed = s.entriesFailed + :entriesFailed, "
+			+ "s.entriesConflicting = s.entriesConflicting + :entriesConflicting where s.day = :day";
+
+	private static final Logger log = LoggerFactory.getLogger(DailyStatisticCounter.class);
+
+	/**
+	 * The counters of a day.
+	 */
+	private static class Counters {
+
+		private final AtomicLongArray pending = new AtomicLongArray(STRIPES * STRIPE_SIZE);
+
+		/** counts that were stored since the server started, only modified while flushing */
+		private final long[] stored = new long[FIELDS];
+
+		public void add(int field, long delta) {
+			if (delta != 0) {
+				int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+				pending.addAndGet(stripe * STRIPE_SIZE + field, delta);
+			}
+		}
+
+		/**
+		 * Returns and resets the pending counts.
+		 */
+		public long[] drain() {
+			long[] values = new long[FIELDS];
+			for (int stripe = 0; stripe < STRIPES; stripe++) {
+				for (int field = 0; field < FIELDS; field++) {
+					values[field] += pending.getAndSet(stripe * STRIPE_SIZE + field, 0);
+				}
+			}
+			return values;
+		}
+
+		public boolean isPending() {
+			for (int i = 0; i < pending.length(); i++) {
+				if (pending.get(i) != 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		public long get(int field) {
+			long value;
+			synchronized (stored) {
+				value = stored[field];
+			}
+			for (int stripe = 0; stripe < STRIPES; stripe++) {
+				value += pending.get(stripe * STRIPE_SIZE + field);
+			}
+			return value;
+		}
+
+		public void addStored(long[] values) {
+			synchronized (stored) {
+				for (int field = 0; field < FIELDS; field++) {
+					stored[field] += values[field];
+				}
+			}
+		}
+
+	}
+
+	private final ConcurrentMap<Date, Counters> days = new ConcurrentHashMap<Date, Counters>();
+
+	private final long flushInterval;
+
+	private ScheduledExecutorService executor;
+
+	public DailyStatisticCounter(long flushInterval) {
+		this.flushInterval = flushInterval;
+	}
+
+	public synchronized void start() {
+		if (executor != null) {
+			return;
+		}
+
+		executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Daily Statistic Writer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		executor.scheduleWithFixedDelay(new Runnable() {
+			public void run() {
+				flush();
+			}
+		}, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops flushing periodically and stores the pending counts.
+	 */
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			try {
+				executor.awaitTermination(flushInterval, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			executor = null;
+		}
+		flush();
+	}
+
+	/**
+	 * Counts <code>stat</code> for today.
+	 */
+	public void add(DailyStatistic stat) {
+		Counters counters = getCounters(getDay(new Date()));
+		counters.add(UPLOAD_REQUESTS, stat.getAttempts());
+		counters.add(ENTRIES_SUCCEEDED, stat.getEntriesSucceeded());
+		counters.add(ENTRIES_FAILED, stat.getEntriesFailed());
+		counters.add(ENTRIES_CONFLICTING, stat.getEntriesConflicting());
+	}
+
+	/**
+	 * @return the counts for today since the server was started, including those that are not stored yet
+	 */
+	public DailyStatistic getToday() {
+		Date today = getDay(new Date());
+		Counters counters = days.get(today);
+		if (counters == null) {
+			return new DailyStatistic(today, 0, 0, 0, 0);
+		}
+		return new DailyStatistic(today, (int) counters.get(UPLOAD_REQUESTS), (int) counters.get(ENTRIES_SUCCEEDED),
+				(int) counters.get(ENTRIES_FAILED), (int) counters.get(ENTRIES_CONFLICTING));
+	}
+
+	/**
+	 * Adds the pending counts to the stored statistics.
+	 */
+	public synchronized void flush() {
+		Date yesterday = getDay(new Date(System.currentTimeMillis() - 24 * 60 * 60 * 1000));
+		for (Map.Entry<Date, Counters> entry : days.entrySet()) {
+			Date day = entry.getKey();
+			Counters counters = entry.getValue();
+
+			long[] values = counters.drain();
+			if (!isEmpty(values)) {
+				try {
+					store(day, values);
+					counters.addStored(values);
+				} catch (Exception e) {
+					log.error(String.format("Failed to store statistics for %tF", day), e);
+					// keep the counts for the next flush
+					for (int field = 0; field < FIELDS; field++) {
+						counters.add(field, values[field]);
+					}
+					continue;
+				}
+			}
+
+			// uploads finishing at midnight may still count for yesterday
+			if (day.before(yesterday) && !counters.isPending()) {
+				days.remove(day, counters);
+			}
+		}
+	}
+
+	private void store(Date day, long[] values) {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			if (update(session, day, values)) {
+				return;
+			}
+			try {
+				Transaction tx = session.beginTransaction();
+				try {
+					session.save(new DailyStatistic(day, (int) values[UPLOAD_REQUESTS],
+							(int) values[ENTRIES_SUCCEEDED], (int) values[ENTRIES_FAILED],
+							(int) values[ENTRIES_CONFLICTING]));
+					session.flush();
+					tx.commit();
+				} catch (RuntimeException e) {
+					tx.rollback();
+					throw e;
+				}
+			} catch (ConstraintViolationException e) {
+				// the row was inserted by another server in the meantime
+				session.clear();
+				if (!update(session, day, values)) {
+					throw e;
+				}
+			}
+		} finally {
+			session.close();
+		}
+	}
+
+	private boolean update(Session session, Date day, long[] values) {
+		Transaction tx = session.beginTransaction();
+		try {
+			int updated = session.createQuery(UPDATE_QUERY)
+					.setInteger("uploadRequests", (int) values[UPLOAD_REQUESTS])
+					.setInteger("entriesSucceeded", (int) values[ENTRIES_SUCCEEDED])
+					.setInteger("entriesFailed", (int) values[ENTRIES_FAILED])
+					.setInteger("entriesConflicting", (int) values[ENTRIES_CONFLICTING])
+					.setDate("day", day)
+					.executeUpdate();
+			tx.commit();
+			return updated > 0;
+		} catch (RuntimeException e) {
+			tx.rollback();
+			throw e;
+		}
+	}
+
+	private Counters getCounters(Date day) {
+		Counters counters = days.get(day);
+		if (counters == null) {
+			counters = new Counters();
+			Counters existing = days.putIfAbsent(day, counters);
+			if (existing != null) {
+				counters = existing;
+			}
+		}
+		return counters;
+	}
+
+	private static boolean isEmpty(long[] values) {
+		for (long value : values) {
+			if (value != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Date getDay(Date date) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(date);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		return calendar.getTime();
+	}
+
+}
@@ -0,0 +1,233 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.Query;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+/**
+ * Stores uploaded events in batches. Each batch is stored in a single transaction and inserted through JDBC batches
+ * (see <code>jdbc.batch_size</code> in hibernate.cfg.xml).
+ * <p>
+ * Events that were uploaded before are detected by a single query for the keys stored for the uploading users in the
+ * time range of the batch. Relying on constraint violations would roll back the whole batch. If a batch fails anyway,
+ * e.g. since the same events are uploaded concurrently, its events are stored one at a time.
+ */
+public abstract class EventBatchLoader<E> {
+
+	public static final int DEFAULT_EVENTS_PER_TRANSACTION = 1000;
+
+	private static final Logger log = LoggerFactory.getLogger(EventBatchLoader.class);
+
+	private final Session session;
+
+	private final int eventsPerTransaction;
+
+	private final List<E> batch;
+
+	private int succeeded;
+
+	private int failed;
+
+	private int conflicts;
+
+	/**
+	 * @return a loader for events uploaded in the legacy Mylyn format
+	 */
+	public static EventBatchLoader<org.eclipse.mylyn.monitor.core.UserInteractionEvent> createLegacyLoader(
+			Session session, int eventsPerTransaction) {
+		return new EventBatchLoader<org.eclipse.mylyn.monitor.core.UserInteractionEvent>(session,
+				eventsPerTransaction) {
+			@Override
+			protected String getKeyQuery() {
+				return "select e.uid, e.date, e.endDate, e.kind, e.structureKind, e.structureHandle, e.originId, "
+						+ "e.navigation, e.delta, e.interestContribution "
+						+ "from org.eclipse.mylyn.monitor.core.UserInteractionEvent e "
+						+ "where e.uid in (:uids) and e.date between :from and :to";
+			}
+
+			@Override
+			protected Object[] getKeyValues(org.eclipse.mylyn.monitor.core.UserInteractionEvent uie) {
+				return new Object[] { uie.getUid(), uie.getDate(), uie.getEndDate(), uie.getKind(),
+						uie.getStructureKind(), uie.getStructureHandle(), uie.getOriginId(), uie.getNavigation(),
+						uie.getDelta(), new Float(uie.getInterestContribution()) };
+			}
+		};
+	}
+
+	/**
+	 * @return a loader for events uploaded in the current format
+	 */
+	public static EventBatchLoader<UserInteractionEvent> createLoader(Session session, int eventsPerTransaction) {
+		return new EventBatchLoader<UserInteractionEvent>(session, eventsPerTransaction) {
+			@Override
+			protected String getKeyQuery() {
+				return "select e.uid, e.date, e.kind, e.pluginId, e.eventId, e.details "
+						+ "from com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent e "
+						+ "where e.uid in (:uids) and e.date between :from and :to";
+			}
+
+			@Override
+			protected Object[] getKeyValues(UserInteractionEvent uie) {
+				return new Object[] { uie.getUid(), uie.getDate(), uie.getKind(), uie.getPluginId(),
+						uie.getEventId(), uie.getDetails() };
+			}
+		};
+	}
+
+	public EventBatchLoader(Session session, int eventsPerTransaction) {
+		this.session = session;
+		this.eventsPerTransaction = eventsPerTransaction;
+		this.batch = new ArrayList<E>(eventsPerTransaction);
+	}
+
+	/**
+	 * @return the query for the key values of the stored events, with the uid as first and the date as second value;
+	 *         the query takes the parameters <code>uids</code>, <code>from</code> and <code>to</code>
+	 */
+	protected abstract String getKeyQuery();
+
+	/**
+	 * @return the key values of <code>event</code> in the order of {@link #getKeyQuery()}
+	 */
+	protected abstract Object[] getKeyValues(E event);
+
+	public void add(E event) {
+		batch.add(event);
+		if (batch.size() >= eventsPerTransaction) {
+			flush();
+		}
+	}
+
+	/**
+	 * Stores the remaining events.
+	 *
+	 * @return the statistic of the stored events, events that could not be stored are counted as failed
+	 */
+	public DailyStatistic finish() {
+		flush();
+		return new DailyStatistic(null, 1, succeeded, failed, conflicts);
+	}
+
+	private void flush() {
+		if (batch.isEmpty()) {
+			return;
+		}
+
+		Transaction tx = null;
+		try {
+			tx = session.beginTransaction();
+			Set<List<Object>> keys = findStoredKeys();
+			List<E> pending = new ArrayList<E>(batch.size());
+			for (E event : batch) {
+				// also drops events that are contained twice in the upload
+				if (keys.add(getKey(getKeyValues(event)))) {
+					pending.add(event);
+				}
+			}
+			for (E event : pending) {
+				session.persist(event);
+			}
+			session.flush();
+			tx.commit();
+
+			succeeded += pending.size();
+			conflicts += batch.size() - pending.size();
+		} catch (Exception e) {
+			rollback(tx);
+			session.clear();
+
+			// the stored keys may not be known, constraint violations tell the conflicts apart
+			log.debug("Storing batch failed, storing events one at a time", e);
+			for (E event : batch) {
+				persist(event);
+			}
+		} finally {
+			session.clear();
+			batch.clear();
+		}
+	}
+
+	private Set<List<Object>> findStoredKeys() {
+		Set<String> uids = new HashSet<String>();
+		Date from = null;
+		Date to = null;
+		for (E event : batch) {
+			Object[] values = getKeyValues(event);
+			uids.add((String) values[0]);
+			Date date = (Date) values[1];
+			if (date != null) {
+				from = (from == null || date.before(from)) ? date : from;
+				to = (to == null || date.after(to)) ? date : to;
+			}
+		}
+
+		Set<List<Object>> keys = new HashSet<List<Object>>();
+		if (from != null) {
+			Query query = session.createQuery(getKeyQuery());
+			query.setParameterList("uids", uids);
+			query.setTimestamp("from", from);
+			query.setTimestamp("to", to);
+			for (Object row : query.list()) {
+				keys.add(getKey((Object[]) row));
+			}
+		}
+		return keys;
+	}
+
+	private List<Object> getKey(Object[] values) {
+		Object[] key = new Object[values.length];
+		for (int i = 0; i < values.length; i++) {
+			// dates are read as timestamps which are never equal to dates
+			key[i] = (values[i] instanceof Date) ? new Long(((Date) values[i]).getTime()) : values[i];
+		}
+		return Arrays.asList(key);
+	}
+
+	private void persist(E event) {
+		// put as much data as we can into db, don't care if something is dropped
+		Transaction tx = null;
+		try {
+			tx = session.beginTransaction();
+			session.persist(event);
+			tx.commit();
+
+			++succeeded;
+		} catch (Exception e) {
+			rollback(tx);
+
+			if (e instanceof ConstraintViolationException) {
+				// tried to put data again (happens sometimes)
+				++conflicts;
+			} else {
+				log.warn("Failed to store UserInteractionEvent", e);
+				++failed;
+			}
+		} finally {
+			session.clear();
+		}
+	}
+
+	private void rollback(Transaction tx) {
+		if (tx != null) {
+			try {
+				tx.rollback();
+			} catch (Exception e) {
+				// ignore
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+
+/**
+ * Returns the usage report named by the path, e.g. <code>/report/installations</code>, as comma separated values.
+ * See {@link UsageReports} for the available reports.
+ */
+public class ReportServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+	private static final Logger log = LoggerFactory.getLogger(ReportServlet.class);
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+	 */
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		String name = request.getPathInfo();
+		if (name == null || name.length() < 2) {
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		List<String[]> report;
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			report = new UsageReports(session).getReport(name.substring(1));
+		} catch (Exception e) {
+			log.error(String.format("Failed to create report %s", name), e);
+			response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+			return;
+		} finally {
+			try {
+				session.close();
+			} catch (Exception e) {
+				// ignore
+			}
+		}
+		if (report == null) {
+			response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+			return;
+		}
+
+		response.setContentType("text/csv");
+		response.setCharacterEncoding("UTF-8");
+		PrintWriter out = response.getWriter();
+		for (String[] row : report) {
+			for (int i = 0; i < row.length; i++) {
+				if (i > 0) {
+					out.print(',');
+				}
+				out.print('"');
+				out.print(row[i].replace("\"", "\"\""));
+				out.print('"');
+			}
+			out.print("\r\n");
+		}
+	}
+
+}
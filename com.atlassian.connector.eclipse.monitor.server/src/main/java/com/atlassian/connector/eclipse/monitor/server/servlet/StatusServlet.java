@@ -0,0 +1,53 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+/**
+ * Reports the state of the upload queue and the statistics of today as plain text <code>name=value</code> lines.
+ * Times are in ms, the statistics count the uploads stored since the server was started.
+ */
+public class StatusServlet extends HttpServlet {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * @see HttpServlet#doGet(HttpServletRequest request, HttpServletResponse response)
+	 */
+	protected void doGet(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		UploadQueue queue = (UploadQueue) getServletContext().getAttribute(UploadQueueListener.QUEUE_ATTRIBUTE);
+		if (queue == null) {
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+
+		response.setContentType("text/plain");
+		response.setHeader("Cache-Control", "no-cache");
+		PrintWriter out = response.getWriter();
+		out.println("queuedUploads=" + queue.getQueuedUploads());
+		out.println("processedUploads=" + queue.getProcessedUploads());
+		out.println("failedUploads=" + queue.getFailedUploads());
+		out.println("retriedUploads=" + queue.getRetriedUploads());
+		out.println("averageUploadLatency=" + queue.getAverageLatency());
+		out.println("maxUploadLatency=" + queue.getMaxLatency());
+		out.println("averageProcessingTime=" + queue.getAverageProcessingTime());
+
+		DailyStatisticCounter statistics = (DailyStatisticCounter) getServletContext().getAttribute(
+				UploadQueueListener.STATISTICS_ATTRIBUTE);
+		if (statistics != null) {
+			DailyStatistic today = statistics.getToday();
+			out.println(String.format("today=%tF", today.getDate()));
+			out.println("today.uploadRequests=" + today.getAttempts());
+			out.println("today.entriesSucceeded=" + today.getEntriesSucceeded());
+			out.println("today.entriesFailed=" + today.getEntriesFailed());
+			out.println("today.entriesConflicting=" + today.getEntriesConflicting());
+		}
+	}
+
+}
@@ -0,0 +1,466 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.io.FilenameUtils;
+import org.eclipse.mylyn.monitor.core.UserInteractionEvent;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.atlassian.connector.eclipse.monitor.core.UsageDataUtil2;
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+/**
+ * Stores uploaded usage data in the background. Uploads are spooled to a directory and stored in the database by a
+ * fixed number of workers, so upload requests neither wait for the database nor hold database connections.
+ * <p>
+ * An upload is deleted from the spool directory once all of its events have been stored. Uploads that had events
+ * which could not be stored, e.g. since the database was not available, are stored again after a delay that doubles
+ * with each attempt. After the maximum number of attempts they are moved to a directory of failed uploads that is
+ * not stored again. Uploads that were pending when the server stopped are stored again when the queue is started.
+ * Uploads that cannot be parsed are stored as far as they can be parsed and deleted, storing them again would not
+ * help.
+ * <p>
+ * The statistics of an upload are counted once it has been stored or given up. Events stored by earlier attempts
+ * are counted as succeeded rather than as conflicts of the later attempts.
+ * <p>
+ * Uploads are acknowledged once they are spooled, so the spool directory must survive restarts of the server.
+ */
+public class UploadQueue {
+
+	public static final int DEFAULT_WORKERS = 2;
+
+	public static final int DEFAULT_MAX_QUEUED_UPLOADS = 1000;
+
+	public static final int DEFAULT_MAX_ATTEMPTS = 8;
+
+	public static final long DEFAULT_RETRY_DELAY_IN_MS = 60 * 1000;
+
+	private static final long MAX_RETRY_DELAY_IN_MS = 60 * 60 * 1000;
+
+	/** uploads in the legacy Mylyn format are spooled to this subdirectory */
+	private static final String LEGACY_DIRECTORY = "upload";
+
+	/** uploads in the current format are spooled to this subdirectory */
+	private static final String DIRECTORY = "upload-2";
+
+	/** uploads that could not be stored within the maximum number of attempts are moved to this subdirectory */
+	private static final String FAILED_SUFFIX = "-failed";
+
+	private static final String PART_SUFFIX = ".part";
+
+	private static final long SHUTDOWN_TIMEOUT_IN_SECONDS = 30;
+
+	private static final Logger log = LoggerFactory.getLogger(UploadQueue.class);
+
+	private class Upload implements Runnable {
+
+		private final File file;
+
+		private final boolean legacy;
+
+		private final long accepted;
+
+		private int attempts;
+
+		/** events stored by previous attempts, these are counted as conflicts by later attempts */
+		private int storedEvents;
+
+		public Upload(File file, boolean legacy, long accepted) {
+			this.file = file;
+			this.legacy = legacy;
+			this.accepted = accepted;
+		}
+
+		public void run() {
+			long started = System.currentTimeMillis();
+			++attempts;
+			DailyStatistic stat = null;
+			Exception failure = null;
+			try {
+				stat = store(this);
+			} catch (Exception e) {
+				failure = e;
+			}
+
+			if (stat != null && stat.getEntriesFailed() == 0) {
+				statistics.add(getTotal(stat));
+				if (!file.delete()) {
+					log.warn(String.format("Failed to delete stored upload %s", file));
+				}
+
+				long finished = System.currentTimeMillis();
+				processedUploads.incrementAndGet();
+				totalLatency.addAndGet(finished - accepted);
+				totalProcessingTime.addAndGet(finished - started);
+				updateMaxLatency(finished - accepted);
+				log.debug(String.format("Stored %s in %d ms, %d ms after upload", file.getName(), finished - started,
+						finished - accepted));
+				queuedUploads.decrementAndGet();
+				return;
+			}
+
+			String reason = (stat != null) ? String.format("%d of its events could not be stored", stat
+					.getEntriesFailed()) : "it could not be read";
+			if (attempts < maxAttempts) {
+				if (stat != null) {
+					storedEvents += stat.getEntriesSucceeded();
+				}
+				long delay = getRetryDelay(attempts);
+				if (schedule(this, delay)) {
+					retriedUploads.incrementAndGet();
+					log.warn(String.format("Storing %s again in %d s since %s (attempt %d of %d)", file, delay / 1000,
+							reason, attempts, maxAttempts), failure);
+				} else {
+					// the queue was stopped, the upload is stored again when it is started
+					log.warn(String.format("Failed to store upload %s since %s", file, reason), failure);
+					queuedUploads.decrementAndGet();
+				}
+			} else {
+				statistics.add((stat != null) ? getTotal(stat) : new DailyStatistic(null, 1, storedEvents, 0, 0));
+				failedUploads.incrementAndGet();
+				log.error(String.format("Giving up storing upload %s after %d attempts since %s, moved to %s", file,
+						attempts, reason, moveToFailed(this)), failure);
+				queuedUploads.decrementAndGet();
+			}
+		}
+
+		/**
+		 * @return the statistic of all attempts, given the statistic of the last one
+		 */
+		private DailyStatistic getTotal(DailyStatistic stat) {
+			return new DailyStatistic(null, 1, storedEvents + stat.getEntriesSucceeded(), stat.getEntriesFailed(),
+					Math.max(0, stat.getEntriesConflicting() - storedEvents));
+		}
+
+		public String getName() {
+			// strip the prefix that makes spooled file names unique
+			String name = file.getName();
+			return name.substring(name.indexOf('-', name.indexOf('-') + 1) + 1);
+		}
+
+	}
+
+	private final File directory;
+
+	private final int workers;
+
+	private final int maxQueuedUploads;
+
+	private final int eventsPerTransaction;
+
+	private final int maxAttempts;
+
+	private final long retryDelay;
+
+	private final DailyStatisticCounter statistics;
+
+	private final AtomicInteger queuedUploads = new AtomicInteger();
+
+	private final AtomicLong processedUploads = new AtomicLong();
+
+	private final AtomicLong failedUploads = new AtomicLong();
+
+	private final AtomicLong retriedUploads = new AtomicLong();
+
+	private final AtomicLong totalLatency = new AtomicLong();
+
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	private final AtomicLong totalProcessingTime = new AtomicLong();
+
+	private final AtomicLong uploadCounter = new AtomicLong();
+
+	private volatile ScheduledExecutorService executor;
+
+	/**
+	 * @param maxAttempts
+	 *            the number of times an upload is stored before it is moved to the failed uploads
+	 * @param retryDelay
+	 *            the delay in ms before an upload is stored the second time, doubled for each further attempt
+	 */
+	public UploadQueue(File directory, int workers, int maxQueuedUploads, int eventsPerTransaction, int maxAttempts,
+			long retryDelay, DailyStatisticCounter statistics) {
+		this.directory = directory;
+		this.workers = workers;
+		this.maxQueuedUploads = maxQueuedUploads;
+		this.eventsPerTransaction = eventsPerTransaction;
+		this.maxAttempts = maxAttempts;
+		this.retryDelay = retryDelay;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Starts the workers and queues the uploads that were spooled before.
+	 */
+	public synchronized void start() throws IOException {
+		if (executor != null) {
+			return;
+		}
+
+		executor = new ScheduledThreadPoolExecutor(workers, new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "Upload Worker " + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		recover(true);
+		recover(false);
+	}
+
+	/**
+	 * Stops accepting uploads and waits for the uploads in progress. Uploads that have not been stored, including
+	 * those waiting to be stored again, are stored after the next start.
+	 */
+	public synchronized void shutdown() {
+		ScheduledExecutorService currentExecutor = executor;
+		if (currentExecutor == null) {
+			return;
+		}
+		executor = null;
+
+		int pending = currentExecutor.shutdownNow().size();
+		queuedUploads.addAndGet(-pending);
+		try {
+			if (!currentExecutor.awaitTermination(SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS)) {
+				log.warn("Upload workers did not terminate");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		log.info(String.format("Upload queue stopped, %d uploads pending", pending));
+	}
+
+	/**
+	 * Spools <code>item</code> for storing.
+	 *
+	 * @return false if the queue is full or stopped
+	 */
+	public boolean offer(FileItem item, boolean legacy) throws Exception {
+		ScheduledExecutorService currentExecutor = executor;
+		if (currentExecutor == null) {
+			return false;
+		}
+		if (queuedUploads.incrementAndGet() > maxQueuedUploads) {
+			queuedUploads.decrementAndGet();
+			return false;
+		}
+
+		boolean queued = false;
+		try {
+			long accepted = System.currentTimeMillis();
+			String name = String.format("%013d-%d-%s", accepted, uploadCounter.incrementAndGet(),
+					FilenameUtils.getName(item.getName()));
+			File file = new File(getDirectory(legacy), name);
+			File part = new File(file.getPath() + PART_SUFFIX);
+			item.write(part);
+			if (!part.renameTo(file)) {
+				part.delete();
+				throw new IOException(String.format("Failed to spool upload to %s", file));
+			}
+
+			currentExecutor.execute(new Upload(file, legacy, accepted));
+			queued = true;
+		} finally {
+			if (!queued) {
+				queuedUploads.decrementAndGet();
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of uploads that are spooled but not yet stored
+	 */
+	public int getQueuedUploads() {
+		return queuedUploads.get();
+	}
+
+	public long getProcessedUploads() {
+		return processedUploads.get();
+	}
+
+	/**
+	 * @return the number of uploads that were moved to the failed uploads
+	 */
+	public long getFailedUploads() {
+		return failedUploads.get();
+	}
+
+	/**
+	 * @return the number of times an upload was scheduled to be stored again
+	 */
+	public long getRetriedUploads() {
+		return retriedUploads.get();
+	}
+
+	/**
+	 * @return the average time in ms from accepting an upload until it was stored
+	 */
+	public long getAverageLatency() {
+		long processed = processedUploads.get();
+		return (processed > 0) ? totalLatency.get() / processed : 0;
+	}
+
+	public long getMaxLatency() {
+		return maxLatency.get();
+	}
+
+	/**
+	 * @return the average time in ms spent storing an upload
+	 */
+	public long getAverageProcessingTime() {
+		long processed = processedUploads.get();
+		return (processed > 0) ? totalProcessingTime.get() / processed : 0;
+	}
+
+	private void updateMaxLatency(long latency) {
+		long max;
+		while ((max = maxLatency.get()) < latency) {
+			if (maxLatency.compareAndSet(max, latency)) {
+				break;
+			}
+		}
+	}
+
+	private File getDirectory(boolean legacy) throws IOException {
+		File dir = new File(directory, legacy ? LEGACY_DIRECTORY : DIRECTORY);
+		if (!dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException(String.format("Failed to create spool directory %s", dir));
+		}
+		return dir;
+	}
+
+	private long getRetryDelay(int attempts) {
+		long delay = retryDelay;
+		for (int i = 1; i < attempts && delay < MAX_RETRY_DELAY_IN_MS; i++) {
+			delay *= 2;
+		}
+		return Math.min(delay, MAX_RETRY_DELAY_IN_MS);
+	}
+
+	private boolean schedule(Upload upload, long delay) {
+		ScheduledExecutorService currentExecutor = executor;
+		if (currentExecutor == null) {
+			return false;
+		}
+		try {
+			currentExecutor.schedule(upload, delay, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (RejectedExecutionException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @return the file the upload was moved to, the spooled file if it could not be moved
+	 */
+	private File moveToFailed(Upload upload) {
+		File dir = new File(directory, (upload.legacy ? LEGACY_DIRECTORY : DIRECTORY) + FAILED_SUFFIX);
+		File target = new File(dir, upload.file.getName());
+		if ((dir.isDirectory() || dir.mkdirs()) && upload.file.renameTo(target)) {
+			return target;
+		}
+		log.warn(String.format("Failed to move upload %s to %s", upload.file, dir));
+		return upload.file;
+	}
+
+	private void recover(boolean legacy) throws IOException {
+		File[] files = getDirectory(legacy).listFiles();
+		if (files == null) {
+			return;
+		}
+
+		// names start with the time of the upload
+		Arrays.sort(files);
+		int recovered = 0;
+		for (File file : files) {
+			if (file.getName().endsWith(PART_SUFFIX)) {
+				// the upload was interrupted while spooling, the client has not been told it succeeded
+				file.delete();
+			} else if (file.isFile()) {
+				queuedUploads.incrementAndGet();
+				executor.execute(new Upload(file, legacy, file.lastModified()));
+				++recovered;
+			}
+		}
+		if (recovered > 0) {
+			log.info(String.format("Recovered %d pending uploads from %s", recovered, getDirectory(legacy)));
+		}
+	}
+
+	/**
+	 * @return the statistic of storing the events of <code>upload</code>
+	 */
+	private DailyStatistic store(Upload upload) throws IOException {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			InputStream in = new BufferedInputStream(new FileInputStream(upload.file));
+			DailyStatistic stat;
+			try {
+				stat = upload.legacy ? loadFile(session, upload.getName(), in) : loadFile2(session, upload.getName(),
+						in);
+			} finally {
+				in.close();
+			}
+			return stat;
+		} finally {
+			try {
+				session.close();
+			} catch (Exception e) {
+				// ignore
+			}
+		}
+	}
+
+	private DailyStatistic loadFile(Session session, String name, InputStream in) throws IOException {
+		final EventBatchLoader<UserInteractionEvent> loader = EventBatchLoader.createLegacyLoader(session,
+				eventsPerTransaction);
+		UsageDataUtil.processZip(name, in, new UsageDataUtil.UserInteractionEventCallback() {
+			public boolean visit(UserInteractionEvent uie) {
+				loader.add(uie);
+				return true;
+			}
+		});
+		return loader.finish();
+	}
+
+	private DailyStatistic loadFile2(Session session, String name, InputStream in) throws IOException {
+		final EventBatchLoader<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> loader =
+				EventBatchLoader.createLoader(session, eventsPerTransaction);
+		final UsageRollupLoader rollups = new UsageRollupLoader();
+		UsageDataUtil2.processZip(name, in, new UsageDataUtil2.UserInteractionEventCallback() {
+			public boolean visit(com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent uie) {
+				loader.add(uie);
+				rollups.add(uie);
+				return true;
+			}
+		});
+		DailyStatistic stat = loader.finish();
+		// the rollups are added when the upload is stored again
+		if (stat.getEntriesFailed() == 0) {
+			rollups.finish(session);
+		}
+		return stat;
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.File;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the {@link UploadQueue} and the {@link DailyStatisticCounter} shared by the servlets. Must be registered
+ * after the HibernateListener so that both are stopped before the session factory is closed.
+ */
+public class UploadQueueListener implements ServletContextListener {
+
+	public static final String QUEUE_ATTRIBUTE = UploadQueue.class.getName();
+
+	public static final String STATISTICS_ATTRIBUTE = DailyStatisticCounter.class.getName();
+
+	private static final String SPOOL_DIRECTORY = "uploadSpoolDirectory";
+	private static final String WORKERS = "uploadWorkers";
+	private static final String MAX_QUEUED_UPLOADS = "maxQueuedUploads";
+	private static final String EVENTS_PER_TRANSACTION = "eventsPerTransaction";
+	private static final String UPLOAD_ATTEMPTS = "uploadAttempts";
+	private static final String UPLOAD_RETRY_DELAY = "uploadRetryDelay";
+	private static final String STATISTICS_FLUSH_INTERVAL = "statisticsFlushInterval";
+
+	private static Logger log = LoggerFactory.getLogger(UploadQueueListener.class);
+
+	public void contextInitialized(ServletContextEvent event) {
+		ServletContext context = event.getServletContext();
+
+		DailyStatisticCounter statistics = new DailyStatisticCounter(getIntParameter(context,
+				STATISTICS_FLUSH_INTERVAL, (int) (DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS / 1000)) * 1000L);
+		statistics.start();
+		context.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+
+		String path = context.getInitParameter(SPOOL_DIRECTORY);
+		File directory;
+		if (path != null) {
+			directory = new File(path.trim());
+		} else {
+			directory = new File(System.getProperty("java.io.tmpdir"), "usage-uploads");
+			log.warn(String.format("%s is not set, spooling uploads to %s. Uploads that are not stored yet are lost "
+					+ "if the directory is cleaned up.", SPOOL_DIRECTORY, directory));
+		}
+		long retryDelay = getIntParameter(context, UPLOAD_RETRY_DELAY,
+				(int) (UploadQueue.DEFAULT_RETRY_DELAY_IN_MS / 1000)) * 1000L;
+		UploadQueue queue = new UploadQueue(directory,
+				getIntParameter(context, WORKERS, UploadQueue.DEFAULT_WORKERS),
+				getIntParameter(context, MAX_QUEUED_UPLOADS, UploadQueue.DEFAULT_MAX_QUEUED_UPLOADS),
+				getIntParameter(context, EVENTS_PER_TRANSACTION, EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION),
+				getIntParameter(context, UPLOAD_ATTEMPTS, UploadQueue.DEFAULT_MAX_ATTEMPTS), retryDelay, statistics);
+
+		log.debug(String.format("Starting upload queue in %s", directory));
+		try {
+			queue.start();
+		} catch (Exception e) {
+			// uploads are rejected until the server is restarted
+			log.error("Failed to start upload queue", e);
+		}
+		context.setAttribute(QUEUE_ATTRIBUTE, queue);
+	}
+
+	public void contextDestroyed(ServletContextEvent event) {
+		UploadQueue queue = (UploadQueue) event.getServletContext().getAttribute(QUEUE_ATTRIBUTE);
+		if (queue != null) {
+			log.debug("Stopping upload queue");
+			queue.shutdown();
+			event.getServletContext().removeAttribute(QUEUE_ATTRIBUTE);
+		}
+
+		// stored uploads are counted until the queue is stopped
+		DailyStatisticCounter statistics = (DailyStatisticCounter) event.getServletContext().getAttribute(
+				STATISTICS_ATTRIBUTE);
+		if (statistics != null) {
+			log.debug("Storing daily statistics");
+			statistics.shutdown();
+			event.getServletContext().removeAttribute(STATISTICS_ATTRIBUTE);
+		}
+	}
+
+	private int getIntParameter(ServletContext context, String name, int defaultValue) {
+		String value = context.getInitParameter(name);
+		return (value != null) ? Integer.parseInt(value.trim()) : defaultValue;
+	}
+
+}
@@ -1,8 +1,6 @@
 package com.atlassian.connector.eclipse.monitor.server.servlet;
 
 import java.io.IOException;
-import java.util.Calendar;
-import java.util.Date;
 import java.util.List;
 
 import javax.servlet.ServletConfig;
@@ -16,23 +14,16 @@ import org.apache.commons.fileupload.FileItemFactory;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.disk.DiskFileItemFactory;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
-import org.eclipse.mylyn.monitor.core.UserInteractionEvent;
-import org.hibernate.Transaction;
-import org.hibernate.classic.Session;
-import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.atlassian.connector.eclipse.monitor.core.UsageDataUtil2;
-import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
-import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
-
 /**
  * Servlet implementation class UploadServlet
  */
 public class UploadServlet extends HttpServlet {
 	private static final long serialVersionUID = 1L;
 	private static final String DESCRIPTION_URL = "descriptionUrl";
+	private static final String RETRY_AFTER_IN_SECONDS = "3600";
 	private static final Logger log = LoggerFactory.getLogger(UploadServlet.class);
 	
 	private String descriptionUrl;
@@ -75,6 +66,13 @@ public class UploadServlet extends HttpServlet {
 			return;
 		}
 		
+		UploadQueue queue = (UploadQueue) getServletContext().getAttribute(UploadQueueListener.QUEUE_ATTRIBUTE);
+		if (queue == null) {
+			log.error("Upload queue is not available");
+			response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			return;
+		}
+		
 		FileItemFactory factory = new DiskFileItemFactory();
 		ServletFileUpload upload = new ServletFileUpload(factory);
 		
@@ -89,136 +87,40 @@ public class UploadServlet extends HttpServlet {
 		}
 		
 		if (files != null) {
-			Session session = null;
-			try {
-				session = HibernateUtil.getSessionFactory().openSession();
-				updateDailyStats(session, request.getServletPath().endsWith("-2") ? loadFiles2(session, files) : loadFiles(session, files));
-			} finally {
-				if (session != null) {
-					try {
-						session.close();
-					} catch(Exception e) {
-						// ignore
-					}
-				}
- 			}
-		}
-		
-		log.debug(String.format("Finished processing request from %s", request.getRemoteAddr()));
-	}
-	
-	private void updateDailyStats(Session session, DailyStatistic stat) {
-		Transaction tx = session.beginTransaction();
-		
-		Date today = Calendar.getInstance().getTime();
-		DailyStatistic daily = (DailyStatistic) session.get(DailyStatistic.class, today);
-		if (daily == null) {
-			daily = new DailyStatistic(today, 1, stat.getEntriesSucceeded(), stat.getEntriesFailed(), 
-					stat.getEntriesConflicting());
-		} else {
-			daily.update(stat);
-		}
-		session.saveOrUpdate(daily);
-		tx.commit();
-	}
-
-	private DailyStatistic loadFiles(final Session session, final List<?> files) {
-		final int[] succeeded = new int[] {0};
-		final int[] failed = new int[] {0};
-		final int[] conflicts = new int[] {0};
-		
-		log.debug("Loading files");
-		
-		try {
-			for (Object fileObj : files) {
-				UsageDataUtil.processFile((FileItem) fileObj, new UsageDataUtil.UserInteractionEventCallback() {
-					public boolean visit(UserInteractionEvent uie) {
-						// put as much data as we can into db, don't care if something is dropped
-						Transaction tx = null;
-						try {
-							tx = session.beginTransaction();
-							session.persist(uie);
-							tx.commit();
-							
-							++succeeded[0];
-						} catch(Exception e) {
-							if (tx != null) {
-								try {
-									tx.rollback();
-								} catch(Exception e1) {
-									// ignore
-								}
-							}
-							
-							if (e instanceof ConstraintViolationException) {
-								// tried to put data again (happens sometimes)
-								++conflicts[0];
-							} else {
-								log.warn("Failed to store UserInteractionEvent", e);
-								++failed[0];
-							}
-						}
-						return true;
-					}
-				});
-			}
-		} catch (Exception e) {
-			log.error("Exception while storing UserInteractionEvent", e);
-		}
-		
-		log.debug("Files loaded");
-		
-		return new DailyStatistic(null, 1, succeeded[0], failed[0], conflicts[0]);
-	}
-	
-	private DailyStatistic loadFiles2(final Session session, final List<?> files) {
-		final int[] succeeded = new int[] {0};
-		final int[] failed = new int[] {0};
-		final int[] conflicts = new int[] {0};
-		
-		log.debug("Loading files");
-		
-		try {
+			boolean legacy = !request.getServletPath().endsWith("-2");
 			for (Object fileObj : files) {
-				UsageDataUtil2.processFile((FileItem) fileObj, new UsageDataUtil2.UserInteractionEventCallback() {
-					public boolean visit(
-							com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent uie) {
-						// put as much data as we can into db, don't care if something is dropped
-						Transaction tx = null;
-						try {
-							tx = session.beginTransaction();
-							session.persist(uie);
-							tx.commit();
-							
-							++succeeded[0];
-						} catch(Exception e) {
-							if (tx != null) {
-								try {
-									tx.rollback();
-								} catch(Exception e1) {
-									// ignore
-								}
-							}
-							
-							if (e instanceof ConstraintViolationException) {
-								// tried to put data again (happens sometimes)
-								++conflicts[0];
-							} else {
-								log.warn("Failed to store UserInteractionEvent", e);
-								++failed[0];
-							}
-						}
-						return true;
-					}
-				});
+				FileItem file = (FileItem) fileObj;
+				if (file.isFormField()) {
+					continue;
+				}
+				if (file.getContentType() == null || !file.getContentType().startsWith("application/zip")) {
+					log.warn(String.format("Silently ignoring upload from someone (not a ZIP file): %s",
+							file.getName()));
+					continue;
+				}
+				
+				boolean queued;
+				try {
+					queued = queue.offer(file, legacy);
+				} catch (Exception e) {
+					log.error("Failed to spool upload", e);
+					response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+					return;
+				}
+				if (!queued) {
+					log.warn(String.format("Upload queue is full, rejecting upload from %s",
+							request.getRemoteAddr()));
+					response.setHeader("Retry-After", RETRY_AFTER_IN_SECONDS);
+					response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+					return;
+				}
 			}
-		} catch (Exception e) {
-			log.error("Exception while storing UserInteractionEvent", e);
 		}
 		
-		log.debug("Files loaded");
+		// the uploads are stored by the upload queue
+		response.setStatus(HttpServletResponse.SC_ACCEPTED);
 		
-		return new DailyStatistic(null, 1, succeeded[0], failed[0], conflicts[0]);
+		log.debug(String.format("Finished processing request from %s", request.getRemoteAddr()));
 	}
 	
 }
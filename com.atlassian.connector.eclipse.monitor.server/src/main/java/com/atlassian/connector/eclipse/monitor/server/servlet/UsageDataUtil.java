@@ -1,16 +1,18 @@
 package com.atlassian.connector.eclipse.monitor.server.servlet;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UnsupportedEncodingException;
-import java.util.List;
+import java.io.InputStreamReader;
+import java.io.ObjectInputStream;
+import java.io.SequenceInputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.httpclient.methods.multipart.FilePart;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.eclipse.mylyn.monitor.core.InteractionEvent;
 import org.eclipse.mylyn.monitor.core.UserInteractionEvent;
 import org.slf4j.Logger;
@@ -27,6 +29,8 @@ public class UsageDataUtil {
 	}
 
 	public static final XStream xs;
+	private static final byte[] STREAM_START = "<object-stream>".getBytes();
+	private static final byte[] STREAM_END = "</object-stream>".getBytes();
 	private static final Logger log = LoggerFactory.getLogger(UploadServlet.class);
 
 	static {
@@ -55,60 +59,86 @@ public class UsageDataUtil {
 		log.debug(String.format("Parsing %s", file.getName()));
 		
 		if (file.getContentType().startsWith("application/zip")) {
-			ZipInputStream zip = new ZipInputStream(file.getInputStream());
-			ZipEntry ze;
-			
-			int firstDot = file.getName().indexOf(".");
-			if (firstDot == -1 || firstDot == 0) {
-				log.warn("Silently ignoring upload because file name doesn't have '.'");
-			}
-			
-			final String uid = file.getName().substring(0, firstDot);
-			
-			while((ze = zip.getNextEntry()) != null) {
-				log.debug(String.format("Processing %s", ze.getName()));
-				
-				if (ze.isDirectory()) continue;
-				if (!ze.getName().endsWith(".xml")) continue;
-				
-				processStream(zip, callback, uid);
-			}
+			processZip(file.getName(), file.getInputStream(), callback);
 		} else {
 			log.warn(String.format("Silently ignoring upload from someone (not a ZIP file): %s", file.getName()));
 		}
 	}
 
-	// TODO: naive implementation, may require improvements
-	public static void processStream(InputStream is, UserInteractionEventCallback callback, String uid) {
-		ByteArrayOutputStream os = new ByteArrayOutputStream();
-		try {
-			IOUtils.copy(is, os);
-		} catch (IOException e1) {
-			log.error("Unable to read input stream", e1);
+	/**
+	 * Visits the events of the usage data files in the zip file <code>is</code> that was uploaded as
+	 * <code>name</code>. The name starts with the uid of the uploading user.
+	 */
+	public static void processZip(String name, InputStream is, UserInteractionEventCallback callback)
+			throws IOException {
+		int firstDot = name.indexOf(".");
+		if (firstDot == -1 || firstDot == 0) {
+			log.warn("Silently ignoring upload because file name doesn't have '.'");
 			return;
 		}
 		
-		String xml = null;
-		try {
-			xml = "<list>" + os.toString(FilePart.DEFAULT_CHARSET) + "</list>";
-		} catch (UnsupportedEncodingException e1) {
-			log.error("Unable to read input stream", e1);
-			return;
-		} 
+		final String uid = name.substring(0, firstDot);
 		
+		ZipInputStream zip = new ZipInputStream(is);
+		ZipEntry ze;
+		while((ze = zip.getNextEntry()) != null) {
+			log.debug(String.format("Processing %s", ze.getName()));
+			
+			if (ze.isDirectory()) continue;
+			if (!ze.getName().endsWith(".xml")) continue;
+			
+			processStream(zip, callback, uid);
+		}
+	}
+
+	/**
+	 * Visits the events in <code>is</code> one at a time. The events are parsed while they are visited, therefore the
+	 * memory used does not depend on the size of the stream and reading pauses while <code>callback</code> stores an
+	 * event. Events before a malformed one are still visited.
+	 */
+	public static void processStream(InputStream is, UserInteractionEventCallback callback, String uid) {
 		try {
-			Object o = xs.fromXML(xml);
-			if (o != null && o instanceof List<?>) {
-				List<?> events = (List<?>) o;
-				for (Object event : events) {
-					if(!callback.visit(new UserInteractionEvent((InteractionEvent) event, uid))) {
+			ObjectInputStream in = createEventStream(xs, is);
+			try {
+				Object event;
+				while ((event = readEvent(in)) != null) {
+					if (event instanceof InteractionEvent
+							&& !callback.visit(new UserInteractionEvent((InteractionEvent) event, uid))) {
 						break;
 					}
 				}
+			} finally {
+				in.close();
 			}
-		} catch(BaseException e) {
+		} catch (IOException e) {
+			log.error("Unable to read input stream", e);
+		} catch (ClassNotFoundException e) {
+			log.error("Unable to deserialize XML", e);
+		} catch (BaseException e) {
 			log.error("Unable to deserialize XML", e);
 		}
 	}
+
+	/**
+	 * Returns a stream that reads the <code>interactionEvent</code> elements of <code>is</code> with a pull parser.
+	 * Usage data files contain a sequence of elements without a root element, so one is added around the content.
+	 * Closing the returned stream does not close <code>is</code>.
+	 */
+	public static ObjectInputStream createEventStream(XStream xs, InputStream is) throws IOException {
+		InputStream content = new SequenceInputStream(new ByteArrayInputStream(STREAM_START),
+				new SequenceInputStream(new CloseShieldInputStream(is), new ByteArrayInputStream(STREAM_END)));
+		return xs.createObjectInputStream(new InputStreamReader(content, FilePart.DEFAULT_CHARSET));
+	}
+
+	/**
+	 * Returns the next object of <code>in</code> or <code>null</code> at the end of the stream.
+	 */
+	public static Object readEvent(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		try {
+			return in.readObject();
+		} catch (EOFException e) {
+			return null;
+		}
+	}
 	
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.hibernate.Session;
+
+/**
+ * Answers the monthly usage reports of queries/*.sql from the rollups maintained by {@link UsageRollupLoader} instead
+ * of the whole event history. Each report is a list of rows, the first row holds the column names.
+ */
+public class UsageReports {
+
+	public static final String OPT_INS = "opt-ins";
+
+	public static final String FEATURE_USAGE_EXISTING = "feature-usage-existing";
+
+	public static final String FEATURE_USAGE_NEW = "feature-usage-new";
+
+	public static final String INSTALLATIONS = "installations";
+
+	private static final String[] FEATURES = { "Any", "JIRA", "Crucible", "Bamboo", "FishEye" };
+
+	private static final String FEATURE_COLUMNS = "sum(m.atlassian), sum(m.jira), sum(m.crucible), sum(m.bamboo), "
+			+ "sum(m.fisheye)";
+
+	private final Session session;
+
+	public UsageReports(Session session) {
+		this.session = session;
+	}
+
+	/**
+	 * @return the report called <code>name</code> or null if there is no such report
+	 */
+	public List<String[]> getReport(String name) {
+		if (OPT_INS.equals(name)) {
+			return getOptIns();
+		} else if (FEATURE_USAGE_EXISTING.equals(name)) {
+			return getFeatureUsageExisting();
+		} else if (FEATURE_USAGE_NEW.equals(name)) {
+			return getFeatureUsageNew();
+		} else if (INSTALLATIONS.equals(name)) {
+			return getInstallations();
+		}
+		return null;
+	}
+
+	/**
+	 * Percentage of the users reporting in a month that opted in and out, see optinsvsoptouts.
+	 */
+	public List<String[]> getOptIns() {
+		List<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "Period", "Opt-ins", "Opt-outs" });
+		for (Map.Entry<Date, long[]> entry : getOptInCounts().entrySet()) {
+			long[] counts = entry.getValue();
+			rows.add(new String[] { formatMonth(entry.getKey()), formatPercent(counts[0], counts[0] + counts[1]),
+					formatPercent(counts[1], counts[0] + counts[1]) });
+		}
+		return rows;
+	}
+
+	/**
+	 * Features used by all users reporting in a month, see eclipse_featureusage_existing.sql.
+	 */
+	public List<String[]> getFeatureUsageExisting() {
+		Map<Date, long[]> optIns = getOptInCounts();
+		Iterator<Map.Entry<Date, Long>> firstReports = getFirstReportCounts().entrySet().iterator();
+		Map.Entry<Date, Long> firstReport = firstReports.hasNext() ? firstReports.next() : null;
+		long reportedBefore = 0;
+
+		List<String[]> rows = new ArrayList<String[]>();
+		rows.add(getFeatureHeader("Existing Users (Logged ever)", "Existing Users (Logged this month)"));
+		List<?> result = session.createQuery("select m.period, count(m.uid), " + FEATURE_COLUMNS
+				+ " from MonthlyUsage m group by m.period order by m.period").list();
+		for (Object row : result) {
+			Object[] values = (Object[]) row;
+			Date month = (Date) values[0];
+			// both are ordered by month
+			while (firstReport != null && !firstReport.getKey().after(month)) {
+				reportedBefore += firstReport.getValue().longValue();
+				firstReport = firstReports.hasNext() ? firstReports.next() : null;
+			}
+			rows.add(getFeatureRow(month, String.valueOf(reportedBefore), values, optIns.get(month)));
+		}
+		return rows;
+	}
+
+	/**
+	 * Features used by the users reporting for the first time in a month, see eclipse_featureusage_new.sql.
+	 */
+	public List<String[]> getFeatureUsageNew() {
+		Map<Date, long[]> optIns = getOptInCounts();
+
+		List<String[]> rows = new ArrayList<String[]>();
+		rows.add(getFeatureHeader(null, "New Users (Logged)"));
+		List<?> result = session.createQuery("select f.month, count(m.uid), " + FEATURE_COLUMNS
+				+ " from MonthlyUsage m, com.atlassian.connector.eclipse.monitor.server.model.FirstReport f"
+				+ " where m.uid = f.uid and m.period = f.month group by f.month order by f.month").list();
+		for (Object row : result) {
+			Object[] values = (Object[]) row;
+			Date month = (Date) values[0];
+			rows.add(getFeatureRow(month, null, values, optIns.get(month)));
+		}
+		return rows;
+	}
+
+	/**
+	 * Users reporting for the first time in a month, see eclipse_installations.sql.
+	 */
+	public List<String[]> getInstallations() {
+		List<String[]> rows = new ArrayList<String[]>();
+		rows.add(new String[] { "Period", "New Installations in Period", "Total Installations" });
+		long total = 0;
+		for (Map.Entry<Date, Long> entry : getFirstReportCounts().entrySet()) {
+			total += entry.getValue().longValue();
+			rows.add(new String[] { formatMonth(entry.getKey()), String.valueOf(entry.getValue()),
+					String.valueOf(total) });
+		}
+		return rows;
+	}
+
+	private String[] getFeatureHeader(String reportedBefore, String users) {
+		List<String> header = new ArrayList<String>();
+		header.add("Period");
+		if (reportedBefore != null) {
+			header.add(reportedBefore);
+		}
+		header.add(users);
+		header.add("# Used Any Feature (Total) - estimated");
+		header.add("# Used Any Feature (Logged)");
+		for (String feature : FEATURES) {
+			header.add("% Used " + feature + " Feature (Logged or Total)");
+		}
+		return header.toArray(new String[header.size()]);
+	}
+
+	/**
+	 * @param values
+	 *            the month, the number of users and the number of users that used each of {@link #FEATURES}
+	 */
+	private String[] getFeatureRow(Date month, String reportedBefore, Object[] values, long[] optIns) {
+		long users = ((Number) values[1]).longValue();
+		long usedAny = ((Number) values[2]).longValue();
+
+		List<String> row = new ArrayList<String>();
+		row.add(formatMonth(month));
+		if (reportedBefore != null) {
+			row.add(reportedBefore);
+		}
+		row.add(String.valueOf(users));
+		// users that opted out do not report, so scale by the share of users that opted in
+		long optInPercent = (optIns != null) ? optIns[0] * 100 / (optIns[0] + optIns[1]) : 0;
+		row.add((optInPercent > 0) ? String.valueOf(usedAny * 100 / optInPercent) : "");
+		row.add(String.valueOf(usedAny));
+		for (int i = 0; i < FEATURES.length; i++) {
+			row.add(formatPercent(((Number) values[2 + i]).longValue(), users));
+		}
+		return row.toArray(new String[row.size()]);
+	}
+
+	/**
+	 * @return the number of users that opted in and out by month
+	 */
+	private Map<Date, long[]> getOptInCounts() {
+		Map<Date, long[]> counts = new LinkedHashMap<Date, long[]>();
+		List<?> result = session.createQuery("select m.period, sum(m.optin), sum(m.optout) from MonthlyUsage m "
+				+ "group by m.period having sum(m.optin) + sum(m.optout) > 0 order by m.period").list();
+		for (Object row : result) {
+			Object[] values = (Object[]) row;
+			counts.put((Date) values[0], new long[] { ((Number) values[1]).longValue(),
+					((Number) values[2]).longValue() });
+		}
+		return counts;
+	}
+
+	/**
+	 * @return the number of users that reported for the first time by month
+	 */
+	private Map<Date, Long> getFirstReportCounts() {
+		Map<Date, Long> counts = new LinkedHashMap<Date, Long>();
+		List<?> result = session.createQuery("select f.month, count(f.uid) "
+				+ "from com.atlassian.connector.eclipse.monitor.server.model.FirstReport f "
+				+ "group by f.month order by f.month").list();
+		for (Object row : result) {
+			Object[] values = (Object[]) row;
+			counts.put((Date) values[0], new Long(((Number) values[1]).longValue()));
+		}
+		return counts;
+	}
+
+	private String formatMonth(Date month) {
+		return new SimpleDateFormat("yyyy-MM").format(month);
+	}
+
+	private String formatPercent(long count, long total) {
+		return (total > 0) ? String.format(Locale.ENGLISH, "%.1f%%", count * 100.0 / total) : "";
+	}
+
+}
@@ -0,0 +1,230 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.exception.ConstraintViolationException;
+
+import com.atlassian.connector.eclipse.monitor.core.InteractionEvent.Kind;
+import com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent;
+import com.atlassian.connector.eclipse.monitor.server.model.FirstReport;
+import com.atlassian.connector.eclipse.monitor.server.model.UsageRollup;
+
+/**
+ * Maintains the rollups the usage reports are answered from (see {@link UsageReports}) while an upload is stored.
+ * The events of an upload are rolled up in memory and added to the stored rollups when the upload has been stored.
+ * <p>
+ * Adding a rollup only sets flags and moves the first report of a user backwards, so storing an upload again does not
+ * change the rollups.
+ */
+public class UsageRollupLoader {
+
+	public static final String WEEKLY_USAGE = "WeeklyUsage";
+
+	public static final String MONTHLY_USAGE = "MonthlyUsage";
+
+	static final String MONITOR_PLUGIN_ID = "com.atlassian.connector.eclipse.monitor.core";
+
+	static final String MONITORING_ENABLED = "monitoring.enabled";
+
+	private static final String FIRST_REPORT_QUERY = "update "
+			+ "com.atlassian.connector.eclipse.monitor.server.model.FirstReport f "
+			+ "set f.week = :week, f.month = :month where f.uid = :uid and f.week > :week";
+
+	private final Map<UsageRollup, UsageRollup> weeks = new HashMap<UsageRollup, UsageRollup>();
+
+	private final Map<UsageRollup, UsageRollup> months = new HashMap<UsageRollup, UsageRollup>();
+
+	private final Map<String, Date> firstWeeks = new HashMap<String, Date>();
+
+	public void add(UserInteractionEvent event) {
+		if (event.getUid() == null || event.getDate() == null) {
+			return;
+		}
+
+		UsageRollup rollup = new UsageRollup(event.getUid(), getWeek(event.getDate()));
+		classify(event, rollup);
+		add(weeks, rollup);
+
+		UsageRollup monthly = new UsageRollup(event.getUid(), getMonth(rollup.getPeriod()));
+		monthly.update(rollup);
+		add(months, monthly);
+
+		Date firstWeek = firstWeeks.get(event.getUid());
+		if (firstWeek == null || rollup.getPeriod().before(firstWeek)) {
+			firstWeeks.put(event.getUid(), rollup.getPeriod());
+		}
+	}
+
+	/**
+	 * Adds the rollups of the events added since the last invocation to the stored rollups.
+	 */
+	public void finish(Session session) {
+		try {
+			for (UsageRollup rollup : weeks.values()) {
+				store(session, WEEKLY_USAGE, rollup);
+			}
+			for (UsageRollup rollup : months.values()) {
+				store(session, MONTHLY_USAGE, rollup);
+			}
+			for (Map.Entry<String, Date> entry : firstWeeks.entrySet()) {
+				store(session, new FirstReport(entry.getKey(), entry.getValue(), getMonth(entry.getValue())));
+			}
+		} finally {
+			weeks.clear();
+			months.clear();
+			firstWeeks.clear();
+			session.clear();
+		}
+	}
+
+	/**
+	 * Sets the flags of <code>rollup</code> that <code>event</code> counts for. Features are the actions and jobs of
+	 * the connectors, which are told apart by their plug-in ids. Must match queries/usage_rollups.sql.
+	 */
+	static void classify(UserInteractionEvent event, UsageRollup rollup) {
+		String pluginId = event.getPluginId();
+		if (pluginId == null) {
+			return;
+		}
+
+		if (event.getKind() == Kind.PREFERENCE && MONITOR_PLUGIN_ID.equals(pluginId)
+				&& MONITORING_ENABLED.equals(event.getEventId())) {
+			if (Boolean.valueOf(event.getDetails()).booleanValue()) {
+				rollup.setOptin(1);
+			} else {
+				rollup.setOptout(1);
+			}
+		} else if (event.getKind() == Kind.ACTION || event.getKind() == Kind.JOB) {
+			rollup.setJira(pluginId.indexOf(".jira") != -1 ? 1 : 0);
+			rollup.setCrucible(pluginId.indexOf(".crucible") != -1 ? 1 : 0);
+			rollup.setBamboo(pluginId.indexOf(".bamboo") != -1 ? 1 : 0);
+			rollup.setFisheye(pluginId.indexOf(".fisheye") != -1 ? 1 : 0);
+			rollup.setAtlassian(rollup.getJira() | rollup.getCrucible() | rollup.getBamboo() | rollup.getFisheye());
+		}
+	}
+
+	/**
+	 * Returns the Monday starting the week of <code>date</code>, like <code>date_trunc('week', date)</code>.
+	 */
+	static Date getWeek(Date date) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setFirstDayOfWeek(Calendar.MONDAY);
+		calendar.setTime(date);
+		calendar.set(Calendar.DAY_OF_WEEK, Calendar.MONDAY);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		return calendar.getTime();
+	}
+
+	/**
+	 * Returns the first day of the month of <code>week</code>. Like the original reports, weeks count for the month
+	 * they start in.
+	 */
+	static Date getMonth(Date week) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.setTime(week);
+		calendar.set(Calendar.DAY_OF_MONTH, 1);
+		calendar.set(Calendar.HOUR_OF_DAY, 0);
+		calendar.set(Calendar.MINUTE, 0);
+		calendar.set(Calendar.SECOND, 0);
+		calendar.set(Calendar.MILLISECOND, 0);
+		return calendar.getTime();
+	}
+
+	private static void add(Map<UsageRollup, UsageRollup> rollups, UsageRollup rollup) {
+		UsageRollup existing = rollups.get(rollup);
+		if (existing == null) {
+			rollups.put(rollup, rollup);
+		} else {
+			existing.update(rollup);
+		}
+	}
+
+	private void store(Session session, String entityName, UsageRollup rollup) {
+		// a + b - a * b is the logical or of flags
+		String query = "update " + entityName + " r set "
+				+ "r.atlassian = r.atlassian + :atlassian - r.atlassian * :atlassian, "
+				+ "r.jira = r.jira + :jira - r.jira * :jira, "
+				+ "r.crucible = r.crucible + :crucible - r.crucible * :crucible, "
+				+ "r.bamboo = r.bamboo + :bamboo - r.bamboo * :bamboo, "
+				+ "r.fisheye = r.fisheye + :fisheye - r.fisheye * :fisheye, "
+				+ "r.optin = r.optin + :optin - r.optin * :optin, "
+				+ "r.optout = r.optout + :optout - r.optout * :optout "
+				+ "where r.uid = :uid and r.period = :period";
+		for (int attempt = 0; attempt < 2; attempt++) {
+			Transaction tx = session.beginTransaction();
+			try {
+				int updated = session.createQuery(query)
+						.setInteger("atlassian", rollup.getAtlassian())
+						.setInteger("jira", rollup.getJira())
+						.setInteger("crucible", rollup.getCrucible())
+						.setInteger("bamboo", rollup.getBamboo())
+						.setInteger("fisheye", rollup.getFisheye())
+						.setInteger("optin", rollup.getOptin())
+						.setInteger("optout", rollup.getOptout())
+						.setString("uid", rollup.getUid())
+						.setDate("period", rollup.getPeriod())
+						.executeUpdate();
+				if (updated == 0) {
+					session.save(entityName, rollup);
+					session.flush();
+				}
+				tx.commit();
+				return;
+			} catch (ConstraintViolationException e) {
+				// inserted by another worker in the meantime
+				rollback(session, tx);
+				if (attempt > 0) {
+					throw e;
+				}
+			} catch (RuntimeException e) {
+				rollback(session, tx);
+				throw e;
+			}
+		}
+	}
+
+	private void store(Session session, FirstReport report) {
+		for (int attempt = 0; attempt < 2; attempt++) {
+			Transaction tx = session.beginTransaction();
+			try {
+				int updated = session.createQuery(FIRST_REPORT_QUERY)
+						.setDate("week", report.getWeek())
+						.setDate("month", report.getMonth())
+						.setString("uid", report.getUid())
+						.executeUpdate();
+				if (updated == 0 && session.get(FirstReport.class, report.getUid()) == null) {
+					session.save(report);
+					session.flush();
+				}
+				tx.commit();
+				return;
+			} catch (ConstraintViolationException e) {
+				rollback(session, tx);
+				if (attempt > 0) {
+					throw e;
+				}
+			} catch (RuntimeException e) {
+				rollback(session, tx);
+				throw e;
+			}
+		}
+	}
+
+	private void rollback(Session session, Transaction tx) {
+		try {
+			tx.rollback();
+		} catch (Exception e) {
+			// ignore
+		}
+		session.clear();
+	}
+
+}
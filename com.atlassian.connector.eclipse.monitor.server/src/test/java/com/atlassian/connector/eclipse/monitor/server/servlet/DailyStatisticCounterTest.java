@@ -0,0 +1,99 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.util.Calendar;
+
+import junit.framework.Assert;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+public class DailyStatisticCounterTest {
+
+	private DailyStatisticCounter counter;
+
+	@Before
+	public void setUp() {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			session.createQuery("delete from com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic")
+					.executeUpdate();
+			tx.commit();
+		} finally {
+			session.close();
+		}
+		counter = new DailyStatisticCounter(DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS);
+	}
+
+	private DailyStatistic getStored() {
+		Calendar today = Calendar.getInstance();
+		today.set(Calendar.HOUR_OF_DAY, 0);
+		today.set(Calendar.MINUTE, 0);
+		today.set(Calendar.SECOND, 0);
+		today.set(Calendar.MILLISECOND, 0);
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			return (DailyStatistic) session.get(DailyStatistic.class, today.getTime());
+		} finally {
+			session.close();
+		}
+	}
+
+	@Test
+	public void testConcurrentAdd() throws Exception {
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						counter.add(new DailyStatistic(null, 1, 10, 2, 3));
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		// counted in memory only
+		Assert.assertNull(getStored());
+		Assert.assertEquals(8000, counter.getToday().getAttempts());
+
+		counter.flush();
+		DailyStatistic stored = getStored();
+		Assert.assertEquals(8000, stored.getAttempts());
+		Assert.assertEquals(80000, stored.getEntriesSucceeded());
+		Assert.assertEquals(16000, stored.getEntriesFailed());
+		Assert.assertEquals(24000, stored.getEntriesConflicting());
+		Assert.assertEquals(8000, counter.getToday().getAttempts());
+	}
+
+	@Test
+	public void testFlushAddsToStored() {
+		counter.add(new DailyStatistic(null, 1, 10, 0, 0));
+		counter.flush();
+		counter.add(new DailyStatistic(null, 1, 5, 1, 2));
+		counter.shutdown();
+
+		DailyStatistic stored = getStored();
+		Assert.assertEquals(2, stored.getAttempts());
+		Assert.assertEquals(15, stored.getEntriesSucceeded());
+		Assert.assertEquals(1, stored.getEntriesFailed());
+		Assert.assertEquals(2, stored.getEntriesConflicting());
+
+		// another server adds to the same row
+		DailyStatisticCounter other = new DailyStatisticCounter(DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS);
+		other.add(new DailyStatistic(null, 1, 1, 0, 0));
+		other.flush();
+		Assert.assertEquals(3, getStored().getAttempts());
+		Assert.assertEquals(2, counter.getToday().getAttempts());
+	}
+
+}
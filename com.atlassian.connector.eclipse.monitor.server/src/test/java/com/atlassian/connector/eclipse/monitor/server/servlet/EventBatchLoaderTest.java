@@ -0,0 +1,186 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.fileupload.disk.DiskFileItem;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.mylyn.monitor.core.UserInteractionEvent;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.connector.eclipse.monitor.core.InteractionEvent.Kind;
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+import com.atlassian.connector.eclipse.monitor.server.servlet.UsageDataUtil.UserInteractionEventCallback;
+
+public class EventBatchLoaderTest {
+
+	private final String zipName = "c29dfb31-108f-4d4b-a861-86cabef65054.707263666982297556.zip";
+
+	private final List<UserInteractionEvent> events = new ArrayList<UserInteractionEvent>();
+
+	private Session session;
+
+	@Before
+	public void setUp() throws IOException {
+		FileItem zipItem = new DiskFileItem("", "application/zip", false, zipName, 0xffffff, null);
+		IOUtils.copy(getClass().getClassLoader().getResourceAsStream(zipName), zipItem.getOutputStream());
+		UsageDataUtil.processFile(zipItem, new UserInteractionEventCallback() {
+			public boolean visit(UserInteractionEvent uie) {
+				events.add(uie);
+				return true;
+			}
+		});
+
+		session = HibernateUtil.getSessionFactory().openSession();
+		deleteEvents();
+	}
+
+	@After
+	public void tearDown() {
+		deleteEvents();
+		session.close();
+	}
+
+	private void deleteEvents() {
+		Transaction tx = session.beginTransaction();
+		session.createQuery("delete from org.eclipse.mylyn.monitor.core.UserInteractionEvent").executeUpdate();
+		session.createQuery("delete from com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent")
+				.executeUpdate();
+		tx.commit();
+	}
+
+	private DailyStatistic load(EventBatchLoader<UserInteractionEvent> loader) {
+		for (UserInteractionEvent event : events) {
+			loader.add(event);
+		}
+		return loader.finish();
+	}
+
+	private DailyStatistic load(int eventsPerTransaction) {
+		return load(EventBatchLoader.createLegacyLoader(session, eventsPerTransaction));
+	}
+
+	private List<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> createEvents(long time, int count) {
+		List<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> events =
+				new ArrayList<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent>(count);
+		for (int i = 0; i < count; i++) {
+			events.add(new com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent(Kind.ACTION,
+					"com.atlassian.connector.eclipse.jira.ui", "action" + (i % 10), null, new Date(time + i * 1000L),
+					"uid" + (i % 3), null));
+		}
+		return events;
+	}
+
+	private DailyStatistic loadNewFormat(List<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> events,
+			int eventsPerTransaction) {
+		EventBatchLoader<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> loader =
+				EventBatchLoader.createLoader(session, eventsPerTransaction);
+		for (com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent event : events) {
+			loader.add(event);
+		}
+		return loader.finish();
+	}
+
+	@Test
+	public void testLoadDuplicates() {
+		DailyStatistic stat = load(EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION);
+		Assert.assertEquals(0, stat.getEntriesFailed());
+		Assert.assertEquals(events.size(), stat.getEntriesSucceeded() + stat.getEntriesConflicting());
+
+		// uploading the same events again stores nothing
+		int stored = stat.getEntriesSucceeded();
+		stat = load(EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION);
+		Assert.assertEquals(0, stat.getEntriesSucceeded());
+		Assert.assertEquals(0, stat.getEntriesFailed());
+		Assert.assertEquals(events.size(), stat.getEntriesConflicting());
+
+		// a different batch size detects the same duplicates
+		stat = load(7);
+		Assert.assertEquals(0, stat.getEntriesSucceeded());
+		Assert.assertEquals(events.size(), stat.getEntriesConflicting());
+		Assert.assertTrue(stored > 0);
+	}
+
+	@Test
+	public void testLoadWhenKeyQueryFails() {
+		EventBatchLoader<UserInteractionEvent> failing = new EventBatchLoader<UserInteractionEvent>(session,
+				EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION) {
+			@Override
+			protected String getKeyQuery() {
+				return "select e.uid from NoSuchEntity e where e.uid in (:uids) and e.date between :from and :to";
+			}
+
+			@Override
+			protected Object[] getKeyValues(UserInteractionEvent uie) {
+				return new Object[] { uie.getUid(), uie.getDate() };
+			}
+		};
+
+		// the events are stored one at a time instead of being dropped
+		DailyStatistic stat = load(failing);
+		Assert.assertEquals(0, stat.getEntriesFailed());
+		Assert.assertEquals(events.size(), stat.getEntriesSucceeded() + stat.getEntriesConflicting());
+		Assert.assertTrue(stat.getEntriesSucceeded() > 0);
+
+		stat = load(EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION);
+		Assert.assertEquals(0, stat.getEntriesSucceeded());
+		Assert.assertEquals(events.size(), stat.getEntriesConflicting());
+	}
+
+	@Test
+	public void testLoadNewFormat() {
+		// whole seconds, the stored dates are compared with the uploaded ones
+		long time = System.currentTimeMillis() / 1000 * 1000;
+		List<com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent> events = createEvents(time, 260);
+		DailyStatistic stat = loadNewFormat(events, 100);
+		Assert.assertEquals(events.size(), stat.getEntriesSucceeded());
+		Assert.assertEquals(0, stat.getEntriesFailed());
+		Assert.assertEquals(0, stat.getEntriesConflicting());
+
+		// ids are taken from blocks of the pooled sequence and are unique across batches
+		Set<Long> ids = new HashSet<Long>();
+		for (com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent event : events) {
+			Assert.assertNotNull(event.getId());
+			Assert.assertTrue(event.getId().longValue() > 0);
+			ids.add(event.getId());
+		}
+		Assert.assertEquals(events.size(), ids.size());
+
+		// the same events uploaded again are detected as duplicates
+		stat = loadNewFormat(createEvents(time, 200), 30);
+		Assert.assertEquals(0, stat.getEntriesSucceeded());
+		Assert.assertEquals(0, stat.getEntriesFailed());
+		Assert.assertEquals(200, stat.getEntriesConflicting());
+	}
+
+	@Test
+	public void testThroughput() {
+		// a transaction per event is what uploads used to do
+		long start = System.currentTimeMillis();
+		DailyStatistic single = load(1);
+		long singleTime = Math.max(1, System.currentTimeMillis() - start);
+		deleteEvents();
+
+		start = System.currentTimeMillis();
+		DailyStatistic batched = load(EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION);
+		long batchedTime = Math.max(1, System.currentTimeMillis() - start);
+
+		Assert.assertEquals(single.getEntriesSucceeded(), batched.getEntriesSucceeded());
+		System.out.println(String.format("%d events: %d events/s with a transaction per event, "
+				+ "%d events/s with a transaction per %d events", events.size(), events.size() * 1000L / singleTime,
+				events.size() * 1000L / batchedTime, EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION));
+	}
+
+}
@@ -0,0 +1,191 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.DailyStatistic;
+
+public class UploadQueueTest {
+
+	private final String zipName = "c29dfb31-108f-4d4b-a861-86cabef65054.707263666982297556.zip";
+
+	private File directory;
+
+	private UploadQueue queue;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = File.createTempFile("uploadQueue", null);
+		directory.delete();
+		deleteEvents();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (queue != null) {
+			queue.shutdown();
+		}
+		FileUtils.deleteDirectory(directory);
+		deleteEvents();
+	}
+
+	private void deleteEvents() {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			session.createQuery("delete from org.eclipse.mylyn.monitor.core.UserInteractionEvent").executeUpdate();
+			tx.commit();
+		} finally {
+			session.close();
+		}
+	}
+
+	private long countEvents() {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			return ((Number) session.createQuery(
+					"select count(*) from org.eclipse.mylyn.monitor.core.UserInteractionEvent").uniqueResult())
+					.longValue();
+		} finally {
+			session.close();
+		}
+	}
+
+	private void renameEvents(String from, String to) {
+		Session session = HibernateUtil.getSessionFactory().openSession();
+		try {
+			Transaction tx = session.beginTransaction();
+			session.createSQLQuery("alter table " + from + " rename to " + to).executeUpdate();
+			tx.commit();
+		} finally {
+			session.close();
+		}
+	}
+
+	private void spool(String name) throws IOException {
+		File dir = new File(directory, "upload");
+		dir.mkdirs();
+		InputStream in = getClass().getClassLoader().getResourceAsStream(zipName);
+		OutputStream out = new FileOutputStream(new File(dir, name));
+		try {
+			IOUtils.copy(in, out);
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+
+	private void waitForQueue() throws InterruptedException {
+		long timeout = System.currentTimeMillis() + 120 * 1000;
+		while (queue.getQueuedUploads() > 0 && System.currentTimeMillis() < timeout) {
+			Thread.sleep(100);
+		}
+		Assert.assertEquals(0, queue.getQueuedUploads());
+	}
+
+	private UploadQueue createQueue(int maxAttempts, long retryDelay, DailyStatisticCounter statistics) {
+		return new UploadQueue(directory, 1, 10, EventBatchLoader.DEFAULT_EVENTS_PER_TRANSACTION, maxAttempts,
+				retryDelay, statistics);
+	}
+
+	@Test
+	public void testRecoverPendingUploads() throws Exception {
+		// left by a server that stopped before storing the upload
+		spool("0000000000001-1-" + zipName);
+		// left by a server that stopped while spooling
+		spool("0000000000002-2-" + zipName + ".part");
+
+		queue = createQueue(UploadQueue.DEFAULT_MAX_ATTEMPTS, UploadQueue.DEFAULT_RETRY_DELAY_IN_MS,
+				new DailyStatisticCounter(DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS));
+		queue.start();
+		waitForQueue();
+
+		Assert.assertEquals(1, queue.getProcessedUploads());
+		Assert.assertEquals(0, queue.getFailedUploads());
+		Assert.assertEquals(0, new File(directory, "upload").list().length);
+		Assert.assertTrue(countEvents() > 0);
+	}
+
+	@Test
+	public void testRetryFailedUploads() throws Exception {
+		spool("0000000000001-1-" + zipName);
+		DailyStatisticCounter statistics = new DailyStatisticCounter(
+				DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS);
+
+		// the events cannot be stored while the table is missing
+		renameEvents("user_interaction_events", "user_interaction_events_moved");
+		try {
+			queue = createQueue(3, 1000, statistics);
+			queue.start();
+			long timeout = System.currentTimeMillis() + 120 * 1000;
+			while (queue.getRetriedUploads() == 0 && System.currentTimeMillis() < timeout) {
+				Thread.sleep(10);
+			}
+			Assert.assertEquals(1, queue.getRetriedUploads());
+			Assert.assertEquals(1, queue.getQueuedUploads());
+		} finally {
+			renameEvents("user_interaction_events_moved", "user_interaction_events");
+		}
+
+		// stored again without restarting the queue
+		waitForQueue();
+		Assert.assertEquals(1, queue.getProcessedUploads());
+		Assert.assertEquals(0, queue.getFailedUploads());
+		Assert.assertEquals(0, new File(directory, "upload").list().length);
+		Assert.assertTrue(countEvents() > 0);
+
+		// the request is counted once
+		DailyStatistic today = statistics.getToday();
+		Assert.assertEquals(1, today.getAttempts());
+		Assert.assertEquals(0, today.getEntriesFailed());
+		Assert.assertEquals(countEvents(), today.getEntriesSucceeded());
+	}
+
+	@Test
+	public void testMoveUploadsThatKeepFailing() throws Exception {
+		spool("0000000000001-1-" + zipName);
+		DailyStatisticCounter statistics = new DailyStatisticCounter(
+				DailyStatisticCounter.DEFAULT_FLUSH_INTERVAL_IN_MS);
+
+		renameEvents("user_interaction_events", "user_interaction_events_moved");
+		try {
+			queue = createQueue(2, 10, statistics);
+			queue.start();
+			waitForQueue();
+		} finally {
+			renameEvents("user_interaction_events_moved", "user_interaction_events");
+		}
+
+		Assert.assertEquals(0, queue.getProcessedUploads());
+		Assert.assertEquals(1, queue.getRetriedUploads());
+		Assert.assertEquals(1, queue.getFailedUploads());
+		Assert.assertEquals(0, new File(directory, "upload").list().length);
+		Assert.assertEquals(1, new File(directory, "upload-failed").list().length);
+		Assert.assertEquals(1, statistics.getToday().getAttempts());
+		Assert.assertTrue(statistics.getToday().getEntriesFailed() > 0);
+
+		// not stored again when the queue is restarted
+		queue.shutdown();
+		queue = createQueue(2, 10, statistics);
+		queue.start();
+		waitForQueue();
+		Assert.assertEquals(0, queue.getProcessedUploads());
+		Assert.assertEquals(1, new File(directory, "upload-failed").list().length);
+		Assert.assertEquals(0, countEvents());
+	}
+
+}
@@ -1,7 +1,10 @@
 package com.atlassian.connector.eclipse.monitor.server.servlet;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.net.URL;
+import java.util.zip.ZipInputStream;
 
 import junit.framework.Assert;
 
@@ -57,4 +60,24 @@ public class UsageDataUtilTest {
 		Assert.assertEquals(18015, countFiles[0]);
 		
 	}
+	
+	@Test
+	public void testProcessTruncatedStream() throws IOException {
+		ZipInputStream zip = new ZipInputStream(zipItem.getInputStream());
+		Assert.assertNotNull(zip.getNextEntry());
+		byte[] head = new byte[100000];
+		new DataInputStream(zip).readFully(head);
+		zip.close();
+		
+		// events before the truncated one are visited
+		final int[] countFiles = { 0 };
+		UsageDataUtil.processStream(new ByteArrayInputStream(head), new UserInteractionEventCallback() {
+			public boolean visit(UserInteractionEvent uie) {
+				++countFiles[0];
+				return true;
+			}
+		}, "uid");
+		Assert.assertTrue(countFiles[0] > 0);
+		Assert.assertTrue(countFiles[0] < 18015);
+	}
 }
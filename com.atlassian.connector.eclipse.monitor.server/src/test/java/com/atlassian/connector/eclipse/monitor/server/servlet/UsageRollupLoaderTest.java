@@ -0,0 +1,175 @@
+package com.atlassian.connector.eclipse.monitor.server.servlet;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atlassian.connector.eclipse.monitor.core.UserInteractionEvent;
+import com.atlassian.connector.eclipse.monitor.core.InteractionEvent.Kind;
+import com.atlassian.connector.eclipse.monitor.server.HibernateUtil;
+import com.atlassian.connector.eclipse.monitor.server.model.UsageRollup;
+
+public class UsageRollupLoaderTest {
+
+	private Session session;
+
+	@Before
+	public void setUp() {
+		session = HibernateUtil.getSessionFactory().openSession();
+		deleteRollups();
+	}
+
+	@After
+	public void tearDown() {
+		deleteRollups();
+		session.close();
+	}
+
+	private void deleteRollups() {
+		Transaction tx = session.beginTransaction();
+		session.createQuery("delete from " + UsageRollupLoader.WEEKLY_USAGE).executeUpdate();
+		session.createQuery("delete from " + UsageRollupLoader.MONTHLY_USAGE).executeUpdate();
+		session.createQuery("delete from com.atlassian.connector.eclipse.monitor.server.model.FirstReport")
+				.executeUpdate();
+		tx.commit();
+	}
+
+	private static Date date(int year, int month, int day) {
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set(year, month, day, 12, 0);
+		return calendar.getTime();
+	}
+
+	private static UserInteractionEvent action(String uid, String pluginId, Date date) {
+		return new UserInteractionEvent(Kind.ACTION, pluginId, "action", null, date, uid, null);
+	}
+
+	private static UserInteractionEvent optIn(String uid, boolean enabled, Date date) {
+		return new UserInteractionEvent(Kind.PREFERENCE, UsageRollupLoader.MONITOR_PLUGIN_ID,
+				UsageRollupLoader.MONITORING_ENABLED, String.valueOf(enabled), date, uid, null);
+	}
+
+	private void load(UserInteractionEvent... events) {
+		UsageRollupLoader loader = new UsageRollupLoader();
+		for (UserInteractionEvent event : events) {
+			loader.add(event);
+		}
+		loader.finish(session);
+	}
+
+	private List<String[]> getReport(String name) {
+		Transaction tx = session.beginTransaction();
+		try {
+			return new UsageReports(session).getReport(name);
+		} finally {
+			tx.commit();
+		}
+	}
+
+	@Test
+	public void testGetWeek() {
+		// Sunday belongs to the week starting on the Monday before
+		Calendar week = Calendar.getInstance();
+		week.setTime(UsageRollupLoader.getWeek(date(2010, Calendar.MARCH, 7)));
+		Assert.assertEquals(Calendar.MARCH, week.get(Calendar.MONTH));
+		Assert.assertEquals(1, week.get(Calendar.DAY_OF_MONTH));
+		Assert.assertEquals(0, week.get(Calendar.HOUR_OF_DAY));
+		Assert.assertEquals(UsageRollupLoader.getWeek(date(2010, Calendar.MARCH, 1)),
+				UsageRollupLoader.getWeek(date(2010, Calendar.MARCH, 7)));
+		// weeks count for the month they start in
+		Assert.assertEquals(UsageRollupLoader.getMonth(date(2010, Calendar.MARCH, 29)),
+				UsageRollupLoader.getMonth(UsageRollupLoader.getWeek(date(2010, Calendar.APRIL, 2))));
+	}
+
+	@Test
+	public void testClassify() {
+		UsageRollup rollup = new UsageRollup("uid", new Date());
+		UsageRollupLoader.classify(action("uid", "com.atlassian.connector.eclipse.jira.ui", new Date()), rollup);
+		Assert.assertEquals(1, rollup.getAtlassian());
+		Assert.assertEquals(1, rollup.getJira());
+		Assert.assertEquals(0, rollup.getBamboo());
+
+		rollup = new UsageRollup("uid", new Date());
+		UsageRollupLoader.classify(action("uid", "org.eclipse.ui", new Date()), rollup);
+		Assert.assertEquals(0, rollup.getAtlassian());
+
+		rollup = new UsageRollup("uid", new Date());
+		UsageRollupLoader.classify(optIn("uid", false, new Date()), rollup);
+		Assert.assertEquals(0, rollup.getOptin());
+		Assert.assertEquals(1, rollup.getOptout());
+	}
+
+	@Test
+	public void testReports() {
+		Date january = date(2010, Calendar.JANUARY, 13);
+		Date february = date(2010, Calendar.FEBRUARY, 10);
+		load(action("a", "com.atlassian.connector.eclipse.jira.ui", january), optIn("a", true, january),
+				action("b", "org.eclipse.ui", february));
+		load(action("a", "com.atlassian.connector.eclipse.bamboo.ui", february), optIn("b", false, february));
+
+		List<String[]> installations = getReport(UsageReports.INSTALLATIONS);
+		Assert.assertEquals(3, installations.size());
+		Assert.assertEquals("2010-01", installations.get(1)[0]);
+		Assert.assertEquals("1", installations.get(1)[1]);
+		Assert.assertEquals("2010-02", installations.get(2)[0]);
+		Assert.assertEquals("1", installations.get(2)[1]);
+		Assert.assertEquals("2", installations.get(2)[2]);
+
+		List<String[]> optIns = getReport(UsageReports.OPT_INS);
+		Assert.assertEquals(3, optIns.size());
+		Assert.assertEquals("100.0%", optIns.get(1)[1]);
+		Assert.assertEquals("0.0%", optIns.get(2)[1]);
+		Assert.assertEquals("100.0%", optIns.get(2)[2]);
+
+		List<String[]> existing = getReport(UsageReports.FEATURE_USAGE_EXISTING);
+		Assert.assertEquals(3, existing.size());
+		// logged ever, logged this month, used any (logged), used any, JIRA, Crucible, Bamboo
+		Assert.assertEquals("2", existing.get(2)[1]);
+		Assert.assertEquals("2", existing.get(2)[2]);
+		Assert.assertEquals("1", existing.get(2)[4]);
+		Assert.assertEquals("50.0%", existing.get(2)[5]);
+		Assert.assertEquals("0.0%", existing.get(2)[6]);
+		Assert.assertEquals("50.0%", existing.get(2)[8]);
+
+		List<String[]> newUsers = getReport(UsageReports.FEATURE_USAGE_NEW);
+		Assert.assertEquals(3, newUsers.size());
+		Assert.assertEquals("1", newUsers.get(2)[1]);
+		Assert.assertEquals("0", newUsers.get(2)[3]);
+
+		Assert.assertNull(getReport("unknown"));
+	}
+
+	@Test
+	public void testLoadAgain() {
+		Date january = date(2010, Calendar.JANUARY, 13);
+		Date february = date(2010, Calendar.FEBRUARY, 10);
+		load(action("a", "com.atlassian.connector.eclipse.jira.ui", february));
+		List<String[]> expected = getReport(UsageReports.FEATURE_USAGE_EXISTING);
+
+		// storing the same upload again does not change the rollups
+		load(action("a", "com.atlassian.connector.eclipse.jira.ui", february));
+		List<String[]> actual = getReport(UsageReports.FEATURE_USAGE_EXISTING);
+		Assert.assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			Assert.assertTrue(Arrays.equals(expected.get(i), actual.get(i)));
+		}
+
+		// an upload with older events moves the first report backwards
+		load(action("a", "org.eclipse.ui", january));
+		List<String[]> installations = getReport(UsageReports.INSTALLATIONS);
+		Assert.assertEquals(2, installations.size());
+		Assert.assertEquals("2010-01", installations.get(1)[0]);
+		Assert.assertEquals("1", installations.get(1)[2]);
+	}
+
+}
@@ -0,0 +1,18 @@
+-- Prepares the events table for the pooled id generator of the new-format events (see
+-- com/atlassian/connector/eclipse/monitor/core/package.hbm.xml). Run once before deploying a server that uses it.
+--
+-- The generator takes one value from events_id_seq per 50 events and uses the 50 ids up to that value, so the
+-- sequence has to be incremented by 50. Ids are widened to bigint since the sequence now advances 50 times faster.
+
+begin;
+
+lock table events in exclusive mode;
+
+alter table events alter column id type bigint;
+
+alter sequence events_id_seq increment by 50;
+
+-- the 50 ids below the next value of the sequence must not be in use yet
+select setval('events_id_seq', (select coalesce(max(id), 0) + 50 from events));
+
+commit;
@@ -0,0 +1,85 @@
+-- Creates the rollups the monitor server maintains while storing uploads (see UsageRollupLoader) and fills them
+-- from the stored events. Run once before deploying a server that maintains them. The reports are then available
+-- at /report/opt-ins, /report/feature-usage-existing, /report/feature-usage-new and /report/installations.
+
+create table usage_by_weeks (
+    uid varchar(255) not null,
+    week_start date not null,
+    atlassian integer not null,
+    jira integer not null,
+    crucible integer not null,
+    bamboo integer not null,
+    fisheye integer not null,
+    optin integer not null,
+    optout integer not null,
+    primary key (uid, week_start)
+);
+
+create table usage_by_months (
+    uid varchar(255) not null,
+    month_start date not null,
+    atlassian integer not null,
+    jira integer not null,
+    crucible integer not null,
+    bamboo integer not null,
+    fisheye integer not null,
+    optin integer not null,
+    optout integer not null,
+    primary key (uid, month_start)
+);
+
+create table usage_first_reports (
+    uid varchar(255) not null primary key,
+    week_start date not null,
+    month_start date not null
+);
+
+create index usage_first_reports_month on usage_first_reports (month_start);
+
+create or replace temporary view usage_events as
+select
+    uid,
+    date_trunc('week', date)::date as week_start,
+    case when kind in ('action', 'job') and plugin_id like '%.jira%' then 1 else 0 end as jira,
+    case when kind in ('action', 'job') and plugin_id like '%.crucible%' then 1 else 0 end as crucible,
+    case when kind in ('action', 'job') and plugin_id like '%.bamboo%' then 1 else 0 end as bamboo,
+    case when kind in ('action', 'job') and plugin_id like '%.fisheye%' then 1 else 0 end as fisheye,
+    case when kind = 'preference' and plugin_id = 'com.atlassian.connector.eclipse.monitor.core'
+        and event_id = 'monitoring.enabled' and lower(details) = 'true' then 1 else 0 end as optin,
+    case when kind = 'preference' and plugin_id = 'com.atlassian.connector.eclipse.monitor.core'
+        and event_id = 'monitoring.enabled' and lower(coalesce(details, '')) <> 'true' then 1 else 0 end as optout
+from events;
+
+insert into usage_by_weeks (uid, week_start, atlassian, jira, crucible, bamboo, fisheye, optin, optout)
+select
+    uid,
+    week_start,
+    max(greatest(jira, crucible, bamboo, fisheye)),
+    max(jira),
+    max(crucible),
+    max(bamboo),
+    max(fisheye),
+    max(optin),
+    max(optout)
+from usage_events
+group by uid, week_start;
+
+-- weeks count for the month they start in
+insert into usage_by_months (uid, month_start, atlassian, jira, crucible, bamboo, fisheye, optin, optout)
+select
+    uid,
+    date_trunc('month', week_start)::date,
+    max(atlassian),
+    max(jira),
+    max(crucible),
+    max(bamboo),
+    max(fisheye),
+    max(optin),
+    max(optout)
+from usage_by_weeks
+group by uid, date_trunc('month', week_start);
+
+insert into usage_first_reports (uid, week_start, month_start)
+select uid, min(week_start), date_trunc('month', min(week_start))::date
+from usage_by_weeks
+group by uid;